@@ -0,0 +1,399 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import android.content.Context;
+import android.os.Build;
+import android.text.Html;
+import android.util.Log;
+import android.util.SparseIntArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settingslib.license.LicenseHtmlLoaderCompat;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Paged copy of the device license HTML, indexed by the files listed in its table of contents.
+ *
+ * <p>The combined license document is several megabytes large. The pages are generated once per
+ * build in a single streaming pass over the document, recording where the license section of
+ * every listed file starts, so that a single section can be handed to the viewer without loading
+ * the whole document.
+ */
+final class LicenseHtmlIndex {
+    private static final String TAG = "LicenseHtmlIndex";
+
+    @VisibleForTesting
+    static final int VERSION = 1;
+    @VisibleForTesting
+    static final String DIRECTORY = "license_pages";
+    private static final String PAGES_FILE = "pages.html";
+    private static final String INDEX_FILE = "index";
+    private static final String SECTION_FILE_PREFIX = "section_";
+    private static final String SECTION_FILE_SUFFIX = ".html";
+    private static final String SYSTEM_LICENSE_PATH = "/system/etc/NOTICE.html.gz";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final Pattern TOC_ENTRY =
+            Pattern.compile("href=\"#id(\\d+)\"[^>]*>([^<]*)</a>");
+    private static final Pattern SECTION_START = Pattern.compile("\\bid=\"id(\\d+)\"");
+
+    private static final AtomicBoolean sGenerating = new AtomicBoolean();
+
+    private final File mDirectory;
+    private final long mHeadEnd;
+    private final long mPrologueStart;
+    private final long mPrologueEnd;
+    // Start offset of every section, followed by the length of the pages file.
+    private final long[] mSectionBounds;
+    private final List<String> mEntryNames;
+    private final int[] mEntrySections;
+
+    private LicenseHtmlIndex(File directory, long headEnd, long prologueStart, long prologueEnd,
+            long[] sectionBounds, List<String> entryNames, int[] entrySections) {
+        mDirectory = directory;
+        mHeadEnd = headEnd;
+        mPrologueStart = prologueStart;
+        mPrologueEnd = prologueEnd;
+        mSectionBounds = sectionBounds;
+        mEntryNames = Collections.unmodifiableList(entryNames);
+        mEntrySections = entrySections;
+    }
+
+    /** Returns the names of the indexed files, in the order of the table of contents. */
+    @NonNull
+    List<String> getEntryNames() {
+        return mEntryNames;
+    }
+
+    /**
+     * Returns a standalone HTML file holding only the license section of entry {@code position},
+     * creating it from the pages if needed.
+     */
+    @WorkerThread
+    @NonNull
+    File getSectionFile(int position) throws IOException {
+        final int section = mEntrySections[position];
+        final File file = new File(mDirectory,
+                SECTION_FILE_PREFIX + section + SECTION_FILE_SUFFIX);
+        if (file.exists()) {
+            return file;
+        }
+        final File tempFile = File.createTempFile(SECTION_FILE_PREFIX, null, mDirectory);
+        try (RandomAccessFile pages = new RandomAccessFile(new File(mDirectory, PAGES_FILE), "r");
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            copyRange(pages, 0, mHeadEnd, out, buffer);
+            copyRange(pages, mPrologueStart, mPrologueEnd, out, buffer);
+            copyRange(pages, mSectionBounds[section], mSectionBounds[section + 1], out, buffer);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Failed to write " + file);
+        }
+        return file;
+    }
+
+    /** Returns whether pages were generated, without checking if they are still current. */
+    static boolean exists(@NonNull Context context) {
+        return new File(getDirectory(context), INDEX_FILE).exists();
+    }
+
+    /** Loads the pages generated for the current build, or returns null if there are none. */
+    @WorkerThread
+    @Nullable
+    static LicenseHtmlIndex load(@NonNull Context context) {
+        final File directory = getDirectory(context);
+        final File indexFile = new File(directory, INDEX_FILE);
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile), BUFFER_SIZE))) {
+            if (in.readInt() != VERSION || !Build.FINGERPRINT.equals(in.readUTF())) {
+                return null;
+            }
+            final long headEnd = in.readLong();
+            final long prologueStart = in.readLong();
+            final long prologueEnd = in.readLong();
+            final long[] sectionBounds = new long[in.readInt()];
+            for (int i = 0; i < sectionBounds.length; i++) {
+                sectionBounds[i] = in.readLong();
+            }
+            final int entryCount = in.readInt();
+            final List<String> entryNames = new ArrayList<>(entryCount);
+            final int[] entrySections = new int[entryCount];
+            for (int i = 0; i < entryCount; i++) {
+                entryNames.add(in.readUTF());
+                entrySections[i] = in.readInt();
+            }
+            return new LicenseHtmlIndex(directory, headEnd, prologueStart, prologueEnd,
+                    sectionBounds, entryNames, entrySections);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read the license index", e);
+            return null;
+        }
+    }
+
+    /**
+     * Generates the pages of the current build in the background unless they are already there.
+     *
+     * @param source the license HTML to page, or null to use the one of the system image or to
+     *               generate it from the license XML files of the device
+     */
+    static void generateAsync(@NonNull Context context, @Nullable File source) {
+        if (!sGenerating.compareAndSet(false, true)) {
+            return;
+        }
+        final Context appContext = context.getApplicationContext();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            try {
+                if (load(appContext) == null) {
+                    generate(appContext, openSource(appContext, source));
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to page the license HTML", e);
+            } finally {
+                sGenerating.set(false);
+            }
+        });
+    }
+
+    @WorkerThread
+    @Nullable
+    private static InputStream openSource(Context context, @Nullable File source)
+            throws IOException {
+        if (source == null) {
+            final File systemFile = new File(SYSTEM_LICENSE_PATH);
+            source = systemFile.length() != 0
+                    ? systemFile
+                    : new LicenseHtmlLoaderCompat(context).loadInBackground();
+            if (source == null) {
+                return null;
+            }
+        }
+        final InputStream in = new FileInputStream(source);
+        return source.getName().endsWith(".gz") ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+    }
+
+    /**
+     * Pages the license HTML read from {@code html} and replaces the current pages with the
+     * result. Closes {@code html}.
+     */
+    @WorkerThread
+    @VisibleForTesting
+    static void generate(@NonNull Context context, @Nullable InputStream html)
+            throws IOException {
+        if (html == null) {
+            return;
+        }
+        final File directory = getDirectory(context);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            html.close();
+            throw new IOException("Failed to create " + directory);
+        }
+        final File pagesFile = File.createTempFile(PAGES_FILE, null, directory);
+        final File indexFile = File.createTempFile(INDEX_FILE, null, directory);
+        try {
+            final Parser parser = new Parser();
+            try (InputStream in = new BufferedInputStream(html, BUFFER_SIZE);
+                 OutputStream out = new BufferedOutputStream(
+                         new FileOutputStream(pagesFile), BUFFER_SIZE)) {
+                parser.parse(in, out);
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(indexFile), BUFFER_SIZE))) {
+                parser.writeIndex(out);
+            }
+            // Drop the previous pages, the index goes last so it only refers to complete pages.
+            final File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (!file.equals(pagesFile) && !file.equals(indexFile)) {
+                        file.delete();
+                    }
+                }
+            }
+            if (!pagesFile.renameTo(new File(directory, PAGES_FILE))
+                    || !indexFile.renameTo(new File(directory, INDEX_FILE))) {
+                throw new IOException("Failed to store the license pages");
+            }
+        } finally {
+            pagesFile.delete();
+            indexFile.delete();
+        }
+    }
+
+    private static File getDirectory(Context context) {
+        return new File(context.getCacheDir(), DIRECTORY);
+    }
+
+    private static void copyRange(RandomAccessFile in, long start, long end, OutputStream out,
+            byte[] buffer) throws IOException {
+        in.seek(start);
+        long remaining = end - start;
+        while (remaining > 0) {
+            final int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new IOException("Truncated license pages");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    /** Single pass over the license HTML that copies it and records the section offsets. */
+    private static final class Parser {
+        private final List<String> mTocNames = new ArrayList<>();
+        private final List<Integer> mTocIds = new ArrayList<>();
+        private final SparseIntArray mSectionOfId = new SparseIntArray();
+        private long[] mSectionBounds = new long[64];
+        private int mSectionCount;
+        private long mHeadEnd;
+        private long mPrologueStart;
+        private long mLength;
+
+        void parse(InputStream in, OutputStream out) throws IOException {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            byte[] line = new byte[256];
+            int lineLength = 0;
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+                    final int count = i + 1 - lineStart;
+                    if (lineLength == 0) {
+                        onLine(new String(buffer, lineStart, count, StandardCharsets.UTF_8),
+                                count);
+                    } else {
+                        line = append(line, lineLength, buffer, lineStart, count);
+                        lineLength += count;
+                        onLine(new String(line, 0, lineLength, StandardCharsets.UTF_8),
+                                lineLength);
+                        lineLength = 0;
+                    }
+                    lineStart = i + 1;
+                }
+                // Carry the unterminated end of the block over to the next one.
+                line = append(line, lineLength, buffer, lineStart, read - lineStart);
+                lineLength += read - lineStart;
+            }
+            if (lineLength > 0) {
+                onLine(new String(line, 0, lineLength, StandardCharsets.UTF_8), lineLength);
+            }
+        }
+
+        private static byte[] append(byte[] line, int lineLength, byte[] buffer, int start,
+                int count) {
+            if (lineLength + count > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + count));
+            }
+            System.arraycopy(buffer, start, line, lineLength, count);
+            return line;
+        }
+
+        private void onLine(String line, int byteLength) {
+            final long start = mLength;
+            mLength += byteLength;
+            if (mSectionCount == 0) {
+                if (mHeadEnd == 0 && line.contains("<body")) {
+                    mHeadEnd = mLength;
+                    mPrologueStart = mLength;
+                }
+                if (line.contains("href=\"#id")) {
+                    final Matcher matcher = TOC_ENTRY.matcher(line);
+                    while (matcher.find()) {
+                        mTocIds.add(Integer.parseInt(matcher.group(1)));
+                        mTocNames.add(matcher.group(2));
+                    }
+                    mPrologueStart = mLength;
+                }
+            }
+            if (line.contains("id=\"id")) {
+                final Matcher matcher = SECTION_START.matcher(line);
+                if (matcher.find()) {
+                    if (mSectionCount == mSectionBounds.length) {
+                        mSectionBounds = Arrays.copyOf(mSectionBounds, mSectionCount * 2);
+                    }
+                    mSectionOfId.put(Integer.parseInt(matcher.group(1)), mSectionCount);
+                    mSectionBounds[mSectionCount++] = start;
+                }
+            }
+        }
+
+        void writeIndex(DataOutputStream out) throws IOException {
+            out.writeInt(VERSION);
+            out.writeUTF(Build.FINGERPRINT);
+            out.writeLong(mHeadEnd);
+            out.writeLong(mPrologueStart);
+            out.writeLong(mSectionCount > 0 ? mSectionBounds[0] : mLength);
+            out.writeInt(mSectionCount + 1);
+            for (int i = 0; i < mSectionCount; i++) {
+                out.writeLong(mSectionBounds[i]);
+            }
+            out.writeLong(mLength);
+
+            int entryCount = 0;
+            for (int i = 0; i < mTocIds.size(); i++) {
+                if (mSectionOfId.indexOfKey(mTocIds.get(i)) >= 0) {
+                    entryCount++;
+                }
+            }
+            out.writeInt(entryCount);
+            for (int i = 0; i < mTocIds.size(); i++) {
+                final int section = mSectionOfId.get(mTocIds.get(i), -1);
+                if (section >= 0) {
+                    out.writeUTF(Html.fromHtml(mTocNames.get(i), Html.FROM_HTML_MODE_LEGACY)
+                            .toString().trim());
+                    out.writeInt(section);
+                }
+            }
+        }
+    }
+}
@@ -24,6 +24,8 @@ import android.util.FeatureFlagUtils;
 
 import com.android.settings.activityembedding.ActivityEmbeddingRulesController;
 import com.android.settings.activityembedding.ActivityEmbeddingUtils;
+import com.android.settings.applications.PackageSnapshot;
+import com.android.settings.core.AvailabilityStatusCache;
 import com.android.settings.core.instrumentation.ElapsedTimeUtils;
 import com.android.settings.homepage.SettingsHomepageActivity;
 import com.android.settings.spa.SettingsSpaEnvironment;
@@ -38,6 +40,8 @@ import java.lang.ref.WeakReference;
 public class SettingsApplication extends Application {
 
     private WeakReference<SettingsHomepageActivity> mHomeActivity = new WeakReference<>(null);
+    private AvailabilityStatusCache mAvailabilityStatusCache;
+    private PackageSnapshot mPackageSnapshot;
 
     @Override
     public void onCreate() {
@@ -78,10 +82,31 @@ public class SettingsApplication extends Application {
         return mHomeActivity.get();
     }
 
+    /** Returns the availability status cache of the preference controllers. */
+    public synchronized AvailabilityStatusCache getAvailabilityStatusCache() {
+        if (mAvailabilityStatusCache == null) {
+            mAvailabilityStatusCache = new AvailabilityStatusCache(this);
+        }
+        return mAvailabilityStatusCache;
+    }
+
+    /** Returns the snapshot of the installed packages shared by the settings pages. */
+    public synchronized PackageSnapshot getPackageSnapshot() {
+        if (mPackageSnapshot == null) {
+            mPackageSnapshot = new PackageSnapshot(this);
+        }
+        return mPackageSnapshot;
+    }
+
     @Override
     public void onTrimMemory(int level) {
         super.onTrimMemory(level);
         AppIconCacheManager.getInstance().trimMemory(level);
+        synchronized (this) {
+            if (mPackageSnapshot != null) {
+                mPackageSnapshot.onTrimMemory(level);
+            }
+        }
     }
 
     private class DeviceProvisionedObserver extends ContentObserver {
@@ -17,6 +17,7 @@ package com.android.settings;
 import static android.content.pm.PackageManager.FEATURE_ETHERNET;
 import static android.content.pm.PackageManager.FEATURE_WIFI;
 
+import android.app.Application;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
@@ -104,6 +105,7 @@ public class SettingsDumpService extends Service {
                 Log.w(TAG, "exception in dump: ", e);
             }
             pw.println(dump);
+            dumpAvailabilityStatusCache(pw);
             pw.flush();
             pw.decreaseIndent();
         } else {
@@ -211,6 +213,13 @@ public class SettingsDumpService extends Service {
         return obj;
     }
 
+    private void dumpAvailabilityStatusCache(IndentingPrintWriter writer) {
+        final Application application = getApplication();
+        if (application instanceof SettingsApplication) {
+            ((SettingsApplication) application).getAvailabilityStatusCache().dump(writer);
+        }
+    }
+
     private void dumpMobileNetworkSettings(IndentingPrintWriter writer) {
         MobileNetworkRepository.getInstance(this).dump(writer);
     }
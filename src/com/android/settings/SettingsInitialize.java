@@ -51,8 +51,9 @@ import java.util.List;
  * Listens to {@link Intent.ACTION_PRE_BOOT_COMPLETED} and {@link Intent.ACTION_USER_INITIALIZED}
  * performs setup steps for a managed profile (disables the launcher icon of the Settings app,
  * adds cross-profile intent filters for the appropriate Settings activities), disables the
- * webview setting for non-admin users, updates the intent flags for any existing shortcuts and
- * enables DeepLinkHomepageActivity for large screen devices.
+ * webview setting for non-admin users, updates the intent flags for any existing shortcuts,
+ * enables DeepLinkHomepageActivity for large screen devices and pages the license HTML after a
+ * system update.
  */
 public class SettingsInitialize extends BroadcastReceiver {
     private static final String TAG = "Settings";
@@ -70,6 +71,10 @@ public class SettingsInitialize extends BroadcastReceiver {
         webviewSettingSetup(context, pm, userInfo);
         ThreadUtils.postOnBackgroundThread(() -> refreshExistingShortcuts(context));
         enableTwoPaneDeepLinkActivityIfNecessary(pm, context);
+        if (Intent.ACTION_PRE_BOOT_COMPLETED.equals(broadcast.getAction())) {
+            // The license HTML may have changed with the update, page it before it is opened.
+            LicenseHtmlIndex.generateAsync(context, null /* source */);
+        }
     }
 
     private void managedProfileSetup(Context context, final PackageManager pm, Intent broadcast,
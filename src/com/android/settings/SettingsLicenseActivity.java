@@ -22,6 +22,8 @@ import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
 import android.widget.Toast;
 
 import androidx.annotation.VisibleForTesting;
@@ -31,11 +33,16 @@ import androidx.loader.app.LoaderManager;
 import androidx.loader.content.Loader;
 
 import com.android.settingslib.license.LicenseHtmlLoaderCompat;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * The "dialog" that shows from "License" in the Settings app.
+ *
+ * <p>Once the license HTML has been paged by {@link LicenseHtmlIndex}, the files it covers are
+ * listed right away and only the license section of the selected file is handed to the viewer.
  */
 public class SettingsLicenseActivity extends FragmentActivity implements
             LoaderManager.LoaderCallbacks<File> {
@@ -49,14 +56,69 @@ public class SettingsLicenseActivity extends FragmentActivity implements
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
+        if (LicenseHtmlIndex.exists(this)) {
+            showLicenseList();
+        } else {
+            showLicenseHtml();
+        }
+    }
+
+    private void showLicenseHtml() {
         File file = new File(LICENSE_PATH);
         if (isFileValid(file)) {
-            showHtmlFromUri(Uri.fromFile(file));
+            showHtmlFromUri(Uri.fromFile(file), true /* finish */);
+            LicenseHtmlIndex.generateAsync(this, file);
         } else {
             showHtmlFromDefaultXmlFiles();
         }
     }
 
+    private void showLicenseList() {
+        final ListView listView = new ListView(this);
+        listView.setFastScrollEnabled(true);
+        setContentView(listView);
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final LicenseHtmlIndex index = LicenseHtmlIndex.load(this);
+            ThreadUtils.postOnMainThread(() -> {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                if (index == null) {
+                    // Paged for a previous build, show the whole document meanwhile.
+                    showLicenseHtml();
+                    return;
+                }
+                listView.setAdapter(new ArrayAdapter<>(this,
+                        android.R.layout.simple_list_item_1, index.getEntryNames()));
+                listView.setOnItemClickListener(
+                        (parent, view, position, id) -> showLicenseSection(index, position));
+            });
+        });
+    }
+
+    private void showLicenseSection(LicenseHtmlIndex index, int position) {
+        ThreadUtils.postOnBackgroundThread(() -> {
+            File sectionFile;
+            try {
+                sectionFile = index.getSectionFile(position);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to extract license section", e);
+                sectionFile = null;
+            }
+            final File file = sectionFile;
+            ThreadUtils.postOnMainThread(() -> {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                if (file != null) {
+                    showHtmlFromUri(getUriFromGeneratedHtmlFile(file), false /* finish */);
+                } else {
+                    showErrorAndFinish();
+                }
+            });
+        });
+    }
+
     @Override
     public Loader<File> onCreateLoader(int id, Bundle args) {
         return new LicenseHtmlLoaderCompat(this);
@@ -83,14 +145,15 @@ public class SettingsLicenseActivity extends FragmentActivity implements
 
     private void showGeneratedHtmlFile(File generatedHtmlFile) {
         if (generatedHtmlFile != null) {
-            showHtmlFromUri(getUriFromGeneratedHtmlFile(generatedHtmlFile));
+            showHtmlFromUri(getUriFromGeneratedHtmlFile(generatedHtmlFile), true /* finish */);
+            LicenseHtmlIndex.generateAsync(this, generatedHtmlFile);
         } else {
             Log.e(TAG, "Failed to generate.");
             showErrorAndFinish();
         }
     }
 
-    private void showHtmlFromUri(Uri uri) {
+    private void showHtmlFromUri(Uri uri, boolean finish) {
         // Kick off external viewer due to WebView security restrictions; we
         // carefully point it at HTMLViewer, since it offers to decompress
         // before viewing.
@@ -107,7 +170,9 @@ public class SettingsLicenseActivity extends FragmentActivity implements
 
         try {
             startActivity(intent);
-            finish();
+            if (finish) {
+                finish();
+            }
         } catch (ActivityNotFoundException e) {
             Log.e(TAG, "Failed to find viewer", e);
             showErrorAndFinish();
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accessibility;
+
+import android.accessibilityservice.AccessibilityServiceInfo;
+import android.accessibilityservice.AccessibilityShortcutInfo;
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ComponentInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.content.res.Configuration;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.UserHandle;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.core.content.ContextCompat;
+
+import com.android.settings.R;
+import com.android.settings.Utils;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Process wide cache of the adaptive icons of accessibility services and shortcut activities,
+ * shared by the accessibility screens so each icon is only loaded from its package once.
+ *
+ * <p>Icons are keyed by component, version code, density and UI mode, so an updated app or a
+ * configuration change gets a new entry. The icons of a package are also dropped as soon as it
+ * changes or goes away.
+ */
+public final class AccessibilityIconCache {
+
+    private static final String TAG = "AccessibilityIconCache";
+
+    @VisibleForTesting
+    static final int MAX_ENTRIES = 128;
+
+    private static AccessibilityIconCache sInstance;
+
+    private final LruCache<Key, Drawable.ConstantState> mIcons = new LruCache<>(MAX_ENTRIES);
+
+    @VisibleForTesting
+    final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final Uri data = intent.getData();
+            if (data != null) {
+                invalidatePackage(data.getSchemeSpecificPart());
+            } else {
+                clear();
+            }
+        }
+    };
+
+    /** Returns the shared instance, which drops the icons of packages as they change. */
+    public static synchronized AccessibilityIconCache getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new AccessibilityIconCache();
+            sInstance.startListening(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    AccessibilityIconCache() {
+    }
+
+    /** Returns the cached icon of {@code info}, or null if it has to be loaded. */
+    @Nullable
+    public Drawable getCachedIcon(@NonNull Context context, @NonNull ComponentInfo info) {
+        final Drawable.ConstantState cached = mIcons.get(newKey(context, info));
+        return cached != null ? cached.newDrawable(context.getResources()) : null;
+    }
+
+    /**
+     * Returns the adaptive icon of {@code info}, using {@code iconLoader} to load it from its
+     * package if it is not cached yet.
+     *
+     * @param iconLoader loads the raw icon, or returns null to use the generic accessibility icon
+     */
+    @WorkerThread
+    @NonNull
+    public Drawable getIcon(@NonNull Context context, @NonNull ComponentInfo info,
+            @NonNull Supplier<Drawable> iconLoader) {
+        final Drawable cached = getCachedIcon(context, info);
+        if (cached != null) {
+            return cached;
+        }
+
+        Drawable icon = iconLoader.get();
+        if (icon == null) {
+            icon = ContextCompat.getDrawable(context, R.drawable.ic_accessibility_generic);
+        }
+        final Drawable adaptiveIcon = Utils.getAdaptiveIcon(context, icon, Color.WHITE);
+        final Drawable.ConstantState state = adaptiveIcon.getConstantState();
+        if (state != null) {
+            mIcons.put(newKey(context, info), state);
+        }
+        return adaptiveIcon;
+    }
+
+    /** Returns the icon of an accessibility service, loading it if it is not cached yet. */
+    @WorkerThread
+    @NonNull
+    public Drawable getIcon(@NonNull Context context, @NonNull AccessibilityServiceInfo info) {
+        final ResolveInfo resolveInfo = info.getResolveInfo();
+        final PackageManager packageManager = context.getPackageManager();
+        return getIcon(context, resolveInfo.serviceInfo,
+                () -> resolveInfo.getIconResource() == 0
+                        ? null : resolveInfo.loadIcon(packageManager));
+    }
+
+    /** Returns the icon of an accessibility shortcut, loading it if it is not cached yet. */
+    @WorkerThread
+    @NonNull
+    public Drawable getIcon(@NonNull Context context, @NonNull AccessibilityShortcutInfo info) {
+        final ActivityInfo activityInfo = info.getActivityInfo();
+        final PackageManager packageManager = context.getPackageManager();
+        return getIcon(context, activityInfo,
+                () -> activityInfo.getIconResource() == 0
+                        ? null : activityInfo.loadIcon(packageManager));
+    }
+
+    /** Returns the icon to show while the icon of a component is being loaded. */
+    @NonNull
+    public Drawable getPlaceholderIcon(@NonNull Context context) {
+        return Utils.getAdaptiveIcon(context,
+                ContextCompat.getDrawable(context, R.drawable.ic_accessibility_generic),
+                Color.WHITE);
+    }
+
+    /** Drops the cached icons of every component of {@code packageName}. */
+    public void invalidatePackage(@NonNull String packageName) {
+        for (Key key : mIcons.snapshot().keySet()) {
+            if (packageName.equals(key.mComponentName.getPackageName())) {
+                mIcons.remove(key);
+            }
+        }
+    }
+
+    /** Drops every cached icon. */
+    public void clear() {
+        mIcons.evictAll();
+    }
+
+    private void startListening(Context context) {
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        try {
+            context.registerReceiverAsUser(mPackageReceiver, UserHandle.ALL, filter,
+                    null /* broadcastPermission */, null /* scheduler */);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Unable to listen to package changes", e);
+        }
+    }
+
+    private static Key newKey(Context context, ComponentInfo info) {
+        final Configuration config = context.getResources().getConfiguration();
+        return new Key(new ComponentName(info.packageName, info.name),
+                info.applicationInfo != null ? info.applicationInfo.longVersionCode : 0,
+                config.densityDpi, config.uiMode);
+    }
+
+    private static final class Key {
+        private final ComponentName mComponentName;
+        private final long mVersionCode;
+        private final int mDensityDpi;
+        private final int mUiMode;
+
+        Key(ComponentName componentName, long versionCode, int densityDpi, int uiMode) {
+            mComponentName = componentName;
+            mVersionCode = versionCode;
+            mDensityDpi = densityDpi;
+            mUiMode = uiMode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return mVersionCode == other.mVersionCode && mDensityDpi == other.mDensityDpi
+                    && mUiMode == other.mUiMode
+                    && Objects.equals(mComponentName, other.mComponentName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mComponentName, mVersionCode, mDensityDpi, mUiMode);
+        }
+    }
+}
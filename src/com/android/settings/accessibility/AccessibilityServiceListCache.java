@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accessibility;
+
+import android.accessibilityservice.AccessibilityServiceInfo;
+import android.accessibilityservice.AccessibilityShortcutInfo;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.view.accessibility.AccessibilityManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Process wide cache of the installed accessibility services and shortcut activities.
+ *
+ * <p>{@link #load} talks to {@link AccessibilityManager} and {@link PackageManager} and is meant
+ * to be called off the main thread once a snapshot exists; the last loaded {@link Snapshot} is
+ * kept so that the accessibility page can be populated immediately the next time it is opened.
+ */
+public final class AccessibilityServiceListCache {
+
+    private static AccessibilityServiceListCache sInstance;
+
+    @Nullable
+    private volatile Snapshot mSnapshot;
+
+    /** Returns the shared instance. */
+    public static synchronized AccessibilityServiceListCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new AccessibilityServiceListCache();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    AccessibilityServiceListCache() {
+    }
+
+    /** Returns the last loaded snapshot of {@code userId}, or null if there is none. */
+    @Nullable
+    public Snapshot getSnapshot(int userId) {
+        final Snapshot snapshot = mSnapshot;
+        return snapshot != null && snapshot.mUserId == userId ? snapshot : null;
+    }
+
+    /**
+     * Loads a fresh snapshot of {@code userId} and caches it. Only meant for the main thread when
+     * there is no snapshot to show yet.
+     */
+    @NonNull
+    public Snapshot load(@NonNull Context context, int userId) {
+        final AccessibilityManager a11yManager = AccessibilityManager.getInstance(context);
+        final PackageManager packageManager = context.getPackageManager();
+
+        final List<AccessibilityShortcutInfo> installedShortcutList =
+                a11yManager.getInstalledAccessibilityShortcutListAsUser(context, userId);
+
+        // Remove duplicate item here, new a ArrayList to copy unmodifiable list result
+        // (getInstalledAccessibilityServiceList).
+        final List<AccessibilityServiceInfo> installedServiceList = new ArrayList<>(
+                a11yManager.getInstalledAccessibilityServiceList());
+        installedServiceList.removeIf(
+                target -> containsTargetNameInList(packageManager, installedShortcutList, target));
+
+        final Snapshot snapshot = new Snapshot(userId, installedShortcutList,
+                installedServiceList);
+        mSnapshot = snapshot;
+        return snapshot;
+    }
+
+    /** Drops the cached snapshot. */
+    public void invalidate() {
+        mSnapshot = null;
+    }
+
+    private static boolean containsTargetNameInList(PackageManager packageManager,
+            List<AccessibilityShortcutInfo> shortcutInfos,
+            AccessibilityServiceInfo targetServiceInfo) {
+        final ServiceInfo serviceInfo = targetServiceInfo.getResolveInfo().serviceInfo;
+        final String servicePackageName = serviceInfo.packageName;
+        final CharSequence serviceLabel = serviceInfo.loadLabel(packageManager);
+
+        for (int i = 0, count = shortcutInfos.size(); i < count; ++i) {
+            final ActivityInfo activityInfo = shortcutInfos.get(i).getActivityInfo();
+            final String activityPackageName = activityInfo.packageName;
+            final CharSequence activityLabel = activityInfo.loadLabel(packageManager);
+            if (servicePackageName.equals(activityPackageName)
+                    && serviceLabel.equals(activityLabel)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Immutable list of the installed accessibility services and shortcuts of a user. */
+    public static final class Snapshot {
+        private final int mUserId;
+        private final List<AccessibilityShortcutInfo> mShortcuts;
+        private final List<AccessibilityServiceInfo> mServices;
+
+        @VisibleForTesting
+        Snapshot(int userId, List<AccessibilityShortcutInfo> shortcuts,
+                List<AccessibilityServiceInfo> services) {
+            mUserId = userId;
+            mShortcuts = Collections.unmodifiableList(new ArrayList<>(shortcuts));
+            mServices = Collections.unmodifiableList(new ArrayList<>(services));
+        }
+
+        /** Returns the installed accessibility shortcut activities. */
+        public List<AccessibilityShortcutInfo> getShortcuts() {
+            return mShortcuts;
+        }
+
+        /** Returns the installed accessibility services not shadowed by a shortcut. */
+        public List<AccessibilityServiceInfo> getServices() {
+            return mServices;
+        }
+
+        /**
+         * Returns whether {@code other} lists the same components in the same state, in which
+         * case preferences built from either snapshot are identical.
+         */
+        public boolean isSameAs(@Nullable Snapshot other) {
+            if (other == null || other.mUserId != mUserId
+                    || other.mShortcuts.size() != mShortcuts.size()
+                    || other.mServices.size() != mServices.size()) {
+                return false;
+            }
+            for (int i = 0; i < mShortcuts.size(); i++) {
+                final ComponentName name = mShortcuts.get(i).getComponentName();
+                if (!name.equals(other.mShortcuts.get(i).getComponentName())) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < mServices.size(); i++) {
+                final AccessibilityServiceInfo info = mServices.get(i);
+                final AccessibilityServiceInfo otherInfo = other.mServices.get(i);
+                if (!info.getComponentName().equals(otherInfo.getComponentName())
+                        || info.crashed != otherInfo.crashed) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
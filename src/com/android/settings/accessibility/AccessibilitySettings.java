@@ -21,18 +21,17 @@ import android.accessibilityservice.AccessibilityShortcutInfo;
 import android.app.settings.SettingsEnums;
 import android.content.ComponentName;
 import android.content.Context;
-import android.content.pm.ActivityInfo;
-import android.content.pm.ServiceInfo;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.UserHandle;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.ArrayMap;
-import android.view.accessibility.AccessibilityManager;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceCategory;
 
@@ -48,6 +47,7 @@ import com.android.settingslib.RestrictedPreference;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.search.SearchIndexable;
 import com.android.settingslib.search.SearchIndexableRaw;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -154,6 +154,7 @@ public class AccessibilitySettings extends DashboardFragment {
             new ArrayMap<>();
 
     private boolean mNeedPreferencesUpdate = false;
+    private int mServiceListGeneration;
     private boolean mIsForeground = true;
 
     public AccessibilitySettings() {
@@ -334,6 +335,66 @@ public class AccessibilitySettings extends DashboardFragment {
     }
 
     protected void updateServicePreferences() {
+        // Show the last known service list right away, or list the services now on the first
+        // visit, with placeholders for the icons that are not cached yet. The list is refreshed
+        // and the icons are loaded in the background, and the preferences are only rebuilt if
+        // the installed services actually changed.
+        final int generation = ++mServiceListGeneration;
+        final int userId = UserHandle.myUserId();
+        final Context context = getPrefContext();
+        final AccessibilityServiceListCache cache = AccessibilityServiceListCache.getInstance();
+        final AccessibilityServiceListCache.Snapshot cachedSnapshot = cache.getSnapshot(userId);
+        final AccessibilityServiceListCache.Snapshot shownSnapshot =
+                cachedSnapshot != null ? cachedSnapshot : cache.load(context, userId);
+        displayServicePreferences(getInstalledAccessibilityList(context, shownSnapshot));
+
+        ThreadUtils.postOnBackgroundThread(() -> {
+            AccessibilityServiceListCache.Snapshot snapshot = shownSnapshot;
+            if (cachedSnapshot != null) {
+                snapshot = cache.load(context, userId);
+                if (!snapshot.isSameAs(cachedSnapshot)) {
+                    final AccessibilityServiceListCache.Snapshot newSnapshot = snapshot;
+                    ThreadUtils.postOnMainThread(() -> {
+                        if (getActivity() != null && generation == mServiceListGeneration) {
+                            displayServicePreferences(
+                                    getInstalledAccessibilityList(context, newSnapshot));
+                        }
+                    });
+                }
+            }
+            final Map<String, Drawable> icons = loadIcons(context, snapshot);
+            ThreadUtils.postOnMainThread(() -> {
+                if (getActivity() != null && generation == mServiceListGeneration) {
+                    displayIcons(icons);
+                }
+            });
+        });
+    }
+
+    @WorkerThread
+    private static Map<String, Drawable> loadIcons(Context context,
+            AccessibilityServiceListCache.Snapshot snapshot) {
+        final AccessibilityIconCache iconCache = AccessibilityIconCache.getInstance(context);
+        final Map<String, Drawable> icons = new ArrayMap<>();
+        for (AccessibilityShortcutInfo info : snapshot.getShortcuts()) {
+            icons.put(info.getComponentName().flattenToString(), iconCache.getIcon(context, info));
+        }
+        for (AccessibilityServiceInfo info : snapshot.getServices()) {
+            icons.put(info.getComponentName().flattenToString(), iconCache.getIcon(context, info));
+        }
+        return icons;
+    }
+
+    private void displayIcons(Map<String, Drawable> icons) {
+        for (Map.Entry<String, Drawable> entry : icons.entrySet()) {
+            final Preference preference = findPreference(entry.getKey());
+            if (preference != null) {
+                preference.setIcon(entry.getValue());
+            }
+        }
+    }
+
+    private void displayServicePreferences(List<RestrictedPreference> preferenceList) {
         // Since services category is auto generated we have to do a pass
         // to generate it since services can come and go and then based on
         // the global accessibility state to decided whether it is enabled.
@@ -364,9 +425,6 @@ public class AccessibilitySettings extends DashboardFragment {
                 AccessibilityUtils.ACCESSIBILITY_MENU_IN_SYSTEM,
                 mCategoryToPrefCategoryMap.get(CATEGORY_INTERACTION_CONTROL));
 
-        final List<RestrictedPreference> preferenceList = getInstalledAccessibilityList(
-                getPrefContext());
-
         final PreferenceCategory downloadedServicesCategory =
                 mCategoryToPrefCategoryMap.get(CATEGORY_DOWNLOADED_SERVICES);
 
@@ -409,26 +467,17 @@ public class AccessibilitySettings extends DashboardFragment {
         updatePreferenceCategoryVisibility(CATEGORY_SPEECH);
     }
 
-    private List<RestrictedPreference> getInstalledAccessibilityList(Context context) {
-        final AccessibilityManager a11yManager = AccessibilityManager.getInstance(context);
-        final RestrictedPreferenceHelper preferenceHelper = new RestrictedPreferenceHelper(context);
-
-        final List<AccessibilityShortcutInfo> installedShortcutList =
-                a11yManager.getInstalledAccessibilityShortcutListAsUser(context,
-                        UserHandle.myUserId());
-
-        // Remove duplicate item here, new a ArrayList to copy unmodifiable list result
-        // (getInstalledAccessibilityServiceList).
-        final List<AccessibilityServiceInfo> installedServiceList = new ArrayList<>(
-                a11yManager.getInstalledAccessibilityServiceList());
-        installedServiceList.removeIf(
-                target -> containsTargetNameInList(installedShortcutList, target));
+    private static List<RestrictedPreference> getInstalledAccessibilityList(Context context,
+            AccessibilityServiceListCache.Snapshot snapshot) {
+        final RestrictedPreferenceHelper preferenceHelper = new RestrictedPreferenceHelper(context,
+                true /* deferIconLoading */);
 
         final List<RestrictedPreference> activityList =
-                preferenceHelper.createAccessibilityActivityPreferenceList(installedShortcutList);
+                preferenceHelper.createAccessibilityActivityPreferenceList(
+                        snapshot.getShortcuts());
 
         final List<RestrictedPreference> serviceList =
-                preferenceHelper.createAccessibilityServicePreferenceList(installedServiceList);
+                preferenceHelper.createAccessibilityServicePreferenceList(snapshot.getServices());
 
         final List<RestrictedPreference> preferenceList = new ArrayList<>();
         preferenceList.addAll(activityList);
@@ -437,24 +486,6 @@ public class AccessibilitySettings extends DashboardFragment {
         return preferenceList;
     }
 
-    private boolean containsTargetNameInList(List<AccessibilityShortcutInfo> shortcutInfos,
-            AccessibilityServiceInfo targetServiceInfo) {
-        final ServiceInfo serviceInfo = targetServiceInfo.getResolveInfo().serviceInfo;
-        final String servicePackageName = serviceInfo.packageName;
-        final CharSequence serviceLabel = serviceInfo.loadLabel(getPackageManager());
-
-        for (int i = 0, count = shortcutInfos.size(); i < count; ++i) {
-            final ActivityInfo activityInfo = shortcutInfos.get(i).getActivityInfo();
-            final String activityPackageName = activityInfo.packageName;
-            final CharSequence activityLabel = activityInfo.loadLabel(getPackageManager());
-            if (servicePackageName.equals(activityPackageName)
-                    && serviceLabel.equals(activityLabel)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private void initializePreBundledServicesMapFromArray(String categoryKey, int key) {
         String[] services = getResources().getStringArray(key);
         PreferenceCategory category = mCategoryToPrefCategoryMap.get(categoryKey);
@@ -18,7 +18,6 @@ package com.android.settings.accessibility;
 
 import static android.app.Activity.RESULT_CANCELED;
 
-import static com.android.settings.Utils.getAdaptiveIcon;
 import static com.android.settingslib.widget.TwoTargetPreference.ICON_SIZE_MEDIUM;
 
 import android.accessibilityservice.AccessibilityServiceInfo;
@@ -26,7 +25,6 @@ import android.app.settings.SettingsEnums;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.pm.ServiceInfo;
-import android.graphics.Color;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.text.TextUtils;
@@ -195,13 +193,15 @@ public class AccessibilitySettingsForSetupWizard extends DashboardFragment
         }
 
         final ServiceInfo serviceInfo = info.getResolveInfo().serviceInfo;
-        final Drawable icon = info.getResolveInfo().loadIcon(getPackageManager());
-        preference.setIcon(getAdaptiveIcon(getContext(), icon, Color.WHITE));
+        final ComponentName componentName =
+                new ComponentName(serviceInfo.packageName, serviceInfo.name);
+        final Drawable icon = AccessibilityIconCache.getInstance(getContext()).getIcon(
+                getContext(), serviceInfo,
+                () -> info.getResolveInfo().loadIcon(getPackageManager()));
+        preference.setIcon(icon);
         preference.setIconSize(ICON_SIZE_MEDIUM);
         final String title = info.getResolveInfo().loadLabel(getPackageManager()).toString();
         preference.setTitle(title);
-        final ComponentName componentName =
-                new ComponentName(serviceInfo.packageName, serviceInfo.name);
         preference.setKey(componentName.flattenToString());
 
         // Update the extras.
@@ -25,18 +25,15 @@ import android.app.admin.DevicePolicyManager;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.pm.ActivityInfo;
+import android.content.pm.ComponentInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
-import android.graphics.Color;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.UserHandle;
 import android.text.TextUtils;
 
-import androidx.core.content.ContextCompat;
-
 import com.android.settings.R;
-import com.android.settings.Utils;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.RestrictedLockUtils;
 import com.android.settingslib.RestrictedLockUtilsInternal;
@@ -58,9 +55,22 @@ public class RestrictedPreferenceHelper {
     private final DevicePolicyManager mDpm;
     private final PackageManager mPm;
     private final AppOpsManager mAppOps;
+    private final AccessibilityIconCache mIconCache;
+    private final boolean mDeferIconLoading;
 
     public RestrictedPreferenceHelper(Context context) {
+        this(context, false /* deferIconLoading */);
+    }
+
+    /**
+     * @param deferIconLoading whether icons that are not cached yet are replaced by a placeholder
+     *                         instead of being loaded, so the preferences can be created on the
+     *                         main thread and the icons filled in once loaded in the background
+     */
+    public RestrictedPreferenceHelper(Context context, boolean deferIconLoading) {
         mContext = context;
+        mIconCache = AccessibilityIconCache.getInstance(context);
+        mDeferIconLoading = deferIconLoading;
         mDpm = context.getSystemService(DevicePolicyManager.class);
         mPm = context.getPackageManager();
         mAppOps = context.getSystemService(AppOpsManager.class);
@@ -99,11 +109,9 @@ public class RestrictedPreferenceHelper {
                     mContext, info, serviceEnabled);
             final String fragment = getAccessibilityServiceFragmentTypeName(info);
 
-            Drawable icon = resolveInfo.loadIcon(mPm);
-            if (resolveInfo.getIconResource() == 0) {
-                icon = ContextCompat.getDrawable(mContext,
-                        R.drawable.ic_accessibility_generic);
-            }
+            final Drawable icon = mDeferIconLoading
+                    ? getCachedIcon(resolveInfo.serviceInfo)
+                    : mIconCache.getIcon(mContext, info);
 
             final RestrictedPreference preference = createRestrictedPreference(key, title,
                     summary, icon, fragment, packageName,
@@ -163,10 +171,9 @@ public class RestrictedPreferenceHelper {
             final String fragment =
                     LaunchAccessibilityActivityPreferenceFragment.class.getName();
 
-            Drawable icon = activityInfo.loadIcon(mPm);
-            if (activityInfo.getIconResource() == 0) {
-                icon = ContextCompat.getDrawable(mContext, R.drawable.ic_accessibility_generic);
-            }
+            final Drawable icon = mDeferIconLoading
+                    ? getCachedIcon(activityInfo)
+                    : mIconCache.getIcon(mContext, info);
 
             final RestrictedPreference preference = createRestrictedPreference(key, title,
                     summary, icon, fragment, componentName.getPackageName(),
@@ -197,6 +204,11 @@ public class RestrictedPreferenceHelper {
         return preferenceList;
     }
 
+    private Drawable getCachedIcon(ComponentInfo info) {
+        final Drawable icon = mIconCache.getCachedIcon(mContext, info);
+        return icon != null ? icon : mIconCache.getPlaceholderIcon(mContext);
+    }
+
     private String getAccessibilityServiceFragmentTypeName(AccessibilityServiceInfo info) {
         final int type = AccessibilityUtil.getAccessibilityServiceFragmentType(info);
         switch (type) {
@@ -220,7 +232,7 @@ public class RestrictedPreferenceHelper {
         preference.setKey(key);
         preference.setTitle(title);
         preference.setSummary(summary);
-        preference.setIcon(Utils.getAdaptiveIcon(mContext, icon, Color.WHITE));
+        preference.setIcon(icon);
         preference.setFragment(fragment);
         preference.setIconSize(ICON_SIZE_MEDIUM);
         preference.setPersistent(false); // Disable SharedPreferences.
@@ -22,34 +22,77 @@ import android.os.AsyncTask;
 import android.os.UserHandle;
 import android.os.UserManager;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Counts the apps of the current user and its profiles that fit the criteria of
+ * {@link #includeInCount}.
+ *
+ * <p>The profiles are listed and the apps are checked in chunks on a pool shared by all counters,
+ * and a counter stops as soon as it is cancelled. Counters with a {@link #getCountKey} share their
+ * result until a package or policy change.
+ */
 public abstract class AppCounter extends AsyncTask<Void, Void, Integer> {
 
+    @VisibleForTesting
+    static final int CHUNK_SIZE = 32;
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private static ExecutorService sExecutor;
+
     protected final PackageManager mPm;
     protected final UserManager mUm;
+    private final Context mContext;
 
     public AppCounter(Context context, PackageManager packageManager) {
+        mContext = context;
         mPm = packageManager;
         mUm = (UserManager) context.getSystemService(Context.USER_SERVICE);
     }
 
+    /**
+     * Starts counting in the background without waiting for the other counters, unlike
+     * {@link #execute}.
+     */
+    public AppCounter start() {
+        executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+        return this;
+    }
+
     @Override
     protected Integer doInBackground(Void... params) {
-        int count = 0;
-        for (UserInfo user : mUm.getProfiles(UserHandle.myUserId())) {
-            final List<ApplicationInfo> list =
-                    mPm.getInstalledApplicationsAsUser(PackageManager.GET_DISABLED_COMPONENTS
-                            | PackageManager.GET_DISABLED_UNTIL_USED_COMPONENTS
-                            | (user.isAdmin() ? PackageManager.MATCH_ANY_USER : 0),
-                            user.id);
-            for (ApplicationInfo info : list) {
-                if (includeInCount(info)) {
-                    count++;
-                }
+        final PackageSnapshot snapshot = PackageSnapshot.get(mContext);
+        final String key = snapshot != null ? getCountKey() : null;
+        final int generation = snapshot != null ? snapshot.getCountGeneration() : 0;
+        if (key != null) {
+            final Integer count = snapshot.getMemoizedCount(key);
+            if (count != null) {
+                return count;
             }
         }
-        return count;
+
+        try {
+            final List<ApplicationInfo> apps = listApps(mUm.getProfiles(UserHandle.myUserId()));
+            final int count = countApps(apps);
+            if (key != null && !isCancelled()) {
+                snapshot.memoizeCount(key, generation, count);
+            }
+            return count;
+        } catch (InterruptedException e) {
+            // Cancelled while waiting for the pool, the result is dropped anyway.
+            Thread.currentThread().interrupt();
+            return 0;
+        }
     }
 
     @Override
@@ -61,6 +104,110 @@ public abstract class AppCounter extends AsyncTask<Void, Void, Integer> {
         onPostExecute(doInBackground());
     }
 
+    /**
+     * Returns the key under which the count is shared with the other counters of the process, or
+     * null to always count. Subclasses changing {@link #includeInCount} must return a different
+     * key than their parent.
+     */
+    @Nullable
+    protected String getCountKey() {
+        return null;
+    }
+
     protected abstract void onCountComplete(int num);
     protected abstract boolean includeInCount(ApplicationInfo info);
+
+    private List<ApplicationInfo> listApps(List<UserInfo> users) throws InterruptedException {
+        if (users.size() <= 1) {
+            final List<ApplicationInfo> apps = new ArrayList<>();
+            for (UserInfo user : users) {
+                apps.addAll(listApps(user));
+            }
+            return apps;
+        }
+        final List<Future<List<ApplicationInfo>>> futures = new ArrayList<>(users.size());
+        for (UserInfo user : users) {
+            futures.add(getExecutor().submit(() -> listApps(user)));
+        }
+        final List<ApplicationInfo> apps = new ArrayList<>();
+        for (List<ApplicationInfo> list : join(futures)) {
+            apps.addAll(list);
+        }
+        return apps;
+    }
+
+    private List<ApplicationInfo> listApps(UserInfo user) {
+        if (isCancelled()) {
+            return new ArrayList<>();
+        }
+        return PackageSnapshot.getInstalledApplicationsAsUser(mContext, mPm,
+                PackageManager.GET_DISABLED_COMPONENTS
+                        | PackageManager.GET_DISABLED_UNTIL_USED_COMPONENTS
+                        | (user.isAdmin() ? PackageManager.MATCH_ANY_USER : 0),
+                user.id);
+    }
+
+    private int countApps(List<ApplicationInfo> apps) throws InterruptedException {
+        final int size = apps.size();
+        if (size <= CHUNK_SIZE) {
+            return countApps(apps, 0, size);
+        }
+        final List<Future<Integer>> futures = new ArrayList<>((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int start = 0; start < size; start += CHUNK_SIZE) {
+            final int from = start;
+            final int to = Math.min(start + CHUNK_SIZE, size);
+            futures.add(getExecutor().submit(() -> countApps(apps, from, to)));
+        }
+        int count = 0;
+        for (Integer chunkCount : join(futures)) {
+            count += chunkCount;
+        }
+        return count;
+    }
+
+    private int countApps(List<ApplicationInfo> apps, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to && !isCancelled(); i++) {
+            if (includeInCount(apps.get(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static <T> List<T> join(List<Future<T>> futures) throws InterruptedException {
+        final List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            cancelAll(futures);
+            throw e;
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    private static <T> void cancelAll(List<Future<T>> futures) {
+        for (Future<T> future : futures) {
+            future.cancel(true /* mayInterruptIfRunning */);
+        }
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (sExecutor == null) {
+            final int threads = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+            executor.allowCoreThreadTimeOut(true);
+            sExecutor = executor;
+        }
+        return sExecutor;
+    }
 }
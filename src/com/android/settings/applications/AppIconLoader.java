@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.LocaleList;
+import android.os.SystemClock;
+import android.os.UserHandle;
+import android.util.IconDrawableFactory;
+import android.util.LruCache;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide loader of app icons and labels, shared by the app lists of Settings.
+ *
+ * <p>Icons are rendered once at the current density and kept as bitmaps in a memory bounded
+ * LRU cache keyed by package, user and version code, so an updated app gets a new entry and
+ * the stale one simply ages out. Asynchronous requests run on the background threads of
+ * {@link ThreadUtils}, rows that are visible first and the most recent first, and can be
+ * cancelled when their row is recycled. Hit and decode time counters are kept for profiling.
+ */
+public final class AppIconLoader {
+
+    /** Priority of icons that are not on screen yet, e.g. the top of a list being built. */
+    public static final int PRIORITY_PREFETCH = 0;
+    /** Priority of icons of rows that are on screen. */
+    public static final int PRIORITY_VISIBLE = 1;
+
+    @VisibleForTesting
+    static final int MAX_LABELS = 512;
+    private static final long MAX_ICON_BYTES = 8 * 1024 * 1024;
+
+    private static AppIconLoader sInstance;
+
+    private final Context mContext;
+    private final IconDrawableFactory mIconDrawableFactory;
+    private final LruCache<Key, Bitmap> mIcons;
+    private final LruCache<Key, String> mLabels = new LruCache<>(MAX_LABELS);
+    private final PriorityBlockingQueue<Request> mQueue = new PriorityBlockingQueue<>();
+    private final AtomicLong mSequence = new AtomicLong();
+    private LocaleList mLabelLocales;
+
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+    private final AtomicLong mDecodeCount = new AtomicLong();
+    private final AtomicLong mDecodeTimeNanos = new AtomicLong();
+
+    /** Callback for an asynchronously loaded icon. */
+    public interface Callback {
+        /** Called on the main thread with the icon, unless its request was cancelled. */
+        @MainThread
+        void onIconLoaded(@NonNull Drawable icon);
+    }
+
+    /** Returns the shared instance. */
+    public static synchronized AppIconLoader getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            final Context appContext = context.getApplicationContext();
+            sInstance = new AppIconLoader(appContext, IconDrawableFactory.newInstance(appContext),
+                    (int) Math.min(Runtime.getRuntime().maxMemory() / 32, MAX_ICON_BYTES));
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    AppIconLoader(Context context, IconDrawableFactory iconDrawableFactory, int maxIconBytes) {
+        mContext = context;
+        mIconDrawableFactory = iconDrawableFactory;
+        mIcons = new LruCache<Key, Bitmap>(maxIconBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /** Returns the cached icon of {@code info}, or null if it has to be loaded. */
+    @Nullable
+    public Drawable getCachedIcon(@NonNull ApplicationInfo info) {
+        final Bitmap bitmap = mIcons.get(newKey(info));
+        if (bitmap == null) {
+            return null;
+        }
+        mHitCount.incrementAndGet();
+        return new BitmapDrawable(mContext.getResources(), bitmap);
+    }
+
+    /** Returns the badged icon of {@code info}, loading it if it is not cached yet. */
+    @WorkerThread
+    @NonNull
+    public Drawable getIcon(@NonNull ApplicationInfo info) {
+        final Drawable cached = getCachedIcon(info);
+        if (cached != null) {
+            return cached;
+        }
+        mMissCount.incrementAndGet();
+
+        final long start = SystemClock.elapsedRealtimeNanos();
+        final Drawable icon = mIconDrawableFactory.getBadgedIcon(info,
+                UserHandle.getUserId(info.uid));
+        if (!isMounted(info)) {
+            // Do not keep the placeholder of an app whose storage is not available
+            return icon;
+        }
+        final int size = mContext.getResources().getDimensionPixelSize(
+                android.R.dimen.app_icon_size);
+        final Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(bitmap);
+        icon.setBounds(0, 0, size, size);
+        icon.draw(canvas);
+        mDecodeTimeNanos.addAndGet(SystemClock.elapsedRealtimeNanos() - start);
+        mDecodeCount.incrementAndGet();
+
+        mIcons.put(newKey(info), bitmap);
+        return new BitmapDrawable(mContext.getResources(), bitmap);
+    }
+
+    /**
+     * Loads the icon of {@code info} in the background and passes it to {@code callback}.
+     * Callers should check {@link #getCachedIcon} first.
+     *
+     * @param priority {@link #PRIORITY_VISIBLE} or {@link #PRIORITY_PREFETCH}
+     * @return a request that can be cancelled, e.g. when the row showing the icon is recycled
+     */
+    @NonNull
+    public Request loadIcon(@NonNull ApplicationInfo info, int priority,
+            @Nullable Callback callback) {
+        final Request request = new Request(info, priority, mSequence.incrementAndGet(),
+                callback);
+        mQueue.add(request);
+        ThreadUtils.postOnBackgroundThread(this::runNextRequest);
+        return request;
+    }
+
+    /** Loads the icon of {@code info} in the background ahead of it being shown. */
+    public void prefetchIcon(@NonNull ApplicationInfo info) {
+        if (mIcons.get(newKey(info)) == null) {
+            loadIcon(info, PRIORITY_PREFETCH, null /* callback */);
+        }
+    }
+
+    /** Returns the label of {@code info}, loading it if it is not cached yet. */
+    @WorkerThread
+    @NonNull
+    public String getLabel(@NonNull ApplicationInfo info) {
+        final LocaleList locales = LocaleList.getDefault();
+        synchronized (mLabels) {
+            if (!locales.equals(mLabelLocales)) {
+                mLabels.evictAll();
+                mLabelLocales = locales;
+            }
+        }
+        final Key key = newKey(info);
+        final String cached = mLabels.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (!isMounted(info)) {
+            return info.packageName;
+        }
+        final CharSequence label = info.loadLabel(mContext.getPackageManager());
+        final String result = label != null ? label.toString() : info.packageName;
+        mLabels.put(key, result);
+        return result;
+    }
+
+    /** Drops the cached icons and labels of every version of {@code packageName}. */
+    public void invalidatePackage(@NonNull String packageName) {
+        for (Key key : mIcons.snapshot().keySet()) {
+            if (packageName.equals(key.mPackageName)) {
+                mIcons.remove(key);
+            }
+        }
+        for (Map.Entry<Key, String> entry : mLabels.snapshot().entrySet()) {
+            if (packageName.equals(entry.getKey().mPackageName)) {
+                mLabels.remove(entry.getKey());
+            }
+        }
+    }
+
+    /** Drops every cached icon and label. */
+    public void clear() {
+        mIcons.evictAll();
+        mLabels.evictAll();
+    }
+
+    /** Returns the number of icons served from the cache. */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /** Returns the number of icons that were not cached when requested. */
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    /** Returns the total time spent loading and rendering icons, in milliseconds. */
+    public long getDecodeTimeMillis() {
+        return mDecodeTimeNanos.get() / 1_000_000;
+    }
+
+    @Override
+    public String toString() {
+        return "AppIconLoader{hits=" + mHitCount.get() + ", misses=" + mMissCount.get()
+                + ", decodes=" + mDecodeCount.get() + ", decodeTimeMs=" + getDecodeTimeMillis()
+                + ", iconBytes=" + mIcons.size() + "/" + mIcons.maxSize() + "}";
+    }
+
+    @WorkerThread
+    private void runNextRequest() {
+        final Request request = mQueue.poll();
+        if (request == null || request.isCancelled()) {
+            return;
+        }
+        final Drawable icon = getIcon(request.mInfo);
+        if (request.mCallback != null) {
+            ThreadUtils.postOnMainThread(() -> {
+                if (!request.isCancelled()) {
+                    request.mCallback.onIconLoaded(icon);
+                }
+            });
+        }
+    }
+
+    private Key newKey(ApplicationInfo info) {
+        return new Key(info.packageName, UserHandle.getUserId(info.uid), info.longVersionCode,
+                mContext.getResources().getDisplayMetrics().densityDpi);
+    }
+
+    private static boolean isMounted(ApplicationInfo info) {
+        return info.sourceDir != null && new File(info.sourceDir).exists();
+    }
+
+    /** A pending icon request. */
+    public final class Request implements Comparable<Request> {
+        private final ApplicationInfo mInfo;
+        private final int mPriority;
+        private final long mSequence;
+        private final Callback mCallback;
+        private volatile boolean mCancelled;
+
+        private Request(ApplicationInfo info, int priority, long sequence, Callback callback) {
+            mInfo = info;
+            mPriority = priority;
+            mSequence = sequence;
+            mCallback = callback;
+        }
+
+        /** Drops the request if it did not run yet, and its callback if it did not fire yet. */
+        public void cancel() {
+            mCancelled = true;
+            mQueue.remove(this);
+        }
+
+        /** Returns whether the request was cancelled. */
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            if (mPriority != other.mPriority) {
+                return mPriority > other.mPriority ? -1 : 1;
+            }
+            // The most recently bound rows are the ones on screen
+            return Long.compare(other.mSequence, mSequence);
+        }
+    }
+
+    private static final class Key {
+        private final String mPackageName;
+        private final int mUserId;
+        private final long mVersionCode;
+        private final int mDensityDpi;
+
+        Key(String packageName, int userId, long versionCode, int densityDpi) {
+            mPackageName = packageName;
+            mUserId = userId;
+            mVersionCode = versionCode;
+            mDensityDpi = densityDpi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return mUserId == other.mUserId && mVersionCode == other.mVersionCode
+                    && mDensityDpi == other.mDensityDpi
+                    && Objects.equals(mPackageName, other.mPackageName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mPackageName, mUserId, mVersionCode, mDensityDpi);
+        }
+    }
+}
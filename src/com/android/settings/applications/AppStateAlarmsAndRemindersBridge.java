@@ -106,6 +106,11 @@ public class AppStateAlarmsAndRemindersBridge extends AppStateBaseBridge {
         app.extraInfo = createPermissionState(pkg, uid);
     }
 
+    @Override
+    protected boolean isParallelLoadSupported() {
+        return true;
+    }
+
     @Override
     protected void loadAllExtraInfo() {
         final List<AppEntry> allApps = mAppSession.getAllApps();
@@ -79,6 +79,11 @@ public class AppStateAppBatteryUsageBridge extends AppStateBaseBridge {
         app.extraInfo = getAppBatteryUsageState(pkg, uid);
     }
 
+    @Override
+    protected boolean isParallelLoadSupported() {
+        return true;
+    }
+
     @Override
     protected void loadAllExtraInfo() {
         if (DEBUG) {
@@ -18,24 +18,60 @@ package com.android.settings.applications;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.os.UserHandle;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 
 import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.applications.ApplicationsState.AppEntry;
 import com.android.settingslib.applications.ApplicationsState.Session;
 
+import java.text.CollationKey;
+import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Common base class for bridging information to ApplicationsState.
+ *
+ * <p>Bridges whose {@link #updateExtraInfo} makes an independent call per app can opt into a
+ * parallel load with {@link #isParallelLoadSupported()}: the apps are then split into chunks
+ * that are loaded on a small shared pool, and every finished chunk is published to the
+ * {@link Callback} right away instead of after the last app.
  */
 public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks {
 
+    private static final String TAG = "AppStateBaseBridge";
+
+    /** Number of apps loaded and published together by a parallel load. */
+    @VisibleForTesting
+    static final int CHUNK_SIZE = 32;
+    private static final int MAX_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private static ExecutorService sExecutor;
+
     protected final ApplicationsState mAppState;
     protected final Session mAppSession;
     protected final Callback mCallback;
     protected final BackgroundHandler mHandler;
     protected final MainHandler mMainHandler;
 
+    private final AtomicInteger mLoadGeneration = new AtomicInteger();
+
     private boolean mForceLoadAllApps;
 
     public AppStateBaseBridge(ApplicationsState appState, Callback callback) {
@@ -119,6 +155,145 @@ public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks
 
     protected abstract void updateExtraInfo(AppEntry app, String pkg, int uid);
 
+    /**
+     * Returns whether {@link #updateExtraInfo} may run for different apps at the same time, in
+     * which case it replaces {@link #loadAllExtraInfo} by a parallel, chunked load.
+     */
+    protected boolean isParallelLoadSupported() {
+        return false;
+    }
+
+    /**
+     * Called on a pool thread for every user with apps before a parallel load, so state that
+     * can be fetched for all apps of {@code userId} at once is not fetched once per app.
+     */
+    @WorkerThread
+    protected void prepareExtraInfo(int userId) {
+    }
+
+    /**
+     * Called on a pool thread for every app of a parallel load, once {@link #prepareExtraInfo}
+     * ran for its user. Single package updates keep going through {@link #updateExtraInfo}.
+     */
+    @WorkerThread
+    protected void loadExtraInfo(AppEntry app, String pkg, int uid) {
+        updateExtraInfo(app, pkg, uid);
+    }
+
+    /**
+     * Called once the latest parallel load is over, whether it completed or failed, to drop the
+     * state fetched by {@link #prepareExtraInfo}.
+     */
+    @WorkerThread
+    protected void finishExtraInfo() {
+    }
+
+    /**
+     * Starts a parallel load of every app and returns without waiting for it, so the rebuilds
+     * triggered by the published chunks can run on the background looper in the meantime.
+     */
+    @VisibleForTesting
+    void startParallelLoad() {
+        final int generation = mLoadGeneration.incrementAndGet();
+        final List<AppEntry> apps = sortByLabel(mAppSession.getAllApps());
+        boolean started = false;
+        try {
+            // Fetch the per-user bulk state first; every chunk depends on it.
+            final SparseBooleanArray userIds = new SparseBooleanArray();
+            final List<Future<?>> prepared = new ArrayList<>();
+            for (AppEntry app : apps) {
+                final int userId = UserHandle.getUserId(app.info.uid);
+                if (!userIds.get(userId)) {
+                    userIds.put(userId, true);
+                    prepared.add(getExecutor().submit(() -> prepareExtraInfo(userId)));
+                }
+            }
+            for (Future<?> future : prepared) {
+                try {
+                    future.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Log.w(TAG, "Failed to prepare extra info", e);
+                }
+            }
+
+            if (apps.isEmpty()) {
+                mMainHandler.sendEmptyMessage(MainHandler.MSG_INFO_UPDATED);
+                return;
+            }
+            final AtomicInteger pendingChunks =
+                    new AtomicInteger((apps.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            for (int from = 0; from < apps.size(); from += CHUNK_SIZE) {
+                final List<AppEntry> chunk = apps.subList(from,
+                        Math.min(from + CHUNK_SIZE, apps.size()));
+                getExecutor().execute(() -> loadChunk(generation, chunk, pendingChunks));
+            }
+            started = true;
+        } finally {
+            if (!started) {
+                finishLoad(generation);
+            }
+        }
+    }
+
+    private void loadChunk(int generation, List<AppEntry> chunk, AtomicInteger pendingChunks) {
+        try {
+            for (AppEntry app : chunk) {
+                if (generation != mLoadGeneration.get()) {
+                    // A newer load has taken over.
+                    return;
+                }
+                // Filters read extraInfo under the same lock while rebuilding.
+                synchronized (app) {
+                    loadExtraInfo(app, app.info.packageName, app.info.uid);
+                }
+            }
+            // A pending update will already pick up this chunk.
+            if (!mMainHandler.hasMessages(MainHandler.MSG_INFO_UPDATED)) {
+                mMainHandler.sendEmptyMessage(MainHandler.MSG_INFO_UPDATED);
+            }
+        } finally {
+            if (pendingChunks.decrementAndGet() == 0) {
+                finishLoad(generation);
+            }
+        }
+    }
+
+    private void finishLoad(int generation) {
+        // A newer load still needs what it prepared and finishes it itself.
+        if (generation == mLoadGeneration.get()) {
+            finishExtraInfo();
+        }
+    }
+
+    /**
+     * Orders apps like the alphabetical app list, so the first chunks fill the top of it. Labels
+     * are snapshotted first as they may still be loaded while sorting.
+     */
+    private static List<AppEntry> sortByLabel(List<AppEntry> apps) {
+        final Collator collator = Collator.getInstance();
+        final Map<AppEntry, CollationKey> keys = new IdentityHashMap<>(apps.size());
+        for (AppEntry app : apps) {
+            final String label = app.label;
+            keys.put(app, collator.getCollationKey(
+                    label != null ? label : app.info.packageName));
+        }
+        final List<AppEntry> sorted = new ArrayList<>(apps);
+        sorted.sort(Comparator.comparing(keys::get));
+        return sorted;
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (sExecutor == null) {
+            final int threads = Math.min(MAX_THREADS,
+                    Math.max(2, Runtime.getRuntime().availableProcessors() - 1));
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+            executor.allowCoreThreadTimeOut(true);
+            sExecutor = executor;
+        }
+        return sExecutor;
+    }
+
     private class MainHandler extends Handler {
         private static final int MSG_INFO_UPDATED = 1;
 
@@ -148,6 +323,10 @@ public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks
         public void handleMessage(Message msg) {
             switch (msg.what) {
                 case MSG_LOAD_ALL:
+                    if (isParallelLoadSupported()) {
+                        startParallelLoad();
+                        break;
+                    }
                     loadAllExtraInfo();
                     mMainHandler.sendEmptyMessage(MainHandler.MSG_INFO_UPDATED);
                     break;
@@ -159,7 +338,9 @@ public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks
                     for (int i = 0; i < N; i++) {
                         AppEntry app = apps.get(i);
                         if (app.info.uid == uid && pkg.equals(app.info.packageName)) {
-                            updateExtraInfo(app, pkg, uid);
+                            synchronized (app) {
+                                updateExtraInfo(app, pkg, uid);
+                            }
                         }
                     }
                     mMainHandler.sendEmptyMessage(MainHandler.MSG_INFO_UPDATED);
@@ -24,6 +24,7 @@ import android.content.pm.PackageManager;
 import android.os.RemoteException;
 import android.os.UserHandle;
 import android.util.Log;
+import android.util.SparseArray;
 
 import com.android.internal.util.ArrayUtils;
 import com.android.settingslib.applications.ApplicationsState;
@@ -43,6 +44,9 @@ public class AppStateInstallAppsBridge extends AppStateBaseBridge {
 
     private final IPackageManager mIpm;
     private final AppOpsManager mAppOpsManager;
+    // Packages requesting the install permission per user, bulk fetched for a parallel load and
+    // only held while it runs.
+    private final SparseArray<String[]> mRequesterPackages = new SparseArray<>();
 
     public AppStateInstallAppsBridge(Context context, ApplicationsState appState,
             Callback callback) {
@@ -56,9 +60,41 @@ public class AppStateInstallAppsBridge extends AppStateBaseBridge {
         app.extraInfo = createInstallAppsStateFor(packageName, uid);
     }
 
+    @Override
+    protected boolean isParallelLoadSupported() {
+        return true;
+    }
+
+    @Override
+    protected void prepareExtraInfo(int userId) {
+        final String[] packages = getAppOpPermissionPackages(
+                Manifest.permission.REQUEST_INSTALL_PACKAGES, userId);
+        synchronized (mRequesterPackages) {
+            mRequesterPackages.put(userId, packages);
+        }
+    }
+
+    @Override
+    protected void loadExtraInfo(AppEntry app, String packageName, int uid) {
+        final String[] packages;
+        synchronized (mRequesterPackages) {
+            packages = mRequesterPackages.get(UserHandle.getUserId(uid));
+        }
+        app.extraInfo = packages != null
+                ? createInstallAppsState(packageName, uid,
+                        ArrayUtils.contains(packages, packageName))
+                : createInstallAppsStateFor(packageName, uid);
+    }
+
+    @Override
+    protected void finishExtraInfo() {
+        synchronized (mRequesterPackages) {
+            mRequesterPackages.clear();
+        }
+    }
+
     @Override
     protected void loadAllExtraInfo() {
-        // TODO: consider making this a batch operation with a single binder call
         final List<AppEntry> allApps = mAppSession.getAllApps();
         for (int i = 0; i < allApps.size(); i++) {
             AppEntry currentEntry = allApps.get(i);
@@ -67,12 +103,15 @@ public class AppStateInstallAppsBridge extends AppStateBaseBridge {
     }
 
     private boolean hasRequestedAppOpPermission(String permission, String packageName, int userId) {
+        return ArrayUtils.contains(getAppOpPermissionPackages(permission, userId), packageName);
+    }
+
+    private String[] getAppOpPermissionPackages(String permission, int userId) {
         try {
-            String[] packages = mIpm.getAppOpPermissionPackages(permission, userId);
-            return ArrayUtils.contains(packages, packageName);
+            return mIpm.getAppOpPermissionPackages(permission, userId);
         } catch (RemoteException exc) {
             Log.e(TAG, "PackageManager dead. Cannot get permission info");
-            return false;
+            return null;
         }
     }
 
@@ -91,10 +130,15 @@ public class AppStateInstallAppsBridge extends AppStateBaseBridge {
     }
 
     public InstallAppsState createInstallAppsStateFor(String packageName, int uid) {
+        return createInstallAppsState(packageName, uid, hasRequestedAppOpPermission(
+                Manifest.permission.REQUEST_INSTALL_PACKAGES, packageName,
+                UserHandle.getUserId(uid)));
+    }
+
+    private InstallAppsState createInstallAppsState(String packageName, int uid,
+            boolean permissionRequested) {
         final InstallAppsState appState = new InstallAppsState();
-        final int userId = UserHandle.getUserId(uid);
-        appState.permissionRequested = hasRequestedAppOpPermission(
-                Manifest.permission.REQUEST_INSTALL_PACKAGES, packageName, userId);
+        appState.permissionRequested = permissionRequested;
         appState.appOpMode = getAppOpMode(AppOpsManager.OP_REQUEST_INSTALL_PACKAGES, uid,
                 packageName);
         return appState;
@@ -81,6 +81,11 @@ public class AppStateLongBackgroundTasksBridge extends AppStateBaseBridge {
         app.extraInfo = createPermissionState(pkg, uid);
     }
 
+    @Override
+    protected boolean isParallelLoadSupported() {
+        return true;
+    }
+
     @Override
     protected void loadAllExtraInfo() {
         final List<AppEntry> allApps = mAppSession.getAllApps();
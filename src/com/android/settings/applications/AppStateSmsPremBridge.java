@@ -36,6 +36,11 @@ public class AppStateSmsPremBridge extends AppStateBaseBridge {
         mSmsManager = SmsManager.getDefault();
     }
 
+    @Override
+    protected boolean isParallelLoadSupported() {
+        return true;
+    }
+
     @Override
     protected void loadAllExtraInfo() {
         ArrayList<AppEntry> apps = mAppSession.getAllApps();
@@ -48,6 +48,11 @@ public abstract class AppWithAdminGrantedPermissionsCounter extends AppCounter {
                 info);
     }
 
+    @Override
+    protected String getCountKey() {
+        return "admin_granted:" + String.join(",", mPermissions);
+    }
+
     public static boolean includeInCount(String[] permissions,
             DevicePolicyManager devicePolicyManager, PackageManager packageManager,
             IPackageManager packageManagerService, ApplicationInfo info) {
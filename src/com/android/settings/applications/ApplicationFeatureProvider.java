@@ -32,8 +32,10 @@ public interface ApplicationFeatureProvider {
      *
      * @param async    Whether to count asynchronously in a background thread
      * @param callback The callback to invoke with the result
+     * @return the running counter, to be cancelled when the result is no longer needed, or null
+     *         if the count was synchronous
      */
-    void calculateNumberOfPolicyInstalledApps(boolean async, NumberOfAppsCallback callback);
+    AppCounter calculateNumberOfPolicyInstalledApps(boolean async, NumberOfAppsCallback callback);
 
     /**
      * Asynchronously builds the list of apps installed on the device via policy in the current user
@@ -51,9 +53,11 @@ public interface ApplicationFeatureProvider {
      *                    permissions by the admin, either at run-time or install-time
      * @param async       Whether to count asynchronously in a background thread
      * @param callback    The callback to invoke with the result
+     * @return the running counter, to be cancelled when the result is no longer needed, or null
+     *         if the count was synchronous
      */
-    void calculateNumberOfAppsWithAdminGrantedPermissions(String[] permissions, boolean async,
-            NumberOfAppsCallback callback);
+    AppCounter calculateNumberOfAppsWithAdminGrantedPermissions(String[] permissions,
+            boolean async, NumberOfAppsCallback callback);
 
     /**
      * Asynchronously builds the list of apps installed in the current user and all its
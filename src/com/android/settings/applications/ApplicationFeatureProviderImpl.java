@@ -69,14 +69,15 @@ public class ApplicationFeatureProviderImpl implements ApplicationFeatureProvide
     }
 
     @Override
-    public void calculateNumberOfPolicyInstalledApps(boolean async, NumberOfAppsCallback callback) {
+    public AppCounter calculateNumberOfPolicyInstalledApps(boolean async,
+            NumberOfAppsCallback callback) {
         final CurrentUserAndManagedProfilePolicyInstalledAppCounter counter =
                 new CurrentUserAndManagedProfilePolicyInstalledAppCounter(mContext, mPm, callback);
         if (async) {
-            counter.execute();
-        } else {
-            counter.executeInForeground();
+            return counter.start();
         }
+        counter.executeInForeground();
+        return null;
     }
 
     @Override
@@ -87,16 +88,16 @@ public class ApplicationFeatureProviderImpl implements ApplicationFeatureProvide
     }
 
     @Override
-    public void calculateNumberOfAppsWithAdminGrantedPermissions(String[] permissions,
+    public AppCounter calculateNumberOfAppsWithAdminGrantedPermissions(String[] permissions,
             boolean async, NumberOfAppsCallback callback) {
         final CurrentUserAndManagedProfileAppWithAdminGrantedPermissionsCounter counter =
                 new CurrentUserAndManagedProfileAppWithAdminGrantedPermissionsCounter(mContext,
                         permissions, mPm, mPms, mDpm, callback);
         if (async) {
-            counter.execute();
-        } else {
-            counter.executeInForeground();
+            return counter.start();
         }
+        counter.executeInForeground();
+        return null;
     }
 
     @Override
@@ -77,6 +77,7 @@ public class AppsPreferenceController extends BasePreferenceController implement
 
     private Fragment mHost;
     private boolean mInitialLaunch = false;
+    private AppCounter mAllAppsCounter;
 
     public AppsPreferenceController(Context context) {
         super(context, KEY_RECENT_APPS_CATEGORY);
@@ -117,6 +118,14 @@ public class AppsPreferenceController extends BasePreferenceController implement
         mInitialLaunch = false;
     }
 
+    /**
+     * Called when the apps page stops.
+     */
+    @OnLifecycleEvent(Lifecycle.Event.ON_STOP)
+    public void onStop() {
+        cancelAllAppsCount();
+    }
+
     @VisibleForTesting
     void refreshUi() {
         loadAllAppsCount();
@@ -138,8 +147,9 @@ public class AppsPreferenceController extends BasePreferenceController implement
     @VisibleForTesting
     void loadAllAppsCount() {
         // Show total number of installed apps as See all's summary.
-        new InstalledAppCounter(mContext, InstalledAppCounter.IGNORE_INSTALL_REASON,
-                mContext.getPackageManager()) {
+        cancelAllAppsCount();
+        mAllAppsCounter = new InstalledAppCounter(mContext,
+                InstalledAppCounter.IGNORE_INSTALL_REASON, mContext.getPackageManager()) {
             @Override
             protected void onCountComplete(int num) {
                 if (!mRecentApps.isEmpty()) {
@@ -149,7 +159,14 @@ public class AppsPreferenceController extends BasePreferenceController implement
                     mAllAppsInfoPref.setSummary(mContext.getString(R.string.apps_summary, num));
                 }
             }
-        }.execute();
+        }.start();
+    }
+
+    private void cancelAllAppsCount() {
+        if (mAllAppsCounter != null) {
+            mAllAppsCounter.cancel(true /* mayInterruptIfRunning */);
+            mAllAppsCounter = null;
+        }
     }
 
     @VisibleForTesting
@@ -18,8 +18,10 @@ package com.android.settings.applications;
 
 import android.app.role.RoleManager;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.icu.text.ListFormatter;
+import android.os.UserHandle;
 import android.text.TextUtils;
 
 import androidx.core.text.BidiFormatter;
@@ -74,7 +76,17 @@ public class DefaultAppsPreferenceController extends BasePreferenceController {
             return null;
         }
         final String packageName = packageNames.get(0);
-        return BidiFormatter.getInstance().unicodeWrap(AppUtils.getApplicationLabel(mPackageManager,
-                packageName));
+        final PackageSnapshot snapshot = PackageSnapshot.get(mContext);
+        if (snapshot == null) {
+            return BidiFormatter.getInstance().unicodeWrap(
+                    AppUtils.getApplicationLabel(mPackageManager, packageName));
+        }
+        // The role holders rarely change, look their info up once instead of on every resume.
+        final ApplicationInfo info = snapshot.getApplicationInfo(packageName,
+                PackageManager.MATCH_DISABLED_COMPONENTS | PackageManager.MATCH_ANY_USER,
+                UserHandle.myUserId());
+        return info != null
+                ? BidiFormatter.getInstance().unicodeWrap(info.loadLabel(mPackageManager))
+                : null;
     }
 }
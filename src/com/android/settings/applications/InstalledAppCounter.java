@@ -21,6 +21,8 @@ import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.os.UserHandle;
 
+import androidx.annotation.Nullable;
+
 import java.util.List;
 
 public abstract class InstalledAppCounter extends AppCounter {
@@ -31,20 +33,38 @@ public abstract class InstalledAppCounter extends AppCounter {
     public static final int IGNORE_INSTALL_REASON = -1;
 
     private final int mInstallReason;
+    @Nullable
+    private final PackageSnapshot mSnapshot;
 
     public InstalledAppCounter(Context context, int installReason,
             PackageManager packageManager) {
         super(context, packageManager);
         mInstallReason = installReason;
+        mSnapshot = PackageSnapshot.get(context);
     }
 
     @Override
     protected boolean includeInCount(ApplicationInfo info) {
-        return includeInCount(mInstallReason, mPm, info);
+        return includeInCount(mInstallReason, mPm, mSnapshot, info);
+    }
+
+    @Override
+    protected String getCountKey() {
+        return "installed:" + mInstallReason;
     }
 
     public static boolean includeInCount(int installReason, PackageManager pm,
             ApplicationInfo info) {
+        return includeInCount(installReason, pm, null /* snapshot */, info);
+    }
+
+    /**
+     * Like {@link #includeInCount(int, PackageManager, ApplicationInfo)}, but looks launchable
+     * system apps up in the launcher activities of the whole user listed once by
+     * {@code snapshot} if there is one, instead of querying the activities of every app.
+     */
+    public static boolean includeInCount(int installReason, PackageManager pm,
+            @Nullable PackageSnapshot snapshot, ApplicationInfo info) {
         final int userId = UserHandle.getUserId(info.uid);
         if (installReason != IGNORE_INSTALL_REASON
                 && pm.getInstallReason(info.packageName,
@@ -58,14 +78,16 @@ public abstract class InstalledAppCounter extends AppCounter {
             return true;
         }
         Intent launchIntent = new Intent(Intent.ACTION_MAIN, null)
-                .addCategory(Intent.CATEGORY_LAUNCHER)
-                .setPackage(info.packageName);
-        List<ResolveInfo> intents = pm.queryIntentActivitiesAsUser(
-                launchIntent,
-                PackageManager.GET_DISABLED_COMPONENTS
-                        | PackageManager.MATCH_DIRECT_BOOT_AWARE
-                        | PackageManager.MATCH_DIRECT_BOOT_UNAWARE,
-                userId);
+                .addCategory(Intent.CATEGORY_LAUNCHER);
+        final int flags = PackageManager.GET_DISABLED_COMPONENTS
+                | PackageManager.MATCH_DIRECT_BOOT_AWARE
+                | PackageManager.MATCH_DIRECT_BOOT_UNAWARE;
+        if (snapshot != null) {
+            return snapshot.getPackagesWithActivities(launchIntent, flags, userId)
+                    .contains(info.packageName);
+        }
+        launchIntent.setPackage(info.packageName);
+        List<ResolveInfo> intents = pm.queryIntentActivitiesAsUser(launchIntent, flags, userId);
         return intents != null && intents.size() != 0;
     }
 }
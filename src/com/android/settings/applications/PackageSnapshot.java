@@ -0,0 +1,490 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.app.admin.DevicePolicyManager;
+import android.content.BroadcastReceiver;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.os.UserHandle;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settings.SettingsApplication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process wide snapshot of the packages installed for each user, shared by the app counters,
+ * listers and loaders of Settings so that the installed list only crosses binder once.
+ *
+ * <p>Each list is loaded on its first query and then kept up to date from the package
+ * broadcasts: a changed package is marked dirty and only that package is queried again the next
+ * time the list is read. Returned lists are immutable and their elements must not be modified.
+ * The snapshot also memoizes the results of the app counters until a package, permission or
+ * policy change. Everything but the counts is released when the process is trimmed in the
+ * background.
+ */
+public final class PackageSnapshot {
+
+    private static final String TAG = "PackageSnapshot";
+
+    private final Context mContext;
+    private final PackageManager mPackageManager;
+    private final Map<AppsKey, Apps> mApps = new ConcurrentHashMap<>();
+    private final Map<InfoKey, ApplicationInfo> mApplicationInfos = new ConcurrentHashMap<>();
+    private final AtomicInteger mInfoGeneration = new AtomicInteger();
+    private final Map<IntentKey, Set<String>> mIntentQueries = new ConcurrentHashMap<>();
+    private final AtomicInteger mIntentGeneration = new AtomicInteger();
+    private final Map<String, Integer> mCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger mCountGeneration = new AtomicInteger();
+    private final Object mRegistrationLock = new Object();
+    private boolean mRegistered;
+    private volatile boolean mDisabled;
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final String action = intent.getAction();
+            if (action == null) {
+                return;
+            }
+            switch (action) {
+                case Intent.ACTION_PACKAGE_ADDED:
+                case Intent.ACTION_PACKAGE_CHANGED:
+                case Intent.ACTION_PACKAGE_REMOVED:
+                    final Uri data = intent.getData();
+                    if (data != null) {
+                        onPackageChanged(data.getSchemeSpecificPart());
+                    }
+                    break;
+                case DevicePolicyManager.ACTION_DEVICE_POLICY_MANAGER_STATE_CHANGED:
+                    clearCounts();
+                    break;
+                case Intent.ACTION_USER_REMOVED:
+                    onUserRemoved(intent.getIntExtra(Intent.EXTRA_USER_HANDLE,
+                            UserHandle.USER_NULL));
+                    break;
+                default:
+                    invalidateAll();
+                    break;
+            }
+        }
+    };
+
+    private final PackageManager.OnPermissionsChangedListener mPermissionsListener =
+            uid -> clearCounts();
+
+    /**
+     * Returns the snapshot of the settings process, or null if {@code context} does not belong to
+     * it, in which case callers should query {@link PackageManager} directly.
+     */
+    @Nullable
+    public static PackageSnapshot get(@Nullable Context context) {
+        final Context appContext = context != null ? context.getApplicationContext() : null;
+        return appContext instanceof SettingsApplication
+                ? ((SettingsApplication) appContext).getPackageSnapshot()
+                : null;
+    }
+
+    /**
+     * Returns the applications installed for {@code userId} matching {@code flags}, from the
+     * snapshot of the settings process if there is one or from {@code packageManager} otherwise.
+     */
+    @WorkerThread
+    @NonNull
+    public static List<ApplicationInfo> getInstalledApplicationsAsUser(@Nullable Context context,
+            @NonNull PackageManager packageManager, int flags, int userId) {
+        final PackageSnapshot snapshot = get(context);
+        return snapshot != null
+                ? snapshot.getInstalledApplications(flags, userId)
+                : packageManager.getInstalledApplicationsAsUser(flags, userId);
+    }
+
+    public PackageSnapshot(@NonNull Context context) {
+        this(context, context.getPackageManager());
+    }
+
+    @VisibleForTesting
+    PackageSnapshot(@NonNull Context context, @NonNull PackageManager packageManager) {
+        mContext = context.getApplicationContext() != null
+                ? context.getApplicationContext()
+                : context;
+        mPackageManager = packageManager;
+    }
+
+    /** Returns the applications installed for {@code userId} matching {@code flags}. */
+    @WorkerThread
+    @NonNull
+    public List<ApplicationInfo> getInstalledApplications(int flags, int userId) {
+        if (!ensureRegistered()) {
+            return mPackageManager.getInstalledApplicationsAsUser(flags, userId);
+        }
+        final Apps apps = mApps.computeIfAbsent(new AppsKey(flags, userId), Apps::new);
+        synchronized (apps) {
+            return apps.getList();
+        }
+    }
+
+    /**
+     * Returns the {@link ApplicationInfo} of {@code packageName} for {@code userId}, or null if
+     * it is not installed. It is served from a loaded list with the same flags, or else looked up
+     * once and kept until the package changes.
+     */
+    @Nullable
+    public ApplicationInfo getApplicationInfo(@NonNull String packageName, int flags,
+            int userId) {
+        if (!ensureRegistered()) {
+            return queryApplicationInfo(packageName, flags, userId);
+        }
+        final Apps apps = mApps.get(new AppsKey(flags, userId));
+        if (apps != null) {
+            synchronized (apps) {
+                if (apps.isLoaded()) {
+                    apps.getList();
+                    return apps.mByPackage.get(packageName);
+                }
+            }
+        }
+        final InfoKey key = new InfoKey(packageName, flags, userId);
+        ApplicationInfo info = mApplicationInfos.get(key);
+        if (info == null) {
+            final int generation = mInfoGeneration.get();
+            info = queryApplicationInfo(packageName, flags, userId);
+            // Do not keep an info that a package change may have made stale meanwhile.
+            if (info != null && generation == mInfoGeneration.get()) {
+                mApplicationInfos.put(key, info);
+            }
+        }
+        return info;
+    }
+
+    /**
+     * Returns the packages of {@code userId} with an activity matching {@code intent}, so a
+     * check per package does not need its own intent query.
+     */
+    @WorkerThread
+    @NonNull
+    public Set<String> getPackagesWithActivities(@NonNull Intent intent, int flags,
+            int userId) {
+        if (!ensureRegistered()) {
+            return toPackages(mPackageManager.queryIntentActivitiesAsUser(intent, flags, userId));
+        }
+        final IntentKey key = new IntentKey(intent, flags, userId);
+        Set<String> result = mIntentQueries.get(key);
+        if (result == null) {
+            final int generation = mIntentGeneration.get();
+            result = toPackages(mPackageManager.queryIntentActivitiesAsUser(intent, flags,
+                    userId));
+            // Do not cache a result that a package change may have made stale meanwhile.
+            if (generation == mIntentGeneration.get()) {
+                mIntentQueries.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the generation of the memoized counts, to be passed to {@link #memoizeCount} by a
+     * count started now.
+     */
+    public int getCountGeneration() {
+        return mCountGeneration.get();
+    }
+
+    /**
+     * Returns the count memoized under {@code key}, or null if none was memoized since the last
+     * package, permission or policy change.
+     */
+    @Nullable
+    public Integer getMemoizedCount(@NonNull String key) {
+        return ensureRegistered() ? mCounts.get(key) : null;
+    }
+
+    /**
+     * Memoizes {@code count} under {@code key}, unless a package, permission or policy changed
+     * since {@code generation} was read.
+     */
+    public void memoizeCount(@NonNull String key, int generation, int count) {
+        if (ensureRegistered() && generation == mCountGeneration.get()) {
+            mCounts.put(key, count);
+        }
+    }
+
+    /** Drops every loaded list. */
+    public void invalidateAll() {
+        mApps.clear();
+        clearApplicationInfos();
+        clearIntentQueries();
+        clearCounts();
+    }
+
+    /**
+     * Releases the loaded lists once the settings process is in the background, see
+     * {@link android.content.ComponentCallbacks2#onTrimMemory}. They are loaded again on the
+     * next query.
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            mApps.clear();
+            clearApplicationInfos();
+            clearIntentQueries();
+        }
+    }
+
+    @VisibleForTesting
+    void onPackageChanged(@Nullable String packageName) {
+        if (packageName == null) {
+            invalidateAll();
+            return;
+        }
+        // Intent filters can not be matched against a single package, drop them all.
+        clearIntentQueries();
+        clearCounts();
+        mInfoGeneration.incrementAndGet();
+        mApplicationInfos.keySet().removeIf(key -> packageName.equals(key.mPackageName));
+        for (Apps apps : mApps.values()) {
+            apps.mDirtyPackages.add(packageName);
+        }
+    }
+
+    @VisibleForTesting
+    void onUserRemoved(int userId) {
+        mApps.keySet().removeIf(key -> key.mUserId == userId);
+        mIntentQueries.keySet().removeIf(key -> key.mUserId == userId);
+        mApplicationInfos.keySet().removeIf(key -> key.mUserId == userId);
+        clearCounts();
+    }
+
+    private void clearCounts() {
+        mCountGeneration.incrementAndGet();
+        mCounts.clear();
+    }
+
+    private void clearIntentQueries() {
+        mIntentGeneration.incrementAndGet();
+        mIntentQueries.clear();
+    }
+
+    private void clearApplicationInfos() {
+        mInfoGeneration.incrementAndGet();
+        mApplicationInfos.clear();
+    }
+
+    @Nullable
+    private ApplicationInfo queryApplicationInfo(String packageName, int flags, int userId) {
+        try {
+            return mPackageManager.getApplicationInfoAsUser(packageName, flags, userId);
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Set<String> toPackages(@Nullable List<ResolveInfo> infos) {
+        final Set<String> packages = new ArraySet<>();
+        if (infos != null) {
+            for (ResolveInfo info : infos) {
+                if (info.activityInfo != null) {
+                    packages.add(info.activityInfo.packageName);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(packages);
+    }
+
+    private boolean ensureRegistered() {
+        if (mDisabled) {
+            return false;
+        }
+        synchronized (mRegistrationLock) {
+            if (!mRegistered) {
+                try {
+                    final IntentFilter packageFilter = new IntentFilter();
+                    packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+                    packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+                    packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+                    packageFilter.addDataScheme("package");
+                    mContext.registerReceiverAsUser(mReceiver, UserHandle.ALL, packageFilter,
+                            null /* broadcastPermission */, null /* scheduler */);
+
+                    final IntentFilter filter = new IntentFilter();
+                    filter.addAction(Intent.ACTION_USER_REMOVED);
+                    filter.addAction(Intent.ACTION_EXTERNAL_APPLICATIONS_AVAILABLE);
+                    filter.addAction(Intent.ACTION_EXTERNAL_APPLICATIONS_UNAVAILABLE);
+                    filter.addAction(
+                            DevicePolicyManager.ACTION_DEVICE_POLICY_MANAGER_STATE_CHANGED);
+                    mContext.registerReceiverAsUser(mReceiver, UserHandle.ALL, filter,
+                            null /* broadcastPermission */, null /* scheduler */);
+                    mPackageManager.addOnPermissionsChangeListener(mPermissionsListener);
+                    mRegistered = true;
+                } catch (RuntimeException e) {
+                    // Without the broadcasts the lists could go stale, do not cache them.
+                    Log.w(TAG, "Unable to listen to package changes", e);
+                    mDisabled = true;
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static final class AppsKey {
+        final int mFlags;
+        final int mUserId;
+
+        AppsKey(int flags, int userId) {
+            mFlags = flags;
+            mUserId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof AppsKey)) {
+                return false;
+            }
+            final AppsKey other = (AppsKey) o;
+            return mFlags == other.mFlags && mUserId == other.mUserId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mFlags, mUserId);
+        }
+    }
+
+    private static final class InfoKey {
+        final String mPackageName;
+        final int mFlags;
+        final int mUserId;
+
+        InfoKey(String packageName, int flags, int userId) {
+            mPackageName = packageName;
+            mFlags = flags;
+            mUserId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof InfoKey)) {
+                return false;
+            }
+            final InfoKey other = (InfoKey) o;
+            return mFlags == other.mFlags && mUserId == other.mUserId
+                    && mPackageName.equals(other.mPackageName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mPackageName, mFlags, mUserId);
+        }
+    }
+
+    private static final class IntentKey {
+        final Intent.FilterComparison mIntent;
+        final int mFlags;
+        final int mUserId;
+
+        IntentKey(Intent intent, int flags, int userId) {
+            mIntent = new Intent.FilterComparison(new Intent(intent));
+            mFlags = flags;
+            mUserId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof IntentKey)) {
+                return false;
+            }
+            final IntentKey other = (IntentKey) o;
+            return mFlags == other.mFlags && mUserId == other.mUserId
+                    && mIntent.equals(other.mIntent);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mIntent, mFlags, mUserId);
+        }
+    }
+
+    /** The applications of a user matching some flags, guarded by its own monitor. */
+    private final class Apps {
+        final AppsKey mKey;
+        final Set<String> mDirtyPackages = ConcurrentHashMap.newKeySet();
+        final Map<String, ApplicationInfo> mByPackage = new LinkedHashMap<>();
+        @Nullable
+        List<ApplicationInfo> mList;
+
+        Apps(AppsKey key) {
+            mKey = key;
+        }
+
+        boolean isLoaded() {
+            return mList != null;
+        }
+
+        List<ApplicationInfo> getList() {
+            if (mList == null) {
+                mDirtyPackages.clear();
+                for (ApplicationInfo info : mPackageManager.getInstalledApplicationsAsUser(
+                        mKey.mFlags, mKey.mUserId)) {
+                    mByPackage.put(info.packageName, info);
+                }
+                mList = Collections.unmodifiableList(new ArrayList<>(mByPackage.values()));
+                return mList;
+            }
+            if (mDirtyPackages.isEmpty()) {
+                return mList;
+            }
+            for (String packageName : new ArrayList<>(mDirtyPackages)) {
+                mDirtyPackages.remove(packageName);
+                ApplicationInfo info;
+                try {
+                    info = mPackageManager.getApplicationInfoAsUser(packageName, mKey.mFlags,
+                            mKey.mUserId);
+                } catch (PackageManager.NameNotFoundException e) {
+                    info = null;
+                }
+                if (info != null) {
+                    mByPackage.put(packageName, info);
+                } else {
+                    mByPackage.remove(packageName);
+                }
+            }
+            mList = Collections.unmodifiableList(new ArrayList<>(mByPackage.values()));
+            return mList;
+        }
+    }
+}
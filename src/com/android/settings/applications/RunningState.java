@@ -365,6 +365,11 @@ public class RunningState {
         }
 
         public Drawable loadIcon(Context context, RunningState state) {
+            if (mPackageInfo instanceof ApplicationInfo
+                    && UserHandle.getUserId(((ApplicationInfo) mPackageInfo).uid) == mUserId) {
+                // Shares the rendered icon with the other app lists
+                return AppIconLoader.getInstance(context).getIcon((ApplicationInfo) mPackageInfo);
+            }
             if (mPackageInfo != null) {
                 Drawable unbadgedIcon = mPackageInfo.loadUnbadgedIcon(state.mPm);
                 Drawable icon = state.mPm.getUserBadgedIcon(unbadgedIcon, new UserHandle(mUserId));
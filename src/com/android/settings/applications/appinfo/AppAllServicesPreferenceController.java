@@ -56,15 +56,35 @@ public class AppAllServicesPreferenceController extends AppInfoPreferenceControl
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
-        CharSequence summary = getStorageSummary();
+        if (getAppFacts() == null && isAppFactsLoading()) {
+            // The summary is set once the facts arrive.
+            return;
+        }
+        updateSummary();
+    }
+
+    @Override
+    public void updateState(Preference preference) {
+        super.updateState(preference);
+        if (getAppFacts() != null) {
+            updateSummary();
+        }
+    }
+
+    private void updateSummary() {
+        final AppInfoFacts facts = getAppFacts();
+        CharSequence summary = facts != null
+                ? facts.getAllServicesSummary()
+                : getStorageSummary(mPackageManager, mPackageName);
         if (summary != null) {
             mPreference.setSummary(summary);
         }
     }
 
     @Nullable
-    private CharSequence getStorageSummary() {
-        ResolveInfo resolveInfo = getResolveInfo(PackageManager.GET_META_DATA);
+    static CharSequence getStorageSummary(PackageManager packageManager, String packageName) {
+        ResolveInfo resolveInfo =
+                getResolveInfo(packageManager, packageName, PackageManager.GET_META_DATA);
         if (resolveInfo == null) {
             Log.d(TAG, "mResolveInfo is null.");
             return null;
@@ -72,8 +92,8 @@ public class AppAllServicesPreferenceController extends AppInfoPreferenceControl
         final Bundle metaData = resolveInfo.activityInfo.metaData;
         if (metaData != null) {
             try {
-                final Resources pkgRes = mPackageManager.getResourcesForActivity(
-                        new ComponentName(mPackageName, resolveInfo.activityInfo.name));
+                final Resources pkgRes = packageManager.getResourcesForActivity(
+                        new ComponentName(packageName, resolveInfo.activityInfo.name));
                 return pkgRes.getString(metaData.getInt(SUMMARY_METADATA_KEY));
             } catch (Resources.NotFoundException exception) {
                 Log.d(TAG, "Resource not found for summary string.");
@@ -86,6 +106,13 @@ public class AppAllServicesPreferenceController extends AppInfoPreferenceControl
 
     @Override
     public int getAvailabilityStatus() {
+        final AppInfoFacts facts = getAppFacts();
+        if (facts != null) {
+            return facts.isAllServicesAvailable() ? AVAILABLE : CONDITIONALLY_UNAVAILABLE;
+        }
+        if (isAppFactsLoading()) {
+            return CONDITIONALLY_UNAVAILABLE;
+        }
         if (canPackageHandleIntent() && isLocationProvider()) {
             return AVAILABLE;
         }
@@ -94,13 +121,17 @@ public class AppAllServicesPreferenceController extends AppInfoPreferenceControl
 
     @VisibleForTesting
     boolean isLocationProvider() {
+        return isLocationProvider(mContext, mPackageName);
+    }
+
+    static boolean isLocationProvider(Context context, String packageName) {
         return Objects.requireNonNull(
-                mContext.getSystemService(LocationManager.class)).isProviderPackage(mPackageName);
+                context.getSystemService(LocationManager.class)).isProviderPackage(packageName);
     }
 
     @VisibleForTesting
     boolean canPackageHandleIntent() {
-        return getResolveInfo(0) != null;
+        return getResolveInfo(mPackageManager, mPackageName, 0) != null;
     }
 
     @Override
@@ -125,7 +156,7 @@ public class AppAllServicesPreferenceController extends AppInfoPreferenceControl
         final Intent featuresIntent = new Intent(Intent.ACTION_VIEW_APP_FEATURES);
         // This won't be null since the preference is only shown for packages that can handle the
         // intent.
-        ResolveInfo resolveInfo = getResolveInfo(0);
+        ResolveInfo resolveInfo = getResolveInfo(mPackageManager, mPackageName, 0);
         featuresIntent.setComponent(
                 new ComponentName(mPackageName, resolveInfo.activityInfo.name));
 
@@ -140,13 +171,14 @@ public class AppAllServicesPreferenceController extends AppInfoPreferenceControl
     }
 
     @Nullable
-    private ResolveInfo getResolveInfo(int flags) {
-        if (mPackageName == null) {
+    static ResolveInfo getResolveInfo(PackageManager packageManager, String packageName,
+            int flags) {
+        if (packageName == null) {
             return null;
         }
         final Intent featuresIntent = new Intent(Intent.ACTION_VIEW_APP_FEATURES);
-        featuresIntent.setPackage(mPackageName);
+        featuresIntent.setPackage(packageName);
 
-        return mPackageManager.resolveActivity(featuresIntent, flags);
+        return packageManager.resolveActivity(featuresIntent, flags);
     }
 }
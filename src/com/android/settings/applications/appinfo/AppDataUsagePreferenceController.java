@@ -34,6 +34,7 @@ import com.android.settings.R;
 import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.Utils;
 import com.android.settings.datausage.AppDataUsage;
+import com.android.settings.datausage.CachedNetworkCycleDataForUidLoader;
 import com.android.settings.datausage.DataUsageUtils;
 import com.android.settings.network.SubscriptionUtil;
 import com.android.settingslib.AppItem;
@@ -42,8 +43,8 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnPause;
 import com.android.settingslib.core.lifecycle.events.OnResume;
 import com.android.settingslib.net.NetworkCycleDataForUid;
-import com.android.settingslib.net.NetworkCycleDataForUidLoader;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class AppDataUsagePreferenceController extends AppInfoPreferenceControllerBase
@@ -95,17 +96,14 @@ public class AppDataUsagePreferenceController extends AppInfoPreferenceControlle
         final NetworkTemplate template = getTemplate(mContext);
         final int uid = mParent.getAppEntry().info.uid;
 
-        final NetworkCycleDataForUidLoader.Builder builder =
-                NetworkCycleDataForUidLoader.builder(mContext);
-        builder.setRetrieveDetail(false)
-               .setNetworkTemplate(template);
-
-        builder.addUid(uid);
+        final List<Integer> uids = new ArrayList<>();
+        uids.add(uid);
         if (Process.isApplicationUid(uid)) {
             // Also add in network usage for the app's SDK sandbox
-            builder.addUid(Process.toSdkSandboxUid(uid));
+            uids.add(Process.toSdkSandboxUid(uid));
         }
-        return builder.build();
+        return new CachedNetworkCycleDataForUidLoader(mContext, template, uids,
+                null /* cycles */);
     }
 
     @Override
@@ -50,6 +50,7 @@ import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.widget.Toast;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
@@ -118,6 +119,10 @@ public class AppInfoDashboardFragment extends DashboardFragment
     private ApplicationsState.Session mSession;
     private ApplicationsState.AppEntry mAppEntry;
     private PackageInfo mPackageInfo;
+    private AppInfoFacts mAppFacts;
+    private boolean mAppFactsLoading;
+    private boolean mAppFactsStale;
+    private int mAppFactsGeneration;
     private int mUserId;
     private String mPackageName;
     private int mUid;
@@ -150,6 +155,7 @@ public class AppInfoDashboardFragment extends DashboardFragment
     @Override
     public void onAttach(Context context) {
         super.onAttach(context);
+        loadAppFacts(context);
         final String packageName = getPackageName();
         final TimeSpentInAppPreferenceController timeSpentInAppPreferenceController = use(
                 TimeSpentInAppPreferenceController.class);
@@ -274,6 +280,12 @@ public class AppInfoDashboardFragment extends DashboardFragment
 
     @Override
     public void onResume() {
+        if (mAppFactsStale) {
+            // The app may have been changed from one of the sub pages. The previous facts are
+            // shown until the new ones arrive.
+            mAppFactsStale = false;
+            loadAppFacts(getContext());
+        }
         super.onResume();
         final Activity activity = getActivity();
         mAppsControlDisallowedAdmin = RestrictedLockUtilsInternal.checkIfRestrictionEnforced(
@@ -287,6 +299,12 @@ public class AppInfoDashboardFragment extends DashboardFragment
         getActivity().invalidateOptionsMenu();
     }
 
+    @Override
+    public void onPause() {
+        super.onPause();
+        mAppFactsStale = true;
+    }
+
     @Override
     protected int getPreferenceScreenResId() {
         return R.xml.app_info_settings;
@@ -355,6 +373,39 @@ public class AppInfoDashboardFragment extends DashboardFragment
         return mPackageInfo;
     }
 
+    /**
+     * Returns the facts prefetched for the app, or null if they are still loading or could not be
+     * loaded and the controllers have to query them by themselves.
+     */
+    @Nullable
+    AppInfoFacts getAppFacts() {
+        return mAppFacts;
+    }
+
+    /**
+     * Returns whether the first facts of the app are still loading. The preferences are refreshed
+     * once they arrive, so controllers should not query them by themselves meanwhile.
+     */
+    boolean isAppFactsLoading() {
+        return mAppFactsLoading;
+    }
+
+    private void loadAppFacts(Context context) {
+        if (mAppEntry == null) {
+            return;
+        }
+        final int generation = ++mAppFactsGeneration;
+        mAppFactsLoading = mAppFacts == null;
+        AppInfoFactsLoader.getInstance().loadFacts(context, mAppEntry.info, facts -> {
+            if (generation != mAppFactsGeneration || getContext() == null) {
+                return;
+            }
+            mAppFacts = facts;
+            mAppFactsLoading = false;
+            forceUpdatePreferences();
+        });
+    }
+
     @Override
     public void onPackageSizeChanged(String packageName) {
         if (!TextUtils.equals(packageName, mPackageName)) {
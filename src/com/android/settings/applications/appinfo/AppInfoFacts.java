@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.appinfo;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.settings.notification.NotificationBackend;
+
+/**
+ * Immutable snapshot of the per-package facts the {@link AppInfoDashboardFragment} controllers
+ * need to bind, loaded concurrently by {@link AppInfoFactsLoader} so that the controllers do not
+ * each query the framework on the main thread.
+ */
+public final class AppInfoFacts {
+
+    private final String mPackageName;
+    private final NotificationBackend.AppRow mNotificationAppRow;
+    private final boolean mLinkHandlingAllowed;
+    private final boolean mBrowserApp;
+    private final boolean mAppPreferencesAvailable;
+    private final boolean mAllServicesAvailable;
+    private final CharSequence mAllServicesSummary;
+    private final String mInstallerPackage;
+    private final CharSequence mInstallerLabel;
+    private final boolean mMainlineModule;
+    private final boolean mLocaleUiAvailable;
+    private final boolean mUsageSettingsAvailable;
+
+    private AppInfoFacts(Builder builder) {
+        mPackageName = builder.mPackageName;
+        mNotificationAppRow = builder.mNotificationAppRow;
+        mLinkHandlingAllowed = builder.mLinkHandlingAllowed;
+        mBrowserApp = builder.mBrowserApp;
+        mAppPreferencesAvailable = builder.mAppPreferencesAvailable;
+        mAllServicesAvailable = builder.mAllServicesAvailable;
+        mAllServicesSummary = builder.mAllServicesSummary;
+        mInstallerPackage = builder.mInstallerPackage;
+        mInstallerLabel = builder.mInstallerLabel;
+        mMainlineModule = builder.mMainlineModule;
+        mLocaleUiAvailable = builder.mLocaleUiAvailable;
+        mUsageSettingsAvailable = builder.mUsageSettingsAvailable;
+    }
+
+    /** Returns the package these facts describe. */
+    @NonNull
+    public String getPackageName() {
+        return mPackageName;
+    }
+
+    /** Returns the notification state of the app. Callers must not modify it. */
+    @Nullable
+    public NotificationBackend.AppRow getNotificationAppRow() {
+        return mNotificationAppRow;
+    }
+
+    /** Returns whether the app is allowed to open its verified links by default. */
+    public boolean isLinkHandlingAllowed() {
+        return mLinkHandlingAllowed;
+    }
+
+    /** Returns whether the app is a browser. */
+    public boolean isBrowserApp() {
+        return mBrowserApp;
+    }
+
+    /** Returns whether the app handles {@code Intent.ACTION_APPLICATION_PREFERENCES}. */
+    public boolean isAppPreferencesAvailable() {
+        return mAppPreferencesAvailable;
+    }
+
+    /** Returns whether the "All services" entry should be shown for the app. */
+    public boolean isAllServicesAvailable() {
+        return mAllServicesAvailable;
+    }
+
+    /** Returns the summary the app provides for its "All services" entry. */
+    @Nullable
+    public CharSequence getAllServicesSummary() {
+        return mAllServicesSummary;
+    }
+
+    /** Returns the package that installed the app. */
+    @Nullable
+    public String getInstallerPackage() {
+        return mInstallerPackage;
+    }
+
+    /** Returns the label of the package that installed the app. */
+    @Nullable
+    public CharSequence getInstallerLabel() {
+        return mInstallerLabel;
+    }
+
+    /** Returns whether the app is a mainline module. */
+    public boolean isMainlineModule() {
+        return mMainlineModule;
+    }
+
+    /** Returns whether the per-app language entry can be shown for the app. */
+    public boolean isLocaleUiAvailable() {
+        return mLocaleUiAvailable;
+    }
+
+    /** Returns whether a system app handles {@code Settings.ACTION_APP_USAGE_SETTINGS}. */
+    public boolean isUsageSettingsAvailable() {
+        return mUsageSettingsAvailable;
+    }
+
+    /**
+     * Collects the facts while the queries complete. Each field is written by exactly one query,
+     * possibly from different threads; {@link AppInfoFactsLoader} only calls {@link #build} once
+     * all of them have finished.
+     */
+    static final class Builder {
+        private final String mPackageName;
+        NotificationBackend.AppRow mNotificationAppRow;
+        boolean mLinkHandlingAllowed;
+        boolean mBrowserApp;
+        boolean mAppPreferencesAvailable;
+        boolean mAllServicesAvailable;
+        CharSequence mAllServicesSummary;
+        String mInstallerPackage;
+        CharSequence mInstallerLabel;
+        boolean mMainlineModule;
+        boolean mLocaleUiAvailable;
+        boolean mUsageSettingsAvailable;
+
+        Builder(@NonNull String packageName) {
+            mPackageName = packageName;
+        }
+
+        AppInfoFacts build() {
+            return new AppInfoFacts(this);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.appinfo;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.verify.domain.DomainVerificationManager;
+import android.os.UserHandle;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.Utils;
+import com.android.settings.applications.AppLocaleUtil;
+import com.android.settings.applications.AppStoreUtil;
+import com.android.settings.notification.NotificationBackend;
+import com.android.settingslib.applications.AppUtils;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Loads the {@link AppInfoFacts} of a package by running its independent framework queries
+ * concurrently.
+ *
+ * <p>The app list calls {@link #prefetch} when a row is tapped, so the facts are usually ready by
+ * the time {@link AppInfoDashboardFragment} attaches and calls {@link #loadFacts}. The facts are
+ * always delivered asynchronously, the main thread never waits for them.
+ */
+public class AppInfoFactsLoader {
+
+    private static final String TAG = "AppInfoFactsLoader";
+
+    private static AppInfoFactsLoader sInstance;
+
+    /** Facts of the App info page about to be opened, keyed by {@link #getKey}. */
+    private final Map<String, CompletableFuture<AppInfoFacts>> mPrefetched = new ArrayMap<>();
+
+    /** Returns the shared instance. */
+    public static synchronized AppInfoFactsLoader getInstance() {
+        if (sInstance == null) {
+            sInstance = new AppInfoFactsLoader();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    AppInfoFactsLoader() {
+    }
+
+    /**
+     * Starts loading the facts of {@code info} in the background. Only the most recent prefetch is
+     * kept, and it is handed out to a single {@link #loadFacts} call.
+     */
+    public void prefetch(@NonNull Context context, @NonNull ApplicationInfo info) {
+        if (UserHandle.getUserId(info.uid) != UserHandle.myUserId()) {
+            // App info of other users is shown by their own Settings process.
+            return;
+        }
+        final CompletableFuture<AppInfoFacts> facts = load(context.getApplicationContext(), info);
+        synchronized (mPrefetched) {
+            mPrefetched.clear();
+            mPrefetched.put(getKey(info), facts);
+        }
+    }
+
+    /**
+     * Loads the facts of {@code info}, using the prefetched ones if there are any, and hands them
+     * to {@code callback} on the main thread, or null if they could not be loaded.
+     */
+    public void loadFacts(@NonNull Context context, @NonNull ApplicationInfo info,
+            @NonNull Consumer<AppInfoFacts> callback) {
+        CompletableFuture<AppInfoFacts> facts;
+        synchronized (mPrefetched) {
+            facts = mPrefetched.remove(getKey(info));
+        }
+        if (facts == null) {
+            facts = load(context.getApplicationContext(), info);
+        }
+        facts.whenComplete((result, e) -> {
+            if (e != null) {
+                Log.w(TAG, "Facts of " + info.packageName + " not available", e);
+            }
+            ThreadUtils.postOnMainThread(() -> callback.accept(e == null ? result : null));
+        });
+    }
+
+    @VisibleForTesting
+    CompletableFuture<AppInfoFacts> load(Context context, ApplicationInfo info) {
+        final String packageName = info.packageName;
+        final PackageManager packageManager = context.getPackageManager();
+        final AppInfoFacts.Builder builder = new AppInfoFacts.Builder(packageName);
+        final List<Runnable> queries = Arrays.asList(
+                () -> builder.mNotificationAppRow =
+                        new NotificationBackend().loadAppRow(context, packageManager, info),
+                () -> builder.mLinkHandlingAllowed =
+                        AppOpenByDefaultPreferenceController.isLinkHandlingAllowed(
+                                context.getSystemService(DomainVerificationManager.class),
+                                packageName),
+                () -> builder.mBrowserApp =
+                        AppUtils.isBrowserApp(context, packageName, UserHandle.myUserId()),
+                () -> builder.mAppPreferencesAvailable =
+                        AppSettingPreferenceController.resolveAppPreferences(
+                                context, packageName) != null,
+                () -> {
+                    builder.mAllServicesAvailable = AppAllServicesPreferenceController
+                            .getResolveInfo(packageManager, packageName, 0 /* flags */) != null
+                            && AppAllServicesPreferenceController.isLocationProvider(
+                                    context, packageName);
+                    builder.mAllServicesSummary = AppAllServicesPreferenceController
+                            .getStorageSummary(packageManager, packageName);
+                },
+                () -> {
+                    builder.mMainlineModule =
+                            AppUtils.isMainlineModule(packageManager, packageName);
+                    builder.mInstallerPackage =
+                            AppStoreUtil.getInstallerPackageName(context, packageName);
+                    builder.mInstallerLabel =
+                            Utils.getApplicationLabel(context, builder.mInstallerPackage);
+                },
+                () -> builder.mLocaleUiAvailable = AppLocaleUtil.canDisplayLocaleUi(context, info,
+                        AppLocalePreferenceController.queryLauncherActivities(context)),
+                () -> builder.mUsageSettingsAvailable =
+                        TimeSpentInAppPreferenceController.isUsageSettingsAvailable(
+                                packageManager,
+                                TimeSpentInAppPreferenceController.createUsageSettingsIntent(
+                                        packageName)));
+        return runQueries(builder, queries);
+    }
+
+    /**
+     * Runs {@code queries} concurrently and completes with the facts of {@code builder} once all
+     * of them are done, or exceptionally as soon as one of them fails.
+     */
+    @VisibleForTesting
+    static CompletableFuture<AppInfoFacts> runQueries(AppInfoFacts.Builder builder,
+            List<Runnable> queries) {
+        final CompletableFuture<AppInfoFacts> result = new CompletableFuture<>();
+        // The last query to finish builds the facts; the atomic countdown also makes the writes of
+        // the other queries visible to it.
+        final AtomicInteger remaining = new AtomicInteger(queries.size());
+        for (Runnable query : queries) {
+            ThreadUtils.postOnBackgroundThread(() -> {
+                try {
+                    query.run();
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        // No-op if a query failed.
+                        result.complete(builder.build());
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    private static String getKey(ApplicationInfo info) {
+        return info.packageName + "/" + info.uid;
+    }
+}
@@ -20,6 +20,7 @@ import android.content.Context;
 import android.os.Bundle;
 import android.text.TextUtils;
 
+import androidx.annotation.Nullable;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
@@ -77,6 +78,23 @@ public abstract class AppInfoPreferenceControllerBase extends BasePreferenceCont
         mAppEntry = mParent.getAppEntry();
     }
 
+    /**
+     * Gets the facts prefetched for the app, or null if they are not available and the controller
+     * has to query the framework itself.
+     */
+    @Nullable
+    protected AppInfoFacts getAppFacts() {
+        return mParent != null ? mParent.getAppFacts() : null;
+    }
+
+    /**
+     * Returns whether the facts of the app are still loading. The preference is refreshed once
+     * they arrive, so the controller should not query them by itself meanwhile.
+     */
+    protected boolean isAppFactsLoading() {
+        return mParent != null && mParent.isAppFactsLoading();
+    }
+
     /**
      * Gets the fragment class to be launched when the preference is clicked.
      *
@@ -32,6 +32,7 @@ public class AppInstallerInfoPreferenceController extends AppInfoPreferenceContr
     private String mPackageName;
     private String mInstallerPackage;
     private CharSequence mInstallerLabel;
+    private boolean mInstallerLoaded;
 
     public AppInstallerInfoPreferenceController(Context context, String key) {
         super(context, key);
@@ -43,15 +44,22 @@ public class AppInstallerInfoPreferenceController extends AppInfoPreferenceContr
             return DISABLED_FOR_USER;
         }
 
-        if (AppUtils.isMainlineModule(mContext.getPackageManager(), mPackageName)) {
+        final AppInfoFacts facts = getAppFacts();
+        if (facts == null && isAppFactsLoading()) {
+            return CONDITIONALLY_UNAVAILABLE;
+        }
+        if (facts != null ? facts.isMainlineModule()
+                : AppUtils.isMainlineModule(mContext.getPackageManager(), mPackageName)) {
             return DISABLED_FOR_USER;
         }
 
+        ensureInstallerLoaded();
         return mInstallerLabel != null ? AVAILABLE : DISABLED_FOR_USER;
     }
 
     @Override
     public void updateState(Preference preference) {
+        ensureInstallerLoaded();
         final int detailsStringId = AppUtils.isInstant(mParent.getPackageInfo().applicationInfo)
                 ? R.string.instant_app_details_summary
                 : R.string.app_install_details_summary;
@@ -67,6 +75,24 @@ public class AppInstallerInfoPreferenceController extends AppInfoPreferenceContr
 
     public void setPackageName(String packageName) {
         mPackageName = packageName;
+        mInstallerLoaded = false;
+    }
+
+    /**
+     * Reads the installer from the {@link AppInfoFacts} of the parent fragment, or looks it up the
+     * first time it is needed if there are none.
+     */
+    private void ensureInstallerLoaded() {
+        final AppInfoFacts facts = getAppFacts();
+        if (facts != null) {
+            mInstallerPackage = facts.getInstallerPackage();
+            mInstallerLabel = facts.getInstallerLabel();
+            return;
+        }
+        if (mInstallerLoaded) {
+            return;
+        }
+        mInstallerLoaded = true;
         mInstallerPackage = AppStoreUtil.getInstallerPackageName(mContext, mPackageName);
         mInstallerLabel = Utils.getApplicationLabel(mContext, mInstallerPackage);
     }
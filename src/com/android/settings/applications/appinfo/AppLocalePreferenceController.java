@@ -39,12 +39,10 @@ import java.util.List;
 public class AppLocalePreferenceController extends AppInfoPreferenceControllerBase {
     private static final String TAG = AppLocalePreferenceController.class.getSimpleName();
 
-    private final List<ResolveInfo> mListInfos;
+    private List<ResolveInfo> mListInfos;
 
     public AppLocalePreferenceController(Context context, String key) {
         super(context, key);
-        mListInfos = context.getPackageManager().queryIntentActivities(
-                AppLocaleUtil.LAUNCHER_ENTRY_INTENT, PackageManager.GET_META_DATA);
     }
 
     @Override
@@ -81,7 +79,22 @@ public class AppLocalePreferenceController extends AppInfoPreferenceControllerBa
 
     @VisibleForTesting
     boolean canDisplayLocaleUi() {
+        final AppInfoFacts facts = getAppFacts();
+        if (facts != null) {
+            return facts.isLocaleUiAvailable();
+        }
+        if (isAppFactsLoading()) {
+            return false;
+        }
+        if (mListInfos == null) {
+            mListInfos = queryLauncherActivities(mContext);
+        }
         return AppLocaleUtil
                 .canDisplayLocaleUi(mContext, mParent.getAppEntry().info, mListInfos);
     }
+
+    static List<ResolveInfo> queryLauncherActivities(Context context) {
+        return context.getPackageManager().queryIntentActivities(
+                AppLocaleUtil.LAUNCHER_ENTRY_INTENT, PackageManager.GET_META_DATA);
+    }
 }
@@ -64,6 +64,10 @@ public class AppNotificationPreferenceController extends AppInfoPreferenceContro
 
     @Override
     public void updateState(Preference preference) {
+        if (getAppFacts() == null && isAppFactsLoading()) {
+            // The summary is set once the facts arrive.
+            return;
+        }
         preference.setSummary(getNotificationSummary(mParent.getAppEntry(), mContext, mBackend));
     }
 
@@ -88,8 +92,10 @@ public class AppNotificationPreferenceController extends AppInfoPreferenceContro
         if (appEntry == null) {
             return "";
         }
-        NotificationBackend.AppRow appRow =
-                backend.loadAppRow(context, context.getPackageManager(), appEntry.info);
+        final AppInfoFacts facts = getAppFacts();
+        NotificationBackend.AppRow appRow = facts != null
+                ? facts.getNotificationAppRow()
+                : backend.loadAppRow(context, context.getPackageManager(), appEntry.info);
         return getNotificationSummary(appRow, context);
     }
 
@@ -66,8 +66,7 @@ public class AppOpenByDefaultPreferenceController extends AppInfoPreferenceContr
     public void updateState(Preference preference) {
         final PackageInfo packageInfo = mParent.getPackageInfo();
         if (packageInfo != null && !AppUtils.isInstant(packageInfo.applicationInfo)
-                && !AppUtils.isBrowserApp(mContext, packageInfo.packageName,
-                UserHandle.myUserId())) {
+                && !isBrowserApp(packageInfo.packageName)) {
             preference.setVisible(true);
             preference.setSummary(getSubtext());
         } else {
@@ -86,11 +85,31 @@ public class AppOpenByDefaultPreferenceController extends AppInfoPreferenceContr
                 ? R.string.app_link_open_always : R.string.app_link_open_never);
     }
 
+    private boolean isBrowserApp(String packageName) {
+        final AppInfoFacts facts = getAppFacts();
+        if (facts == null && isAppFactsLoading()) {
+            // Hidden until the facts arrive.
+            return true;
+        }
+        return facts != null
+                ? facts.isBrowserApp()
+                : AppUtils.isBrowserApp(mContext, packageName, UserHandle.myUserId());
+    }
+
     @VisibleForTesting
     boolean isLinkHandlingAllowed() {
+        final AppInfoFacts facts = getAppFacts();
+        if (facts != null) {
+            return facts.isLinkHandlingAllowed();
+        }
+        return isLinkHandlingAllowed(mDomainVerificationManager, mPackageName);
+    }
+
+    static boolean isLinkHandlingAllowed(DomainVerificationManager domainVerificationManager,
+            String packageName) {
         final DomainVerificationUserState userState =
-                IntentPickerUtils.getDomainVerificationUserState(mDomainVerificationManager,
-                        mPackageName);
+                IntentPickerUtils.getDomainVerificationUserState(domainVerificationManager,
+                        packageName);
         return userState == null ? false : userState.isLinkHandlingAllowed();
     }
 }
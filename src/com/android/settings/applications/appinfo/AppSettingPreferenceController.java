@@ -44,9 +44,14 @@ public class AppSettingPreferenceController extends AppInfoPreferenceControllerB
         if (TextUtils.isEmpty(mPackageName) || mParent == null) {
             return CONDITIONALLY_UNAVAILABLE;
         }
-        final Intent intent = resolveIntent(
-                new Intent(Intent.ACTION_APPLICATION_PREFERENCES).setPackage(mPackageName));
-        return intent != null ? AVAILABLE : CONDITIONALLY_UNAVAILABLE;
+        final AppInfoFacts facts = getAppFacts();
+        if (facts == null && isAppFactsLoading()) {
+            return CONDITIONALLY_UNAVAILABLE;
+        }
+        final boolean available = facts != null
+                ? facts.isAppPreferencesAvailable()
+                : resolveAppPreferences(mContext, mPackageName) != null;
+        return available ? AVAILABLE : CONDITIONALLY_UNAVAILABLE;
     }
 
     @Override
@@ -54,8 +59,7 @@ public class AppSettingPreferenceController extends AppInfoPreferenceControllerB
         if (!TextUtils.equals(preference.getKey(), getPreferenceKey())) {
             return false;
         }
-        final Intent intent = resolveIntent(
-                new Intent(Intent.ACTION_APPLICATION_PREFERENCES).setPackage(mPackageName));
+        final Intent intent = resolveAppPreferences(mContext, mPackageName);
         if (intent == null) {
             return false;
         }
@@ -68,8 +72,10 @@ public class AppSettingPreferenceController extends AppInfoPreferenceControllerB
         return true;
     }
 
-    private Intent resolveIntent(Intent i) {
-        ResolveInfo result = mContext.getPackageManager().resolveActivity(i, 0);
+    /** Returns an explicit intent for the preferences activity of the app, if it has one. */
+    static Intent resolveAppPreferences(Context context, String packageName) {
+        final Intent i = new Intent(Intent.ACTION_APPLICATION_PREFERENCES).setPackage(packageName);
+        ResolveInfo result = context.getPackageManager().resolveActivity(i, 0);
         if (result != null) {
             return new Intent(i.getAction())
                     .setClassName(result.activityInfo.packageName, result.activityInfo.name);
@@ -59,8 +59,12 @@ public class TimeSpentInAppPreferenceController extends LiveDataController {
 
     public void setPackageName(String packageName) {
         mPackageName = packageName;
-        mIntent = new Intent(SEE_TIME_IN_APP_TEMPLATE)
-                .putExtra(Intent.EXTRA_PACKAGE_NAME, mPackageName);
+        mIntent = createUsageSettingsIntent(mPackageName);
+    }
+
+    static Intent createUsageSettingsIntent(String packageName) {
+        return new Intent(SEE_TIME_IN_APP_TEMPLATE)
+                .putExtra(Intent.EXTRA_PACKAGE_NAME, packageName);
     }
 
     /**
@@ -76,17 +80,29 @@ public class TimeSpentInAppPreferenceController extends LiveDataController {
         if (TextUtils.isEmpty(mPackageName)) {
             return UNSUPPORTED_ON_DEVICE;
         }
-        final List<ResolveInfo> resolved = mPackageManager.queryIntentActivities(mIntent,
+        final AppInfoFacts facts = mParent != null ? mParent.getAppFacts() : null;
+        if (facts == null && mParent != null && mParent.isAppFactsLoading()) {
+            return CONDITIONALLY_UNAVAILABLE;
+        }
+        final boolean available = facts != null
+                ? facts.isUsageSettingsAvailable()
+                : isUsageSettingsAvailable(mPackageManager, mIntent);
+        return available ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
+    }
+
+    /** Returns whether a system app handles {@code intent}, a usage settings intent. */
+    static boolean isUsageSettingsAvailable(PackageManager packageManager, Intent intent) {
+        final List<ResolveInfo> resolved = packageManager.queryIntentActivities(intent,
                 0 /* flags */);
         if (resolved == null || resolved.isEmpty()) {
-            return UNSUPPORTED_ON_DEVICE;
+            return false;
         }
         for (ResolveInfo info : resolved) {
             if (isSystemApp(info)) {
-                return AVAILABLE;
+                return true;
             }
         }
-        return UNSUPPORTED_ON_DEVICE;
+        return false;
     }
 
     @Override
@@ -104,7 +120,7 @@ public class TimeSpentInAppPreferenceController extends LiveDataController {
         return mAppFeatureProvider.getTimeSpentInApp(mPackageName);
     }
 
-    private boolean isSystemApp(ResolveInfo info) {
+    private static boolean isSystemApp(ResolveInfo info) {
         return info != null
                 && info.activityInfo != null
                 && info.activityInfo.applicationInfo != null
@@ -17,10 +17,7 @@
 package com.android.settings.applications.appops;
 
 import android.app.AppOpsManager;
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.pm.ActivityInfo;
 import android.content.res.Configuration;
 import android.content.res.Resources;
@@ -82,51 +79,33 @@ public class AppOpsCategory extends ListFragment implements
     }
 
     /**
-     * Helper class to look for interesting changes to the installed apps
-     * so that the loader can be updated.
+     * A custom Loader that loads all of the installed applications from the shared
+     * {@link AppOpsIndex}, which tells it about changes to the installed apps and their ops.
      */
-    public static class PackageIntentReceiver extends BroadcastReceiver {
-        final AppListLoader mLoader;
-
-        public PackageIntentReceiver(AppListLoader loader) {
-            mLoader = loader;
-            IntentFilter filter = new IntentFilter(Intent.ACTION_PACKAGE_ADDED);
-            filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
-            filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
-            filter.addDataScheme("package");
-            mLoader.getContext().registerReceiver(this, filter);
-            // Register for events related to sdcard installation.
-            IntentFilter sdFilter = new IntentFilter();
-            sdFilter.addAction(Intent.ACTION_EXTERNAL_APPLICATIONS_AVAILABLE);
-            sdFilter.addAction(Intent.ACTION_EXTERNAL_APPLICATIONS_UNAVAILABLE);
-            mLoader.getContext().registerReceiver(this, sdFilter);
-        }
-
-        @Override public void onReceive(Context context, Intent intent) {
-            // Tell the loader about the change.
-            mLoader.onContentChanged();
-        }
-    }
-
-    /**
-     * A custom Loader that loads all of the installed applications.
-     */
-    public static class AppListLoader extends AsyncTaskLoader<List<AppOpEntry>> {
+    public static class AppListLoader extends AsyncTaskLoader<List<AppOpEntry>>
+            implements AppOpsIndex.Listener {
         final InterestingConfigChanges mLastConfig = new InterestingConfigChanges();
-        final AppOpsState mState;
+        final AppOpsIndex mIndex;
         final AppOpsState.OpsTemplate mTemplate;
 
         List<AppOpEntry> mApps;
-        PackageIntentReceiver mPackageObserver;
+        boolean mObserving;
 
-        public AppListLoader(Context context, AppOpsState state, AppOpsState.OpsTemplate template) {
+        public AppListLoader(Context context, AppOpsIndex index,
+                AppOpsState.OpsTemplate template) {
             super(context);
-            mState = state;
+            mIndex = index;
             mTemplate = template;
         }
 
         @Override public List<AppOpEntry> loadInBackground() {
-            return mState.buildState(mTemplate, 0, null, AppOpsState.LABEL_COMPARATOR);
+            // Only the packages that changed since the last load are rebuilt
+            return mIndex.getEntries(mTemplate);
+        }
+
+        @Override public void onIndexChanged() {
+            // Tell the loader about the change.
+            onContentChanged();
         }
 
         /**
@@ -163,24 +142,26 @@ public class AppOpsCategory extends ListFragment implements
          * Handles a request to start the Loader.
          */
         @Override protected void onStartLoading() {
-            // We don't monitor changed when loading is stopped, so need
-            // to always reload at this point.
-            onContentChanged();
-
             if (mApps != null) {
                 // If we currently have a result available, deliver it
                 // immediately.
                 deliverResult(mApps);
             }
 
-            // Start watching for changes in the app data.
-            if (mPackageObserver == null) {
-                mPackageObserver = new PackageIntentReceiver(this);
+            // Start watching for changes in the app data. Changes that happen while the
+            // loader is stopped are kept as a pending content change.
+            if (!mObserving) {
+                mIndex.addListener(this);
+                mObserving = true;
             }
 
             // Has something interesting in the configuration changed since we
             // last built the app list?
             boolean configChange = mLastConfig.applyNewConfig(getContext().getResources());
+            if (configChange && mApps != null) {
+                // Labels and icons depend on the configuration
+                mIndex.invalidate();
+            }
 
             if (takeContentChanged() || mApps == null || configChange) {
                 // If the data has changed since the last time it was loaded
@@ -225,9 +206,9 @@ public class AppOpsCategory extends ListFragment implements
             }
 
             // Stop monitoring for changes.
-            if (mPackageObserver != null) {
-                getContext().unregisterReceiver(mPackageObserver);
-                mPackageObserver = null;
+            if (mObserving) {
+                mIndex.removeListener(this);
+                mObserving = false;
             }
         }
 
@@ -304,7 +285,7 @@ public class AppOpsCategory extends ListFragment implements
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        mState = new AppOpsState(getActivity());
+        mState = AppOpsIndex.getInstance(getActivity()).getState();
     }
 
     @Override public void onActivityCreated(Bundle savedInstanceState) {
@@ -351,7 +332,8 @@ public class AppOpsCategory extends ListFragment implements
         if (fargs != null) {
             template = fargs.getParcelable("template");
         }
-        return new AppListLoader(getActivity(), mState, template);
+        return new AppListLoader(getActivity(), AppOpsIndex.getInstance(getActivity()),
+                template);
     }
 
     @Override public void onLoadFinished(Loader<List<AppOpEntry>> loader, List<AppOpEntry> data) {
@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.appops;
+
+import android.app.AppOpsManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+import android.os.Process;
+import android.os.UserHandle;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.SparseBooleanArray;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settings.applications.appops.AppOpsState.AppOpEntry;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process wide index of the app ops listed by {@link AppOpsCategory}, sorted by app label.
+ *
+ * <p>The index of a template is built once and then updated one package at a time, from app op
+ * mode changes and package broadcasts, for every user the package may have entries for. The
+ * index only watches for these changes while it has a {@link Listener}, and drops its entries
+ * once the last one is removed. All templates share one {@link AppOpsState}, so the label and
+ * icon of an app are only loaded once.
+ */
+public class AppOpsIndex {
+
+    /** Callback for observing changes of the index. */
+    public interface Listener {
+        /**
+         * Called on the main thread when some entries need to be reloaded with
+         * {@link #getEntries}.
+         */
+        void onIndexChanged();
+    }
+
+    private static AppOpsIndex sInstance;
+
+    private final Context mContext;
+    private final AppOpsState mState;
+    private final Map<AppOpsState.OpsTemplate, TemplateIndex> mIndexes = new ArrayMap<>();
+    private final SparseBooleanArray mWatchedOps = new SparseBooleanArray();
+    // Users that packages changed for, beyond those already having entries.
+    private final SparseBooleanArray mChangedUsers = new SparseBooleanArray();
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<>();
+    private boolean mListening;
+
+    private final AppOpsManager.OnOpChangedListener mOpChangedListener =
+            new AppOpsManager.OnOpChangedListener() {
+                @Override
+                public void onOpChanged(String op, String packageName) {
+                    onPackageChanged(packageName);
+                }
+            };
+
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final int uid = intent.getIntExtra(Intent.EXTRA_UID, Process.INVALID_UID);
+            final int userId = uid != Process.INVALID_UID
+                    ? UserHandle.getUserId(uid)
+                    : getSendingUserId();
+            final String[] packages =
+                    intent.getStringArrayExtra(Intent.EXTRA_CHANGED_PACKAGE_LIST);
+            if (packages != null) {
+                for (String packageName : packages) {
+                    mState.invalidateAppInfo(packageName);
+                    onPackageChanged(packageName, userId);
+                }
+                return;
+            }
+            final Uri data = intent.getData();
+            if (data != null) {
+                mState.invalidateAppInfo(data.getSchemeSpecificPart());
+                onPackageChanged(data.getSchemeSpecificPart(), userId);
+            }
+        }
+    };
+
+    /** Returns the shared instance. */
+    public static synchronized AppOpsIndex getInstance(Context context) {
+        if (sInstance == null) {
+            final Context appContext = context.getApplicationContext();
+            sInstance = new AppOpsIndex(appContext, new AppOpsState(appContext));
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    AppOpsIndex(Context context, AppOpsState state) {
+        mContext = context;
+        mState = state;
+    }
+
+    /** Returns the {@link AppOpsState} the index is built with. */
+    public AppOpsState getState() {
+        return mState;
+    }
+
+    /**
+     * Returns the unmodifiable list of entries of {@code template}, sorted by app label. While
+     * the index has listeners, the first call builds the whole list and later calls only rebuild
+     * the entries of the packages that changed since; otherwise every call builds the whole list.
+     */
+    @WorkerThread
+    public List<AppOpEntry> getEntries(AppOpsState.OpsTemplate template) {
+        final TemplateIndex index;
+        synchronized (this) {
+            if (!mListening) {
+                // Changes are not watched, an index could not be kept up to date.
+                return Collections.unmodifiableList(mState.buildState(template, 0, null,
+                        AppOpsState.LABEL_COMPARATOR));
+            }
+            watchOps(template);
+            TemplateIndex existing = mIndexes.get(template);
+            if (existing == null) {
+                existing = new TemplateIndex(template);
+                mIndexes.put(template, existing);
+            }
+            index = existing;
+        }
+        return index.getEntries();
+    }
+
+    /**
+     * Drops every indexed entry, e.g. after the locale changed. Labels and icons are cached per
+     * locale and density by {@link com.android.settings.applications.AppIconLoader}.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            for (TemplateIndex index : mIndexes.values()) {
+                index.invalidate();
+            }
+        }
+        notifyChanged();
+    }
+
+    /** Registers a {@link Listener}, and starts watching for changes with the first one. */
+    public synchronized void addListener(Listener listener) {
+        mListeners.add(listener);
+        if (!mListening) {
+            startListening();
+        }
+    }
+
+    /**
+     * Unregisters a {@link Listener}. Once the last one is gone, the index stops watching for
+     * changes and drops its entries.
+     */
+    public synchronized void removeListener(Listener listener) {
+        mListeners.remove(listener);
+        if (mListening && mListeners.isEmpty()) {
+            stopListening();
+        }
+    }
+
+    @VisibleForTesting
+    void onPackageChanged(String packageName) {
+        onPackageChanged(packageName, UserHandle.USER_NULL);
+    }
+
+    /**
+     * Queues {@code packageName} to be rebuilt for every user it has entries for, and for
+     * {@code userId} if it is a real user.
+     */
+    @VisibleForTesting
+    void onPackageChanged(String packageName, int userId) {
+        if (packageName == null) {
+            return;
+        }
+        synchronized (this) {
+            if (userId >= 0) {
+                mChangedUsers.put(userId, true);
+            }
+            for (TemplateIndex index : mIndexes.values()) {
+                index.onPackageChanged(packageName);
+            }
+        }
+        notifyChanged();
+    }
+
+    private void notifyChanged() {
+        // App op changes are reported on a binder thread
+        ThreadUtils.postOnMainThread(() -> {
+            for (Listener listener : mListeners) {
+                listener.onIndexChanged();
+            }
+        });
+    }
+
+    private void startListening() {
+        // The list covers the apps of every user.
+        final IntentFilter filter = new IntentFilter(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addDataScheme("package");
+        mContext.registerReceiverAsUser(mPackageReceiver, UserHandle.ALL, filter,
+                null /* broadcastPermission */, null /* scheduler */);
+        // Register for events related to sdcard installation.
+        final IntentFilter sdFilter = new IntentFilter();
+        sdFilter.addAction(Intent.ACTION_EXTERNAL_APPLICATIONS_AVAILABLE);
+        sdFilter.addAction(Intent.ACTION_EXTERNAL_APPLICATIONS_UNAVAILABLE);
+        mContext.registerReceiverAsUser(mPackageReceiver, UserHandle.ALL, sdFilter,
+                null /* broadcastPermission */, null /* scheduler */);
+        mListening = true;
+    }
+
+    private void stopListening() {
+        mContext.unregisterReceiver(mPackageReceiver);
+        if (mWatchedOps.size() > 0) {
+            mState.getAppOpsManager().stopWatchingMode(mOpChangedListener);
+            mWatchedOps.clear();
+        }
+        // Without the changes the entries would go stale.
+        for (TemplateIndex index : mIndexes.values()) {
+            index.invalidate();
+        }
+        mIndexes.clear();
+        mChangedUsers.clear();
+        mListening = false;
+    }
+
+    private synchronized int[] getChangedUsers() {
+        final int[] userIds = new int[mChangedUsers.size()];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = mChangedUsers.keyAt(i);
+        }
+        return userIds;
+    }
+
+    private void watchOps(AppOpsState.OpsTemplate template) {
+        for (int op : template.ops) {
+            if (!mWatchedOps.get(op)) {
+                mState.getAppOpsManager().startWatchingMode(op, null /* packageName */,
+                        mOpChangedListener);
+                mWatchedOps.put(op, true);
+            }
+        }
+    }
+
+    private class TemplateIndex {
+        private final AppOpsState.OpsTemplate mTemplate;
+        // Guarded by this
+        private final Set<String> mChangedPackages = new ArraySet<>();
+        private List<AppOpEntry> mEntries;
+        private int mGeneration;
+
+        TemplateIndex(AppOpsState.OpsTemplate template) {
+            mTemplate = template;
+        }
+
+        synchronized void onPackageChanged(String packageName) {
+            mChangedPackages.add(packageName);
+        }
+
+        synchronized void invalidate() {
+            mEntries = null;
+            mChangedPackages.clear();
+            mGeneration++;
+        }
+
+        List<AppOpEntry> getEntries() {
+            final List<AppOpEntry> entries;
+            final List<String> changedPackages;
+            final int generation;
+            synchronized (this) {
+                if (mEntries != null && mChangedPackages.isEmpty()) {
+                    return mEntries;
+                }
+                entries = mEntries;
+                generation = mGeneration;
+                changedPackages = new ArrayList<>(mChangedPackages);
+                mChangedPackages.clear();
+            }
+
+            final List<AppOpEntry> updated;
+            if (entries == null) {
+                updated = mState.buildState(mTemplate, 0, null, AppOpsState.LABEL_COMPARATOR);
+            } else {
+                updated = new ArrayList<>(entries);
+                final SparseBooleanArray userIds = getUserIds(updated);
+                for (String packageName : changedPackages) {
+                    updatePackage(updated, packageName, userIds);
+                }
+            }
+
+            final List<AppOpEntry> result = Collections.unmodifiableList(updated);
+            synchronized (this) {
+                // Packages that changed meanwhile stay queued for the next call
+                if (mGeneration == generation) {
+                    mEntries = result;
+                    mGeneration++;
+                }
+            }
+            return result;
+        }
+
+        /** Returns the users that have entries, packages changed for, or are the current one. */
+        private SparseBooleanArray getUserIds(List<AppOpEntry> entries) {
+            final SparseBooleanArray userIds = new SparseBooleanArray();
+            userIds.put(UserHandle.myUserId(), true);
+            for (int userId : getChangedUsers()) {
+                userIds.put(userId, true);
+            }
+            for (AppOpEntry entry : entries) {
+                userIds.put(UserHandle.getUserId(entry.getPackageOps().getUid()), true);
+            }
+            return userIds;
+        }
+
+        private void updatePackage(List<AppOpEntry> entries, String packageName,
+                SparseBooleanArray userIds) {
+            // The entries of a package may come from any user, rebuild it for each of them.
+            entries.removeIf(entry -> packageName.equals(entry.getPackageOps().getPackageName()));
+            for (int i = 0; i < userIds.size(); i++) {
+                for (AppOpEntry entry : mState.buildPackageListState(mTemplate, packageName,
+                        userIds.keyAt(i))) {
+                    // Insert in place rather than sorting the whole list again
+                    final int index = Collections.binarySearch(entries, entry,
+                            AppOpsState.LABEL_COMPARATOR);
+                    entries.add(index < 0 ? -index - 1 : index, entry);
+                }
+            }
+        }
+    }
+}
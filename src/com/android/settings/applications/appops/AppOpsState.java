@@ -31,10 +31,12 @@ import android.util.Log;
 import android.util.SparseArray;
 
 import com.android.settings.R;
+import com.android.settings.applications.AppIconLoader;
 
 import java.io.File;
 import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -49,11 +51,13 @@ public class AppOpsState {
     final PackageManager mPm;
     final CharSequence[] mOpSummaries;
     final CharSequence[] mOpLabels;
+    final AppIconLoader mIconLoader;
 
     public AppOpsState(Context context) {
         mContext = context;
         mAppOps = (AppOpsManager)context.getSystemService(Context.APP_OPS_SERVICE);
         mPm = context.getPackageManager();
+        mIconLoader = AppIconLoader.getInstance(context);
         mOpSummaries = context.getResources().getTextArray(R.array.app_ops_summaries);
         mOpLabels = context.getResources().getTextArray(R.array.app_ops_labels);
     }
@@ -83,6 +87,20 @@ public class AppOpsState {
             dest.writeBooleanArray(showPerms);
         }
 
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof OpsTemplate)) {
+                return false;
+            }
+            final OpsTemplate that = (OpsTemplate) other;
+            return Arrays.equals(ops, that.ops) && Arrays.equals(showPerms, that.showPerms);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(ops) + Arrays.hashCode(showPerms);
+        }
+
         public static final Creator<OpsTemplate> CREATOR = new Creator<OpsTemplate>() {
             @Override public OpsTemplate createFromParcel(Parcel source) {
                 return new OpsTemplate(source);
@@ -261,7 +279,7 @@ public class AppOpsState {
         public Drawable getIcon() {
             if (mIcon == null) {
                 if (mApkFile.exists()) {
-                    mIcon = mInfo.loadIcon(mState.mPm);
+                    mIcon = mState.loadIcon(mInfo);
                     return mIcon;
                 } else {
                     mMounted = false;
@@ -271,7 +289,7 @@ public class AppOpsState {
                 // its icon.
                 if (mApkFile.exists()) {
                     mMounted = true;
-                    mIcon = mInfo.loadIcon(mState.mPm);
+                    mIcon = mState.loadIcon(mInfo);
                     return mIcon;
                 }
             } else {
@@ -293,8 +311,7 @@ public class AppOpsState {
                     mLabel = mInfo.packageName;
                 } else {
                     mMounted = true;
-                    CharSequence label = mInfo.loadLabel(context.getPackageManager());
-                    mLabel = label != null ? label.toString() : mInfo.packageName;
+                    mLabel = mState.loadLabel(mInfo);
                 }
             }
         }
@@ -496,6 +513,19 @@ public class AppOpsState {
         return mAppOps;
     }
 
+    Drawable loadIcon(ApplicationInfo info) {
+        return mIconLoader.getIcon(info);
+    }
+
+    String loadLabel(ApplicationInfo info) {
+        return mIconLoader.getLabel(info);
+    }
+
+    /** Drops the cached label and icon of {@code packageName}. */
+    public void invalidateAppInfo(String packageName) {
+        mIconLoader.invalidatePackage(packageName);
+    }
+
     public List<AppOpEntry> buildState(OpsTemplate tpl) {
         return buildState(tpl, 0, null, RECENCY_COMPARATOR);
     }
@@ -527,6 +557,42 @@ public class AppOpsState {
 
     public List<AppOpEntry> buildState(OpsTemplate tpl, int uid, String packageName,
             Comparator<AppOpEntry> comparator) {
+        final List<AppOpsManager.PackageOps> pkgs;
+        if (packageName != null) {
+            pkgs = mAppOps.getOpsForPackage(uid, packageName, tpl.ops);
+        } else {
+            pkgs = mAppOps.getPackagesForOps(tpl.ops);
+        }
+
+        final List<AppOpEntry> entries = buildEntries(tpl, pkgs, packageName, packageName == null);
+
+        // Sort the list.
+        Collections.sort(entries, comparator);
+
+        // Done!
+        return entries;
+    }
+
+    /**
+     * Builds the unsorted entries of {@code packageName} for {@code userId} as they appear in the
+     * list of all apps returned by {@code buildState(tpl, 0, null, comparator)}, so that the list
+     * can be updated one package and user at a time.
+     */
+    public List<AppOpEntry> buildPackageListState(OpsTemplate tpl, String packageName,
+            int userId) {
+        final ApplicationInfo info;
+        try {
+            info = mPm.getApplicationInfoAsUser(packageName,
+                    PackageManager.MATCH_DISABLED_COMPONENTS, userId);
+        } catch (PackageManager.NameNotFoundException e) {
+            return new ArrayList<AppOpEntry>();
+        }
+        return buildEntries(tpl, mAppOps.getOpsForPackage(info.uid, packageName, tpl.ops),
+                packageName, true /* allowMerge */);
+    }
+
+    private List<AppOpEntry> buildEntries(OpsTemplate tpl, List<AppOpsManager.PackageOps> pkgs,
+            String packageName, boolean allowMerge) {
         final Context context = mContext;
 
         final HashMap<String, AppEntry> appEntries = new HashMap<String, AppEntry>();
@@ -546,13 +612,6 @@ public class AppOpsState {
             }
         }
 
-        List<AppOpsManager.PackageOps> pkgs;
-        if (packageName != null) {
-            pkgs = mAppOps.getOpsForPackage(uid, packageName, tpl.ops);
-        } else {
-            pkgs = mAppOps.getPackagesForOps(tpl.ops);
-        }
-
         if (pkgs != null) {
             for (int i=0; i<pkgs.size(); i++) {
                 AppOpsManager.PackageOps pkgOps = pkgs.get(i);
@@ -562,14 +621,18 @@ public class AppOpsState {
                 }
                 for (int j=0; j<pkgOps.getOps().size(); j++) {
                     AppOpsManager.OpEntry opEntry = pkgOps.getOps().get(j);
-                    addOp(entries, pkgOps, appEntry, opEntry, packageName == null,
-                            packageName == null ? 0 : opToOrder[opEntry.getOp()]);
+                    addOp(entries, pkgOps, appEntry, opEntry, allowMerge,
+                            allowMerge ? 0 : opToOrder[opEntry.getOp()]);
                 }
             }
         }
 
         List<PackageInfo> apps;
-        if (packageName != null) {
+        if (packageName != null && allowMerge) {
+            // The list of all apps asks for packages without their requested permissions, so
+            // it never adds stub ops; neither does the list of a single package built for it.
+            apps = Collections.emptyList();
+        } else if (packageName != null) {
             apps = new ArrayList<PackageInfo>();
             try {
                 PackageInfo pi = mPm.getPackageInfo(packageName, PackageManager.GET_PERMISSIONS);
@@ -620,17 +683,12 @@ public class AppOpsState {
                         AppOpsManager.OpEntry opEntry = new AppOpsManager.OpEntry(
                                 permOps.get(k), AppOpsManager.MODE_ALLOWED, Collections.emptyMap());
                         stubOps.add(opEntry);
-                        addOp(entries, pkgOps, appEntry, opEntry, packageName == null,
-                                packageName == null ? 0 : opToOrder[opEntry.getOp()]);
+                        addOp(entries, pkgOps, appEntry, opEntry, allowMerge,
+                                allowMerge ? 0 : opToOrder[opEntry.getOp()]);
                     }
                 }
             }
         }
-
-        // Sort the list.
-        Collections.sort(entries, comparator);
-
-        // Done!
         return entries;
     }
 }
@@ -42,6 +42,7 @@ import androidx.fragment.app.FragmentActivity;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.settings.R;
+import com.android.settings.applications.AppIconLoader;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.applications.ApplicationsState.AppEntry;
@@ -67,6 +68,7 @@ public class ApplicationViewHolder extends RecyclerView.ViewHolder {
     final ProgressBar mProgressBar;
 
     private final ImageView mAppIcon;
+    private AppIconLoader.Request mIconRequest;
 
     ApplicationViewHolder(View itemView) {
         super(itemView);
@@ -176,6 +178,17 @@ public class ApplicationViewHolder extends RecyclerView.ViewHolder {
         mAppIcon.setImageDrawable(icon);
     }
 
+    void setIconRequest(AppIconLoader.Request request) {
+        mIconRequest = request;
+    }
+
+    void cancelIconRequest() {
+        if (mIconRequest != null) {
+            mIconRequest.cancel();
+            mIconRequest = null;
+        }
+    }
+
     void updateDisableView(ApplicationInfo info) {
         if ((info.flags & ApplicationInfo.FLAG_INSTALLED) == 0) {
             mDisabled.setVisibility(View.VISIBLE);
@@ -135,6 +135,7 @@ import com.android.settings.applications.AppStorageSettings;
 import com.android.settings.applications.UsageAccessDetails;
 import com.android.settings.applications.appinfo.AlarmsAndRemindersDetails;
 import com.android.settings.applications.appinfo.AppInfoDashboardFragment;
+import com.android.settings.applications.appinfo.AppInfoFactsLoader;
 import com.android.settings.applications.appinfo.AppLocaleDetails;
 import com.android.settings.applications.appinfo.DrawOverlayDetails;
 import com.android.settings.applications.appinfo.ExternalSourcesDetails;
@@ -163,7 +164,6 @@ import com.android.settings.wifi.ChangeWifiStateDetails;
 import com.android.settingslib.RestrictedLockUtils;
 import com.android.settingslib.RestrictedLockUtilsInternal;
 import com.android.settingslib.applications.AppIconCacheManager;
-import com.android.settingslib.applications.AppUtils;
 import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.applications.ApplicationsState.AppEntry;
 import com.android.settingslib.applications.ApplicationsState.AppFilter;
@@ -668,7 +668,7 @@ public class ManageApplications extends InstrumentedFragment
     }
 
     // utility method used to start sub activity
-    private void startApplicationDetailsActivity() {
+    private void startApplicationDetailsActivity(ApplicationInfo info) {
         switch (mListType) {
             case LIST_TYPE_NOTIFICATION:
                 startAppInfoFragment(AppNotificationSettings.class, R.string.notifications_title);
@@ -747,6 +747,8 @@ public class ManageApplications extends InstrumentedFragment
             // process ahead of time, to avoid a long load of data when user clicks on a managed
             // app. Maybe when they load the list of apps that contains managed profile apps.
             default:
+                // Start loading what the App info page shows while its activity is launched.
+                AppInfoFactsLoader.getInstance().prefetch(getContext(), info);
                 startAppInfoFragment(
                         AppInfoDashboardFragment.class, R.string.application_info_label);
                 break;
@@ -965,7 +967,7 @@ public class ManageApplications extends InstrumentedFragment
             ApplicationsState.AppEntry entry = mApplications.getAppEntry(applicationPosition);
             mCurrentPkgName = entry.info.packageName;
             mCurrentUid = entry.info.uid;
-            startApplicationDetailsActivity();
+            startApplicationDetailsActivity(entry.info);
             // We disable the scrolling ability in onMenuItemActionCollapse, we should recover it
             // if user selects any app item.
             ViewCompat.setNestedScrollingEnabled(mRecyclerView, true);
@@ -1562,8 +1564,12 @@ public class ManageApplications extends InstrumentedFragment
             }
 
             // Preload top visible icons of app list.
-            AppUtils.preloadTopIcons(mContext, entries,
+            final int visibleIcons = Math.min(entries.size(),
                     mContext.getResources().getInteger(R.integer.config_num_visible_app_icons));
+            final AppIconLoader iconLoader = AppIconLoader.getInstance(mContext);
+            for (int i = 0; i < visibleIcons; i++) {
+                iconLoader.prefetchIcon(entries.get(i).info);
+            }
 
             final int filterType = mAppFilter.getFilterType();
             if (filterType == FILTER_APPS_POWER_ALLOWLIST
@@ -1770,17 +1776,21 @@ public class ManageApplications extends InstrumentedFragment
             holder.itemView.setOnClickListener(mManageApplications);
         }
 
+        @Override
+        public void onViewRecycled(ApplicationViewHolder holder) {
+            // Do not load the icon of a row that scrolled away
+            holder.cancelIconRequest();
+        }
+
         private void updateIcon(ApplicationViewHolder holder, AppEntry entry) {
-            final Drawable cachedIcon = AppUtils.getIconFromCache(entry);
+            holder.cancelIconRequest();
+            final AppIconLoader iconLoader = AppIconLoader.getInstance(mContext);
+            final Drawable cachedIcon = iconLoader.getCachedIcon(entry.info);
             if (cachedIcon != null && entry.mounted) {
                 holder.setIcon(cachedIcon);
             } else {
-                ThreadUtils.postOnBackgroundThread(() -> {
-                    final Drawable icon = AppUtils.getIcon(mContext, entry);
-                    if (icon != null) {
-                        ThreadUtils.postOnMainThread(() -> holder.setIcon(icon));
-                    }
-                });
+                holder.setIconRequest(iconLoader.loadIcon(entry.info,
+                        AppIconLoader.PRIORITY_VISIBLE, holder::setIcon));
             }
         }
 
@@ -20,6 +20,7 @@ import android.app.ActivityManager;
 import android.content.Context;
 import android.content.pm.PackageManager;
 
+import com.android.settings.core.AvailabilityStatusCache;
 import com.android.settings.core.BasePreferenceController;
 
 public class PictureInPictureController extends BasePreferenceController {
@@ -34,4 +35,9 @@ public class PictureInPictureController extends BasePreferenceController {
                 && mContext.getPackageManager().hasSystemFeature(
                 PackageManager.FEATURE_PICTURE_IN_PICTURE) ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
     }
+
+    @Override
+    protected AvailabilityStatusCache.Dependencies getAvailabilityDependencies() {
+        return AvailabilityStatusCache.Dependencies.NONE;
+    }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.biometrics;
+
+import android.hardware.biometrics.BiometricAuthenticator;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Observable, per-user cache of the biometric templates enrolled on the device.
+ *
+ * <p>The enrolled list is read from the framework once per user and then kept up to date from
+ * the enrollment, removal and rename paths of Settings, so that a single settings refresh does
+ * not have to cross binder every time it needs the list or its size. Templates also change
+ * outside of those paths, e.g. when the screen lock is removed or an enrollment is killed, so
+ * the pages showing them {@link #invalidate} the cache whenever they are resumed.
+ *
+ * @param <T> the biometric template type, e.g. {@code Fingerprint} or {@code Face}
+ */
+public abstract class EnrolledTemplateModel<T extends BiometricAuthenticator.Identifier> {
+
+    /** Callback for observing changes of the enrolled templates. */
+    public interface Listener {
+        /** Called when the enrolled templates of {@code userId} changed. */
+        void onTemplatesChanged(int userId);
+    }
+
+    private final SparseArray<List<T>> mTemplates = new SparseArray<>();
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<>();
+
+    /** Reads the enrolled templates of {@code userId} from the framework. */
+    @NonNull
+    protected abstract List<T> loadTemplates(int userId);
+
+    /**
+     * Returns an unmodifiable list of the templates enrolled for {@code userId}, loading it from
+     * the framework if it is not cached yet.
+     */
+    @NonNull
+    public List<T> getTemplates(int userId) {
+        synchronized (mTemplates) {
+            List<T> templates = mTemplates.get(userId);
+            if (templates == null) {
+                templates = Collections.unmodifiableList(new ArrayList<>(loadTemplates(userId)));
+                mTemplates.put(userId, templates);
+            }
+            return templates;
+        }
+    }
+
+    /** Returns the number of templates enrolled for {@code userId}. */
+    public int getTemplateCount(int userId) {
+        return getTemplates(userId).size();
+    }
+
+    /** Returns the enrolled template with {@code biometricId}, or null if there is none. */
+    @Nullable
+    public T getTemplate(int userId, int biometricId) {
+        for (T template : getTemplates(userId)) {
+            if (template.getBiometricId() == biometricId) {
+                return template;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Called when a new template was enrolled for {@code userId}. Enrollment callbacks do not
+     * carry the new template, so the list is reloaded on its next access.
+     */
+    public void onTemplateEnrolled(int userId) {
+        invalidate(userId);
+    }
+
+    /** Called when {@code template} was removed from {@code userId}. */
+    public void onTemplateRemoved(int userId, @Nullable T template) {
+        if (template == null) {
+            invalidate(userId);
+            return;
+        }
+        synchronized (mTemplates) {
+            final List<T> templates = mTemplates.get(userId);
+            if (templates == null) {
+                return;
+            }
+            final List<T> updated = new ArrayList<>(templates.size());
+            for (T item : templates) {
+                if (item.getBiometricId() != template.getBiometricId()) {
+                    updated.add(item);
+                }
+            }
+            mTemplates.put(userId, Collections.unmodifiableList(updated));
+        }
+        notifyChanged(userId);
+    }
+
+    /** Called when an enrolled template of {@code userId} was replaced by {@code renamed}. */
+    public void onTemplateRenamed(int userId, @NonNull T renamed) {
+        synchronized (mTemplates) {
+            final List<T> templates = mTemplates.get(userId);
+            if (templates == null) {
+                return;
+            }
+            final List<T> updated = new ArrayList<>(templates);
+            for (int i = 0; i < updated.size(); i++) {
+                if (updated.get(i).getBiometricId() == renamed.getBiometricId()) {
+                    updated.set(i, renamed);
+                }
+            }
+            mTemplates.put(userId, Collections.unmodifiableList(updated));
+        }
+        notifyChanged(userId);
+    }
+
+    /** Drops the cached templates of {@code userId}. */
+    public void invalidate(int userId) {
+        synchronized (mTemplates) {
+            mTemplates.remove(userId);
+        }
+        notifyChanged(userId);
+    }
+
+    /** Registers a {@link Listener}. */
+    public void addListener(@NonNull Listener listener) {
+        mListeners.add(listener);
+    }
+
+    /** Unregisters a {@link Listener}. */
+    public void removeListener(@NonNull Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    private void notifyChanged(int userId) {
+        for (Listener listener : mListeners) {
+            listener.onTemplatesChanged(userId);
+        }
+    }
+}
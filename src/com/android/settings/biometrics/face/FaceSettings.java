@@ -256,6 +256,8 @@ public class FaceSettings extends DashboardFragment {
     @Override
     public void onResume() {
         super.onResume();
+        // Faces may have been enrolled or removed outside of Settings or by another user.
+        FaceTemplateModel.getInstance(getPrefContext()).invalidate(mUserId);
 
         if (mToken == null && !mConfirmingPassword) {
             final ChooseLockSettingsHelper.Builder builder =
@@ -312,6 +314,8 @@ public class FaceSettings extends DashboardFragment {
                 mRemoveButton.setVisible(hasEnrolled);
             }
         } else if (requestCode == ENROLL_REQUEST) {
+            // The enrollment may have failed or been killed without reporting back.
+            FaceTemplateModel.getInstance(getPrefContext()).invalidate(mUserId);
             if (resultCode == RESULT_TIMEOUT) {
                 setResult(resultCode, data);
                 finish();
@@ -121,6 +121,7 @@ public class FaceSettingsRemoveButtonPreferenceController extends BasePreference
     private final Context mContext;
     private final FaceManager mFaceManager;
     private final FaceUpdater mFaceUpdater;
+    private final FaceTemplateModel mTemplateModel;
     private final FaceManager.RemovalCallback mRemovalCallback = new FaceManager.RemovalCallback() {
         @Override
         public void onRemovalError(Face face, int errMsgId, CharSequence errString) {
@@ -133,7 +134,7 @@ public class FaceSettingsRemoveButtonPreferenceController extends BasePreference
         @Override
         public void onRemovalSucceeded(Face face, int remaining) {
             if (remaining == 0) {
-                final List<Face> faces = mFaceManager.getEnrolledFaces(mUserId);
+                final List<Face> faces = mTemplateModel.getTemplates(mUserId);
                 if (!faces.isEmpty()) {
                     mPreference.setEnabled(true);
                 } else {
@@ -152,7 +153,7 @@ public class FaceSettingsRemoveButtonPreferenceController extends BasePreference
         public void onClick(DialogInterface dialog, int which) {
             if (which == DialogInterface.BUTTON_POSITIVE) {
                 mPreference.setEnabled(false);
-                final List<Face> faces = mFaceManager.getEnrolledFaces(mUserId);
+                final List<Face> faces = mTemplateModel.getTemplates(mUserId);
                 if (faces.isEmpty()) {
                     Log.e(TAG, "No faces");
                     return;
@@ -176,6 +177,7 @@ public class FaceSettingsRemoveButtonPreferenceController extends BasePreference
         mFaceManager = context.getSystemService(FaceManager.class);
         mMetricsFeatureProvider = FeatureFactory.getFactory(context).getMetricsFeatureProvider();
         mFaceUpdater = new FaceUpdater(context, mFaceManager);
+        mTemplateModel = FaceTemplateModel.getInstance(context);
     }
 
     public FaceSettingsRemoveButtonPreferenceController(Context context) {
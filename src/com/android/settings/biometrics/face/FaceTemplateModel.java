@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.biometrics.face;
+
+import android.content.Context;
+import android.hardware.face.Face;
+import android.hardware.face.FaceManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.Utils;
+import com.android.settings.biometrics.EnrolledTemplateModel;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Process wide {@link EnrolledTemplateModel} of the enrolled faces, caching the templates of each
+ * user.
+ */
+public class FaceTemplateModel extends EnrolledTemplateModel<Face> {
+
+    private static FaceTemplateModel sInstance;
+
+    @Nullable
+    private final FaceManager mFaceManager;
+
+    @VisibleForTesting
+    FaceTemplateModel(@Nullable FaceManager faceManager) {
+        mFaceManager = faceManager;
+    }
+
+    /** Returns the shared model, backed by the {@link FaceManager} of the application. */
+    @NonNull
+    public static synchronized FaceTemplateModel getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new FaceTemplateModel(
+                    Utils.getFaceManagerOrNull(context.getApplicationContext()));
+        }
+        return sInstance;
+    }
+
+    @NonNull
+    @Override
+    protected List<Face> loadTemplates(int userId) {
+        if (mFaceManager == null) {
+            return Collections.emptyList();
+        }
+        return mFaceManager.getEnrolledFaces(userId);
+    }
+}
@@ -36,22 +36,26 @@ public class FaceUpdater {
 
     private final Context mContext;
     private final FaceManager mFaceManager;
+    private final FaceTemplateModel mTemplateModel;
 
     public FaceUpdater(Context context) {
         mContext = context;
         mFaceManager = Utils.getFaceManagerOrNull(context);
+        mTemplateModel = FaceTemplateModel.getInstance(context);
     }
 
     public FaceUpdater(Context context, FaceManager faceManager) {
         mContext = context;
         mFaceManager = faceManager;
+        mTemplateModel = FaceTemplateModel.getInstance(context);
     }
 
     /** Wrapper around the {@link FaceManager#enroll} method. */
     public void enroll(int userId, byte[] hardwareAuthToken, CancellationSignal cancel,
             FaceManager.EnrollmentCallback callback, int[] disabledFeatures) {
         mFaceManager.enroll(userId, hardwareAuthToken, cancel,
-                new NotifyingEnrollmentCallback(mContext, callback), disabledFeatures);
+                new NotifyingEnrollmentCallback(mContext, mTemplateModel, userId, callback),
+                disabledFeatures);
     }
 
     /** Wrapper around the {@link FaceManager#enroll} method. */
@@ -59,13 +63,14 @@ public class FaceUpdater {
             FaceManager.EnrollmentCallback callback, int[] disabledFeatures,
             @Nullable Surface previewSurface, boolean debugConsent) {
         mFaceManager.enroll(userId, hardwareAuthToken, cancel,
-                new NotifyingEnrollmentCallback(mContext, callback), disabledFeatures,
-                previewSurface, debugConsent);
+                new NotifyingEnrollmentCallback(mContext, mTemplateModel, userId, callback),
+                disabledFeatures, previewSurface, debugConsent);
     }
 
     /** Wrapper around the {@link FaceManager#remove} method. */
     public void remove(Face face, int userId, FaceManager.RemovalCallback callback) {
-        mFaceManager.remove(face, userId, new NotifyingRemovalCallback(mContext, callback));
+        mFaceManager.remove(face, userId,
+                new NotifyingRemovalCallback(mContext, mTemplateModel, userId, callback));
     }
 
     /**
@@ -76,11 +81,15 @@ public class FaceUpdater {
             extends FaceManager.EnrollmentCallback {
 
         private final Context mContext;
+        private final FaceTemplateModel mTemplateModel;
+        private final int mUserId;
         private final FaceManager.EnrollmentCallback mCallback;
 
-        NotifyingEnrollmentCallback(Context context,
-                FaceManager.EnrollmentCallback callback) {
+        NotifyingEnrollmentCallback(Context context, FaceTemplateModel templateModel,
+                int userId, FaceManager.EnrollmentCallback callback) {
             mContext = context;
+            mTemplateModel = templateModel;
+            mUserId = userId;
             mCallback = callback;
         }
 
@@ -104,6 +113,7 @@ public class FaceUpdater {
         public void onEnrollmentProgress(int remaining) {
             mCallback.onEnrollmentProgress(remaining);
             if (remaining == 0) {
+                mTemplateModel.onTemplateEnrolled(mUserId);
                 BiometricsSafetySource.onBiometricsChanged(mContext); // biometrics data changed
             }
         }
@@ -116,10 +126,15 @@ public class FaceUpdater {
     private static class NotifyingRemovalCallback extends FaceManager.RemovalCallback {
 
         private final Context mContext;
+        private final FaceTemplateModel mTemplateModel;
+        private final int mUserId;
         private final FaceManager.RemovalCallback mCallback;
 
-        NotifyingRemovalCallback(Context context, FaceManager.RemovalCallback callback) {
+        NotifyingRemovalCallback(Context context, FaceTemplateModel templateModel,
+                int userId, FaceManager.RemovalCallback callback) {
             mContext = context;
+            mTemplateModel = templateModel;
+            mUserId = userId;
             mCallback = callback;
         }
 
@@ -130,6 +145,7 @@ public class FaceUpdater {
 
         @Override
         public void onRemovalSucceeded(@Nullable Face fp, int remaining) {
+            mTemplateModel.onTemplateRemoved(mUserId, fp);
             mCallback.onRemovalSucceeded(fp, remaining);
             BiometricsSafetySource.onBiometricsChanged(mContext); // biometrics data changed
         }
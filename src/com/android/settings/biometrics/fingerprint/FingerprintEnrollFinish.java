@@ -70,6 +70,8 @@ public class FingerprintEnrollFinish extends BiometricEnrollBase {
         }
         setHeaderText(R.string.security_settings_fingerprint_enroll_finish_title);
         setDescriptionText(R.string.security_settings_fingerprint_enroll_finish_v2_message);
+        // The enrollment that led here may not have updated the cached fingerprints.
+        FingerprintTemplateModel.getInstance(this).invalidate(mUserId);
         if (mCanAssumeSfps) {
             setDescriptionForSfps();
         }
@@ -99,7 +101,8 @@ public class FingerprintEnrollFinish extends BiometricEnrollBase {
             final List<FingerprintSensorPropertiesInternal> props =
                     fpm.getSensorPropertiesInternal();
             final int maxEnrollments = props.get(0).maxEnrollmentsPerUser;
-            final int enrolled = fpm.getEnrolledFingerprints(mUserId).size();
+            final int enrolled =
+                    FingerprintTemplateModel.getInstance(this).getTemplateCount(mUserId);
             if (enrolled < maxEnrollments) {
                 setDescriptionText(R.string
                         .security_settings_fingerprint_enroll_finish_v2_add_fingerprint_message);
@@ -126,7 +129,7 @@ public class FingerprintEnrollFinish extends BiometricEnrollBase {
             final List<FingerprintSensorPropertiesInternal> props =
                     fpm.getSensorPropertiesInternal();
             int maxEnrollments = props.get(0).maxEnrollmentsPerUser;
-            int enrolled = fpm.getEnrolledFingerprints(mUserId).size();
+            int enrolled = FingerprintTemplateModel.getInstance(this).getTemplateCount(mUserId);
             hideAddAnother = enrolled >= maxEnrollments;
         }
         if (hideAddAnother) {
@@ -137,6 +140,13 @@ public class FingerprintEnrollFinish extends BiometricEnrollBase {
         }
     }
 
+    @Override
+    protected void onRestart() {
+        super.onRestart();
+        // Fingerprints may have been added or removed while this screen was in the background.
+        FingerprintTemplateModel.getInstance(this).invalidate(mUserId);
+    }
+
     @Override
     protected void onStart() {
         super.onStart();
@@ -164,7 +174,7 @@ public class FingerprintEnrollFinish extends BiometricEnrollBase {
     private void updateFingerprintSuggestionEnableState() {
         final FingerprintManager fpm = Utils.getFingerprintManagerOrNull(this);
         if (fpm != null) {
-            int enrolled = fpm.getEnrolledFingerprints(mUserId).size();
+            int enrolled = FingerprintTemplateModel.getInstance(this).getTemplateCount(mUserId);
 
             // Only show "Add another fingerprint" if the user already enrolled one.
             // "Add fingerprint" will be shown in the main flow if the user hasn't enrolled any
@@ -44,6 +44,7 @@ import android.os.UserManager;
 import android.text.InputFilter;
 import android.text.Spanned;
 import android.text.TextUtils;
+import android.util.ArraySet;
 import android.util.FeatureFlagUtils;
 import android.util.Log;
 import android.view.View;
@@ -69,6 +70,7 @@ import com.android.settings.Utils;
 import com.android.settings.biometrics.BiometricEnrollBase;
 import com.android.settings.biometrics.BiometricUtils;
 import com.android.settings.biometrics.BiometricsSplitScreenDialog;
+import com.android.settings.biometrics.EnrolledTemplateModel;
 import com.android.settings.biometrics.GatekeeperPasswordProvider;
 import com.android.settings.biometrics2.ui.model.EnrollmentRequest;
 import com.android.settings.biometrics2.ui.view.FingerprintEnrollmentActivity;
@@ -93,6 +95,7 @@ import com.google.android.setupdesign.util.DeviceHelper;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Settings screen for fingerprints
@@ -208,6 +211,7 @@ public class FingerprintSettings extends SubSettings {
 
         private FingerprintManager mFingerprintManager;
         private FingerprintUpdater mFingerprintUpdater;
+        private FingerprintTemplateModel mTemplateModel;
         private List<FingerprintSensorPropertiesInternal> mSensorProperties;
         private boolean mInFingerprintLockout;
         private byte[] mToken;
@@ -279,6 +283,16 @@ public class FingerprintSettings extends SubSettings {
                     }
                 };
 
+        private final EnrolledTemplateModel.Listener mTemplateListener = userId -> {
+            if (userId == mUserId) {
+                mHandler.post(() -> {
+                    if (getActivity() != null) {
+                        addFingerprintItemPreferences(getPreferenceScreen());
+                    }
+                });
+            }
+        };
+
         private final Handler mHandler = new Handler() {
             @Override
             public void handleMessage(android.os.Message msg) {
@@ -348,8 +362,7 @@ public class FingerprintSettings extends SubSettings {
                 return;
             }
 
-            if (mRemovalSidecar.inProgress()
-                    || 0 == mFingerprintManager.getEnrolledFingerprints(mUserId).size()) {
+            if (mRemovalSidecar.inProgress() || 0 == mTemplateModel.getTemplateCount(mUserId)) {
                 return;
             }
             // Don't start authentication if ChooseLockGeneric is showing, otherwise if the user
@@ -375,6 +388,7 @@ public class FingerprintSettings extends SubSettings {
             Activity activity = getActivity();
             mFingerprintManager = Utils.getFingerprintManagerOrNull(activity);
             mFingerprintUpdater = new FingerprintUpdater(activity, mFingerprintManager);
+            mTemplateModel = FingerprintTemplateModel.getInstance(activity);
             mSensorProperties = mFingerprintManager.getSensorPropertiesInternal();
             mFingerprintWakeAndUnlock = getContext().getResources().getBoolean(
                     com.android.internal.R.bool.config_fingerprintWakeAndUnlock);
@@ -573,34 +587,53 @@ public class FingerprintSettings extends SubSettings {
 
         private String addFingerprintItemPreferences(PreferenceGroup root) {
             mFingerprintsEnrolledCategory = findPreference(KEY_FINGERPRINTS_ENROLLED_CATEGORY);
-            if (mFingerprintsEnrolledCategory != null) {
-                mFingerprintsEnrolledCategory.removeAll();
-            }
 
             String keyToReturn = KEY_FINGERPRINT_ADD;
-            final List<Fingerprint> items = mFingerprintManager.getEnrolledFingerprints(mUserId);
+            final List<Fingerprint> items = mTemplateModel.getTemplates(mUserId);
+            if (mFingerprintsEnrolledCategory == null) {
+                return items.isEmpty() ? keyToReturn : genKey(items.get(0).getBiometricId());
+            }
+
+            // Patch the existing list instead of rebuilding it, so that unchanged rows keep their
+            // views and only added, removed or renamed fingerprints are touched.
+            final Set<String> enrolledKeys = new ArraySet<>();
+            for (Fingerprint item : items) {
+                enrolledKeys.add(genKey(item.getBiometricId()));
+            }
+            for (int i = mFingerprintsEnrolledCategory.getPreferenceCount() - 1; i >= 0; i--) {
+                final Preference pref = mFingerprintsEnrolledCategory.getPreference(i);
+                if (!enrolledKeys.contains(pref.getKey())) {
+                    mFingerprintsEnrolledCategory.removePreference(pref);
+                }
+            }
+
             final int fingerprintCount = items.size();
             for (int i = 0; i < fingerprintCount; i++) {
                 final Fingerprint item = items.get(i);
-                FingerprintPreference pref = new FingerprintPreference(root.getContext(),
-                        this /* onDeleteClickListener */);
                 String key = genKey(item.getBiometricId());
                 if (i == 0) {
                     keyToReturn = key;
                 }
-                pref.setKey(key);
+                FingerprintPreference pref = mFingerprintsEnrolledCategory.findPreference(key);
+                final boolean isNew = pref == null;
+                if (isNew) {
+                    pref = new FingerprintPreference(root.getContext(),
+                            this /* onDeleteClickListener */);
+                    pref.setKey(key);
+                    pref.setPersistent(false);
+                    pref.setIcon(R.drawable.ic_fingerprint_24dp);
+                }
+                pref.setOrder(i);
                 pref.setTitle(item.getName());
                 pref.setFingerprint(item);
-                pref.setPersistent(false);
-                pref.setIcon(R.drawable.ic_fingerprint_24dp);
-                if (mRemovalSidecar.isRemovingFingerprint(item.getBiometricId())) {
-                    pref.setEnabled(false);
-                }
+                pref.setEnabled(!mRemovalSidecar.isRemovingFingerprint(item.getBiometricId()));
                 if (mFingerprintsRenaming.containsKey(item.getBiometricId())) {
                     pref.setTitle(mFingerprintsRenaming.get(item.getBiometricId()));
                 }
-                mFingerprintsEnrolledCategory.addPreference(pref);
-                pref.setOnPreferenceChangeListener(this);
+                if (isNew) {
+                    mFingerprintsEnrolledCategory.addPreference(pref);
+                    pref.setOnPreferenceChangeListener(this);
+                }
             }
             mAddFingerprintPreference = findPreference(KEY_FINGERPRINT_ADD);
             setupAddFingerprintPreference();
@@ -653,7 +686,7 @@ public class FingerprintSettings extends SubSettings {
             /* Disable preference if too many fingerprints added */
             final int max = getContext().getResources().getInteger(
                     com.android.internal.R.integer.config_fingerprintMaxTemplatesPerUser);
-            boolean tooMany = mFingerprintManager.getEnrolledFingerprints(mUserId).size() >= max;
+            boolean tooMany = mTemplateModel.getTemplateCount(mUserId) >= max;
             // retryFingerprint() will be called when remove finishes
             // need to disable enroll or have a way to determine if enroll is in progress
             final boolean removalInProgress = mRemovalSidecar.inProgress();
@@ -698,8 +731,10 @@ public class FingerprintSettings extends SubSettings {
             super.onResume();
             mInFingerprintLockout = false;
             // Make sure we reload the preference hierarchy since fingerprints may be added,
-            // deleted or renamed.
+            // deleted or renamed, also outside of Settings or by another user.
+            mTemplateModel.invalidate(mUserId);
             updatePreferences();
+            mTemplateModel.addListener(mTemplateListener);
             if (mRemovalSidecar != null) {
                 mRemovalSidecar.setListener(mRemovalListener);
             }
@@ -713,6 +748,7 @@ public class FingerprintSettings extends SubSettings {
         @Override
         public void onPause() {
             super.onPause();
+            mTemplateModel.removeListener(mTemplateListener);
             if (mRemovalSidecar != null) {
                 mRemovalSidecar.setListener(null);
             }
@@ -791,8 +827,7 @@ public class FingerprintSettings extends SubSettings {
 
         @Override
         public void onDeleteClick(FingerprintPreference p) {
-            final boolean hasMultipleFingerprint =
-                    mFingerprintManager.getEnrolledFingerprints(mUserId).size() > 1;
+            final boolean hasMultipleFingerprint = mTemplateModel.getTemplateCount(mUserId) > 1;
             final Fingerprint fp = p.getFingerprint();
 
             if (hasMultipleFingerprint) {
@@ -936,6 +971,8 @@ public class FingerprintSettings extends SubSettings {
                 }
             } else if (requestCode == ADD_FINGERPRINT_REQUEST) {
                 mIsEnrolling = false;
+                // The enrollment may have failed or been killed without reporting back.
+                mTemplateModel.invalidate(mUserId);
                 if (resultCode == RESULT_TIMEOUT) {
                     Activity activity = getActivity();
                     activity.setResult(resultCode);
@@ -1078,7 +1115,7 @@ public class FingerprintSettings extends SubSettings {
         }
 
         private void renameFingerPrint(int fingerId, String newName) {
-            mFingerprintManager.rename(fingerId, mUserId, newName);
+            mTemplateModel.rename(fingerId, mUserId, newName);
             if (!TextUtils.isEmpty(newName)) {
                 mFingerprintsRenaming.put(fingerId, newName);
             }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.biometrics.fingerprint;
+
+import android.content.Context;
+import android.hardware.fingerprint.Fingerprint;
+import android.hardware.fingerprint.FingerprintManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.Utils;
+import com.android.settings.biometrics.EnrolledTemplateModel;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Process wide {@link EnrolledTemplateModel} of the enrolled fingerprints, caching the templates
+ * of each user.
+ */
+public class FingerprintTemplateModel extends EnrolledTemplateModel<Fingerprint> {
+
+    private static FingerprintTemplateModel sInstance;
+
+    @Nullable
+    private final FingerprintManager mFingerprintManager;
+
+    @VisibleForTesting
+    FingerprintTemplateModel(@Nullable FingerprintManager fingerprintManager) {
+        mFingerprintManager = fingerprintManager;
+    }
+
+    /** Returns the shared model, backed by the {@link FingerprintManager} of the application. */
+    @NonNull
+    public static synchronized FingerprintTemplateModel getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new FingerprintTemplateModel(
+                    Utils.getFingerprintManagerOrNull(context.getApplicationContext()));
+        }
+        return sInstance;
+    }
+
+    @NonNull
+    @Override
+    protected List<Fingerprint> loadTemplates(int userId) {
+        if (mFingerprintManager == null) {
+            return Collections.emptyList();
+        }
+        return mFingerprintManager.getEnrolledFingerprints(userId);
+    }
+
+    /** Renames the fingerprint {@code fingerId} and updates the cached list accordingly. */
+    public void rename(int fingerId, int userId, String newName) {
+        if (mFingerprintManager == null) {
+            return;
+        }
+        mFingerprintManager.rename(fingerId, userId, newName);
+        final Fingerprint fp = getTemplate(userId, fingerId);
+        if (fp != null) {
+            onTemplateRenamed(userId, new Fingerprint(newName, fp.getGroupId(),
+                    fp.getBiometricId(), fp.getDeviceId()));
+        } else {
+            invalidate(userId);
+        }
+    }
+}
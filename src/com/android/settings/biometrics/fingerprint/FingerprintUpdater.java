@@ -34,15 +34,18 @@ public class FingerprintUpdater {
 
     private final Context mContext;
     private final FingerprintManager mFingerprintManager;
+    private final FingerprintTemplateModel mTemplateModel;
 
     public FingerprintUpdater(Context context) {
         mContext = context;
         mFingerprintManager = Utils.getFingerprintManagerOrNull(context);
+        mTemplateModel = FingerprintTemplateModel.getInstance(context);
     }
 
     public FingerprintUpdater(Context context, FingerprintManager fingerprintManager) {
         mContext = context;
         mFingerprintManager = fingerprintManager;
+        mTemplateModel = FingerprintTemplateModel.getInstance(context);
     }
 
     /** Wrapper around the {@link FingerprintManager#enroll} method. */
@@ -50,12 +53,14 @@ public class FingerprintUpdater {
             FingerprintManager.EnrollmentCallback callback,
             @FingerprintManager.EnrollReason int enrollReason) {
         mFingerprintManager.enroll(hardwareAuthToken, cancel, userId,
-                new NotifyingEnrollmentCallback(mContext, callback), enrollReason);
+                new NotifyingEnrollmentCallback(mContext, mTemplateModel, userId, callback),
+                enrollReason);
     }
 
     /** Wrapper around the {@link FingerprintManager#remove} method. */
     public void remove(Fingerprint fp, int userId, FingerprintManager.RemovalCallback callback) {
-        mFingerprintManager.remove(fp, userId, new NotifyingRemovalCallback(mContext, callback));
+        mFingerprintManager.remove(fp, userId,
+                new NotifyingRemovalCallback(mContext, mTemplateModel, userId, callback));
     }
 
     /**
@@ -66,11 +71,15 @@ public class FingerprintUpdater {
             extends FingerprintManager.EnrollmentCallback {
 
         private final Context mContext;
+        private final FingerprintTemplateModel mTemplateModel;
+        private final int mUserId;
         private final FingerprintManager.EnrollmentCallback mCallback;
 
-        NotifyingEnrollmentCallback(Context context,
-                FingerprintManager.EnrollmentCallback callback) {
+        NotifyingEnrollmentCallback(Context context, FingerprintTemplateModel templateModel,
+                int userId, FingerprintManager.EnrollmentCallback callback) {
             mContext = context;
+            mTemplateModel = templateModel;
+            mUserId = userId;
             mCallback = callback;
         }
 
@@ -88,6 +97,7 @@ public class FingerprintUpdater {
         public void onEnrollmentProgress(int remaining) {
             mCallback.onEnrollmentProgress(remaining);
             if (remaining == 0) {
+                mTemplateModel.onTemplateEnrolled(mUserId);
                 BiometricsSafetySource.onBiometricsChanged(mContext); // biometrics data changed
             }
         }
@@ -120,10 +130,15 @@ public class FingerprintUpdater {
     private static class NotifyingRemovalCallback extends FingerprintManager.RemovalCallback {
 
         private final Context mContext;
+        private final FingerprintTemplateModel mTemplateModel;
+        private final int mUserId;
         private final FingerprintManager.RemovalCallback mCallback;
 
-        NotifyingRemovalCallback(Context context, FingerprintManager.RemovalCallback callback) {
+        NotifyingRemovalCallback(Context context, FingerprintTemplateModel templateModel,
+                int userId, FingerprintManager.RemovalCallback callback) {
             mContext = context;
+            mTemplateModel = templateModel;
+            mUserId = userId;
             mCallback = callback;
         }
 
@@ -134,6 +149,7 @@ public class FingerprintUpdater {
 
         @Override
         public void onRemovalSucceeded(@Nullable Fingerprint fp, int remaining) {
+            mTemplateModel.onTemplateRemoved(mUserId, fp);
             mCallback.onRemovalSucceeded(fp, remaining);
             BiometricsSafetySource.onBiometricsChanged(mContext); // biometrics data changed
         }
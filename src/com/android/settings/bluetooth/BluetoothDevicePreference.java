@@ -38,6 +38,7 @@ import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 import androidx.appcompat.app.AlertDialog;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceViewHolder;
@@ -237,41 +238,71 @@ public final class BluetoothDevicePreference extends GearPreference {
     void onPreferenceAttributesChanged() {
         try {
             ThreadUtils.postOnBackgroundThread(() -> {
-                @Nullable String name = mCachedDevice.getName();
-                // Null check is done at the framework
-                @Nullable String connectionSummary = getConnectionSummary();
-                @NonNull Pair<Drawable, String> pair = mCachedDevice.getDrawableWithDescription();
-                boolean isBusy = mCachedDevice.isBusy();
-                // Device is only visible in the UI if it has a valid name besides MAC address or
-                // when user allows showing devices without user-friendly name in developer settings
-                boolean isVisible =
-                        mShowDevicesWithoutNames || mCachedDevice.hasHumanReadableName();
-
-                ThreadUtils.postOnMainThread(() -> {
-                    /*
-                     * The preference framework takes care of making sure the value has
-                     * changed before proceeding. It will also call notifyChanged() if
-                     * any preference info has changed from the previous value.
-                     */
-                    setTitle(name);
-                    setSummary(connectionSummary);
-                    setIcon(pair.first);
-                    contentDescription = pair.second;
-                    // Used to gray out the item
-                    setEnabled(!isBusy);
-                    setVisible(isVisible);
-
-                    // This could affect ordering, so notify that
-                    if (mNeedNotifyHierarchyChanged) {
-                        notifyHierarchyChanged();
-                    }
-                });
+                final Attributes attributes = loadAttributes();
+                ThreadUtils.postOnMainThread(() -> applyAttributes(attributes));
             });
         } catch (RejectedExecutionException e) {
             Log.w(TAG, "Handler thread unavailable, skipping getConnectionSummary!");
         }
     }
 
+    /** Reads the attributes of the device, which may cross binder. */
+    @WorkerThread
+    @NonNull
+    Attributes loadAttributes() {
+        @Nullable String name = mCachedDevice.getName();
+        // Null check is done at the framework
+        @Nullable String connectionSummary = getConnectionSummary();
+        @NonNull Pair<Drawable, String> pair = mCachedDevice.getDrawableWithDescription();
+        boolean isBusy = mCachedDevice.isBusy();
+        // Device is only visible in the UI if it has a valid name besides MAC address or
+        // when user allows showing devices without user-friendly name in developer settings
+        boolean isVisible = mShowDevicesWithoutNames || mCachedDevice.hasHumanReadableName();
+        return new Attributes(name, connectionSummary, pair, isBusy, isVisible);
+    }
+
+    /** Shows the {@code attributes} loaded by {@link #loadAttributes()}. */
+    void applyAttributes(@NonNull Attributes attributes) {
+        /*
+         * The preference framework takes care of making sure the value has
+         * changed before proceeding. It will also call notifyChanged() if
+         * any preference info has changed from the previous value.
+         */
+        setTitle(attributes.mName);
+        setSummary(attributes.mSummary);
+        setIcon(attributes.mIcon.first);
+        contentDescription = attributes.mIcon.second;
+        // Used to gray out the item
+        setEnabled(!attributes.mBusy);
+        setVisible(attributes.mVisible);
+
+        // This could affect ordering, so notify that
+        if (mNeedNotifyHierarchyChanged) {
+            notifyHierarchyChanged();
+        }
+    }
+
+    /** The attributes of a device shown by the preference. */
+    static final class Attributes {
+        @Nullable
+        final String mName;
+        @Nullable
+        final String mSummary;
+        @NonNull
+        final Pair<Drawable, String> mIcon;
+        final boolean mBusy;
+        final boolean mVisible;
+
+        Attributes(@Nullable String name, @Nullable String summary,
+                @NonNull Pair<Drawable, String> icon, boolean busy, boolean visible) {
+            mName = name;
+            mSummary = summary;
+            mIcon = icon;
+            mBusy = busy;
+            mVisible = visible;
+        }
+    }
+
     @Override
     public void onBindViewHolder(PreferenceViewHolder view) {
         // Disable this view if the bluetooth enable/disable preference view is off
@@ -21,6 +21,7 @@ import android.content.Context;
 import android.os.Bundle;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
 
@@ -34,12 +35,16 @@ import com.android.settingslib.bluetooth.CachedBluetoothDevice;
 import com.android.settingslib.bluetooth.LocalBluetoothManager;
 import com.android.settingslib.bluetooth.LocalBluetoothProfileManager;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Update the bluetooth devices. It gets bluetooth event from {@link LocalBluetoothManager} using
@@ -60,6 +65,11 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
     protected LocalBluetoothManager mLocalManager;
     protected int mMetricsCategory;
 
+    @Nullable
+    private Set<CachedBluetoothDevice> mCachedDevicesSnapshot;
+    private boolean mAttributesRefreshInFlight;
+    private boolean mAttributesRefreshPending;
+
     protected static final String TAG = "BluetoothDeviceUpdater";
     private static final boolean DBG = Log.isLoggable(TAG, Log.DEBUG);
 
@@ -123,8 +133,15 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
         if (BluetoothAdapter.getDefaultAdapter().isEnabled()) {
             final Collection<CachedBluetoothDevice> cachedDevices =
                     mLocalManager.getCachedDeviceManager().getCachedDevicesCopy();
-            for (CachedBluetoothDevice cachedBluetoothDevice : cachedDevices) {
-                update(cachedBluetoothDevice);
+            // Let the filters check the cached devices against this copy instead of copying
+            // them again for every device.
+            mCachedDevicesSnapshot = new HashSet<>(cachedDevices);
+            try {
+                for (CachedBluetoothDevice cachedBluetoothDevice : cachedDevices) {
+                    update(cachedBluetoothDevice);
+                }
+            } finally {
+                mCachedDevicesSnapshot = null;
             }
         } else {
             removeAllDevicesFromPreference();
@@ -329,36 +346,89 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
      * Update the attributes of {@link Preference}.
      */
     public void refreshPreference() {
-        List<BluetoothDevice> removeList = new ArrayList<>();
-        mPreferenceMap.forEach((key, preference) -> {
-            if (isDeviceOfMapInCachedDevicesList(key)) {
-                ((BluetoothDevicePreference) preference).onPreferenceAttributesChanged();
-            } else {
-                // If the BluetoothDevice of preference is not in the CachedDevices List, then
-                // remove this preference.
-                removeList.add(key);
+        // Reconcile the preferences with a single copy of the cached devices.
+        final Collection<CachedBluetoothDevice> cachedDevices =
+                mLocalManager.getCachedDeviceManager().getCachedDevicesCopy();
+        final Set<BluetoothDevice> devices = new HashSet<>();
+        if (cachedDevices != null) {
+            for (CachedBluetoothDevice cachedDevice : cachedDevices) {
+                if (cachedDevice.getDevice() != null) {
+                    devices.add(cachedDevice.getDevice());
+                }
             }
-        });
+        }
 
+        final List<BluetoothDevice> removeList = new ArrayList<>();
+        for (BluetoothDevice device : mPreferenceMap.keySet()) {
+            // If the BluetoothDevice of preference is not in the CachedDevices List, then
+            // remove this preference.
+            if (!devices.contains(device)) {
+                removeList.add(device);
+            }
+        }
         for (BluetoothDevice bluetoothDevice : removeList) {
             Log.d(getLogTag(), "removePreference key: " + bluetoothDevice.getAnonymizedAddress());
             removePreference(bluetoothDevice);
         }
+
+        refreshPreferenceAttributes();
     }
 
-    protected boolean isDeviceInCachedDevicesList(CachedBluetoothDevice cachedDevice) {
-        return mLocalManager.getCachedDeviceManager().getCachedDevicesCopy().contains(cachedDevice);
+    /**
+     * Loads the attributes of every preference in one background job and shows them in one main
+     * thread update. Refreshes requested while one is running are coalesced into a single one.
+     */
+    private void refreshPreferenceAttributes() {
+        if (mAttributesRefreshInFlight) {
+            mAttributesRefreshPending = true;
+            return;
+        }
+        final List<BluetoothDevicePreference> preferences = new ArrayList<>(mPreferenceMap.size());
+        for (Preference preference : mPreferenceMap.values()) {
+            preferences.add((BluetoothDevicePreference) preference);
+        }
+        if (preferences.isEmpty()) {
+            return;
+        }
+
+        mAttributesRefreshInFlight = true;
+        try {
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final List<BluetoothDevicePreference.Attributes> attributes =
+                        new ArrayList<>(preferences.size());
+                try {
+                    for (BluetoothDevicePreference preference : preferences) {
+                        attributes.add(preference.loadAttributes());
+                    }
+                } finally {
+                    ThreadUtils.postOnMainThread(() -> {
+                        for (int i = 0; i < attributes.size(); i++) {
+                            preferences.get(i).applyAttributes(attributes.get(i));
+                        }
+                        onPreferenceAttributesRefreshed();
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.w(getLogTag(), "Handler thread unavailable, skipping refresh!");
+            mAttributesRefreshInFlight = false;
+        }
     }
 
-    private boolean isDeviceOfMapInCachedDevicesList(BluetoothDevice inputBluetoothDevice) {
-        Collection<CachedBluetoothDevice> cachedDevices =
-                mLocalManager.getCachedDeviceManager().getCachedDevicesCopy();
-        if (cachedDevices == null || cachedDevices.isEmpty()) {
-            return false;
+    private void onPreferenceAttributesRefreshed() {
+        mAttributesRefreshInFlight = false;
+        if (mAttributesRefreshPending) {
+            mAttributesRefreshPending = false;
+            refreshPreferenceAttributes();
+        }
+    }
+
+    protected boolean isDeviceInCachedDevicesList(CachedBluetoothDevice cachedDevice) {
+        final Set<CachedBluetoothDevice> snapshot = mCachedDevicesSnapshot;
+        if (snapshot != null) {
+            return snapshot.contains(cachedDevice);
         }
-        return cachedDevices.stream()
-                .anyMatch(cachedBluetoothDevice -> cachedBluetoothDevice.getDevice() != null
-                        && cachedBluetoothDevice.getDevice().equals(inputBluetoothDevice));
+        return mLocalManager.getCachedDeviceManager().getCachedDevicesCopy().contains(cachedDevice);
     }
 
     protected String getLogTag() {
@@ -26,6 +26,7 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.core.AvailabilityStatusCache;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnStart;
@@ -82,6 +83,11 @@ public class AddDevicePreferenceController extends BasePreferenceController
                 : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    protected AvailabilityStatusCache.Dependencies getAvailabilityDependencies() {
+        return AvailabilityStatusCache.Dependencies.NONE;
+    }
+
     @Override
     public CharSequence getSummary() {
         return isBluetoothEnabled()
@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Binder;
+import android.os.Build;
+import android.os.IBinder;
+import android.telephony.CarrierConfigManager;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.util.ArraySet;
+import android.util.IndentingPrintWriter;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.SettingsApplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+
+/**
+ * Process wide cache of {@link BasePreferenceController#getAvailabilityStatus()}, shared by the
+ * settings pages, the search index and slices.
+ *
+ * <p>Only controllers declaring what their status depends on through
+ * {@link BasePreferenceController#getAvailabilityDependencies()} are cached. Their status is kept
+ * until one of the declared signals fires, which is observed from the first time a status
+ * depending on it is cached.
+ */
+public class AvailabilityStatusCache {
+    private static final String TAG = "AvailabilityCache";
+
+    /** Packages were installed, updated, changed or removed. */
+    public static final int SIGNAL_PACKAGES = 1;
+    /** Users were switched, added, removed or changed, or a work profile was paused. */
+    public static final int SIGNAL_USERS = 1 << 1;
+    /** The active subscriptions changed. */
+    public static final int SIGNAL_SUBSCRIPTIONS = 1 << 2;
+    /** The carrier config of a subscription was loaded or changed. */
+    public static final int SIGNAL_CARRIER_CONFIG = 1 << 3;
+    /** A SIM card or its application changed state, e.g. it was inserted, removed or unlocked. */
+    public static final int SIGNAL_SIM_STATE = 1 << 4;
+
+    private static final AtomicBoolean sBinderCounterInstalled = new AtomicBoolean();
+    private static final ThreadLocal<int[]> sBinderCalls = new ThreadLocal<>();
+
+    private final Context mContext;
+    private final Map<String, Entry> mEntries = new HashMap<>();
+    private final Set<Uri> mObservedUris = new ArraySet<>();
+    private final boolean mCountBinderCalls;
+    private int mObservedSignals;
+    private boolean mDisabled;
+    // Incremented by every invalidation, so a status computed meanwhile is not cached.
+    private long mGeneration;
+
+    private long mHits;
+    private long mMisses;
+    private long mInvalidations;
+    private long mBinderCallsAvoided;
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final String action = intent.getAction();
+            if (action == null) {
+                return;
+            }
+            switch (action) {
+                case Intent.ACTION_PACKAGE_ADDED:
+                case Intent.ACTION_PACKAGE_CHANGED:
+                case Intent.ACTION_PACKAGE_REMOVED:
+                case Intent.ACTION_PACKAGE_REPLACED:
+                    invalidate(SIGNAL_PACKAGES);
+                    break;
+                case CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED:
+                    invalidate(SIGNAL_CARRIER_CONFIG);
+                    break;
+                case TelephonyManager.ACTION_SIM_CARD_STATE_CHANGED:
+                case TelephonyManager.ACTION_SIM_APPLICATION_STATE_CHANGED:
+                    invalidate(SIGNAL_SIM_STATE);
+                    break;
+                default:
+                    invalidate(SIGNAL_USERS);
+                    break;
+            }
+        }
+    };
+
+    private final ContentObserver mSettingsObserver = new ContentObserver(null /* handler */) {
+        @Override
+        public void onChange(boolean selfChange, @Nullable Uri uri) {
+            if (uri != null) {
+                invalidate(uri);
+            }
+        }
+    };
+
+    private final SubscriptionManager.OnSubscriptionsChangedListener mSubscriptionsListener =
+            new SubscriptionManager.OnSubscriptionsChangedListener() {
+                @Override
+                public void onSubscriptionsChanged() {
+                    invalidate(SIGNAL_SUBSCRIPTIONS);
+                }
+            };
+
+    /** Declares what the availability status of a controller depends on. */
+    public static final class Dependencies {
+        /** The status only depends on the device, e.g. on its hardware features. */
+        public static final Dependencies NONE = new Dependencies(0, Collections.emptyList());
+
+        private final int mSignals;
+        private final List<Uri> mSettingUris;
+
+        private Dependencies(int signals, List<Uri> settingUris) {
+            mSignals = signals;
+            mSettingUris = settingUris;
+        }
+
+        /**
+         * Returns dependencies on {@code signals}, a combination of the {@code SIGNAL_*}
+         * constants, and on the settings at {@code settingUris}.
+         */
+        @NonNull
+        public static Dependencies of(int signals, @NonNull Uri... settingUris) {
+            return new Dependencies(signals, Collections.unmodifiableList(
+                    new ArrayList<>(Arrays.asList(settingUris))));
+        }
+    }
+
+    private static final class Entry {
+        final int mStatus;
+        final Dependencies mDependencies;
+        final int mBinderCalls;
+
+        Entry(int status, Dependencies dependencies, int binderCalls) {
+            mStatus = status;
+            mDependencies = dependencies;
+            mBinderCalls = binderCalls;
+        }
+    }
+
+    /**
+     * Returns the cache of the settings process, or null if {@code context} does not belong to
+     * it, in which case statuses are not cached.
+     */
+    @Nullable
+    public static AvailabilityStatusCache get(@Nullable Context context) {
+        final Context appContext = context != null ? context.getApplicationContext() : null;
+        return appContext instanceof SettingsApplication
+                ? ((SettingsApplication) appContext).getAvailabilityStatusCache()
+                : null;
+    }
+
+    public AvailabilityStatusCache(@NonNull Context context) {
+        this(context, Build.IS_DEBUGGABLE);
+    }
+
+    @VisibleForTesting
+    AvailabilityStatusCache(@NonNull Context context, boolean countBinderCalls) {
+        mContext = context.getApplicationContext() != null
+                ? context.getApplicationContext()
+                : context;
+        mCountBinderCalls = countBinderCalls;
+    }
+
+    /**
+     * Returns the cached status stored under {@code key}, computing it with {@code status} and
+     * caching it until one of its {@code dependencies} fires if there is none.
+     */
+    public int getAvailabilityStatus(@NonNull String key, @NonNull Dependencies dependencies,
+            @NonNull IntSupplier status) {
+        final long generation;
+        synchronized (this) {
+            final Entry entry = mEntries.get(key);
+            if (entry != null) {
+                mHits++;
+                mBinderCallsAvoided += entry.mBinderCalls;
+                return entry.mStatus;
+            }
+            mMisses++;
+            generation = mGeneration;
+        }
+
+        // Computed outside of the lock, as it may take several binder calls.
+        final int[] binderCalls = startCountingBinderCalls();
+        final int[] previous = sBinderCalls.get();
+        sBinderCalls.set(binderCalls);
+        final int result;
+        try {
+            result = status.getAsInt();
+        } finally {
+            sBinderCalls.set(previous);
+        }
+
+        synchronized (this) {
+            observe(dependencies);
+            if (generation == mGeneration && !mDisabled) {
+                mEntries.put(key, new Entry(result, dependencies,
+                        binderCalls != null ? binderCalls[0] : 0));
+            }
+        }
+        return result;
+    }
+
+    /** Drops the cached statuses depending on any of {@code signals}. */
+    public synchronized void invalidate(int signals) {
+        final Iterator<Entry> entries = mEntries.values().iterator();
+        while (entries.hasNext()) {
+            if ((entries.next().mDependencies.mSignals & signals) != 0) {
+                entries.remove();
+                mInvalidations++;
+            }
+        }
+        mGeneration++;
+    }
+
+    /** Drops the cached statuses depending on the setting at {@code settingUri}. */
+    public synchronized void invalidate(@NonNull Uri settingUri) {
+        final Iterator<Entry> entries = mEntries.values().iterator();
+        while (entries.hasNext()) {
+            if (entries.next().mDependencies.mSettingUris.contains(settingUri)) {
+                entries.remove();
+                mInvalidations++;
+            }
+        }
+        mGeneration++;
+    }
+
+    /** Drops every cached status. */
+    public synchronized void invalidateAll() {
+        mInvalidations += mEntries.size();
+        mEntries.clear();
+        mGeneration++;
+    }
+
+    /** Dumps the cache statistics. */
+    public synchronized void dump(@NonNull IndentingPrintWriter writer) {
+        final long lookups = mHits + mMisses;
+        writer.println(TAG + ":");
+        writer.increaseIndent();
+        writer.println("entries: " + mEntries.size());
+        writer.println("hits: " + mHits);
+        writer.println("misses: " + mMisses);
+        writer.println("hit rate: "
+                + (lookups > 0 ? String.format("%.1f%%", mHits * 100f / lookups) : "-"));
+        writer.println("invalidations: " + mInvalidations);
+        writer.println("binder calls avoided: "
+                + (mCountBinderCalls ? String.valueOf(mBinderCallsAvoided) : "not counted"));
+        writer.decreaseIndent();
+    }
+
+    @VisibleForTesting
+    synchronized long getHitCount() {
+        return mHits;
+    }
+
+    @VisibleForTesting
+    synchronized long getMissCount() {
+        return mMisses;
+    }
+
+    @VisibleForTesting
+    synchronized long getBinderCallsAvoided() {
+        return mBinderCallsAvoided;
+    }
+
+    @Nullable
+    private int[] startCountingBinderCalls() {
+        if (!mCountBinderCalls) {
+            return null;
+        }
+        if (sBinderCounterInstalled.compareAndSet(false, true)) {
+            Binder.setProxyTransactListener(new Binder.ProxyTransactListener() {
+                @Override
+                public Object onTransactStarted(IBinder binder, int transactionCode) {
+                    final int[] calls = sBinderCalls.get();
+                    if (calls != null) {
+                        calls[0]++;
+                    }
+                    return null;
+                }
+
+                @Override
+                public void onTransactEnded(Object session) {
+                }
+            });
+        }
+        return new int[1];
+    }
+
+    private void observe(Dependencies dependencies) {
+        final int signals = dependencies.mSignals & ~mObservedSignals;
+        mObservedSignals |= signals;
+        try {
+            if ((signals & SIGNAL_PACKAGES) != 0) {
+                final IntentFilter filter = new IntentFilter();
+                filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+                filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+                filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+                filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+                filter.addDataScheme("package");
+                mContext.registerReceiver(mReceiver, filter);
+            }
+            if ((signals & SIGNAL_USERS) != 0) {
+                final IntentFilter filter = new IntentFilter();
+                filter.addAction(Intent.ACTION_USER_SWITCHED);
+                filter.addAction(Intent.ACTION_USER_ADDED);
+                filter.addAction(Intent.ACTION_USER_REMOVED);
+                filter.addAction(Intent.ACTION_USER_INFO_CHANGED);
+                filter.addAction(Intent.ACTION_MANAGED_PROFILE_AVAILABLE);
+                filter.addAction(Intent.ACTION_MANAGED_PROFILE_UNAVAILABLE);
+                mContext.registerReceiver(mReceiver, filter);
+            }
+            if ((signals & SIGNAL_SUBSCRIPTIONS) != 0) {
+                final SubscriptionManager subscriptionManager =
+                        mContext.getSystemService(SubscriptionManager.class);
+                if (subscriptionManager != null) {
+                    subscriptionManager.addOnSubscriptionsChangedListener(
+                            Runnable::run, mSubscriptionsListener);
+                }
+            }
+            if ((signals & SIGNAL_CARRIER_CONFIG) != 0) {
+                mContext.registerReceiver(mReceiver,
+                        new IntentFilter(CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED));
+            }
+            if ((signals & SIGNAL_SIM_STATE) != 0) {
+                final IntentFilter filter = new IntentFilter();
+                filter.addAction(TelephonyManager.ACTION_SIM_CARD_STATE_CHANGED);
+                filter.addAction(TelephonyManager.ACTION_SIM_APPLICATION_STATE_CHANGED);
+                mContext.registerReceiver(mReceiver, filter);
+            }
+            for (Uri uri : dependencies.mSettingUris) {
+                if (mObservedUris.add(uri)) {
+                    mContext.getContentResolver().registerContentObserver(
+                            uri, false /* notifyForDescendants */, mSettingsObserver);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Without its signal a status could go stale, so stop caching it.
+            Log.w(TAG, "Failed to observe availability dependencies", e);
+            mDisabled = true;
+            mEntries.clear();
+            mGeneration++;
+        }
+    }
+}
@@ -235,6 +235,36 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
                 .build();
     }
 
+    /**
+     * Returns what {@link #getAvailabilityStatus()} depends on, or null if it has to be computed
+     * every time, which is the default.
+     *
+     * <p>When declared, the status is shared through the process wide
+     * {@link AvailabilityStatusCache} by the settings pages, search and slices, until one of the
+     * dependencies changes.
+     */
+    @Nullable
+    protected AvailabilityStatusCache.Dependencies getAvailabilityDependencies() {
+        return null;
+    }
+
+    /**
+     * Returns {@link #getAvailabilityStatus()}, from the {@link AvailabilityStatusCache} if the
+     * controller declares its {@link #getAvailabilityDependencies() dependencies}.
+     */
+    @AvailabilityStatus
+    public final int getCachedAvailabilityStatus() {
+        final AvailabilityStatusCache.Dependencies dependencies = getAvailabilityDependencies();
+        final AvailabilityStatusCache cache =
+                dependencies != null ? AvailabilityStatusCache.get(mContext) : null;
+        if (cache == null) {
+            return getAvailabilityStatus();
+        }
+        return cache.getAvailabilityStatus(
+                getClass().getName() + '/' + getPreferenceKey() + '/' + mContext.getUserId(),
+                dependencies, this::getAvailabilityStatus);
+    }
+
     /**
      * @return {@code true} when the controller can be changed on the device.
      *
@@ -257,7 +287,7 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
             return false;
         }
 
-        final int availabilityStatus = getAvailabilityStatus();
+        final int availabilityStatus = getCachedAvailabilityStatus();
         return (availabilityStatus == AVAILABLE
                 || availabilityStatus == AVAILABLE_UNSEARCHABLE
                 || availabilityStatus == DISABLED_DEPENDENT_SETTING);
@@ -271,7 +301,7 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      * Note that a return value of {@code true} does not mean that the setting is available.
      */
     public final boolean isSupported() {
-        return getAvailabilityStatus() != UNSUPPORTED_ON_DEVICE;
+        return getCachedAvailabilityStatus() != UNSUPPORTED_ON_DEVICE;
     }
 
     /**
@@ -280,7 +310,7 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
-        if (getAvailabilityStatus() == DISABLED_DEPENDENT_SETTING) {
+        if (getCachedAvailabilityStatus() == DISABLED_DEPENDENT_SETTING) {
             // Disable preference if it depends on another setting.
             final Preference preference = screen.findPreference(getPreferenceKey());
             if (preference != null) {
@@ -304,7 +334,7 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      */
     public void updateNonIndexableKeys(List<String> keys) {
         final boolean shouldSuppressFromSearch = !isAvailable()
-                || getAvailabilityStatus() == AVAILABLE_UNSEARCHABLE;
+                || getCachedAvailabilityStatus() == AVAILABLE_UNSEARCHABLE;
         if (shouldSuppressFromSearch) {
             final String key = getPreferenceKey();
             if (TextUtils.isEmpty(key)) {
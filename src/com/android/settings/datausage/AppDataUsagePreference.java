@@ -31,8 +31,8 @@ import java.text.NumberFormat;
 
 public class AppDataUsagePreference extends AppPreference {
 
-    private final AppItem mItem;
-    private final int mPercent;
+    private AppItem mItem;
+    private int mPercent;
     private UidDetail mDetail;
 
     public AppDataUsagePreference(Context context, AppItem item, int percent,
@@ -40,12 +40,8 @@ public class AppDataUsagePreference extends AppPreference {
         super(context);
         mItem = item;
         mPercent = percent;
+        updateSummary();
 
-        if (item.restricted && item.total <= 0) {
-            setSummary(com.android.settings.R.string.data_usage_app_restricted);
-        } else {
-            setSummary(DataUsageUtils.formatDataUsage(context, item.total));
-        }
         mDetail = provider.getUidDetail(item.key, false /* blocking */);
         if (mDetail != null) {
             setAppInfo();
@@ -60,6 +56,32 @@ public class AppDataUsagePreference extends AppPreference {
         }
     }
 
+    /** Creates a preference for an item whose {@link UidDetail} is already resolved. */
+    public AppDataUsagePreference(Context context, AppItem item, int percent, UidDetail detail) {
+        super(context);
+        mItem = item;
+        mPercent = percent;
+        mDetail = detail;
+        updateSummary();
+        setAppInfo();
+    }
+
+    /** Updates the usage shown for the same uid, e.g. when another cycle is selected. */
+    public void update(AppItem item, int percent) {
+        mItem = item;
+        mPercent = percent;
+        updateSummary();
+        notifyChanged();
+    }
+
+    private void updateSummary() {
+        if (mItem.restricted && mItem.total <= 0) {
+            setSummary(com.android.settings.R.string.data_usage_app_restricted);
+        } else {
+            setSummary(DataUsageUtils.formatDataUsage(getContext(), mItem.total));
+        }
+    }
+
     @Override
     public void onBindViewHolder(PreferenceViewHolder holder) {
         super.onBindViewHolder(holder);
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import android.content.Context;
+import android.net.NetworkTemplate;
+
+import androidx.annotation.NonNull;
+
+import com.android.settingslib.net.NetworkCycleChartData;
+import com.android.settingslib.net.NetworkCycleData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Loads the usage of a template per cycle and per day, for {@link ChartDataUsagePreference}. */
+public class CachedNetworkCycleChartDataLoader
+        extends CachedNetworkCycleDataLoader<NetworkCycleChartData> {
+
+    public CachedNetworkCycleChartDataLoader(@NonNull Context context,
+            @NonNull NetworkTemplate template) {
+        super(context, template, null /* cycles */);
+    }
+
+    @Override
+    protected List<NetworkUsageHistory> loadHistories() {
+        return Collections.singletonList(mStore.getDeviceHistory(mTemplate));
+    }
+
+    @Override
+    protected NetworkCycleChartData buildCycleData(List<NetworkUsageHistory> histories,
+            long start, long end) {
+        final NetworkUsageHistory history = histories.get(0);
+        final long[] days = getWholeDays(history, start, end);
+        long totalUsage = history.getTotalUsage(days[0], days[1]);
+        final List<NetworkCycleData> buckets = new ArrayList<>();
+        if (start < days[0]) {
+            final long usage = mStore.queryDeviceUsage(mTemplate, start, days[0])[0];
+            buckets.add(buildBucket(start, days[0], usage));
+            totalUsage += usage;
+        }
+        buckets.addAll(history.getDailyUsage(days[0], days[1]));
+        if (days[1] < end) {
+            final long usage = mStore.queryDeviceUsage(mTemplate, days[1], end)[0];
+            buckets.add(buildBucket(days[1], end, usage));
+            totalUsage += usage;
+        }
+        if (totalUsage <= 0L) {
+            return null;
+        }
+        final NetworkCycleChartData.Builder builder = new NetworkCycleChartData.Builder();
+        builder.setUsageBuckets(buckets)
+                .setStartTime(start)
+                .setEndTime(end)
+                .setTotalUsage(totalUsage);
+        return builder.build();
+    }
+
+    private static NetworkCycleData buildBucket(long start, long end, long usage) {
+        return new NetworkCycleData.Builder()
+                .setStartTime(start)
+                .setEndTime(end)
+                .setTotalUsage(usage)
+                .build();
+    }
+}
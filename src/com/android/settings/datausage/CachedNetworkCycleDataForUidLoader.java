@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import android.content.Context;
+import android.net.NetworkTemplate;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.settingslib.net.NetworkCycleDataForUid;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Loads the foreground and background usage of a set of uids per cycle. */
+public class CachedNetworkCycleDataForUidLoader
+        extends CachedNetworkCycleDataLoader<NetworkCycleDataForUid> {
+
+    private final List<Integer> mUids;
+
+    public CachedNetworkCycleDataForUidLoader(@NonNull Context context,
+            @NonNull NetworkTemplate template, @NonNull List<Integer> uids,
+            @Nullable ArrayList<Long> cycles) {
+        super(context, template, cycles);
+        mUids = Collections.unmodifiableList(new ArrayList<>(uids));
+    }
+
+    /** Returns the uids whose usage is loaded. */
+    public List<Integer> getUids() {
+        return mUids;
+    }
+
+    @Override
+    protected List<NetworkUsageHistory> loadHistories() {
+        final List<NetworkUsageHistory> histories = new ArrayList<>(mUids.size());
+        for (int uid : mUids) {
+            histories.add(mStore.getUidHistory(mTemplate, uid));
+        }
+        return histories;
+    }
+
+    @Override
+    protected NetworkCycleDataForUid buildCycleData(List<NetworkUsageHistory> histories,
+            long start, long end) {
+        long totalUsage = 0L;
+        long foregroundUsage = 0L;
+        for (int i = 0; i < histories.size(); i++) {
+            final NetworkUsageHistory history = histories.get(i);
+            final int uid = mUids.get(i);
+            final long[] days = getWholeDays(history, start, end);
+            totalUsage += history.getTotalUsage(days[0], days[1]);
+            foregroundUsage += history.getForegroundUsage(days[0], days[1]);
+            if (start < days[0]) {
+                final long[] usage = mStore.queryUidUsage(mTemplate, uid, start, days[0]);
+                totalUsage += usage[0];
+                foregroundUsage += usage[1];
+            }
+            if (days[1] < end) {
+                final long[] usage = mStore.queryUidUsage(mTemplate, uid, days[1], end);
+                totalUsage += usage[0];
+                foregroundUsage += usage[1];
+            }
+        }
+        if (totalUsage <= 0L) {
+            return null;
+        }
+        final NetworkCycleDataForUid.Builder builder = new NetworkCycleDataForUid.Builder();
+        builder.setBackgroundUsage(totalUsage - foregroundUsage)
+                .setForegroundUsage(foregroundUsage);
+        builder.setStartTime(start)
+                .setEndTime(end)
+                .setTotalUsage(totalUsage);
+        return builder.build();
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import android.content.Context;
+import android.net.NetworkPolicy;
+import android.net.NetworkPolicyManager;
+import android.net.NetworkTemplate;
+import android.util.Range;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.NetworkPolicyEditor;
+import com.android.settingslib.net.NetworkCycleData;
+import com.android.settingslib.utils.AsyncLoaderCompat;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Loads the usage of each network cycle of a template from {@link NetworkUsageHistoryStore}.
+ *
+ * <p>Cycles are the given ones if any, otherwise the cycles of the template's policy, otherwise
+ * four weeks periods ending with the current day. Cycles are listed from the most recent one and
+ * only those with usage are returned.
+ *
+ * <p>The whole days of a cycle are read from the stored histories, while the partial days at the
+ * edges of a cycle that does not start or end at a local midnight are queried exactly.
+ */
+public abstract class CachedNetworkCycleDataLoader<T extends NetworkCycleData>
+        extends AsyncLoaderCompat<List<T>> {
+
+    private static final int CYCLE_WEEKS = 4;
+
+    protected final NetworkTemplate mTemplate;
+    protected final NetworkUsageHistoryStore mStore;
+    @Nullable
+    private final ArrayList<Long> mCycles;
+
+    protected CachedNetworkCycleDataLoader(@NonNull Context context,
+            @NonNull NetworkTemplate template, @Nullable ArrayList<Long> cycles) {
+        super(context);
+        mTemplate = template;
+        mCycles = cycles;
+        mStore = NetworkUsageHistoryStore.getInstance(context);
+    }
+
+    /** Returns the cycle boundaries to load, from the most recent, or null to compute them. */
+    @Nullable
+    public ArrayList<Long> getCycles() {
+        return mCycles;
+    }
+
+    /** Loads the histories the cycle usage is computed from, on the loader thread. */
+    @NonNull
+    protected abstract List<NetworkUsageHistory> loadHistories();
+
+    /** Returns the usage between {@code start} and {@code end}, or null if nothing was used. */
+    @Nullable
+    protected abstract T buildCycleData(@NonNull List<NetworkUsageHistory> histories,
+            long start, long end);
+
+    @Override
+    public List<T> loadInBackground() {
+        final List<NetworkUsageHistory> histories = loadHistories();
+        long historyStart = Long.MAX_VALUE;
+        for (NetworkUsageHistory history : histories) {
+            if (!history.isEmpty()) {
+                historyStart = Math.min(historyStart, history.getFirstDayStart());
+            }
+        }
+        final List<T> data = new ArrayList<>();
+        if (historyStart == Long.MAX_VALUE) {
+            return data;
+        }
+        final List<Long> boundaries = mCycles != null ? mCycles : getCycleBoundaries(historyStart);
+        for (int i = 0; i + 1 < boundaries.size(); i++) {
+            final T cycleData = buildCycleData(histories, boundaries.get(i + 1),
+                    boundaries.get(i));
+            if (cycleData != null) {
+                data.add(cycleData);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Returns the start and the end of the whole local days of {@code history} between
+     * {@code start} and {@code end}, both {@code end} if there is none.
+     */
+    @NonNull
+    protected static long[] getWholeDays(@NonNull NetworkUsageHistory history, long start,
+            long end) {
+        final long daysStart = history.getNextDayStart(start);
+        final long daysEnd = history.getDayStart(end);
+        if (daysStart >= daysEnd) {
+            return new long[] {end, end};
+        }
+        return new long[] {daysStart, daysEnd};
+    }
+
+    @Override
+    protected void onDiscardResult(List<T> result) {
+    }
+
+    /** Returns the boundaries of the cycles covering the history, from the most recent one. */
+    @VisibleForTesting
+    List<Long> getCycleBoundaries(long historyStart) {
+        final List<Long> boundaries = new ArrayList<>();
+        final NetworkPolicy policy = getPolicy();
+        if (policy != null) {
+            final Iterator<Range<ZonedDateTime>> iterator = policy.cycleIterator();
+            while (iterator.hasNext()) {
+                final Range<ZonedDateTime> cycle = iterator.next();
+                final long cycleEnd = cycle.getUpper().toInstant().toEpochMilli();
+                if (cycleEnd <= historyStart) {
+                    break;
+                }
+                if (boundaries.isEmpty()) {
+                    boundaries.add(cycleEnd);
+                }
+                boundaries.add(cycle.getLower().toInstant().toEpochMilli());
+            }
+        } else {
+            final ZoneId zone = ZoneId.systemDefault();
+            ZonedDateTime cycleEnd = LocalDate.now(zone).plusDays(1).atStartOfDay(zone);
+            long cycleEndMillis = cycleEnd.toInstant().toEpochMilli();
+            boundaries.add(cycleEndMillis);
+            while (cycleEndMillis > historyStart) {
+                cycleEnd = cycleEnd.minusWeeks(CYCLE_WEEKS);
+                cycleEndMillis = cycleEnd.toInstant().toEpochMilli();
+                boundaries.add(cycleEndMillis);
+            }
+        }
+        return boundaries;
+    }
+
+    @Nullable
+    private NetworkPolicy getPolicy() {
+        final NetworkPolicyManager policyManager =
+                getContext().getSystemService(NetworkPolicyManager.class);
+        if (policyManager == null) {
+            return null;
+        }
+        final NetworkPolicyEditor policyEditor = new NetworkPolicyEditor(policyManager);
+        policyEditor.read();
+        return policyEditor.getPolicy(mTemplate);
+    }
+}
@@ -65,9 +65,7 @@ import com.android.settings.widget.LoadingViewController;
 import com.android.settingslib.AppItem;
 import com.android.settingslib.mobile.dataservice.SubscriptionInfoEntity;
 import com.android.settingslib.net.NetworkCycleChartData;
-import com.android.settingslib.net.NetworkCycleChartDataLoader;
 import com.android.settingslib.net.NetworkStatsSummaryLoader;
-import com.android.settingslib.net.UidDetail;
 import com.android.settingslib.net.UidDetailProvider;
 import com.android.settingslib.utils.ThreadUtils;
 
@@ -124,7 +122,11 @@ public class DataUsageList extends DataUsageBaseFragment
     // Spinner will keep the selected cycle even after paused, this only keeps the displayed cycle,
     // which need be cleared when resumed.
     private CycleAdapter.CycleItem mLastDisplayedCycle;
-    private UidDetailProvider mUidDetailProvider;
+    private UidDetailResolver mUidDetailResolver;
+    // Rows of the app list by uid key, reused when another cycle is selected.
+    private SparseArray<AppDataUsagePreference> mAppPreferences = new SparseArray<>();
+    // Incremented by every bindStats() so that late uid details of an older cycle are dropped.
+    private int mBindGeneration;
     private CycleAdapter mCycleAdapter;
     private Preference mUsageAmount;
     private PreferenceGroup mApps;
@@ -154,7 +156,7 @@ public class DataUsageList extends DataUsageBaseFragment
             return;
         }
 
-        mUidDetailProvider = new UidDetailProvider(activity);
+        mUidDetailResolver = new UidDetailResolver(activity);
         mUsageAmount = findPreference(KEY_USAGE_AMOUNT);
         mChart = findPreference(KEY_CHART_DATA);
         mApps = findPreference(KEY_APPS_GROUP);
@@ -250,9 +252,9 @@ public class DataUsageList extends DataUsageBaseFragment
 
     @Override
     public void onDestroy() {
-        if (mUidDetailProvider != null) {
-            mUidDetailProvider.clearCache();
-            mUidDetailProvider = null;
+        if (mUidDetailResolver != null) {
+            mUidDetailResolver.clear();
+            mUidDetailResolver = null;
         }
         super.onDestroy();
     }
@@ -424,8 +426,10 @@ public class DataUsageList extends DataUsageBaseFragment
      * Bind the given {@link NetworkStats}, or {@code null} to clear list.
      */
     private void bindStats(NetworkStats stats, int[] restrictedUids) {
-        mApps.removeAll();
+        final int generation = ++mBindGeneration;
         if (stats == null) {
+            mApps.removeAll();
+            mAppPreferences.clear();
             if (LOGD) {
                 Log.d(TAG, "No network stats data. App list cleared.");
             }
@@ -516,31 +520,54 @@ public class DataUsageList extends DataUsageBaseFragment
                 .anyMatch(carrierId -> (carrierId == mSubscriptionInfoEntity.carrierId))
                 : true;
 
+        final SparseArray<AppDataUsagePreference> previousPreferences = mAppPreferences;
+        mAppPreferences = new SparseArray<>(items.size());
         for (int i = 0; i < items.size(); i++) {
-            UidDetail detail = mUidDetailProvider.getUidDetail(items.get(i).key, true);
-            // Do not show carrier service package in data usage list if it should be hidden for
-            // the carrier.
-            if (detail != null && shouldHidePackageName && packageNames.contains(
-                    detail.packageName)) {
+            final AppItem item = items.get(i);
+            final int order = i;
+            final int percentTotal = largest != 0 ? (int) (item.total * 100 / largest) : 0;
+            final AppDataUsagePreference existing = previousPreferences.get(item.key);
+            if (existing != null) {
+                // The uid was already shown for the previous cycle, only update its usage.
+                previousPreferences.remove(item.key);
+                existing.update(item, percentTotal);
+                existing.setOrder(order);
+                mAppPreferences.put(item.key, existing);
                 continue;
             }
-
-            final int percentTotal = largest != 0 ? (int) (items.get(i).total * 100 / largest) : 0;
-            final AppDataUsagePreference preference = new AppDataUsagePreference(getContext(),
-                    items.get(i), percentTotal, mUidDetailProvider);
-            preference.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
-                @Override
-                public boolean onPreferenceClick(Preference preference) {
-                    AppDataUsagePreference pref = (AppDataUsagePreference) preference;
-                    AppItem item = pref.getItem();
-                    startAppDataUsage(item);
-                    return true;
+            // Rows are added at their sorted position as soon as their uid detail is resolved.
+            mUidDetailResolver.resolve(item.key, detail -> {
+                if (generation != mBindGeneration || getContext() == null) {
+                    return;
+                }
+                // Do not show carrier service package in data usage list if it should be hidden
+                // for the carrier.
+                if (detail != null && shouldHidePackageName && packageNames.contains(
+                        detail.packageName)) {
+                    return;
                 }
+                final AppDataUsagePreference preference = new AppDataUsagePreference(
+                        getContext(), item, percentTotal, detail);
+                preference.setOrder(order);
+                preference.setOnPreferenceClickListener(mAppPreferenceClickListener);
+                mAppPreferences.put(item.key, preference);
+                mApps.addPreference(preference);
+                updateEmptyVisible();
             });
-            mApps.addPreference(preference);
+        }
+        for (int i = 0; i < previousPreferences.size(); i++) {
+            mApps.removePreference(previousPreferences.valueAt(i));
         }
     }
 
+    private final Preference.OnPreferenceClickListener mAppPreferenceClickListener =
+            preference -> {
+                AppDataUsagePreference pref = (AppDataUsagePreference) preference;
+                AppItem item = pref.getItem();
+                startAppDataUsage(item);
+                return true;
+            };
+
     @VisibleForTesting
     void startAppDataUsage(AppItem item) {
         final Bundle args = new Bundle();
@@ -608,9 +635,7 @@ public class DataUsageList extends DataUsageBaseFragment
             new LoaderCallbacks<List<NetworkCycleChartData>>() {
         @Override
         public Loader<List<NetworkCycleChartData>> onCreateLoader(int id, Bundle args) {
-            return NetworkCycleChartDataLoader.builder(getContext())
-                    .setNetworkTemplate(mTemplate)
-                    .build();
+            return new CachedNetworkCycleChartDataLoader(getContext(), mTemplate);
         }
 
         @Override
@@ -653,19 +678,19 @@ public class DataUsageList extends DataUsageBaseFragment
             bindStats(null, new int[0]);
             updateEmptyVisible();
         }
+    };
 
-        private void updateEmptyVisible() {
-            if ((mApps.getPreferenceCount() != 0) !=
-                    (getPreferenceScreen().getPreferenceCount() != 0)) {
-                if (mApps.getPreferenceCount() != 0) {
-                    getPreferenceScreen().addPreference(mUsageAmount);
-                    getPreferenceScreen().addPreference(mApps);
-                } else {
-                    getPreferenceScreen().removeAll();
-                }
+    private void updateEmptyVisible() {
+        if ((mApps.getPreferenceCount() != 0) !=
+                (getPreferenceScreen().getPreferenceCount() != 0)) {
+            if (mApps.getPreferenceCount() != 0) {
+                getPreferenceScreen().addPreference(mUsageAmount);
+                getPreferenceScreen().addPreference(mApps);
+            } else {
+                getPreferenceScreen().removeAll();
             }
         }
-    };
+    }
 
     private static boolean isGuestUser(Context context) {
         if (context == null) return false;
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.net.NetworkCycleData;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Network usage of one template, or of one uid on a template, aggregated per local day.
+ *
+ * <p>Usage is kept as prefix sums over consecutive days, so the usage of any range of days is
+ * answered in constant time. Ranges are rounded out to whole days.
+ */
+public class NetworkUsageHistory {
+
+    private static final int VERSION = 1;
+
+    @VisibleForTesting
+    static final int MAX_DAYS = 400;
+
+    private final ZoneId mZone;
+    private long mFirstDay;
+    private int mDayCount;
+    // mTotal[i] and mForeground[i] hold the usage of the days before mFirstDay + i.
+    private long[] mTotal;
+    private long[] mForeground;
+
+    public NetworkUsageHistory(@NonNull ZoneId zone) {
+        mZone = zone;
+        mTotal = new long[32];
+        mForeground = new long[32];
+    }
+
+    /** Returns the time zone the days of this history are based on. */
+    @NonNull
+    public ZoneId getZone() {
+        return mZone;
+    }
+
+    /** Returns whether no day has been recorded yet. */
+    public boolean isEmpty() {
+        return mDayCount == 0;
+    }
+
+    /** Returns the start of the first recorded day, or -1 if the history is empty. */
+    public long getFirstDayStart() {
+        return isEmpty() ? -1 : toMillis(mFirstDay);
+    }
+
+    /** Returns the start of the last recorded, possibly incomplete, day or -1 if empty. */
+    public long getLastDayStart() {
+        return isEmpty() ? -1 : toMillis(mFirstDay + mDayCount - 1);
+    }
+
+    /** Returns the start of the local day containing {@code time}. */
+    public long getDayStart(long time) {
+        return toMillis(toDay(time));
+    }
+
+    /** Returns the start of the first local day starting at or after {@code time}. */
+    public long getNextDayStart(long time) {
+        final long dayStart = getDayStart(time);
+        return dayStart < time ? toMillis(toDay(time) + 1) : dayStart;
+    }
+
+    /** Returns the total usage between {@code start} and {@code end}. */
+    public long getTotalUsage(long start, long end) {
+        return sum(mTotal, start, end);
+    }
+
+    /** Returns the foreground usage between {@code start} and {@code end}. */
+    public long getForegroundUsage(long start, long end) {
+        return sum(mForeground, start, end);
+    }
+
+    /**
+     * Returns the total usage of every day between {@code start} and {@code end}, with the first
+     * and last bucket clipped to the range.
+     */
+    @NonNull
+    public List<NetworkCycleData> getDailyUsage(long start, long end) {
+        final List<NetworkCycleData> buckets = new ArrayList<>();
+        long day = toDay(start);
+        long bucketStart = start;
+        while (bucketStart < end) {
+            final long bucketEnd = Math.min(toMillis(day + 1), end);
+            buckets.add(new NetworkCycleData.Builder()
+                    .setStartTime(bucketStart)
+                    .setEndTime(bucketEnd)
+                    .setTotalUsage(getDayUsage(mTotal, day))
+                    .build());
+            bucketStart = bucketEnd;
+            day++;
+        }
+        return buckets;
+    }
+
+    /**
+     * Records the usage of the day containing {@code time}. Days before the last recorded day
+     * are ignored, the last recorded day is overwritten and skipped days are recorded as unused.
+     */
+    public void setDayUsage(long time, long total, long foreground) {
+        final long day = toDay(time);
+        if (isEmpty()) {
+            mFirstDay = day;
+        }
+        if (day - mFirstDay < mDayCount - 1) {
+            return;
+        }
+        if (day - mFirstDay >= MAX_DAYS) {
+            dropDays(day - mFirstDay - MAX_DAYS + 1);
+        }
+        final int index = (int) (day - mFirstDay);
+        ensureCapacity(index + 2);
+        for (int i = mDayCount; i < index; i++) {
+            mTotal[i + 1] = mTotal[i];
+            mForeground[i + 1] = mForeground[i];
+        }
+        mTotal[index + 1] = mTotal[index] + total;
+        mForeground[index + 1] = mForeground[index] + foreground;
+        mDayCount = index + 1;
+    }
+
+    /** Writes this history to {@code out}. */
+    public void writeTo(@NonNull DataOutputStream out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeUTF(mZone.getId());
+        out.writeLong(mFirstDay);
+        out.writeInt(mDayCount);
+        for (int i = 0; i < mDayCount; i++) {
+            out.writeLong(mTotal[i + 1] - mTotal[i]);
+            out.writeLong(mForeground[i + 1] - mForeground[i]);
+        }
+    }
+
+    /** Reads a history written by {@link #writeTo}. */
+    @NonNull
+    public static NetworkUsageHistory readFrom(@NonNull DataInputStream in) throws IOException {
+        if (in.readInt() != VERSION) {
+            throw new IOException("Unknown version");
+        }
+        final NetworkUsageHistory history = new NetworkUsageHistory(ZoneId.of(in.readUTF()));
+        final long firstDay = in.readLong();
+        final int dayCount = in.readInt();
+        if (dayCount < 0 || dayCount > MAX_DAYS) {
+            throw new IOException("Invalid day count " + dayCount);
+        }
+        for (int i = 0; i < dayCount; i++) {
+            history.setDayUsage(history.toMillis(firstDay + i), in.readLong(), in.readLong());
+        }
+        return history;
+    }
+
+    private long sum(long[] prefix, long start, long end) {
+        if (isEmpty() || end <= start) {
+            return 0;
+        }
+        final int from = clampIndex(toDay(start) - mFirstDay);
+        final int to = clampIndex(toDay(end - 1) - mFirstDay + 1);
+        return to > from ? prefix[to] - prefix[from] : 0;
+    }
+
+    private long getDayUsage(long[] prefix, long day) {
+        final long index = day - mFirstDay;
+        if (isEmpty() || index < 0 || index >= mDayCount) {
+            return 0;
+        }
+        return prefix[(int) index + 1] - prefix[(int) index];
+    }
+
+    private int clampIndex(long index) {
+        return (int) Math.max(0, Math.min(index, mDayCount));
+    }
+
+    private void dropDays(long count) {
+        final int dropped = (int) Math.min(count, mDayCount);
+        final long totalBase = mTotal[dropped];
+        final long foregroundBase = mForeground[dropped];
+        for (int i = dropped; i <= mDayCount; i++) {
+            mTotal[i - dropped] = mTotal[i] - totalBase;
+            mForeground[i - dropped] = mForeground[i] - foregroundBase;
+        }
+        mFirstDay += count;
+        mDayCount -= dropped;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (mTotal.length < capacity) {
+            final int size = Math.max(capacity, mTotal.length * 2);
+            mTotal = Arrays.copyOf(mTotal, size);
+            mForeground = Arrays.copyOf(mForeground, size);
+        }
+    }
+
+    private long toDay(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(mZone).toLocalDate().toEpochDay();
+    }
+
+    private long toMillis(long day) {
+        return LocalDate.ofEpochDay(day).atStartOfDay(mZone).toInstant().toEpochMilli();
+    }
+}
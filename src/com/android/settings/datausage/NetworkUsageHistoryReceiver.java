@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+/** Drops the stored network usage histories of removed uids. */
+public class NetworkUsageHistoryReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        final String action = intent == null ? null : intent.getAction();
+        if (!Intent.ACTION_PACKAGE_FULLY_REMOVED.equals(action)
+                && !Intent.ACTION_UID_REMOVED.equals(action)) {
+            return;
+        }
+        final int uid = intent.getIntExtra(Intent.EXTRA_UID, -1);
+        if (uid < 0) {
+            return;
+        }
+        final NetworkUsageHistoryStore store = NetworkUsageHistoryStore.getInstance(context);
+        final PendingResult pendingResult = goAsync();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            store.removeUid(uid);
+            if (pendingResult != null) {
+                ThreadUtils.postOnMainThread(pendingResult::finish);
+            }
+        });
+    }
+}
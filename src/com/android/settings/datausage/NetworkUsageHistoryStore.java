@@ -0,0 +1,358 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import android.app.usage.NetworkStats;
+import android.app.usage.NetworkStatsManager;
+import android.content.Context;
+import android.net.NetworkTemplate;
+import android.text.format.DateUtils;
+import android.util.ArrayMap;
+import android.util.AtomicFile;
+import android.util.Log;
+import android.util.LongSparseArray;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistent store of the per day network usage of templates and of uids on a template, shared
+ * by the data usage screens.
+ *
+ * <p>Each history is written to disk and brought up to date incrementally: only the stats since
+ * the start of its last stored day are queried from {@link NetworkStatsManager} again, instead of
+ * the whole history every time a data usage screen is opened.
+ */
+public class NetworkUsageHistoryStore {
+
+    private static final String TAG = "NetworkUsageHistory";
+    private static final String DIRECTORY = "data_usage_history";
+    private static final int DEVICE = -1;
+    // Histories that were not brought up to date for this long are dropped, such as those of
+    // removed SIMs or of apps that are not looked at anymore.
+    private static final long MAX_UNUSED_AGE_MS = 60 * DateUtils.DAY_IN_MILLIS;
+
+    @VisibleForTesting
+    static final int MAX_CACHED_HISTORIES = 32;
+
+    private static NetworkUsageHistoryStore sInstance;
+
+    private final NetworkStatsManager mNetworkStatsManager;
+    private final File mDirectory;
+    private final LruCache<String, NetworkUsageHistory> mHistories =
+            new LruCache<>(MAX_CACHED_HISTORIES);
+    // Each history is brought up to date under its own lock, so that the histories of different
+    // templates and uids are queried concurrently.
+    private final Map<String, Object> mLocks = new ArrayMap<>();
+    private final AtomicBoolean mTrimmed = new AtomicBoolean();
+
+    /** Returns the shared instance. */
+    public static synchronized NetworkUsageHistoryStore getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            final Context appContext = context.getApplicationContext();
+            sInstance = new NetworkUsageHistoryStore(
+                    appContext.getSystemService(NetworkStatsManager.class),
+                    new File(appContext.getNoBackupFilesDir(), DIRECTORY));
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    NetworkUsageHistoryStore(NetworkStatsManager networkStatsManager, File directory) {
+        mNetworkStatsManager = networkStatsManager;
+        mDirectory = directory;
+    }
+
+    /** Returns the up to date usage history of the device on {@code template}. */
+    @WorkerThread
+    @NonNull
+    public NetworkUsageHistory getDeviceHistory(@NonNull NetworkTemplate template) {
+        return getHistory(template, DEVICE);
+    }
+
+    /** Returns the up to date usage history of {@code uid} on {@code template}. */
+    @WorkerThread
+    @NonNull
+    public NetworkUsageHistory getUidHistory(@NonNull NetworkTemplate template, int uid) {
+        return getHistory(template, uid);
+    }
+
+    /**
+     * Returns the usage of the device on {@code template} between {@code start} and {@code end},
+     * queried exactly, as a total and foreground usage pair.
+     */
+    @WorkerThread
+    @NonNull
+    public long[] queryDeviceUsage(@NonNull NetworkTemplate template, long start, long end) {
+        final long[] usage = new long[2];
+        try {
+            final NetworkStats.Bucket bucket =
+                    mNetworkStatsManager.querySummaryForDevice(template, start, end);
+            if (bucket != null) {
+                usage[0] = bucket.getRxBytes() + bucket.getTxBytes();
+            }
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Exception querying network stats", e);
+        }
+        return usage;
+    }
+
+    /**
+     * Returns the usage of {@code uid} on {@code template} between {@code start} and {@code end},
+     * queried exactly, as a total and foreground usage pair.
+     */
+    @WorkerThread
+    @NonNull
+    public long[] queryUidUsage(@NonNull NetworkTemplate template, int uid, long start,
+            long end) {
+        final long[] usage = new long[2];
+        try {
+            usage[0] = sum(mNetworkStatsManager.queryDetailsForUid(template, start, end, uid));
+            usage[1] = sum(mNetworkStatsManager.queryDetailsForUidTagState(template, start, end,
+                    uid, NetworkStats.Bucket.TAG_NONE, NetworkStats.Bucket.STATE_FOREGROUND));
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Exception querying network stats", e);
+        }
+        return usage;
+    }
+
+    private NetworkUsageHistory getHistory(NetworkTemplate template, int uid) {
+        final String key = buildKey(template, uid);
+        final ZoneId zone = ZoneId.systemDefault();
+        if (mTrimmed.compareAndSet(false, true)) {
+            trim(System.currentTimeMillis() - MAX_UNUSED_AGE_MS);
+        }
+        synchronized (getLock(key)) {
+            NetworkUsageHistory history = mHistories.get(key);
+            if (history == null) {
+                history = read(key);
+            }
+            if (history == null || !zone.equals(history.getZone())) {
+                history = new NetworkUsageHistory(zone);
+            }
+            final long start = history.isEmpty() ? Long.MIN_VALUE : history.getLastDayStart();
+            try {
+                if (uid == DEVICE) {
+                    record(history, mNetworkStatsManager.queryDetailsForDevice(
+                            template, start, Long.MAX_VALUE), null /* foreground */);
+                } else {
+                    record(history, mNetworkStatsManager.queryDetailsForUid(
+                                    template, start, Long.MAX_VALUE, uid),
+                            mNetworkStatsManager.queryDetailsForUidTagState(
+                                    template, start, Long.MAX_VALUE, uid,
+                                    NetworkStats.Bucket.TAG_NONE,
+                                    NetworkStats.Bucket.STATE_FOREGROUND));
+                }
+                write(key, history);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Exception querying network stats", e);
+            }
+            mHistories.put(key, history);
+            return history;
+        }
+    }
+
+    /**
+     * Drops the histories of {@code uid} on every template, once the uid was removed and before it
+     * can be reused by another app.
+     */
+    @WorkerThread
+    public void removeUid(int uid) {
+        final String suffix = "_" + uid;
+        for (String key : mHistories.snapshot().keySet()) {
+            if (key.endsWith(suffix)) {
+                synchronized (getLock(key)) {
+                    mHistories.remove(key);
+                }
+            }
+        }
+        final File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(suffix)) {
+                    synchronized (getLock(file.getName())) {
+                        file.delete();
+                    }
+                }
+            }
+        }
+    }
+
+    /** Drops the stored histories that were not brought up to date since {@code time}. */
+    @VisibleForTesting
+    void trim(long time) {
+        final File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            synchronized (getLock(file.getName())) {
+                if (file.lastModified() < time) {
+                    mHistories.remove(file.getName());
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private Object getLock(String key) {
+        synchronized (mLocks) {
+            Object lock = mLocks.get(key);
+            if (lock == null) {
+                lock = new Object();
+                mLocks.put(key, lock);
+            }
+            return lock;
+        }
+    }
+
+    private static long sum(NetworkStats stats) {
+        long bytes = 0L;
+        if (stats != null) {
+            final NetworkStats.Bucket bucket = new NetworkStats.Bucket();
+            while (stats.getNextBucket(bucket)) {
+                bytes += bucket.getRxBytes() + bucket.getTxBytes();
+            }
+            stats.close();
+        }
+        return bytes;
+    }
+
+    private static void record(NetworkUsageHistory history, NetworkStats total,
+            NetworkStats foreground) {
+        // Accumulates the buckets of each day and records a day once all of it has been seen.
+        final DayAccumulator days = new DayAccumulator(history);
+        final NetworkStats.Bucket bucket = new NetworkStats.Bucket();
+        if (total != null) {
+            while (total.getNextBucket(bucket)) {
+                days.add(bucket.getStartTimeStamp(),
+                        bucket.getRxBytes() + bucket.getTxBytes(), false /* foreground */);
+            }
+            total.close();
+        }
+        if (foreground != null) {
+            while (foreground.getNextBucket(bucket)) {
+                days.add(bucket.getStartTimeStamp(),
+                        bucket.getRxBytes() + bucket.getTxBytes(), true /* foreground */);
+            }
+            foreground.close();
+        }
+        days.flush();
+    }
+
+    private NetworkUsageHistory read(String key) {
+        final AtomicFile file = new AtomicFile(new File(mDirectory, key));
+        try (DataInputStream in = new DataInputStream(file.openRead())) {
+            return NetworkUsageHistory.readFrom(in);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Dropping unreadable usage history " + key, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private void write(String key, NetworkUsageHistory history) {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            Log.w(TAG, "Cannot create " + mDirectory);
+            return;
+        }
+        final AtomicFile file = new AtomicFile(new File(mDirectory, key));
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            final DataOutputStream out = new DataOutputStream(stream);
+            history.writeTo(out);
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write usage history " + key, e);
+            file.failWrite(stream);
+        }
+    }
+
+    @VisibleForTesting
+    static String buildKey(NetworkTemplate template, int uid) {
+        // Keyed on every field the template matches on, hashed so that subscriber ids are not
+        // written in file names.
+        final String fields = template.getMatchRule()
+                + "|" + sorted(template.getSubscriberIds())
+                + "|" + sorted(template.getWifiNetworkKeys())
+                + "|" + template.getMeteredness()
+                + "|" + template.getRoaming()
+                + "|" + template.getDefaultNetworkStatus()
+                + "|" + template.getRatType()
+                + "|" + template.getOemManaged();
+        return template.getMatchRule()
+                + "_" + UUID.nameUUIDFromBytes(fields.getBytes(StandardCharsets.UTF_8))
+                + "_" + (uid == DEVICE ? "device" : Integer.toString(uid));
+    }
+
+    private static List<String> sorted(Set<String> values) {
+        final List<String> list = new ArrayList<>(values);
+        list.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+        return list;
+    }
+
+    /** Sums the stats buckets of each day before recording them into a history. */
+    private static class DayAccumulator {
+        private final NetworkUsageHistory mHistory;
+        private final LongSparseArray<long[]> mDays = new LongSparseArray<>();
+
+        DayAccumulator(NetworkUsageHistory history) {
+            mHistory = history;
+        }
+
+        void add(long time, long bytes, boolean foreground) {
+            // Keyed by the start of the day, so that the days are kept in chronological order.
+            final long day = mHistory.getDayStart(time);
+            long[] usage = mDays.get(day);
+            if (usage == null) {
+                usage = new long[2];
+                mDays.put(day, usage);
+            }
+            usage[foreground ? 1 : 0] += bytes;
+        }
+
+        void flush() {
+            for (int i = 0; i < mDays.size(); i++) {
+                final long[] usage = mDays.valueAt(i);
+                mHistory.setDayUsage(mDays.keyAt(i), usage[0], usage[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import android.content.Context;
+import android.util.LruCache;
+import android.util.SparseArray;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.net.UidDetail;
+import com.android.settingslib.net.UidDetailProvider;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Resolves the {@link UidDetail}s shown by a data usage screen on the background pool, into a
+ * cache bounded to {@link #MAX_ENTRIES} uids.
+ *
+ * <p>Labels and icons go stale when packages, the locale or the configuration change, so the cache
+ * is scoped to the screen and dropped with it.
+ */
+public class UidDetailResolver {
+
+    @VisibleForTesting
+    static final int MAX_ENTRIES = 512;
+
+    private final UidDetailProvider mProvider;
+    private final LruCache<Integer, UidDetail> mDetails = new LruCache<>(MAX_ENTRIES);
+    // Callbacks waiting for a uid being resolved, only accessed on the main thread.
+    private final SparseArray<List<Consumer<UidDetail>>> mPendingCallbacks = new SparseArray<>();
+
+    public UidDetailResolver(@NonNull Context context) {
+        this(new UidDetailProvider(context));
+    }
+
+    @VisibleForTesting
+    UidDetailResolver(@NonNull UidDetailProvider provider) {
+        mProvider = provider;
+    }
+
+    /** Returns the cached detail of {@code key}, or null if it is not resolved yet. */
+    @Nullable
+    public UidDetail getCachedDetail(int key) {
+        return mDetails.get(key);
+    }
+
+    /**
+     * Resolves the detail of {@code key} and passes it to {@code callback} on the main thread,
+     * right away if it is cached. Concurrent requests for the same key share one lookup.
+     */
+    @MainThread
+    public void resolve(int key, @NonNull Consumer<UidDetail> callback) {
+        final UidDetail cached = mDetails.get(key);
+        if (cached != null) {
+            callback.accept(cached);
+            return;
+        }
+        List<Consumer<UidDetail>> callbacks = mPendingCallbacks.get(key);
+        if (callbacks != null) {
+            callbacks.add(callback);
+            return;
+        }
+        callbacks = new ArrayList<>();
+        callbacks.add(callback);
+        mPendingCallbacks.put(key, callbacks);
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final UidDetail detail = mProvider.getUidDetail(key, true /* blocking */);
+            ThreadUtils.postOnMainThread(() -> onResolved(key, detail));
+        });
+    }
+
+    private void onResolved(int key, @Nullable UidDetail detail) {
+        if (detail != null) {
+            mDetails.put(key, detail);
+        }
+        final List<Consumer<UidDetail>> callbacks = mPendingCallbacks.get(key);
+        mPendingCallbacks.remove(key);
+        if (mPendingCallbacks.size() == 0) {
+            // The provider keeps its own unbounded copy; only the bounded cache above is kept.
+            mProvider.clearCache();
+        }
+        if (callbacks != null) {
+            for (Consumer<UidDetail> callback : callbacks) {
+                callback.accept(detail);
+            }
+        }
+    }
+
+    /** Drops every cached detail. */
+    public void clear() {
+        mDetails.evictAll();
+        mProvider.clearCache();
+    }
+}
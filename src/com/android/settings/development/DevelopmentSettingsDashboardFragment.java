@@ -45,14 +45,19 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.Switch;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceScreen;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.settings.R;
 import com.android.settings.SettingsActivity;
 import com.android.settings.Utils;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.SubSettingLauncher;
 import com.android.settings.dashboard.RestrictedDashboardFragment;
 import com.android.settings.development.autofill.AutofillCategoryController;
@@ -86,6 +91,7 @@ import com.google.android.setupcompat.util.WizardManagerHelper;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 @SearchIndexable(forTarget = SearchIndexable.ALL & ~SearchIndexable.ARC)
 public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFragment
@@ -97,6 +103,10 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
 
     private static final String TAG = "DevSettingsDashboard";
 
+    // Number of deferred controllers bound per main thread message.
+    @VisibleForTesting
+    static final int DEFERRED_BIND_BATCH_SIZE = 8;
+
     private final BluetoothA2dpConfigStore mBluetoothA2dpConfigStore =
             new BluetoothA2dpConfigStore();
 
@@ -104,6 +114,9 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
     private SettingsMainSwitchBar mSwitchBar;
     private DevelopmentSwitchBarController mSwitchBarController;
     private List<AbstractPreferenceController> mPreferenceControllers = new ArrayList<>();
+    // Controllers of the preferences below the first screen, not created yet.
+    private List<Supplier<AbstractPreferenceController>> mDeferredControllers = new ArrayList<>();
+    private boolean mDeveloperOptionsEnabled;
     private BluetoothA2dp mBluetoothA2dp;
 
     private final BroadcastReceiver mEnableAdbReceiver = new BroadcastReceiver() {
@@ -204,6 +217,32 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
         }
     };
 
+    private final Runnable mBindDeferredControllersBatch = new Runnable() {
+        @Override
+        public void run() {
+            final View view = getView();
+            if (view == null) {
+                return;
+            }
+            bindDeferredControllers(DEFERRED_BIND_BATCH_SIZE);
+            if (!mDeferredControllers.isEmpty()) {
+                view.post(this);
+            }
+        }
+    };
+
+    private final RecyclerView.OnScrollListener mDeferredControllersScrollListener =
+            new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                    if (dy != 0) {
+                        // The rows below the first screen are about to be shown.
+                        recyclerView.removeOnScrollListener(this);
+                        bindDeferredControllers(Integer.MAX_VALUE);
+                    }
+                }
+            };
+
     public DevelopmentSettingsDashboardFragment() {
         super(UserManager.DISALLOW_DEBUGGING_FEATURES);
     }
@@ -313,8 +352,31 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
         return super.onCreateView(inflater, container, savedInstanceState);
     }
 
+    @Override
+    public void onViewCreated(View view, Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        if (mDeferredControllers.isEmpty()) {
+            return;
+        }
+        getListView().addOnScrollListener(mDeferredControllersScrollListener);
+        view.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        view.getViewTreeObserver().removeOnPreDrawListener(this);
+                        // Posted from the first traversal, so it runs once the frame is drawn.
+                        view.post(mBindDeferredControllersBatch);
+                        return true;
+                    }
+                });
+    }
+
     @Override
     public void onDestroyView() {
+        final View view = getView();
+        if (view != null) {
+            view.removeCallbacks(mBindDeferredControllersBatch);
+        }
         super.onDestroyView();
         unregisterReceivers();
 
@@ -506,6 +568,7 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
 
     @Override
     public void onActivityResult(int requestCode, int resultCode, Intent data) {
+        bindDeferredControllers(Integer.MAX_VALUE);
         boolean handledResult = false;
         for (AbstractPreferenceController controller : mPreferenceControllers) {
             if (controller instanceof OnActivityResultListener) {
@@ -540,11 +603,13 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
     protected List<AbstractPreferenceController> createPreferenceControllers(Context context) {
         if (Utils.isMonkeyRunning()) {
             mPreferenceControllers = new ArrayList<>();
+            mDeferredControllers = new ArrayList<>();
             return null;
         }
         mPreferenceControllers = buildPreferenceControllers(context, getActivity(),
                 getSettingsLifecycle(), this /* devOptionsDashboardFragment */,
                 new BluetoothA2dpConfigStore());
+        mDeferredControllers = buildDeferredPreferenceControllers(context);
         return mPreferenceControllers;
     }
 
@@ -568,6 +633,8 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
             return;
         }
         DevelopmentSettingsEnabler.setDevelopmentSettingsEnabled(getContext(), true);
+        // Controllers bound later are enabled in bindDeferredControllers().
+        mDeveloperOptionsEnabled = true;
         for (AbstractPreferenceController controller : mPreferenceControllers) {
             if (controller instanceof DeveloperOptionsPreferenceController) {
                 ((DeveloperOptionsPreferenceController) controller).onDeveloperOptionsEnabled();
@@ -580,6 +647,9 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
             return;
         }
         DevelopmentSettingsEnabler.setDevelopmentSettingsEnabled(getContext(), false);
+        // Every controller has to reset its setting, including the ones not bound yet.
+        mDeveloperOptionsEnabled = false;
+        bindDeferredControllers(Integer.MAX_VALUE);
         final SystemPropPoker poker = SystemPropPoker.getInstance();
         poker.blockPokes();
         for (AbstractPreferenceController controller : mPreferenceControllers) {
@@ -610,7 +680,8 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
         mSwitchBar.setChecked(true);
     }
 
-    private static List<AbstractPreferenceController> buildPreferenceControllers(Context context,
+    @VisibleForTesting
+    static List<AbstractPreferenceController> buildPreferenceControllers(Context context,
             Activity activity, Lifecycle lifecycle, DevelopmentSettingsDashboardFragment fragment,
             BluetoothA2dpConfigStore bluetoothA2dpConfigStore) {
         final List<AbstractPreferenceController> controllers = new ArrayList<>();
@@ -636,93 +707,23 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
         controllers.add(new AdbPreferenceController(context, fragment));
         controllers.add(new ClearAdbKeysPreferenceController(context, fragment));
         controllers.add(new WirelessDebuggingPreferenceController(context, lifecycle));
-        controllers.add(new AdbAuthorizationTimeoutPreferenceController(context));
-        controllers.add(new LocalTerminalPreferenceController(context));
-        controllers.add(new BugReportInPowerPreferenceController(context));
-        controllers.add(new AutomaticSystemServerHeapDumpPreferenceController(context));
         controllers.add(new MockLocationAppPreferenceController(context, fragment));
-        controllers.add(new MockModemPreferenceController(context));
-        controllers.add(new DebugViewAttributesPreferenceController(context));
         controllers.add(new SelectDebugAppPreferenceController(context, fragment));
-        controllers.add(new WaitForDebuggerPreferenceController(context));
-        controllers.add(new EnableGpuDebugLayersPreferenceController(context));
         controllers.add(new GraphicsDriverEnableAngleAsSystemDriverController(context, fragment));
-        controllers.add(new ForcePeakRefreshRatePreferenceController(context));
-        controllers.add(new EnableVerboseVendorLoggingPreferenceController(context));
-        controllers.add(new VerifyAppsOverUsbPreferenceController(context));
-        controllers.add(new ArtVerifierPreferenceController(context));
-        controllers.add(new LogdSizePreferenceController(context));
         controllers.add(new LogPersistPreferenceController(context, fragment, lifecycle));
-        controllers.add(new CameraLaserSensorPreferenceController(context));
-        controllers.add(new WifiDisplayCertificationPreferenceController(context));
-        controllers.add(new WifiVerboseLoggingPreferenceController(context));
-        controllers.add(new WifiScanThrottlingPreferenceController(context));
-        controllers.add(new WifiNonPersistentMacRandomizationPreferenceController(context));
-        controllers.add(new MobileDataAlwaysOnPreferenceController(context));
-        controllers.add(new TetheringHardwareAccelPreferenceController(context));
-        controllers.add(new BluetoothDeviceNoNamePreferenceController(context));
-        controllers.add(new BluetoothAbsoluteVolumePreferenceController(context));
-        controllers.add(new BluetoothAvrcpVersionPreferenceController(context));
-        controllers.add(new BluetoothMapVersionPreferenceController(context));
         controllers.add(new BluetoothLeAudioPreferenceController(context, fragment));
-        controllers.add(new BluetoothLeAudioDeviceDetailsPreferenceController(context));
         controllers.add(new BluetoothLeAudioAllowListPreferenceController(context, fragment));
         controllers.add(new BluetoothA2dpHwOffloadPreferenceController(context, fragment));
         controllers.add(new BluetoothLeAudioHwOffloadPreferenceController(context, fragment));
-        controllers.add(new BluetoothMaxConnectedAudioDevicesPreferenceController(context));
-        controllers.add(new NfcStackDebugLogPreferenceController(context));
         controllers.add(new NfcSnoopLogPreferenceController(context, fragment));
         controllers.add(new NfcVerboseVendorLogPreferenceController(context, fragment));
-        controllers.add(new ShowTapsPreferenceController(context));
-        controllers.add(new PointerLocationPreferenceController(context));
-        controllers.add(new ShowKeyPressesPreferenceController(context));
-        controllers.add(new ShowSurfaceUpdatesPreferenceController(context));
-        controllers.add(new ShowLayoutBoundsPreferenceController(context));
-        controllers.add(new ShowRefreshRatePreferenceController(context));
-        controllers.add(new RtlLayoutPreferenceController(context));
-        controllers.add(new WindowAnimationScalePreferenceController(context));
-        controllers.add(new EmulateDisplayCutoutPreferenceController(context));
-        controllers.add(new TransparentNavigationBarPreferenceController(context));
-        controllers.add(new TransitionAnimationScalePreferenceController(context));
-        controllers.add(new AnimatorDurationScalePreferenceController(context));
-        controllers.add(new SecondaryDisplayPreferenceController(context));
-        controllers.add(new GpuViewUpdatesPreferenceController(context));
-        controllers.add(new HardwareLayersUpdatesPreferenceController(context));
-        controllers.add(new DebugGpuOverdrawPreferenceController(context));
-        controllers.add(new DebugNonRectClipOperationsPreferenceController(context));
-        controllers.add(new ForceDarkPreferenceController(context));
-        controllers.add(new EnableBlursPreferenceController(context));
-        controllers.add(new ForceMSAAPreferenceController(context));
-        controllers.add(new HardwareOverlaysPreferenceController(context));
-        controllers.add(new SimulateColorSpacePreferenceController(context));
-        controllers.add(new UsbAudioRoutingPreferenceController(context));
-        controllers.add(new StrictModePreferenceController(context));
-        controllers.add(new ProfileGpuRenderingPreferenceController(context));
-        controllers.add(new KeepActivitiesPreferenceController(context));
-        controllers.add(new BackgroundProcessLimitPreferenceController(context));
-        controllers.add(new CachedAppsFreezerPreferenceController(context));
-        controllers.add(new ShowFirstCrashDialogPreferenceController(context));
-        controllers.add(new AppsNotRespondingPreferenceController(context));
-        controllers.add(new NotificationChannelWarningsPreferenceController(context));
-        controllers.add(new AllowAppsOnExternalPreferenceController(context));
-        controllers.add(new ResizableActivityPreferenceController(context));
         controllers.add(new FreeformWindowsPreferenceController(context, fragment));
         controllers.add(new DesktopModePreferenceController(context, fragment));
-        controllers.add(new NonResizableMultiWindowPreferenceController(context));
-        controllers.add(new ShortcutManagerThrottlingPreferenceController(context));
-        controllers.add(new EnableGnssRawMeasFullTrackingPreferenceController(context));
         controllers.add(new DefaultLaunchPreferenceController(context, "running_apps"));
         controllers.add(new DefaultLaunchPreferenceController(context, "demo_mode"));
         controllers.add(new DefaultLaunchPreferenceController(context, "quick_settings_tiles"));
-        controllers.add(new DefaultLaunchPreferenceController(context, "feature_flags_dashboard"));
-        controllers.add(new DefaultUsbConfigurationPreferenceController(context));
-        controllers.add(new DefaultLaunchPreferenceController(context, "density"));
-        controllers.add(new DefaultLaunchPreferenceController(context, "background_check"));
-        controllers.add(new DefaultLaunchPreferenceController(context, "inactive_apps"));
-        controllers.add(new TarePreferenceController(context));
         controllers.add(new AutofillCategoryController(context, lifecycle));
         controllers.add(new AutofillLoggingLevelPreferenceController(context, lifecycle));
-        controllers.add(new AutofillResetOptionsPreferenceController(context));
         controllers.add(new BluetoothCodecDialogPreferenceController(context, lifecycle,
                 bluetoothA2dpConfigStore, fragment));
         controllers.add(new BluetoothSampleRateDialogPreferenceController(context, lifecycle,
@@ -735,24 +736,147 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
                 bluetoothA2dpConfigStore));
         controllers.add(new BluetoothHDAudioPreferenceController(context, lifecycle,
                 bluetoothA2dpConfigStore, fragment));
-        controllers.add(new SharedDataPreferenceController(context));
-        controllers.add(new OverlaySettingsPreferenceController(context));
-        controllers.add(new StylusHandwritingPreferenceController(context));
         controllers.add(new IngressRateLimitPreferenceController((context)));
         controllers.add(new BackAnimationPreferenceController(context, fragment));
-        controllers.add(new PhantomProcessPreferenceController(context));
         controllers.add(new ContrastPreferenceController(
                 context, context.getSystemService(UiModeManager.class)));
-        controllers.add(new ForceEnableNotesRolePreferenceController(context));
+
+        return controllers;
+    }
+
+    /**
+     * Builds the controllers of the preferences below the first screen. They are only created
+     * once the first screen is drawn, see {@link #bindDeferredControllers(int)}.
+     */
+    @VisibleForTesting
+    static List<Supplier<AbstractPreferenceController>> buildDeferredPreferenceControllers(
+            Context context) {
+        final List<Supplier<AbstractPreferenceController>> controllers = new ArrayList<>();
+        controllers.add(() -> new AdbAuthorizationTimeoutPreferenceController(context));
+        controllers.add(() -> new LocalTerminalPreferenceController(context));
+        controllers.add(() -> new BugReportInPowerPreferenceController(context));
+        controllers.add(() -> new AutomaticSystemServerHeapDumpPreferenceController(context));
+        controllers.add(() -> new MockModemPreferenceController(context));
+        controllers.add(() -> new DebugViewAttributesPreferenceController(context));
+        controllers.add(() -> new WaitForDebuggerPreferenceController(context));
+        controllers.add(() -> new EnableGpuDebugLayersPreferenceController(context));
+        controllers.add(() -> new ForcePeakRefreshRatePreferenceController(context));
+        controllers.add(() -> new EnableVerboseVendorLoggingPreferenceController(context));
+        controllers.add(() -> new VerifyAppsOverUsbPreferenceController(context));
+        controllers.add(() -> new ArtVerifierPreferenceController(context));
+        controllers.add(() -> new LogdSizePreferenceController(context));
+        controllers.add(() -> new CameraLaserSensorPreferenceController(context));
+        controllers.add(() -> new WifiDisplayCertificationPreferenceController(context));
+        controllers.add(() -> new WifiVerboseLoggingPreferenceController(context));
+        controllers.add(() -> new WifiScanThrottlingPreferenceController(context));
+        controllers.add(() -> new WifiNonPersistentMacRandomizationPreferenceController(context));
+        controllers.add(() -> new MobileDataAlwaysOnPreferenceController(context));
+        controllers.add(() -> new TetheringHardwareAccelPreferenceController(context));
+        controllers.add(() -> new BluetoothDeviceNoNamePreferenceController(context));
+        controllers.add(() -> new BluetoothAbsoluteVolumePreferenceController(context));
+        controllers.add(() -> new BluetoothAvrcpVersionPreferenceController(context));
+        controllers.add(() -> new BluetoothMapVersionPreferenceController(context));
+        controllers.add(() -> new BluetoothLeAudioDeviceDetailsPreferenceController(context));
+        controllers.add(() -> new BluetoothMaxConnectedAudioDevicesPreferenceController(context));
+        controllers.add(() -> new NfcStackDebugLogPreferenceController(context));
+        controllers.add(() -> new ShowTapsPreferenceController(context));
+        controllers.add(() -> new PointerLocationPreferenceController(context));
+        controllers.add(() -> new ShowKeyPressesPreferenceController(context));
+        controllers.add(() -> new ShowSurfaceUpdatesPreferenceController(context));
+        controllers.add(() -> new ShowLayoutBoundsPreferenceController(context));
+        controllers.add(() -> new ShowRefreshRatePreferenceController(context));
+        controllers.add(() -> new RtlLayoutPreferenceController(context));
+        controllers.add(() -> new WindowAnimationScalePreferenceController(context));
+        controllers.add(() -> new EmulateDisplayCutoutPreferenceController(context));
+        controllers.add(() -> new TransparentNavigationBarPreferenceController(context));
+        controllers.add(() -> new TransitionAnimationScalePreferenceController(context));
+        controllers.add(() -> new AnimatorDurationScalePreferenceController(context));
+        controllers.add(() -> new SecondaryDisplayPreferenceController(context));
+        controllers.add(() -> new GpuViewUpdatesPreferenceController(context));
+        controllers.add(() -> new HardwareLayersUpdatesPreferenceController(context));
+        controllers.add(() -> new DebugGpuOverdrawPreferenceController(context));
+        controllers.add(() -> new DebugNonRectClipOperationsPreferenceController(context));
+        controllers.add(() -> new ForceDarkPreferenceController(context));
+        controllers.add(() -> new EnableBlursPreferenceController(context));
+        controllers.add(() -> new ForceMSAAPreferenceController(context));
+        controllers.add(() -> new HardwareOverlaysPreferenceController(context));
+        controllers.add(() -> new SimulateColorSpacePreferenceController(context));
+        controllers.add(() -> new UsbAudioRoutingPreferenceController(context));
+        controllers.add(() -> new StrictModePreferenceController(context));
+        controllers.add(() -> new ProfileGpuRenderingPreferenceController(context));
+        controllers.add(() -> new KeepActivitiesPreferenceController(context));
+        controllers.add(() -> new BackgroundProcessLimitPreferenceController(context));
+        controllers.add(() -> new CachedAppsFreezerPreferenceController(context));
+        controllers.add(() -> new ShowFirstCrashDialogPreferenceController(context));
+        controllers.add(() -> new AppsNotRespondingPreferenceController(context));
+        controllers.add(() -> new NotificationChannelWarningsPreferenceController(context));
+        controllers.add(() -> new AllowAppsOnExternalPreferenceController(context));
+        controllers.add(() -> new ResizableActivityPreferenceController(context));
+        controllers.add(() -> new NonResizableMultiWindowPreferenceController(context));
+        controllers.add(() -> new ShortcutManagerThrottlingPreferenceController(context));
+        controllers.add(() -> new EnableGnssRawMeasFullTrackingPreferenceController(context));
+        controllers.add(() -> new DefaultLaunchPreferenceController(context,
+                "feature_flags_dashboard"));
+        controllers.add(() -> new DefaultUsbConfigurationPreferenceController(context));
+        controllers.add(() -> new DefaultLaunchPreferenceController(context, "density"));
+        controllers.add(() -> new DefaultLaunchPreferenceController(context, "background_check"));
+        controllers.add(() -> new DefaultLaunchPreferenceController(context, "inactive_apps"));
+        controllers.add(() -> new TarePreferenceController(context));
+        controllers.add(() -> new AutofillResetOptionsPreferenceController(context));
+        controllers.add(() -> new SharedDataPreferenceController(context));
+        controllers.add(() -> new OverlaySettingsPreferenceController(context));
+        controllers.add(() -> new StylusHandwritingPreferenceController(context));
+        controllers.add(() -> new PhantomProcessPreferenceController(context));
+        controllers.add(() -> new ForceEnableNotesRolePreferenceController(context));
 
         return controllers;
     }
 
     @VisibleForTesting
     <T extends AbstractPreferenceController> T getDevelopmentOptionsController(Class<T> clazz) {
+        bindDeferredControllers(Integer.MAX_VALUE);
         return use(clazz);
     }
 
+    /**
+     * Creates and binds up to {@code count} of the controllers of the preferences below the first
+     * screen, in the order of the screen.
+     */
+    @VisibleForTesting
+    void bindDeferredControllers(int count) {
+        if (mDeferredControllers.isEmpty()) {
+            return;
+        }
+        final PreferenceScreen screen = getPreferenceScreen();
+        if (!mIsAvailable || screen == null) {
+            if (!mIsAvailable) {
+                mDeferredControllers.clear();
+            }
+            return;
+        }
+        final int metricsCategory = getMetricsCategory();
+        for (int i = 0; i < count && !mDeferredControllers.isEmpty(); i++) {
+            final AbstractPreferenceController controller = mDeferredControllers.remove(0).get();
+            if (controller instanceof BasePreferenceController) {
+                ((BasePreferenceController) controller).setMetricsCategory(metricsCategory);
+            }
+            mPreferenceControllers.add(controller);
+            addPreferenceController(controller);
+            controller.displayPreference(screen);
+            if (!controller.isAvailable()) {
+                continue;
+            }
+            final Preference preference = screen.findPreference(controller.getPreferenceKey());
+            if (preference != null) {
+                controller.updateState(preference);
+            }
+            if (mDeveloperOptionsEnabled
+                    && controller instanceof DeveloperOptionsPreferenceController) {
+                ((DeveloperOptionsPreferenceController) controller).onDeveloperOptionsEnabled();
+            }
+        }
+    }
+
     @Override
     public void onBluetoothCodecChanged() {
         for (AbstractPreferenceController controller : mPreferenceControllers) {
@@ -788,9 +912,15 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
                 @Override
                 public List<AbstractPreferenceController> createPreferenceControllers(Context
                         context) {
-                    return buildPreferenceControllers(context, null /* activity */,
-                            null /* lifecycle */, null /* devOptionsDashboardFragment */,
-                            null /* bluetoothA2dpConfigStore */);
+                    final List<AbstractPreferenceController> controllers =
+                            buildPreferenceControllers(context, null /* activity */,
+                                    null /* lifecycle */, null /* devOptionsDashboardFragment */,
+                                    null /* bluetoothA2dpConfigStore */);
+                    for (Supplier<AbstractPreferenceController> controller
+                            : buildDeferredPreferenceControllers(context)) {
+                        controllers.add(controller.get());
+                    }
+                    return controllers;
                 }
             };
 }
@@ -32,6 +32,7 @@ import androidx.preference.PreferenceCategory;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.core.AvailabilityStatusCache;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.deviceinfo.PhoneNumberSummaryPreference;
 import com.android.settings.deviceinfo.simstatus.SlotSimStatus;
@@ -143,6 +144,11 @@ public class ImeiInfoPreferenceController extends BasePreferenceController {
         return isAvailable ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    protected AvailabilityStatusCache.Dependencies getAvailabilityDependencies() {
+        return AvailabilityStatusCache.Dependencies.of(AvailabilityStatusCache.SIGNAL_USERS);
+    }
+
     @Override
     public boolean useDynamicSliceSummary() {
         return true;
@@ -21,6 +21,7 @@ import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.content.pm.ModuleInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.res.AssetManager;
@@ -29,15 +30,21 @@ import android.net.Uri;
 import android.os.ParcelFileDescriptor;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 import androidx.core.util.Preconditions;
 
+import com.android.settingslib.utils.ThreadUtils;
+
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 
 public class ModuleLicenseProvider extends ContentProvider {
@@ -48,6 +55,9 @@ public class ModuleLicenseProvider extends ContentProvider {
     static final String LICENSE_FILE_NAME = "NOTICE.html";
     static final String LICENSE_FILE_MIME_TYPE = "text/html";
     static final String PREFS_NAME = "ModuleLicenseProvider";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final AtomicBoolean sRefreshing = new AtomicBoolean();
 
     @Override
     public boolean onCreate() {
@@ -89,25 +99,18 @@ public class ModuleLicenseProvider extends ContentProvider {
 
         try {
             String packageName = uri.getPathSegments().get(0);
-            File cachedFile = getCachedHtmlFile(context, packageName);
-            if (isCachedHtmlFileOutdated(context, packageName)) {
-                try (InputStream in = new GZIPInputStream(
-                        getPackageAssetManager(context.getPackageManager(), packageName)
-                                .open(GZIPPED_LICENSE_FILE_NAME))) {
-                    File directory = getCachedFileDirectory(context, packageName);
-                    if (!directory.exists()) {
-                        directory.mkdir();
-                    }
-                    Files.copy(in, cachedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                }
-                // Now that the file is saved, write the package's version code to shared prefs
-                SharedPreferences.Editor editor = getPrefs(context).edit();
-                editor.putLong(
-                        packageName,
-                        getPackageInfo(context, packageName).getLongVersionCode())
-                                .commit();
+            if (!isCachedHtmlFileOutdated(context, packageName)) {
+                return ParcelFileDescriptor.open(getCachedHtmlFile(context, packageName),
+                        ParcelFileDescriptor.MODE_READ_ONLY);
             }
-            return ParcelFileDescriptor.open(cachedFile, ParcelFileDescriptor.MODE_READ_ONLY);
+            // Serve the license while it is decompressed instead of once it is fully cached.
+            // The pipe is reliable so that the reader is told about a failure instead of taking
+            // a truncated license for the whole one.
+            final long versionCode = getPackageInfo(context, packageName).getLongVersionCode();
+            final ParcelFileDescriptor[] pipe = ParcelFileDescriptor.createReliablePipe();
+            ThreadUtils.postOnBackgroundThread(
+                    () -> writeLicense(context, packageName, versionCode, pipe[1]));
+            return pipe[0];
         } catch (PackageManager.NameNotFoundException e) {
             Log.wtf(TAG, "checkUri should have already caught this error", e);
         } catch (IOException e) {
@@ -116,6 +119,29 @@ public class ModuleLicenseProvider extends ContentProvider {
         return null;
     }
 
+    /**
+     * Writes the license of {@code packageName} to {@code writeEnd} while caching it, and closes
+     * {@code writeEnd} with an error if it could not be written completely.
+     */
+    @WorkerThread
+    private static void writeLicense(Context context, String packageName, long versionCode,
+            ParcelFileDescriptor writeEnd) {
+        try {
+            // Not closed, so the pipe can still be closed with an error below.
+            final OutputStream out = new FileOutputStream(writeEnd.getFileDescriptor());
+            writeCachedHtmlFile(context, packageName, out);
+            getPrefs(context).edit().putLong(packageName, versionCode).apply();
+            writeEnd.close();
+        } catch (IOException | PackageManager.NameNotFoundException e) {
+            Log.e(TAG, "Could not decompress license of " + packageName, e);
+            try {
+                writeEnd.closeWithError("Could not decompress license of " + packageName);
+            } catch (IOException closeError) {
+                Log.w(TAG, "Could not close license pipe of " + packageName, closeError);
+            }
+        }
+    }
+
     /**
      * Returns true if the cached file for the given package is outdated. A cached file is
      * outdated if one of the following are true:
@@ -134,6 +160,96 @@ public class ModuleLicenseProvider extends ContentProvider {
                 || !file.exists() || file.length() == 0;
     }
 
+    /**
+     * Refreshes the outdated cached licenses of every module on a background thread, so that the
+     * licenses open from the cache once the user gets to them.
+     */
+    static void refreshOutdatedCachedHtmlFilesAsync(Context context) {
+        if (!sRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+        final Context appContext = context.getApplicationContext();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            try {
+                final List<String> packageNames = appContext.getPackageManager()
+                        .getInstalledModules(0 /* flags */).stream()
+                        .filter(new ModuleLicensesPreferenceController.Predicate(appContext))
+                        .map(ModuleInfo::getPackageName)
+                        .collect(Collectors.toList());
+                refreshOutdatedCachedHtmlFiles(appContext, packageNames);
+            } finally {
+                sRefreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Decompresses the outdated cached licenses of {@code packageNames}, e.g. after their packages
+     * were updated, so that they can be served from the cache once requested. The version codes
+     * are recorded in a single write.
+     */
+    @WorkerThread
+    static void refreshOutdatedCachedHtmlFiles(Context context, List<String> packageNames) {
+        final SharedPreferences.Editor editor = getPrefs(context).edit();
+        boolean refreshed = false;
+        for (String packageName : packageNames) {
+            try {
+                if (isCachedHtmlFileOutdated(context, packageName)) {
+                    final long versionCode =
+                            getPackageInfo(context, packageName).getLongVersionCode();
+                    writeCachedHtmlFile(context, packageName, null /* out */);
+                    editor.putLong(packageName, versionCode);
+                    refreshed = true;
+                }
+            } catch (IOException | PackageManager.NameNotFoundException e) {
+                Log.w(TAG, "Could not refresh license of " + packageName, e);
+            }
+        }
+        if (refreshed) {
+            editor.apply();
+        }
+    }
+
+    /**
+     * Decompresses the license of {@code packageName} into its cache file, copying it to
+     * {@code out} as well if it is not null. The cache file is replaced once complete, and is
+     * still written if {@code out} is closed by its reader.
+     */
+    private static void writeCachedHtmlFile(Context context, String packageName,
+            @Nullable OutputStream out) throws IOException, PackageManager.NameNotFoundException {
+        final File directory = getCachedFileDirectory(context, packageName);
+        if (!directory.exists()) {
+            directory.mkdir();
+        }
+        final File tempFile = File.createTempFile(LICENSE_FILE_NAME, null /* suffix */, directory);
+        OutputStream copy = out;
+        try (InputStream in = new GZIPInputStream(
+                getPackageAssetManager(context.getPackageManager(), packageName)
+                        .open(GZIPPED_LICENSE_FILE_NAME));
+             OutputStream file = new FileOutputStream(tempFile)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                file.write(buffer, 0, count);
+                if (copy != null) {
+                    try {
+                        copy.write(buffer, 0, count);
+                    } catch (IOException e) {
+                        // The reader went away, only finish the cache file.
+                        copy = null;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        if (!tempFile.renameTo(getCachedHtmlFile(context, packageName))) {
+            tempFile.delete();
+            throw new IOException("Could not replace cached license of " + packageName);
+        }
+    }
+
     static AssetManager getPackageAssetManager(PackageManager packageManager, String packageName)
             throws PackageManager.NameNotFoundException {
         return packageManager.getResourcesForApplication(
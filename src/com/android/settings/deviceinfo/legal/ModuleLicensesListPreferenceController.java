@@ -20,6 +20,8 @@ import android.content.Context;
 import android.content.pm.ModuleInfo;
 import android.content.pm.PackageManager;
 
+import androidx.preference.PreferenceScreen;
+
 import com.android.settings.core.BasePreferenceController;
 
 import java.util.List;
@@ -38,4 +40,13 @@ public class ModuleLicensesListPreferenceController extends BasePreferenceContro
                 ? AVAILABLE
                 : CONDITIONALLY_UNAVAILABLE;
     }
+
+    @Override
+    public void displayPreference(PreferenceScreen screen) {
+        super.displayPreference(screen);
+        if (isAvailable()) {
+            // Get the licenses ready before the user opens them.
+            ModuleLicenseProvider.refreshOutdatedCachedHtmlFilesAsync(mContext);
+        }
+    }
 }
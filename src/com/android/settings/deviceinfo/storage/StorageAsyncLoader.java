@@ -39,6 +39,7 @@ import android.util.ArraySet;
 import android.util.Log;
 import android.util.SparseArray;
 
+import com.android.settings.applications.PackageSnapshot;
 import com.android.settingslib.applications.StorageStatsSource;
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
@@ -143,7 +144,8 @@ public class StorageAsyncLoader
     private StorageResult getAppsAndGamesSize(int userId) {
         Log.d(TAG, "Loading apps");
         final List<ApplicationInfo> applicationInfos =
-                mPackageManager.getInstalledApplicationsAsUser(0, userId);
+                PackageSnapshot.getInstalledApplicationsAsUser(getContext(), mPackageManager,
+                        0 /* flags */, userId);
         final StorageResult result = new StorageResult();
         final UserHandle myUser = UserHandle.of(userId);
         for (int i = 0, size = applicationInfos.size(); i < size; i++) {
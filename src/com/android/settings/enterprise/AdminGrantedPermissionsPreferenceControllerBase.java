@@ -20,19 +20,24 @@ import android.content.Context;
 import androidx.preference.Preference;
 
 import com.android.settings.R;
+import com.android.settings.applications.AppCounter;
 import com.android.settings.applications.ApplicationFeatureProvider;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.AbstractPreferenceController;
+import com.android.settingslib.core.lifecycle.LifecycleObserver;
+import com.android.settingslib.core.lifecycle.events.OnStop;
 import com.android.settingslib.utils.StringUtil;
 
 public abstract class AdminGrantedPermissionsPreferenceControllerBase
-        extends AbstractPreferenceController implements PreferenceControllerMixin {
+        extends AbstractPreferenceController implements PreferenceControllerMixin,
+        LifecycleObserver, OnStop {
 
     private final String[] mPermissions;
     private final ApplicationFeatureProvider mFeatureProvider;
     private final boolean mAsync;
     private boolean mHasApps;
+    private AppCounter mCounter;
 
     public AdminGrantedPermissionsPreferenceControllerBase(Context context, boolean async,
             String[] permissions) {
@@ -46,7 +51,8 @@ public abstract class AdminGrantedPermissionsPreferenceControllerBase
 
     @Override
     public void updateState(Preference preference) {
-        mFeatureProvider.calculateNumberOfAppsWithAdminGrantedPermissions(mPermissions,
+        cancelCounter();
+        mCounter = mFeatureProvider.calculateNumberOfAppsWithAdminGrantedPermissions(mPermissions,
                 true /* async */,
                 (num) -> {
                     if (num == 0) {
@@ -60,6 +66,11 @@ public abstract class AdminGrantedPermissionsPreferenceControllerBase
                 });
     }
 
+    @Override
+    public void onStop() {
+        cancelCounter();
+    }
+
     @Override
     public boolean isAvailable() {
         if (mAsync) {
@@ -91,4 +102,11 @@ public abstract class AdminGrantedPermissionsPreferenceControllerBase
         }
         return super.handlePreferenceTreeClick(preference);
     }
+
+    private void cancelCounter() {
+        if (mCounter != null) {
+            mCounter.cancel(true /* mayInterruptIfRunning */);
+            mCounter = null;
+        }
+    }
 }
@@ -18,19 +18,24 @@ import android.content.Context;
 import androidx.preference.Preference;
 
 import com.android.settings.R;
+import com.android.settings.applications.AppCounter;
 import com.android.settings.applications.ApplicationFeatureProvider;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.AbstractPreferenceController;
+import com.android.settingslib.core.lifecycle.LifecycleObserver;
+import com.android.settingslib.core.lifecycle.events.OnStop;
 import com.android.settingslib.utils.StringUtil;
 
 public class EnterpriseInstalledPackagesPreferenceController
-        extends AbstractPreferenceController implements PreferenceControllerMixin {
+        extends AbstractPreferenceController implements PreferenceControllerMixin,
+        LifecycleObserver, OnStop {
 
     private static final String KEY_NUMBER_ENTERPRISE_INSTALLED_PACKAGES
             = "number_enterprise_installed_packages";
     private final ApplicationFeatureProvider mFeatureProvider;
     private final boolean mAsync;
+    private AppCounter mCounter;
 
     public EnterpriseInstalledPackagesPreferenceController(Context context, boolean async) {
         super(context);
@@ -41,7 +46,8 @@ public class EnterpriseInstalledPackagesPreferenceController
 
     @Override
     public void updateState(Preference preference) {
-        mFeatureProvider.calculateNumberOfPolicyInstalledApps(true /* async */,
+        cancelCounter();
+        mCounter = mFeatureProvider.calculateNumberOfPolicyInstalledApps(true /* async */,
                 (num) -> {
                     final boolean available;
                     if (num == 0) {
@@ -56,6 +62,11 @@ public class EnterpriseInstalledPackagesPreferenceController
                 });
     }
 
+    @Override
+    public void onStop() {
+        cancelCounter();
+    }
+
     @Override
     public boolean isAvailable() {
         if (mAsync) {
@@ -79,4 +90,11 @@ public class EnterpriseInstalledPackagesPreferenceController
     public String getPreferenceKey() {
         return KEY_NUMBER_ENTERPRISE_INSTALLED_PACKAGES;
     }
+
+    private void cancelCounter() {
+        if (mCounter != null) {
+            mCounter.cancel(true /* mayInterruptIfRunning */);
+            mCounter = null;
+        }
+    }
 }
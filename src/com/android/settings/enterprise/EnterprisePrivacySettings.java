@@ -53,6 +53,8 @@ import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.search.BaseSearchIndexProvider;
 import com.android.settingslib.core.AbstractPreferenceController;
+import com.android.settingslib.core.lifecycle.Lifecycle;
+import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.search.SearchIndexable;
 
 import java.util.List;
@@ -164,7 +166,16 @@ public class EnterprisePrivacySettings extends DashboardFragment {
 
     @Override
     protected List<AbstractPreferenceController> createPreferenceControllers(Context context) {
-        return mPrivacySettingsPreference.createPreferenceControllers(true /* async */);
+        final List<AbstractPreferenceController> controllers =
+                mPrivacySettingsPreference.createPreferenceControllers(true /* async */);
+        // Let the app counting controllers cancel their counts when the page stops.
+        final Lifecycle lifecycle = getSettingsLifecycle();
+        for (AbstractPreferenceController controller : controllers) {
+            if (controller instanceof LifecycleObserver) {
+                lifecycle.addObserver((LifecycleObserver) controller);
+            }
+        }
+        return controllers;
     }
 
     public static boolean isPageEnabled(Context context) {
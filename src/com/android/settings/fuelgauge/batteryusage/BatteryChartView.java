@@ -33,7 +33,6 @@ import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
-import android.util.ArraySet;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.HapticFeedbackConstants;
@@ -57,7 +56,6 @@ import com.android.settingslib.Utils;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
 
 /** A widget component to draw chart graph. */
 public class BatteryChartView extends AppCompatImageView implements View.OnClickListener {
@@ -76,7 +74,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
     private final Rect mIndent = new Rect();
     private final Rect[] mPercentageBounds = new Rect[]{new Rect(), new Rect(), new Rect()};
     private final List<Rect> mAxisLabelsBounds = new ArrayList<>();
-    private final Set<Integer> mLabelDrawnIndexes = new ArraySet<>();
+    private final float[] mHorizontalDividerYs = new float[HORIZONTAL_DIVIDER_COUNT];
     private final int mLayoutDirection =
             getContext().getResources().getConfiguration().getLayoutDirection();
 
@@ -106,6 +104,26 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
     private AccessibilityNodeProvider mAccessibilityNodeProvider;
     private BatteryChartView.OnSelectListener mOnSelectListener;
 
+    // The text measurement of onMeasure() is only redone when one of these changed.
+    private BatteryChartViewModel mMeasuredViewModel;
+    private Paint mMeasuredTextPaint;
+    private float mMeasuredTextSize;
+
+    // Chart geometry for the current view model, indent and view size. It is rebuilt by
+    // ensureChartLayout() when invalidated, so that redraws for selection or hover changes only
+    // update paint colors and do not allocate.
+    private boolean mChartLayoutValid;
+    private float mAxisLabelBaselineY;
+    private float mVerticalDividerStartY;
+    private float mVerticalDividerBottomY;
+    private float mTrapezoidBottom;
+    private float[] mVerticalDividerXs;
+    private Rect[] mAxisLabelDisplayAreas;
+    // Display index of each axis label to draw, and whether a label is drawn at an index.
+    private boolean[] mAxisLabelsToDraw;
+    private boolean[] mLabelDrawnIndexes;
+    private Path[] mTrapezoidPaths;
+
     @VisibleForTesting
     TrapezoidSlot[] mTrapezoidSlots;
     // Records the location to calculate selected index.
@@ -136,9 +154,16 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         Log.d(TAG, String.format(
                 "setViewModel(): size: %d, selectedIndex: %d, getHighlightSlotIndex: %d",
                 viewModel.size(), viewModel.selectedIndex(), viewModel.getHighlightSlotIndex()));
+        if (mViewModel == viewModel) {
+            // Only the selected or highlighted slot changed, the geometry is still valid.
+            setClickable(hasAnyValidTrapezoid(viewModel));
+            invalidate();
+            return;
+        }
         mViewModel = viewModel;
         initializeAxisLabelsBounds();
         initializeTrapezoidSlots(viewModel.size() - 1);
+        mChartLayoutValid = false;
         setClickable(hasAnyValidTrapezoid(viewModel));
         requestLayout();
     }
@@ -164,6 +189,16 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
     @Override
     public void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        if (mTextPaint != null && mTextPaint == mMeasuredTextPaint
+                && mTextPaint.getTextSize() == mMeasuredTextSize
+                && mViewModel == mMeasuredViewModel) {
+            // Text bounds of the current labels are already measured.
+            return;
+        }
+        mMeasuredTextPaint = mTextPaint;
+        mMeasuredTextSize = mTextPaint != null ? mTextPaint.getTextSize() : 0f;
+        mMeasuredViewModel = mViewModel;
+        mChartLayoutValid = false;
         // Measures text bounds and updates indent configuration.
         if (mTextPaint != null) {
             mTextPaint.setTextAlign(Paint.Align.LEFT);
@@ -196,9 +231,16 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         }
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mChartLayoutValid = false;
+    }
+
     @Override
     public void draw(Canvas canvas) {
         super.draw(canvas);
+        ensureChartLayout();
         // Before mLevels initialized, the count of trapezoids is unknown. Only draws the
         // horizontal percentages and dividers.
         drawHorizontalDividers(canvas);
@@ -388,20 +430,39 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         mTransomIcon = getResources().getDrawable(R.drawable.ic_battery_tips_warning_icon);
     }
 
-    private void drawHorizontalDividers(Canvas canvas) {
-        final int width = getWidth() - abs(mIndent.width());
+    /** Rebuilds the cached chart geometry if the view model, indent or view size changed. */
+    private void ensureChartLayout() {
+        if (mChartLayoutValid) {
+            return;
+        }
+        mChartLayoutValid = true;
+        layoutHorizontalDividers();
+        if (mViewModel == null) {
+            return;
+        }
+        layoutVerticalDividers();
+        layoutTrapezoids();
+    }
+
+    private void layoutHorizontalDividers() {
         final int height = getHeight() - mIndent.top - mIndent.bottom;
         final float topOffsetY = mIndent.top + mDividerWidth * .5f;
         final float bottomOffsetY = mIndent.top + (height - mDividerHeight - mDividerWidth * .5f);
         final float availableSpace = bottomOffsetY - topOffsetY;
-
-        mDividerPaint.setColor(DIVIDER_COLOR);
         final float dividerOffsetUnit =
                 availableSpace / (float) (HORIZONTAL_DIVIDER_COUNT - 1);
+        for (int index = 0; index < HORIZONTAL_DIVIDER_COUNT; index++) {
+            mHorizontalDividerYs[index] = topOffsetY + dividerOffsetUnit * index;
+        }
+    }
+
+    private void drawHorizontalDividers(Canvas canvas) {
+        final int width = getWidth() - abs(mIndent.width());
+        mDividerPaint.setColor(DIVIDER_COLOR);
 
         // Draws 5 divider lines.
         for (int index = 0; index < HORIZONTAL_DIVIDER_COUNT; index++) {
-            float offsetY = topOffsetY + dividerOffsetUnit * index;
+            final float offsetY = mHorizontalDividerYs[index];
             canvas.drawLine(mIndent.left, offsetY,
                     mIndent.left + width, offsetY, mDividerPaint);
 
@@ -424,53 +485,44 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         }
     }
 
-    private void drawVerticalDividers(Canvas canvas) {
+    private void layoutVerticalDividers() {
         final int width = getWidth() - abs(mIndent.width());
         final int dividerCount = mTrapezoidSlots.length + 1;
         final float dividerSpace = dividerCount * mDividerWidth;
         final float unitWidth = (width - dividerSpace) / (float) mTrapezoidSlots.length;
-        final float bottomY = getHeight() - mIndent.bottom;
-        final float startY = bottomY - mDividerHeight;
         final float trapezoidSlotOffset = mTrapezoidHOffset + mDividerWidth * .5f;
-        // Draws the axis label slot information.
-        if (mViewModel != null) {
-            final float baselineY = getHeight() - mTextPadding;
-            Rect[] axisLabelDisplayAreas;
-            switch (mViewModel.axisLabelPosition()) {
-                case CENTER_OF_TRAPEZOIDS:
-                    axisLabelDisplayAreas = getAxisLabelDisplayAreas(
-                            /* size= */ mViewModel.size() - 1,
-                            /* baselineX= */ mIndent.left + mDividerWidth + unitWidth * .5f,
-                            /* offsetX= */ mDividerWidth + unitWidth,
-                            baselineY,
-                            /* shiftFirstAndLast= */ false);
-                    break;
-                case BETWEEN_TRAPEZOIDS:
-                default:
-                    axisLabelDisplayAreas = getAxisLabelDisplayAreas(
-                            /* size= */ mViewModel.size(),
-                            /* baselineX= */ mIndent.left + mDividerWidth * .5f,
-                            /* offsetX= */ mDividerWidth + unitWidth,
-                            baselineY,
-                            /* shiftFirstAndLast= */ true);
-                    break;
-            }
-            drawAxisLabels(canvas, axisLabelDisplayAreas, baselineY);
+        mVerticalDividerBottomY = getHeight() - mIndent.bottom;
+        mVerticalDividerStartY = mVerticalDividerBottomY - mDividerHeight;
+        // Lays out the axis label slot information.
+        mAxisLabelBaselineY = getHeight() - mTextPadding;
+        switch (mViewModel.axisLabelPosition()) {
+            case CENTER_OF_TRAPEZOIDS:
+                layoutAxisLabelDisplayAreas(
+                        /* size= */ mViewModel.size() - 1,
+                        /* baselineX= */ mIndent.left + mDividerWidth + unitWidth * .5f,
+                        /* offsetX= */ mDividerWidth + unitWidth,
+                        mAxisLabelBaselineY,
+                        /* shiftFirstAndLast= */ false);
+                break;
+            case BETWEEN_TRAPEZOIDS:
+            default:
+                layoutAxisLabelDisplayAreas(
+                        /* size= */ mViewModel.size(),
+                        /* baselineX= */ mIndent.left + mDividerWidth * .5f,
+                        /* offsetX= */ mDividerWidth + unitWidth,
+                        mAxisLabelBaselineY,
+                        /* shiftFirstAndLast= */ true);
+                break;
+        }
+        layoutAxisLabels();
+        // Lays out each vertical divider and the trapezoid slots between them.
+        if (mVerticalDividerXs == null || mVerticalDividerXs.length != dividerCount) {
+            mVerticalDividerXs = new float[dividerCount];
         }
-        // Draws each vertical dividers.
         float startX = mDividerWidth * .5f + mIndent.left;
         for (int index = 0; index < dividerCount; index++) {
-            float dividerY = bottomY;
-            if (mViewModel.axisLabelPosition() == BETWEEN_TRAPEZOIDS
-                    && mLabelDrawnIndexes.contains(index)) {
-                mDividerPaint.setColor(mTrapezoidSolidColor);
-                dividerY += mDividerHeight / 4f;
-            } else {
-                mDividerPaint.setColor(DIVIDER_COLOR);
-            }
-            canvas.drawLine(startX, startY, startX, dividerY, mDividerPaint);
+            mVerticalDividerXs[index] = startX;
             final float nextX = startX + mDividerWidth + unitWidth;
-            // Updates the trapezoid slots for drawing.
             if (index < mTrapezoidSlots.length) {
                 final int trapezoidIndex = isRTL() ? mTrapezoidSlots.length - index - 1 : index;
                 mTrapezoidSlots[trapezoidIndex].mLeft = round(startX + trapezoidSlotOffset);
@@ -480,11 +532,35 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         }
     }
 
-    /** Gets all the axis label texts displaying area positions if they are shown. */
-    private Rect[] getAxisLabelDisplayAreas(final int size, final float baselineX,
+    private void drawVerticalDividers(Canvas canvas) {
+        if (mTextPaint != null) {
+            drawAxisLabels(canvas);
+        }
+        // Draws each vertical dividers.
+        for (int index = 0; index < mVerticalDividerXs.length; index++) {
+            float dividerY = mVerticalDividerBottomY;
+            if (mViewModel.axisLabelPosition() == BETWEEN_TRAPEZOIDS
+                    && isLabelDrawn(index)) {
+                mDividerPaint.setColor(mTrapezoidSolidColor);
+                dividerY += mDividerHeight / 4f;
+            } else {
+                mDividerPaint.setColor(DIVIDER_COLOR);
+            }
+            final float x = mVerticalDividerXs[index];
+            canvas.drawLine(x, mVerticalDividerStartY, x, dividerY, mDividerPaint);
+        }
+    }
+
+    /** Lays out all the axis label texts displaying area positions if they are shown. */
+    private void layoutAxisLabelDisplayAreas(final int size, final float baselineX,
             final float offsetX, final float baselineY, final boolean shiftFirstAndLast) {
-        final Rect[] result = new Rect[size];
-        for (int index = 0; index < result.length; index++) {
+        if (mAxisLabelDisplayAreas == null || mAxisLabelDisplayAreas.length != size) {
+            mAxisLabelDisplayAreas = new Rect[size];
+            for (int index = 0; index < size; index++) {
+                mAxisLabelDisplayAreas[index] = new Rect();
+            }
+        }
+        for (int index = 0; index < size; index++) {
             final float width = mAxisLabelsBounds.get(index).width();
             float middle = baselineX + index * offsetX;
             if (shiftFirstAndLast) {
@@ -499,125 +575,123 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
             final float right = left + width;
             final float top = baselineY + mAxisLabelsBounds.get(index).top;
             final float bottom = top + mAxisLabelsBounds.get(index).height();
-            result[index] = new Rect(round(left), round(top), round(right), round(bottom));
+            mAxisLabelDisplayAreas[index].set(
+                    round(left), round(top), round(right), round(bottom));
         }
-        return result;
     }
 
-    private void drawAxisLabels(Canvas canvas, final Rect[] displayAreas, final float baselineY) {
-        final int lastIndex = displayAreas.length - 1;
-        mLabelDrawnIndexes.clear();
+    /** Decides which axis labels can be drawn without overlapping each other. */
+    private void layoutAxisLabels() {
+        final int size = mAxisLabelDisplayAreas.length;
+        final int lastIndex = size - 1;
+        mAxisLabelsToDraw = new boolean[size];
+        mLabelDrawnIndexes = new boolean[mViewModel.size()];
         // Suppose first and last labels are always able to draw.
-        drawAxisLabelText(canvas, 0, displayAreas[0], baselineY);
-        mLabelDrawnIndexes.add(0);
-        drawAxisLabelText(canvas, lastIndex, displayAreas[lastIndex], baselineY);
-        mLabelDrawnIndexes.add(lastIndex);
-        drawAxisLabelsBetweenStartIndexAndEndIndex(canvas, displayAreas, 0, lastIndex, baselineY);
+        markAxisLabel(0);
+        markAxisLabel(lastIndex);
+        layoutAxisLabelsBetweenStartIndexAndEndIndex(0, lastIndex);
     }
 
     /**
-     * Recursively draws axis labels between the start index and the end index. If the inner number
-     * can be exactly divided into 2 parts, check and draw the middle index label and then
-     * recursively draw the 2 parts. Otherwise, divide into 3 parts. Check and draw the middle two
-     * labels and then recursively draw the 3 parts. If there are any overlaps, skip drawing and go
-     * back to the uplevel of the recursion.
+     * Recursively lays out axis labels between the start index and the end index. If the inner
+     * number can be exactly divided into 2 parts, check and mark the middle index label and then
+     * recursively lay out the 2 parts. Otherwise, divide into 3 parts. Check and mark the middle
+     * two labels and then recursively lay out the 3 parts. If there are any overlaps, skip drawing
+     * and go back to the uplevel of the recursion.
      */
-    private void drawAxisLabelsBetweenStartIndexAndEndIndex(Canvas canvas,
-            final Rect[] displayAreas, final int startIndex, final int endIndex,
-            final float baselineY) {
+    private void layoutAxisLabelsBetweenStartIndexAndEndIndex(
+            final int startIndex, final int endIndex) {
         if (endIndex - startIndex <= 1) {
             return;
         }
         if ((endIndex - startIndex) % 2 == 0) {
             int middleIndex = (startIndex + endIndex) / 2;
-            if (hasOverlap(displayAreas, startIndex, middleIndex)
-                    || hasOverlap(displayAreas, middleIndex, endIndex)) {
+            if (hasOverlap(startIndex, middleIndex) || hasOverlap(middleIndex, endIndex)) {
                 return;
             }
-            drawAxisLabelText(canvas, middleIndex, displayAreas[middleIndex], baselineY);
-            mLabelDrawnIndexes.add(middleIndex);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, startIndex, middleIndex, baselineY);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, middleIndex, endIndex, baselineY);
+            markAxisLabel(middleIndex);
+            layoutAxisLabelsBetweenStartIndexAndEndIndex(startIndex, middleIndex);
+            layoutAxisLabelsBetweenStartIndexAndEndIndex(middleIndex, endIndex);
         } else {
             int middleIndex1 = startIndex + round((endIndex - startIndex) / 3f);
             int middleIndex2 = startIndex + round((endIndex - startIndex) * 2 / 3f);
-            if (hasOverlap(displayAreas, startIndex, middleIndex1)
-                    || hasOverlap(displayAreas, middleIndex1, middleIndex2)
-                    || hasOverlap(displayAreas, middleIndex2, endIndex)) {
+            if (hasOverlap(startIndex, middleIndex1)
+                    || hasOverlap(middleIndex1, middleIndex2)
+                    || hasOverlap(middleIndex2, endIndex)) {
                 return;
             }
-            drawAxisLabelText(canvas, middleIndex1, displayAreas[middleIndex1], baselineY);
-            mLabelDrawnIndexes.add(middleIndex1);
-            drawAxisLabelText(canvas, middleIndex2, displayAreas[middleIndex2], baselineY);
-            mLabelDrawnIndexes.add(middleIndex2);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, startIndex, middleIndex1, baselineY);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, middleIndex1, middleIndex2, baselineY);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, middleIndex2, endIndex, baselineY);
+            markAxisLabel(middleIndex1);
+            markAxisLabel(middleIndex2);
+            layoutAxisLabelsBetweenStartIndexAndEndIndex(startIndex, middleIndex1);
+            layoutAxisLabelsBetweenStartIndexAndEndIndex(middleIndex1, middleIndex2);
+            layoutAxisLabelsBetweenStartIndexAndEndIndex(middleIndex2, endIndex);
         }
     }
 
-    private boolean hasOverlap(
-            final Rect[] displayAreas, final int leftIndex, final int rightIndex) {
-        return displayAreas[leftIndex].right + mTextPadding * 2.3f > displayAreas[rightIndex].left;
+    private void markAxisLabel(int index) {
+        mAxisLabelsToDraw[index] = true;
+        mLabelDrawnIndexes[index] = true;
+        mLabelDrawnIndexes[getAxisLabelTextIndex(index)] = true;
+    }
+
+    private boolean isLabelDrawn(int index) {
+        return mLabelDrawnIndexes != null && index < mLabelDrawnIndexes.length
+                && mLabelDrawnIndexes[index];
+    }
+
+    private boolean hasOverlap(final int leftIndex, final int rightIndex) {
+        return mAxisLabelDisplayAreas[leftIndex].right + mTextPadding * 2.3f
+                > mAxisLabelDisplayAreas[rightIndex].left;
     }
 
     private boolean isRTL() {
         return mLayoutDirection == View.LAYOUT_DIRECTION_RTL;
     }
 
-    private void drawAxisLabelText(
-            Canvas canvas, int index, final Rect displayArea, final float baselineY) {
+    private void drawAxisLabels(Canvas canvas) {
         mTextPaint.setColor(mTrapezoidSolidColor);
         mTextPaint.setTextAlign(Paint.Align.CENTER);
+        for (int index = 0; index < mAxisLabelsToDraw.length; index++) {
+            if (mAxisLabelsToDraw[index]) {
+                canvas.drawText(
+                        mViewModel.getText(getAxisLabelTextIndex(index)),
+                        mAxisLabelDisplayAreas[index].centerX(),
+                        mAxisLabelBaselineY,
+                        mTextPaint);
+            }
+        }
+    }
+
+    /** Returns the index of the label text shown at display {@code index}. */
+    private int getAxisLabelTextIndex(int index) {
         // Reverse the sort of axis labels for RTL
         if (isRTL()) {
-            index = mViewModel.axisLabelPosition() == BETWEEN_TRAPEZOIDS
-                            ? mViewModel.size() - index - 1     // for hourly
-                            : mViewModel.size() - index - 2;    // for daily
+            return mViewModel.axisLabelPosition() == BETWEEN_TRAPEZOIDS
+                    ? mViewModel.size() - index - 1     // for hourly
+                    : mViewModel.size() - index - 2;    // for daily
         }
-        canvas.drawText(
-                mViewModel.getText(index),
-                displayArea.centerX(),
-                baselineY,
-                mTextPaint);
-        mLabelDrawnIndexes.add(index);
+        return index;
     }
 
-    private void drawTrapezoids(Canvas canvas) {
-        // Ignores invalid trapezoid data.
-        if (mViewModel == null) {
-            return;
-        }
-        final float trapezoidBottom =
+    private void layoutTrapezoids() {
+        mTrapezoidBottom =
                 getHeight() - mIndent.bottom - mDividerHeight - mDividerWidth
                         - mTrapezoidVOffset;
         final float availableSpace =
-                trapezoidBottom - mDividerWidth * .5f - mIndent.top - mTrapezoidVOffset;
+                mTrapezoidBottom - mDividerWidth * .5f - mIndent.top - mTrapezoidVOffset;
         final float unitHeight = availableSpace / 100f;
-        // Draws all trapezoid shapes into the canvas.
-        final Path trapezoidPath = new Path();
-        Path trapezoidCurvePath = null;
+        if (mTrapezoidPaths == null || mTrapezoidPaths.length != mTrapezoidSlots.length) {
+            mTrapezoidPaths = new Path[mTrapezoidSlots.length];
+        }
         for (int index = 0; index < mTrapezoidSlots.length; index++) {
             // Not draws the trapezoid for corner or not initialization cases.
             if (!isValidToDraw(mViewModel, index)) {
+                mTrapezoidPaths[index] = null;
                 continue;
             }
-            // Configures the trapezoid paint color.
-            final int trapezoidColor = (mViewModel.selectedIndex() == index
-                    || mViewModel.selectedIndex() == BatteryChartViewModel.SELECTED_INDEX_ALL)
-                    ? mTrapezoidSolidColor : mTrapezoidColor;
-            final boolean isHoverState = mHoveredIndex == index && isValidToDraw(mViewModel,
-                    mHoveredIndex);
-            mTrapezoidPaint.setColor(isHoverState ? mTrapezoidHoverColor : trapezoidColor);
-
             float leftTop = round(
-                    trapezoidBottom - requireNonNull(mViewModel.getLevel(index)) * unitHeight);
-            float rightTop = round(trapezoidBottom
+                    mTrapezoidBottom - requireNonNull(mViewModel.getLevel(index)) * unitHeight);
+            float rightTop = round(mTrapezoidBottom
                     - requireNonNull(mViewModel.getLevel(index + 1)) * unitHeight);
             // Mirror the shape of the trapezoid for RTL
             if (isRTL()) {
@@ -625,14 +699,41 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
                 leftTop = rightTop;
                 rightTop = temp;
             }
+            Path trapezoidPath = mTrapezoidPaths[index];
+            if (trapezoidPath == null) {
+                trapezoidPath = new Path();
+                mTrapezoidPaths[index] = trapezoidPath;
+            }
+            final TrapezoidSlot slot = mTrapezoidSlots[index];
             trapezoidPath.reset();
-            trapezoidPath.moveTo(mTrapezoidSlots[index].mLeft, trapezoidBottom);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, leftTop);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mRight, rightTop);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mRight, trapezoidBottom);
+            trapezoidPath.moveTo(slot.mLeft, mTrapezoidBottom);
+            trapezoidPath.lineTo(slot.mLeft, leftTop);
+            trapezoidPath.lineTo(slot.mRight, rightTop);
+            trapezoidPath.lineTo(slot.mRight, mTrapezoidBottom);
             // A tricky way to make the trapezoid shape drawing the rounded corner.
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, trapezoidBottom);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, leftTop);
+            trapezoidPath.lineTo(slot.mLeft, mTrapezoidBottom);
+            trapezoidPath.lineTo(slot.mLeft, leftTop);
+        }
+    }
+
+    private void drawTrapezoids(Canvas canvas) {
+        // Ignores invalid trapezoid data.
+        if (mViewModel == null) {
+            return;
+        }
+        // Draws all trapezoid shapes into the canvas.
+        for (int index = 0; index < mTrapezoidPaths.length; index++) {
+            final Path trapezoidPath = mTrapezoidPaths[index];
+            if (trapezoidPath == null) {
+                continue;
+            }
+            // Configures the trapezoid paint color.
+            final int trapezoidColor = (mViewModel.selectedIndex() == index
+                    || mViewModel.selectedIndex() == BatteryChartViewModel.SELECTED_INDEX_ALL)
+                    ? mTrapezoidSolidColor : mTrapezoidColor;
+            final boolean isHoverState = mHoveredIndex == index && isValidToDraw(mViewModel,
+                    mHoveredIndex);
+            mTrapezoidPaint.setColor(isHoverState ? mTrapezoidHoverColor : trapezoidColor);
             // Draws the trapezoid shape into canvas.
             canvas.drawPath(trapezoidPath, mTrapezoidPaint);
         }
@@ -652,8 +753,6 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         mTransomLinePaint.setColor(mTransomLineDefaultColor);
         final int width = getWidth() - abs(mIndent.width());
         final float transomOffset = mTrapezoidHOffset + mDividerWidth * .5f + mTransomPadding;
-        final float trapezoidBottom = getHeight() - mIndent.bottom - mDividerHeight - mDividerWidth
-                - mTrapezoidVOffset;
         canvas.drawLine(mIndent.left + transomOffset, mTransomTop,
                 mIndent.left + width - transomOffset, mTransomTop,
                 mTransomLinePaint);
@@ -666,7 +765,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         canvas.drawLine(startX + mTransomPadding, mTransomTop,
                 endX - mTransomPadding, mTransomTop,
                 mTransomLinePaint);
-        canvas.drawRect(startX, mTransomTop, endX, trapezoidBottom,
+        canvas.drawRect(startX, mTransomTop, endX, mTrapezoidBottom,
                 mTransomSelectedSlotPaint);
     }
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Array backed copy of a battery history map for the hourly diff pipeline.
+ *
+ * <p>Timestamps are kept in a sorted {@code long[]} and every entry key is interned once into a
+ * compact int id, so each timestamp becomes a row of entries indexed by id. Diffing a slot then
+ * walks plain arrays instead of building key sets and per key lists and hashing string keys for
+ * every hourly slot.
+ */
+final class BatteryHistTable {
+
+    private final long[] mTimestamps;
+    private final BatteryHistEntry[][] mRows;
+    private final int[] mRowSizes;
+    private final int mKeyCount;
+
+    BatteryHistTable(final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
+        final int rowCount = batteryHistoryMap.size();
+        mTimestamps = new long[rowCount];
+        int index = 0;
+        for (Long timestamp : batteryHistoryMap.keySet()) {
+            mTimestamps[index++] = timestamp;
+        }
+        Arrays.sort(mTimestamps);
+
+        final Map<String, Integer> keyIds = new HashMap<>();
+        for (Map<String, BatteryHistEntry> entryMap : batteryHistoryMap.values()) {
+            if (entryMap == null) {
+                continue;
+            }
+            for (String key : entryMap.keySet()) {
+                if (key != null && !keyIds.containsKey(key)) {
+                    keyIds.put(key, keyIds.size());
+                }
+            }
+        }
+        mKeyCount = keyIds.size();
+
+        mRows = new BatteryHistEntry[rowCount][];
+        mRowSizes = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            final Map<String, BatteryHistEntry> entryMap =
+                    batteryHistoryMap.get(mTimestamps[row]);
+            mRows[row] = new BatteryHistEntry[mKeyCount];
+            if (entryMap == null) {
+                continue;
+            }
+            mRowSizes[row] = entryMap.size();
+            for (Map.Entry<String, BatteryHistEntry> entry : entryMap.entrySet()) {
+                if (entry.getKey() != null) {
+                    mRows[row][keyIds.get(entry.getKey())] = entry.getValue();
+                }
+            }
+        }
+    }
+
+    /** Returns the number of distinct entry keys, i.e. the number of columns of every row. */
+    int getKeyCount() {
+        return mKeyCount;
+    }
+
+    /** Returns the row of {@code timestamp}, or -1 if there is no data at that time. */
+    int getRow(final long timestamp) {
+        final int row = Arrays.binarySearch(mTimestamps, timestamp);
+        return row >= 0 ? row : -1;
+    }
+
+    /** Returns whether {@code row} holds no entries at all, which includes a missing row. */
+    boolean isEmptyRow(final int row) {
+        return row < 0 || mRowSizes[row] == 0;
+    }
+
+    /** Returns the entry of {@code keyId} in {@code row}, or null if there is none. */
+    @Nullable
+    BatteryHistEntry get(final int row, final int keyId) {
+        return row < 0 ? null : mRows[row][keyId];
+    }
+}
@@ -186,6 +186,59 @@ public class BatteryUsageContentProvider extends ContentProvider {
         return uri;
     }
 
+    /**
+     * Inserts all {@code values} in a single transaction. The rows are converted first and then
+     * handed to one {@code insertAll} call, which binds every row to the same prepared statement
+     * instead of opening a transaction per row as the default {@link #insert} loop would.
+     */
+    @Override
+    public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
+        final long timestamp = mClock.millis();
+        try {
+            switch (sUriMatcher.match(uri)) {
+                case BATTERY_STATE_CODE:
+                    final List<BatteryState> states = new ArrayList<>(values.length);
+                    for (ContentValues contentValues : values) {
+                        states.add(BatteryState.create(contentValues));
+                    }
+                    mBatteryStateDao.insertAll(states);
+                    break;
+                case APP_USAGE_EVENT_CODE:
+                    final List<AppUsageEventEntity> events = new ArrayList<>(values.length);
+                    for (ContentValues contentValues : values) {
+                        events.add(AppUsageEventEntity.create(contentValues));
+                    }
+                    mAppUsageEventDao.insertAll(events);
+                    break;
+                case BATTERY_EVENT_CODE:
+                    final List<BatteryEventEntity> batteryEvents = new ArrayList<>(values.length);
+                    for (ContentValues contentValues : values) {
+                        batteryEvents.add(BatteryEventEntity.create(contentValues));
+                    }
+                    mBatteryEventDao.insertAll(batteryEvents);
+                    break;
+                case BATTERY_USAGE_SLOT_CODE:
+                    final List<BatteryUsageSlotEntity> slots = new ArrayList<>(values.length);
+                    for (ContentValues contentValues : values) {
+                        slots.add(BatteryUsageSlotEntity.create(contentValues));
+                    }
+                    mBatteryUsageSlotDao.insertAll(slots);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown URI: " + uri);
+            }
+        } catch (RuntimeException e) {
+            if (e instanceof IllegalArgumentException) {
+                throw e;
+            }
+            Log.e(TAG, "bulkInsert() from:" + uri + " error:", e);
+            return 0;
+        }
+        Log.d(TAG, String.format("bulkInsert() %d rows in %d/ms",
+                values.length, mClock.millis() - timestamp));
+        return values.length;
+    }
+
     @Override
     public int delete(@NonNull Uri uri, @Nullable String s, @Nullable String[] strings) {
         throw new UnsupportedOperationException("unsupported!");
@@ -18,20 +18,26 @@ package com.android.settings.fuelgauge.batteryusage;
 
 import android.app.usage.UsageEvents;
 import android.content.Context;
-import android.os.AsyncTask;
 import android.os.BatteryUsageStats;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Process;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.fuelgauge.BatteryUsageHistoricalLogEntry.Action;
 import com.android.settings.fuelgauge.batteryusage.bugreport.BatteryUsageLogUtils;
 import com.android.settings.overlay.FeatureFactory;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 /** Load battery usage data in the background. */
@@ -45,14 +51,57 @@ public final class BatteryUsageDataLoader {
     static Supplier<Map<Long, UsageEvents>> sFakeAppUsageEventsSupplier;
     @VisibleForTesting
     static Supplier<List<AppUsageEvent>> sFakeUsageEventsListSupplier;
+    @VisibleForTesting
+    static Supplier<BatteryLevelData> sFakeBatteryLevelDataSupplier;
+    @VisibleForTesting
+    static Clock sClock = Clock.systemUTC();
+    @VisibleForTesting
+    static Executor sExecutor;
+
+    /**
+     * Runtime budget of a capture. Slot preprocessing is left to the next capture once it is
+     * exceeded, which picks up from the last processed slot.
+     */
+    @VisibleForTesting
+    static final long MAX_CAPTURE_DURATION_MS = Duration.ofSeconds(30).toMillis();
+
+    private static final AtomicBoolean sPeriodicCapturePending = new AtomicBoolean();
 
     private BatteryUsageDataLoader() {
     }
 
     static void enqueueWork(final Context context, final boolean isFullChargeStart) {
-        AsyncTask.execute(() -> {
-            Log.d(TAG, "loadUsageDataSafely() in the AsyncTask");
-            loadUsageDataSafely(context.getApplicationContext(), isFullChargeStart);
+        enqueueWork(context, isFullChargeStart, /*onFinished=*/ null);
+    }
+
+    /**
+     * Queues a capture on the serial, background priority loader thread, and runs
+     * {@code onFinished} once it is done.
+     *
+     * <p>A periodic capture requested while another one is still queued is coalesced into it:
+     * the queued capture loads everything since the last checkpoint, so it also covers the
+     * missed slots in one pass.
+     */
+    static void enqueueWork(final Context context, final boolean isFullChargeStart,
+            @Nullable final Runnable onFinished) {
+        if (!isFullChargeStart && !sPeriodicCapturePending.compareAndSet(false, true)) {
+            Log.d(TAG, "coalesce periodic capture into the queued one");
+            if (onFinished != null) {
+                onFinished.run();
+            }
+            return;
+        }
+        getExecutor().execute(() -> {
+            if (!isFullChargeStart) {
+                sPeriodicCapturePending.set(false);
+            }
+            try {
+                loadUsageDataSafely(context.getApplicationContext(), isFullChargeStart);
+            } finally {
+                if (onFinished != null) {
+                    onFinished.run();
+                }
+            }
         });
     }
 
@@ -95,27 +144,33 @@ public final class BatteryUsageDataLoader {
             Log.w(TAG, "loadAppUsageData() returns null");
             return;
         }
-        final List<AppUsageEvent> appUsageEventList =
-                sFakeUsageEventsListSupplier != null
-                        ? sFakeUsageEventsListSupplier.get()
-                        : DataProcessor.generateAppUsageEventListFromUsageEvents(
-                                context, appUsageEvents);
-        if (appUsageEventList == null || appUsageEventList.isEmpty()) {
+        if (sFakeUsageEventsListSupplier != null) {
+            final List<AppUsageEvent> appUsageEventList = sFakeUsageEventsListSupplier.get();
+            if (appUsageEventList == null || appUsageEventList.isEmpty()) {
+                Log.w(TAG, "loadAppUsageData() returns null or empty content");
+                return;
+            }
+            DatabaseUtils.sendAppUsageEventData(context, appUsageEventList);
+            return;
+        }
+        // Uploads the AppUsageEvent data into database in batches while reading it, instead of
+        // holding every event since the last checkpoint in memory. A failed batch stops the
+        // upload, so the next capture reads it again.
+        final long size = DataProcessor.ingestAppUsageEvents(context, appUsageEvents,
+                batch -> DatabaseUtils.sendAppUsageEventBatch(context, batch));
+        if (size == 0) {
             Log.w(TAG, "loadAppUsageData() returns null or empty content");
             return;
         }
+        DatabaseUtils.notifyAppUsageEventDataChanged(context);
         final long elapsedTime = System.currentTimeMillis() - start;
-        Log.d(TAG, String.format("loadAppUsageData() size=%d in %d/ms", appUsageEventList.size(),
-                elapsedTime));
-        // Uploads the AppUsageEvent data into database.
-        DatabaseUtils.sendAppUsageEventData(context, appUsageEventList);
+        Log.d(TAG, String.format("loadAppUsageData() size=%d in %d/ms", size, elapsedTime));
     }
 
     private static void preprocessBatteryUsageSlots(final Context context) {
         final long start = System.currentTimeMillis();
         final Handler handler = new Handler(Looper.getMainLooper());
-        final BatteryLevelData batteryLevelData = DataProcessManager.getBatteryLevelData(
-                context, handler, /*isFromPeriodJob=*/ true,
+        final DataProcessManager.OnBatteryDiffDataMapLoadedListener listener =
                 batteryDiffDataMap -> {
                     DatabaseUtils.sendBatteryUsageSlotData(context,
                             ConvertUtils.convertToBatteryUsageSlotList(batteryDiffDataMap));
@@ -125,7 +180,11 @@ public final class BatteryUsageDataLoader {
                         FeatureFactory.getFactory(context).getPowerUsageFeatureProvider(context)
                                 .detectSettingsAnomaly(context, /* displayDrain= */ 0);
                     }
-                });
+                };
+        final BatteryLevelData batteryLevelData = sFakeBatteryLevelDataSupplier != null
+                ? sFakeBatteryLevelDataSupplier.get()
+                : DataProcessManager.getBatteryLevelData(
+                        context, handler, /*isFromPeriodJob=*/ true, listener);
         if (batteryLevelData == null) {
             Log.d(TAG, "preprocessBatteryUsageSlots() no new battery usage data.");
             return;
@@ -141,17 +200,36 @@ public final class BatteryUsageDataLoader {
     private static void loadUsageDataSafely(
             final Context context, final boolean isFullChargeStart) {
         try {
-            final long start = System.currentTimeMillis();
+            final long start = sClock.millis();
+            boolean isSlotsDeferred = false;
             loadBatteryStatsData(context, isFullChargeStart);
             if (!isFullChargeStart) {
                 // No app usage data or battery diff data at this time.
                 loadAppUsageData(context);
-                preprocessBatteryUsageSlots(context);
+                if (sClock.millis() - start < MAX_CAPTURE_DURATION_MS) {
+                    preprocessBatteryUsageSlots(context);
+                } else {
+                    isSlotsDeferred = true;
+                    Log.w(TAG, "defer preprocessBatteryUsageSlots() to the next capture");
+                }
             }
-            Log.d(TAG, String.format(
-                    "loadUsageDataSafely() in %d/ms", System.currentTimeMillis() - start));
+            final String description = String.format(
+                    "capture isFullChargeStart=%b isSlotsDeferred=%b in %d/ms",
+                    isFullChargeStart, isSlotsDeferred, sClock.millis() - start);
+            BatteryUsageLogUtils.writeLog(context, Action.EXECUTE_JOB, description);
+            Log.d(TAG, "loadUsageDataSafely() " + description);
         } catch (RuntimeException e) {
             Log.e(TAG, "loadUsageData:", e);
         }
     }
+
+    private static synchronized Executor getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, TAG));
+        }
+        return sExecutor;
+    }
 }
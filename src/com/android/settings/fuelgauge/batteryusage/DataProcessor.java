@@ -62,6 +62,7 @@ import com.google.common.base.Preconditions;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -69,6 +70,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -85,7 +87,6 @@ public final class DataProcessor {
     private static final int MAX_DIFF_SECONDS_OF_UPPER_TIMESTAMP = 5;
     private static final String MEDIASERVER_PACKAGE_NAME = "mediaserver";
     private static final String ANDROID_CORE_APPS_SHARED_USER_ID = "android.uid.shared";
-    private static final Map<String, BatteryHistEntry> EMPTY_BATTERY_MAP = new ArrayMap<>();
     private static final BatteryHistEntry EMPTY_BATTERY_HIST_ENTRY =
             new BatteryHistEntry(new ContentValues());
 
@@ -93,6 +94,10 @@ public final class DataProcessor {
     static final long DEFAULT_USAGE_DURATION_FOR_INCOMPLETE_INTERVAL =
             DateUtils.SECOND_IN_MILLIS * 30;
 
+    /** Maximum number of {@link AppUsageEvent} held in memory while ingesting usage events. */
+    @VisibleForTesting
+    static final int APP_USAGE_EVENT_BATCH_SIZE = 500;
+
     @VisibleForTesting
     static final int SELECTED_INDEX_ALL = BatteryChartViewModel.SELECTED_INDEX_ALL;
 
@@ -323,16 +328,38 @@ public final class DataProcessor {
     public static List<AppUsageEvent> generateAppUsageEventListFromUsageEvents(
             Context context, Map<Long, UsageEvents> usageEventsMap) {
         final List<AppUsageEvent> appUsageEventList = new ArrayList<>();
+        ingestAppUsageEvents(context, usageEventsMap, appUsageEventList::addAll);
+        return appUsageEventList;
+    }
+
+    /**
+     * Reads the relevant {@link AppUsageEvent} from the supplied {@link UsageEvents} and hands
+     * them to {@code batchConsumer} in batches of at most {@link #APP_USAGE_EVENT_BATCH_SIZE}
+     * events, so callers that persist them never hold the full event list in memory.
+     *
+     * <p>Stops at the first batch {@code batchConsumer} fails to store, so that the events of a
+     * user are always stored in order and the next capture, which starts after the latest stored
+     * event of each user, reads the failed batch and the following ones again.
+     *
+     * @return the number of events stored by {@code batchConsumer}
+     */
+    public static long ingestAppUsageEvents(
+            Context context, Map<Long, UsageEvents> usageEventsMap,
+            Predicate<List<AppUsageEvent>> batchConsumer) {
+        List<AppUsageEvent> batch = new ArrayList<>();
         long numEventsFetched = 0;
+        long numEventsStored = 0;
         long numAllEventsFetched = 0;
+        boolean batchFailed = false;
         final Set<String> ignoreScreenOnTimeTaskRootSet =
                 FeatureFactory.getFactory(context)
                         .getPowerUsageFeatureProvider(context)
                         .getIgnoreScreenOnTimeTaskRootSet();
+        // The fields of the event are copied by the conversion, so one instance is reused.
+        final Event event = new Event();
         for (final long userId : usageEventsMap.keySet()) {
             final UsageEvents usageEvents = usageEventsMap.get(userId);
-            while (usageEvents.hasNextEvent()) {
-                final Event event = new Event();
+            while (!batchFailed && usageEvents.hasNextEvent()) {
                 usageEvents.getNextEvent(event);
                 numAllEventsFetched++;
                 switch (event.getEventType()) {
@@ -355,7 +382,14 @@ public final class DataProcessor {
                                         context, sUsageStatsManager, event, userId);
                         if (appUsageEvent != null) {
                             numEventsFetched++;
-                            appUsageEventList.add(appUsageEvent);
+                            batch.add(appUsageEvent);
+                            if (batch.size() >= APP_USAGE_EVENT_BATCH_SIZE) {
+                                batchFailed = !batchConsumer.test(batch);
+                                if (!batchFailed) {
+                                    numEventsStored += batch.size();
+                                }
+                                batch = new ArrayList<>();
+                            }
                         }
                         break;
                     default:
@@ -363,10 +397,19 @@ public final class DataProcessor {
                 }
             }
         }
+        if (!batchFailed && !batch.isEmpty()) {
+            batchFailed = !batchConsumer.test(batch);
+            if (!batchFailed) {
+                numEventsStored += batch.size();
+            }
+        }
+        if (batchFailed) {
+            Log.w(TAG, "Stop reading usage events after a batch failed to be stored");
+        }
         Log.w(TAG, String.format(
-                "Read %d relevant events (%d total) from UsageStatsManager", numEventsFetched,
-                numAllEventsFetched));
-        return appUsageEventList;
+                "Read %d relevant events (%d total) from UsageStatsManager, stored %d",
+                numEventsFetched, numAllEventsFetched, numEventsStored));
+        return numEventsStored;
     }
 
     /**
@@ -425,10 +468,14 @@ public final class DataProcessor {
             return resultMap;
         }
         Collections.sort(rawTimestampList);
+        final long[] rawTimestamps = new long[rawTimestampList.size()];
+        for (int index = 0; index < rawTimestamps.length; index++) {
+            rawTimestamps[index] = rawTimestampList.get(index);
+        }
         final long currentTime = getCurrentTimeMillis();
         final List<Long> expectedTimestampList = getTimestampSlots(rawTimestampList, currentTime);
         interpolateHistory(
-                context, rawTimestampList, expectedTimestampList, batteryHistoryMap, resultMap);
+                context, rawTimestamps, expectedTimestampList, batteryHistoryMap, resultMap);
         Log.d(TAG, String.format("getHistoryMapWithExpectedTimestamps() size=%d in %d/ms",
                 resultMap.size(), (System.currentTimeMillis() - startTime)));
         return resultMap;
@@ -512,6 +559,23 @@ public final class DataProcessor {
         return results;
     }
 
+    /**
+     * Same as {@link #findNearestTimestamp(List, long)} for timestamps sorted in ascending order,
+     * using a binary search instead of a scan over boxed values.
+     */
+    @VisibleForTesting
+    static long[] findNearestTimestamp(final long[] sortedTimestamps, final long target) {
+        final int index = Arrays.binarySearch(sortedTimestamps, target);
+        if (index >= 0) {
+            return new long[]{target, target};
+        }
+        final int insertionPoint = -index - 1;
+        // Uses zero value to represent invalid searching result.
+        return new long[]{
+                insertionPoint > 0 ? sortedTimestamps[insertionPoint - 1] : 0,
+                insertionPoint < sortedTimestamps.length ? sortedTimestamps[insertionPoint] : 0};
+    }
+
     static Map<Long, BatteryDiffData> getBatteryDiffDataMap(
             Context context,
             final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
@@ -526,6 +590,7 @@ public final class DataProcessor {
                 Utils.getManagedProfile(context.getSystemService(UserManager.class));
         final int workProfileUserId =
                 userHandle != null ? userHandle.getIdentifier() : Integer.MIN_VALUE;
+        final BatteryHistTable historyTable = new BatteryHistTable(batteryHistoryMap);
         // Each time slot usage diff data =
         //     sum(Math.abs(timestamp[i+1] data - timestamp[i] data));
         // since we want to aggregate every hour usage diff data into a single time slot.
@@ -543,16 +608,19 @@ public final class DataProcessor {
                 final int endBatteryLevel =
                         hourlyBatteryLevelsPerDay.get(dailyIndex).getLevels().get(hourlyIndex + 1);
                 final long slotDuration = endTimestamp - startTimestamp;
-                List<Map<String, BatteryHistEntry>> slotBatteryHistoryList = new ArrayList<>();
-                slotBatteryHistoryList.add(
-                        batteryHistoryMap.getOrDefault(startTimestamp, EMPTY_BATTERY_MAP));
-                for (Long timestamp = TimestampUtils.getNextHourTimestamp(startTimestamp);
-                        timestamp < endTimestamp; timestamp += DateUtils.HOUR_IN_MILLIS) {
-                    slotBatteryHistoryList.add(
-                            batteryHistoryMap.getOrDefault(timestamp, EMPTY_BATTERY_MAP));
+                final long firstHourTimestamp = TimestampUtils.getNextHourTimestamp(startTimestamp);
+                int hourCount = 0;
+                for (long timestamp = firstHourTimestamp; timestamp < endTimestamp;
+                        timestamp += DateUtils.HOUR_IN_MILLIS) {
+                    hourCount++;
+                }
+                final int[] slotRows = new int[hourCount + 2];
+                slotRows[0] = historyTable.getRow(startTimestamp);
+                for (int i = 0; i < hourCount; i++) {
+                    slotRows[i + 1] = historyTable.getRow(
+                            firstHourTimestamp + i * DateUtils.HOUR_IN_MILLIS);
                 }
-                slotBatteryHistoryList.add(
-                        batteryHistoryMap.getOrDefault(endTimestamp, EMPTY_BATTERY_MAP));
+                slotRows[hourCount + 1] = historyTable.getRow(endTimestamp);
 
                 final BatteryDiffData hourlyBatteryDiffData =
                         insertHourlyUsageDiffDataPerSlot(
@@ -570,7 +638,8 @@ public final class DataProcessor {
                                         || appUsagePeriodMap.get(dailyIndex) == null
                                         ? null
                                         : appUsagePeriodMap.get(dailyIndex).get(hourlyIndex),
-                                slotBatteryHistoryList);
+                                historyTable,
+                                slotRows);
                 batteryDiffDataMap.put(startTimestamp, hourlyBatteryDiffData);
             }
         }
@@ -1078,11 +1147,11 @@ public final class DataProcessor {
      */
     private static void interpolateHistory(
             Context context,
-            final List<Long> rawTimestampList,
+            final long[] rawTimestamps,
             final List<Long> expectedTimestampSlots,
             final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
             final Map<Long, Map<String, BatteryHistEntry>> resultMap) {
-        if (rawTimestampList.isEmpty() || expectedTimestampSlots.isEmpty()) {
+        if (rawTimestamps.length == 0 || expectedTimestampSlots.isEmpty()) {
             return;
         }
         final int expectedTimestampSlotsSize = expectedTimestampSlots.size();
@@ -1091,7 +1160,7 @@ public final class DataProcessor {
 
         resultMap.put(startTimestamp, batteryHistoryMap.get(startTimestamp));
         for (int index = 1; index < expectedTimestampSlotsSize - 1; index++) {
-            interpolateHistoryForSlot(context, expectedTimestampSlots.get(index), rawTimestampList,
+            interpolateHistoryForSlot(context, expectedTimestampSlots.get(index), rawTimestamps,
                     batteryHistoryMap, resultMap);
         }
         resultMap.put(endTimestamp,
@@ -1101,10 +1170,10 @@ public final class DataProcessor {
     private static void interpolateHistoryForSlot(
             Context context,
             final long currentSlot,
-            final List<Long> rawTimestampList,
+            final long[] rawTimestamps,
             final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
             final Map<Long, Map<String, BatteryHistEntry>> resultMap) {
-        final long[] nearestTimestamps = findNearestTimestamp(rawTimestampList, currentSlot);
+        final long[] nearestTimestamps = findNearestTimestamp(rawTimestamps, currentSlot);
         final long lowerTimestamp = nearestTimestamps[0];
         final long upperTimestamp = nearestTimestamps[1];
         // Case 1: upper timestamp is zero since scheduler is delayed!
@@ -1287,7 +1356,8 @@ public final class DataProcessor {
             final Set<String> systemAppsPackageNames,
             final Set<Integer> systemAppsUids,
             final Map<Long, Map<String, List<AppUsagePeriod>>> appUsageMap,
-            final List<Map<String, BatteryHistEntry>> slotBatteryHistoryList) {
+            final BatteryHistTable historyTable,
+            final int[] slotRows) {
         long slotScreenOnTime = 0L;
         if (appUsageMap != null) {
             final List<AppUsagePeriod> flatAppUsagePeriodList = new ArrayList<>();
@@ -1311,31 +1381,25 @@ public final class DataProcessor {
         final List<BatteryDiffEntry> appEntries = new ArrayList<>();
         final List<BatteryDiffEntry> systemEntries = new ArrayList<>();
 
-        // Collects all keys in these three time slot records as all populations.
-        final Set<String> allBatteryHistEntryKeys = new ArraySet<>();
-        for (Map<String, BatteryHistEntry> slotBatteryHistMap : slotBatteryHistoryList) {
-            if (slotBatteryHistMap.isEmpty()) {
+        for (int row : slotRows) {
+            if (historyTable.isEmptyRow(row)) {
                 // We should not get the empty list since we have at least one fake data to record
                 // the battery level and status in each time slot, the empty list is used to
                 // represent there is no enough data to apply interpolation arithmetic.
                 return null;
             }
-            allBatteryHistEntryKeys.addAll(slotBatteryHistMap.keySet());
         }
 
-        // Calculates all packages diff usage data in a specific time slot.
-        for (String key : allBatteryHistEntryKeys) {
-            if (key == null) {
-                continue;
-            }
-
+        // Calculates all packages diff usage data in a specific time slot. Every key of the
+        // table is visited; keys without data in any of the slot records are skipped below.
+        final BatteryHistEntry[] batteryHistEntries = new BatteryHistEntry[slotRows.length];
+        for (int keyId = 0; keyId < historyTable.getKeyCount(); keyId++) {
             BatteryHistEntry selectedBatteryEntry = null;
-            final List<BatteryHistEntry> batteryHistEntries = new ArrayList<>();
-            for (Map<String, BatteryHistEntry> slotBatteryHistMap : slotBatteryHistoryList) {
-                BatteryHistEntry entry =
-                        slotBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
-                batteryHistEntries.add(entry);
-                if (selectedBatteryEntry == null && entry != EMPTY_BATTERY_HIST_ENTRY) {
+            for (int i = 0; i < slotRows.length; i++) {
+                final BatteryHistEntry entry = historyTable.get(slotRows[i], keyId);
+                batteryHistEntries[i] = entry != null ? entry : EMPTY_BATTERY_HIST_ENTRY;
+                if (selectedBatteryEntry == null && entry != null
+                        && entry != EMPTY_BATTERY_HIST_ENTRY) {
                     selectedBatteryEntry = entry;
                 }
             }
@@ -1358,9 +1422,9 @@ public final class DataProcessor {
             double foregroundServiceUsageConsumePower = 0;
             double backgroundUsageConsumePower = 0;
             double cachedUsageConsumePower = 0;
-            for (int i = 0; i < batteryHistEntries.size() - 1; i++) {
-                final BatteryHistEntry currentEntry = batteryHistEntries.get(i);
-                final BatteryHistEntry nextEntry = batteryHistEntries.get(i + 1);
+            for (int i = 0; i < batteryHistEntries.length - 1; i++) {
+                final BatteryHistEntry currentEntry = batteryHistEntries[i];
+                final BatteryHistEntry nextEntry = batteryHistEntries[i + 1];
                 foregroundUsageTimeInMs +=
                         getDiffValue(
                                 currentEntry.mForegroundUsageTimeInMs,
@@ -439,13 +439,40 @@ public final class DatabaseUtils {
 
     static List<ContentValues> sendAppUsageEventData(
             final Context context, final List<AppUsageEvent> appUsageEventList) {
-        final long startTime = System.currentTimeMillis();
+        final List<ContentValues> valuesList = convertAppUsageEventList(appUsageEventList);
+        insertAppUsageEventData(context, valuesList, /*notifyChange=*/ true);
+        clearMemory();
+        return valuesList;
+    }
+
+    /**
+     * Inserts one batch of a batched upload into the provider. Observers are notified once at the
+     * end of the upload by {@link #notifyAppUsageEventDataChanged}.
+     *
+     * @return whether every event of the batch was inserted
+     */
+    static boolean sendAppUsageEventBatch(
+            final Context context, final List<AppUsageEvent> appUsageEventList) {
+        final List<ContentValues> valuesList = convertAppUsageEventList(appUsageEventList);
+        return insertAppUsageEventData(context, valuesList, /*notifyChange=*/ false)
+                == valuesList.size();
+    }
+
+    private static List<ContentValues> convertAppUsageEventList(
+            final List<AppUsageEvent> appUsageEventList) {
         // Creates the ContentValues list to insert them into provider.
         final List<ContentValues> valuesList = new ArrayList<>();
         appUsageEventList.stream()
                 .filter(appUsageEvent -> appUsageEvent.hasUid())
                 .forEach(appUsageEvent -> valuesList.add(
                         ConvertUtils.convertAppUsageEventToContentValues(appUsageEvent)));
+        return valuesList;
+    }
+
+    /** Returns the number of inserted rows, which is 0 if the insertion failed. */
+    private static int insertAppUsageEventData(final Context context,
+            final List<ContentValues> valuesList, final boolean notifyChange) {
+        final long startTime = System.currentTimeMillis();
         int size = 0;
         final ContentResolver resolver = context.getContentResolver();
         // Inserts all ContentValues into battery provider.
@@ -454,7 +481,9 @@ public final class DatabaseUtils {
             valuesList.toArray(valuesArray);
             try {
                 size = resolver.bulkInsert(APP_USAGE_EVENT_URI, valuesArray);
-                resolver.notifyChange(APP_USAGE_EVENT_URI, /*observer=*/ null);
+                if (notifyChange) {
+                    resolver.notifyChange(APP_USAGE_EVENT_URI, /*observer=*/ null);
+                }
                 Log.d(TAG, "insert() app usage events data into database");
             } catch (Exception e) {
                 Log.e(TAG, "bulkInsert() app usage data into database error:", e);
@@ -462,8 +491,13 @@ public final class DatabaseUtils {
         }
         Log.d(TAG, String.format("sendAppUsageEventData() size=%d in %d/ms",
                 size, (System.currentTimeMillis() - startTime)));
+        return size;
+    }
+
+    /** Notifies observers that app usage events were inserted by a batched upload. */
+    static void notifyAppUsageEventDataChanged(final Context context) {
+        context.getContentResolver().notifyChange(APP_USAGE_EVENT_URI, /*observer=*/ null);
         clearMemory();
-        return valuesList;
     }
 
     static ContentValues sendBatteryEventData(
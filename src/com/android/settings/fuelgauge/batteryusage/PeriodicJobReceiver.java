@@ -20,11 +20,18 @@ import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
 import com.android.settings.fuelgauge.BatteryUsageHistoricalLogEntry.Action;
 import com.android.settings.fuelgauge.batteryusage.bugreport.BatteryUsageLogUtils;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /** Receives the periodic alarm {@link PendingIntent} callback. */
 public final class PeriodicJobReceiver extends BroadcastReceiver {
     private static final String TAG = "PeriodicJobReceiver";
@@ -33,30 +40,53 @@ public final class PeriodicJobReceiver extends BroadcastReceiver {
 
     @Override
     public void onReceive(Context context, Intent intent) {
+        final PendingResult pendingResult = goAsync();
+        onReceive(context, intent, pendingResult == null ? null : pendingResult::finish);
+    }
+
+    @VisibleForTesting
+    void onReceive(Context context, Intent intent, @Nullable Runnable finishBroadcast) {
+        final Runnable onFinished = newFinisher(finishBroadcast);
         try {
-            loadDataAndRefreshJob(context, intent);
+            loadDataAndRefreshJob(context, intent, onFinished);
         } catch (Exception e) {
             BatteryUsageLogUtils.writeLog(context, Action.SCHEDULE_JOB,
                     String.format("loadDataAndRefreshJob() failed: %s", e));
+            onFinished.run();
         }
     }
 
-    private static void loadDataAndRefreshJob(Context context, Intent intent) {
+    private static void loadDataAndRefreshJob(
+            Context context, Intent intent, Runnable onFinished) {
         final String action = intent == null ? "" : intent.getAction();
         if (!ACTION_PERIODIC_JOB_UPDATE.equals(action)) {
             Log.w(TAG, "receive unexpected action=" + action);
+            onFinished.run();
             return;
         }
         if (DatabaseUtils.isWorkProfile(context)) {
             BatteryUsageLogUtils.writeLog(context, Action.SCHEDULE_JOB,
                     "do not refresh job for work profile");
             Log.w(TAG, "do not refresh job for work profile action=" + action);
+            onFinished.run();
             return;
         }
-        BatteryUsageLogUtils.writeLog(context, Action.EXECUTE_JOB, "");
-        BatteryUsageDataLoader.enqueueWork(context, /*isFullChargeStart=*/ false);
+        // Keeps the process alive while the capture runs, for at most its runtime budget.
+        new Handler(Looper.getMainLooper()).postDelayed(
+                onFinished, BatteryUsageDataLoader.MAX_CAPTURE_DURATION_MS);
+        BatteryUsageDataLoader.enqueueWork(context, /*isFullChargeStart=*/ false, onFinished);
         Log.d(TAG, "refresh periodic job from action=" + action);
         PeriodicJobManager.getInstance(context).refreshJob(/*fromBoot=*/ false);
         DatabaseUtils.clearExpiredDataIfNeeded(context);
     }
+
+    /** Returns a {@link Runnable} running {@code finishBroadcast} the first time it is run. */
+    private static Runnable newFinisher(@Nullable Runnable finishBroadcast) {
+        final AtomicBoolean finished = new AtomicBoolean();
+        return () -> {
+            if (finished.compareAndSet(false, true) && finishBroadcast != null) {
+                finishBroadcast.run();
+            }
+        };
+    }
 }
@@ -26,6 +26,7 @@ import android.animation.LayoutTransition;
 import android.app.ActivityManager;
 import android.app.settings.SettingsEnums;
 import android.content.ComponentName;
+import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
@@ -73,6 +74,7 @@ import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.safetycenter.SafetyCenterManagerWrapper;
 import com.android.settingslib.Utils;
 import com.android.settingslib.core.lifecycle.HideNonSystemOverlayMixin;
+import com.android.settingslib.utils.ThreadUtils;
 
 import com.google.android.setupcompat.util.WizardManagerHelper;
 
@@ -195,6 +197,11 @@ public class SettingsHomepageActivity extends FragmentActivity implements
             }
         }
 
+        // Read the last known homepage entries while the container is being inflated.
+        final Context appContext = getApplicationContext();
+        ThreadUtils.postOnBackgroundThread(
+                () -> TopLevelHomepageModel.getInstance().preload(appContext));
+
         setupEdgeToEdge();
         setContentView(R.layout.settings_homepage_container);
 
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceScreen;
+
+import com.android.settings.R;
+import com.android.settings.widget.HomepagePreferenceLayoutHelper;
+import com.android.settings.widget.HomepagePreferenceLayoutHelper.HomepagePreferenceLayout;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Last known titles and summaries of the top-level homepage entries.
+ *
+ * <p>The entries are persisted when the homepage stops. On the next launch they stand in for the
+ * placeholders of the entries that load their title or summary asynchronously, such as the
+ * battery entry or injected tiles with title or summary URIs, until those are loaded. Entries
+ * that already show a live value are left alone. A last known value is dropped as soon as the
+ * entry is updated, or when the homepage is paused if nothing updated it.
+ */
+final class TopLevelHomepageModel {
+
+    @VisibleForTesting
+    static final String SHARED_PREFERENCE_NAME = "TopLevelHomepageModel";
+    private static final String KEY_LOCALES = "locales";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final String TITLE_PREFIX = "title:";
+    private static final String SUMMARY_PREFIX = "summary:";
+
+    private static TopLevelHomepageModel sInstance;
+
+    // Published without a lock, so that the main thread never waits for preload() reading disk.
+    private final AtomicReference<Map<String, String>> mValues = new AtomicReference<>();
+
+    /** Returns the shared instance. */
+    static synchronized TopLevelHomepageModel getInstance() {
+        if (sInstance == null) {
+            sInstance = new TopLevelHomepageModel();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    TopLevelHomepageModel() {
+    }
+
+    /** Reads the persisted entries so that {@link #apply} does not have to touch the disk. */
+    @WorkerThread
+    void preload(@NonNull Context context) {
+        if (mValues.get() == null) {
+            mValues.compareAndSet(null, load(context));
+        }
+    }
+
+    /**
+     * Shows the last known titles and summaries in the entries of {@code screen} that still show
+     * a placeholder. Does nothing if {@link #preload} has not finished yet.
+     */
+    void apply(@NonNull Context context, @Nullable PreferenceScreen screen) {
+        final Map<String, String> values = mValues.get();
+        if (screen == null || values == null || values.isEmpty()) {
+            return;
+        }
+        final String placeholder = context.getString(R.string.summary_placeholder);
+        for (int i = 0, count = screen.getPreferenceCount(); i < count; i++) {
+            final Preference preference = screen.getPreference(i);
+            final String key = preference.getKey();
+            if (TextUtils.isEmpty(key) || !(preference instanceof HomepagePreferenceLayout)) {
+                continue;
+            }
+            final HomepagePreferenceLayoutHelper helper =
+                    ((HomepagePreferenceLayout) preference).getHelper();
+            final String title = values.get(TITLE_PREFIX + key);
+            if (TextUtils.equals(preference.getTitle(), placeholder)
+                    && TextUtils.isGraphic(title)) {
+                preference.setTitle(title);
+                helper.setTitleRestored(true);
+            }
+            final String summary = values.get(SUMMARY_PREFIX + key);
+            if (TextUtils.equals(preference.getSummary(), placeholder)
+                    && TextUtils.isGraphic(summary)) {
+                preference.setSummary(summary);
+                helper.setSummaryRestored(true);
+            }
+        }
+    }
+
+    /**
+     * Puts the placeholders back in the entries of {@code screen} that still show a last known
+     * value, because nothing refreshed them while the homepage was shown.
+     */
+    void clearRestored(@NonNull Context context, @Nullable PreferenceScreen screen) {
+        if (screen == null) {
+            return;
+        }
+        final String placeholder = context.getString(R.string.summary_placeholder);
+        for (int i = 0, count = screen.getPreferenceCount(); i < count; i++) {
+            final Preference preference = screen.getPreference(i);
+            if (!(preference instanceof HomepagePreferenceLayout)) {
+                continue;
+            }
+            final HomepagePreferenceLayoutHelper helper =
+                    ((HomepagePreferenceLayout) preference).getHelper();
+            if (helper.isTitleRestored()) {
+                preference.setTitle(placeholder);
+            }
+            if (helper.isSummaryRestored()) {
+                preference.setSummary(placeholder);
+            }
+        }
+    }
+
+    /**
+     * Captures the current titles and summaries of {@code screen} and persists them in the
+     * background if they differ from the last known ones. Last known values that were never
+     * updated in this session are not persisted again.
+     */
+    void save(@NonNull Context context, @Nullable PreferenceScreen screen) {
+        if (screen == null) {
+            return;
+        }
+        final Map<String, String> values = new HashMap<>();
+        values.put(KEY_LOCALES, getLocales(context));
+        values.put(KEY_FINGERPRINT, Build.FINGERPRINT);
+        for (int i = 0, count = screen.getPreferenceCount(); i < count; i++) {
+            final Preference preference = screen.getPreference(i);
+            final String key = preference.getKey();
+            if (TextUtils.isEmpty(key)) {
+                continue;
+            }
+            final HomepagePreferenceLayoutHelper helper =
+                    preference instanceof HomepagePreferenceLayout
+                            ? ((HomepagePreferenceLayout) preference).getHelper() : null;
+            if (TextUtils.isGraphic(preference.getTitle())
+                    && (helper == null || !helper.isTitleRestored())) {
+                values.put(TITLE_PREFIX + key, preference.getTitle().toString());
+            }
+            if (TextUtils.isGraphic(preference.getSummary())
+                    && (helper == null || !helper.isSummaryRestored())) {
+                values.put(SUMMARY_PREFIX + key, preference.getSummary().toString());
+            }
+        }
+
+        final Map<String, String> unmodifiableValues = Collections.unmodifiableMap(values);
+        if (unmodifiableValues.equals(mValues.getAndSet(unmodifiableValues))) {
+            return;
+        }
+        final Context appContext = context.getApplicationContext();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final SharedPreferences.Editor editor = getSharedPreferences(appContext).edit()
+                    .clear();
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                editor.putString(entry.getKey(), entry.getValue());
+            }
+            editor.apply();
+        });
+    }
+
+    @NonNull
+    private static Map<String, String> load(@NonNull Context context) {
+        final Map<String, ?> all = getSharedPreferences(context).getAll();
+        // Drop the entries of another language or system image, their strings are stale.
+        if (!TextUtils.equals((String) all.get(KEY_LOCALES), getLocales(context))
+                || !TextUtils.equals((String) all.get(KEY_FINGERPRINT), Build.FINGERPRINT)) {
+            return Collections.emptyMap();
+        }
+        final Map<String, String> values = new HashMap<>();
+        for (Map.Entry<String, ?> entry : all.entrySet()) {
+            if (entry.getValue() instanceof String) {
+                values.put(entry.getKey(), (String) entry.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private static String getLocales(Context context) {
+        return context.getResources().getConfiguration().getLocales().toLanguageTags();
+    }
+
+    private static SharedPreferences getSharedPreferences(Context context) {
+        return context.getApplicationContext().getSharedPreferences(SHARED_PREFERENCE_NAME,
+                Context.MODE_PRIVATE);
+    }
+}
@@ -191,6 +191,19 @@ public class TopLevelSettings extends DashboardFragment implements SplitLayoutLi
         super.onStart();
     }
 
+    @Override
+    public void onPause() {
+        // Entries still showing a last known value were not refreshed during this visit.
+        TopLevelHomepageModel.getInstance().clearRestored(getContext(), getPreferenceScreen());
+        super.onPause();
+    }
+
+    @Override
+    public void onStop() {
+        TopLevelHomepageModel.getInstance().save(getContext(), getPreferenceScreen());
+        super.onStop();
+    }
+
     private boolean isOnlyOneActivityInTask() {
         final ActivityManager.RunningTaskInfo taskInfo = getSystemService(ActivityManager.class)
                 .getRunningTasks(1).get(0);
@@ -208,6 +221,8 @@ public class TopLevelSettings extends DashboardFragment implements SplitLayoutLi
     @Override
     public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
         super.onCreatePreferences(savedInstanceState, rootKey);
+        // Show the last known values of the entries that are still loading theirs.
+        TopLevelHomepageModel.getInstance().apply(getContext(), getPreferenceScreen());
         int tintColor = Utils.getHomepageIconColor(getContext());
         iteratePreferences(preference -> {
             Drawable icon = preference.getIcon();
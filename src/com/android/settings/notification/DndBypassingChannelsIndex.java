@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.notification;
+
+import android.app.NotificationChannel;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+import android.os.UserHandle;
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Process wide index of the notification channels of each app that bypass Do Not Disturb, keyed
+ * by package and uid.
+ *
+ * <p>The Do Not Disturb summary and the lists of apps that can and cannot interrupt read the index
+ * through {@link NotificationBackend#getNotificationChannelsBypassingDnd}, so the channels of an
+ * app are only queried once until one of its channels, or the package itself, changes. The per-app
+ * channel page lists every channel of the app and does not read the index, but the channels it
+ * updates through {@link NotificationBackend} drop the app from it.
+ *
+ * <p>Apps and SystemUI also change channels without Settings being told, so the pages reading the
+ * index intentionally drop all of it whenever they resume, see {@link #invalidateOnResume}. The
+ * index therefore only saves the repeated queries within a visit, e.g. when the app lists are
+ * rebuilt after an app entry changes, and never shows channels older than the current visit.
+ */
+public final class DndBypassingChannelsIndex {
+
+    private static final String TAG = "DndBypassingChannels";
+
+    private static DndBypassingChannelsIndex sInstance;
+
+    private final Map<Pair<String, Integer>, List<NotificationChannel>> mChannels =
+            new ConcurrentHashMap<>();
+    private boolean mListening;
+
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final Uri data = intent.getData();
+            if (data != null) {
+                invalidatePackage(data.getSchemeSpecificPart());
+            } else {
+                invalidateAll();
+            }
+        }
+    };
+
+    /** Returns the shared instance. */
+    public static synchronized DndBypassingChannelsIndex getInstance() {
+        if (sInstance == null) {
+            sInstance = new DndBypassingChannelsIndex();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    DndBypassingChannelsIndex() {
+    }
+
+    /**
+     * Starts dropping the channels of the packages that change. Until this is called the index
+     * does not cache anything, since it could not tell when its channels go stale.
+     */
+    public synchronized void startListening(@NonNull Context context) {
+        if (mListening) {
+            return;
+        }
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_DATA_CLEARED);
+        filter.addDataScheme("package");
+        try {
+            context.getApplicationContext().registerReceiverAsUser(mPackageReceiver,
+                    UserHandle.ALL, filter, null /* broadcastPermission */, null /* scheduler */);
+            mListening = true;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Unable to listen to package changes", e);
+        }
+    }
+
+    /**
+     * Drops every indexed channel each time {@code owner} resumes, so that every visit of a page
+     * starts from the current channels.
+     */
+    public void invalidateOnResume(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onResume(@NonNull LifecycleOwner owner) {
+                invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * Returns the channels of {@code pkg} that bypass Do Not Disturb, using {@code loader} to
+     * query them if they are not indexed yet.
+     */
+    @NonNull
+    public List<NotificationChannel> getChannels(@NonNull String pkg, int uid,
+            @NonNull Supplier<List<NotificationChannel>> loader) {
+        final Pair<String, Integer> key = Pair.create(pkg, uid);
+        List<NotificationChannel> channels = mChannels.get(key);
+        if (channels != null) {
+            return channels;
+        }
+        channels = Collections.unmodifiableList(new ArrayList<>(loader.get()));
+        if (isListening()) {
+            mChannels.put(key, channels);
+        }
+        return channels;
+    }
+
+    /** Drops the channels of {@code pkg} for {@code uid}, e.g. after one of them was updated. */
+    public void invalidate(@NonNull String pkg, int uid) {
+        mChannels.remove(Pair.create(pkg, uid));
+    }
+
+    /** Drops the channels of {@code pkg} for every user. */
+    public void invalidatePackage(@NonNull String pkg) {
+        mChannels.keySet().removeIf(key -> pkg.equals(key.first));
+    }
+
+    /** Drops every indexed channel. */
+    public void invalidateAll() {
+        mChannels.clear();
+    }
+
+    private synchronized boolean isListening() {
+        return mListening;
+    }
+}
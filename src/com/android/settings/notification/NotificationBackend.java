@@ -62,6 +62,7 @@ import com.android.settingslib.utils.StringUtil;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -189,6 +190,7 @@ public class NotificationBackend {
                 updateChannel(pkg, uid, defaultChannel);
             }
             sINM.setNotificationsEnabledForPackage(pkg, uid, enabled);
+            DndBypassingChannelsIndex.getInstance().invalidate(pkg, uid);
             return true;
         } catch (Exception e) {
             Log.w(TAG, "Error calling NoMan", e);
@@ -339,17 +341,23 @@ public class NotificationBackend {
      */
     public ParceledListSlice<NotificationChannel> getNotificationChannelsBypassingDnd(String pkg,
             int uid) {
+        return new ParceledListSlice<>(DndBypassingChannelsIndex.getInstance().getChannels(pkg,
+                uid, () -> loadNotificationChannelsBypassingDnd(pkg, uid)));
+    }
+
+    private List<NotificationChannel> loadNotificationChannelsBypassingDnd(String pkg, int uid) {
         try {
-            return sINM.getNotificationChannelsBypassingDnd(pkg, uid);
+            return sINM.getNotificationChannelsBypassingDnd(pkg, uid).getList();
         } catch (Exception e) {
             Log.w(TAG, "Error calling NoMan", e);
-            return ParceledListSlice.emptyList();
+            return Collections.emptyList();
         }
     }
 
     public void updateChannel(String pkg, int uid, NotificationChannel channel) {
         try {
             sINM.updateNotificationChannelForPackage(pkg, uid, channel);
+            DndBypassingChannelsIndex.getInstance().invalidate(pkg, uid);
         } catch (Exception e) {
             Log.w(TAG, "Error calling NoMan", e);
         }
@@ -358,6 +366,7 @@ public class NotificationBackend {
     public void updateChannelGroup(String pkg, int uid, NotificationChannelGroup group) {
         try {
             sINM.updateNotificationChannelGroupForPackage(pkg, uid, group);
+            DndBypassingChannelsIndex.getInstance().invalidate(pkg, uid);
         } catch (Exception e) {
             Log.w(TAG, "Error calling NoMan", e);
         }
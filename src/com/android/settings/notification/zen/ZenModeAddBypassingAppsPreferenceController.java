@@ -31,15 +31,15 @@ import androidx.preference.PreferenceCategory;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.applications.AppIconLoader;
 import com.android.settings.applications.AppInfoBase;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.core.SubSettingLauncher;
+import com.android.settings.notification.DndBypassingChannelsIndex;
 import com.android.settings.notification.NotificationBackend;
 import com.android.settings.notification.app.AppChannelsBypassingDndSettings;
-import com.android.settingslib.applications.AppUtils;
 import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.core.AbstractPreferenceController;
-import com.android.settingslib.utils.ThreadUtils;
 import com.android.settingslib.widget.AppPreference;
 
 import java.util.ArrayList;
@@ -79,6 +79,10 @@ public class ZenModeAddBypassingAppsPreferenceController extends AbstractPrefere
         mNotificationBackend = notificationBackend;
         mApplicationsState = appState;
         mHostFragment = host;
+        DndBypassingChannelsIndex.getInstance().startListening(context);
+        if (host != null) {
+            DndBypassingChannelsIndex.getInstance().invalidateOnResume(host);
+        }
     }
 
     @Override
@@ -126,16 +130,12 @@ public class ZenModeAddBypassingAppsPreferenceController extends AbstractPrefere
     // it up.
     private void updateIcon(Preference pref, ApplicationsState.AppEntry entry) {
         synchronized (entry) {
-            final Drawable cachedIcon = AppUtils.getIconFromCache(entry);
+            final AppIconLoader iconLoader = AppIconLoader.getInstance(mPrefContext);
+            final Drawable cachedIcon = iconLoader.getCachedIcon(entry.info);
             if (cachedIcon != null && entry.mounted) {
                 pref.setIcon(cachedIcon);
             } else {
-                ThreadUtils.postOnBackgroundThread(() -> {
-                    final Drawable icon = AppUtils.getIcon(mPrefContext, entry);
-                    if (icon != null) {
-                        ThreadUtils.postOnMainThread(() -> pref.setIcon(icon));
-                    }
-                });
+                iconLoader.loadIcon(entry.info, AppIconLoader.PRIORITY_VISIBLE, pref::setIcon);
             }
         }
     }
@@ -156,17 +156,19 @@ public class ZenModeAddBypassingAppsPreferenceController extends AbstractPrefere
         for (ApplicationsState.AppEntry app : apps) {
             String pkg = app.info.packageName;
             final String key = getKey(pkg, app.info.uid);
-            final int appChannels = mNotificationBackend.getChannelCount(pkg, app.info.uid);
             final int appChannelsBypassingDnd = mNotificationBackend
                     .getNotificationChannelsBypassingDnd(pkg, app.info.uid).getList().size();
-            if (appChannelsBypassingDnd == 0 && appChannels > 0) {
+            // Apps that already bypass DND are never listed, so skip counting their channels
+            final boolean canBeAdded = appChannelsBypassingDnd == 0
+                    && mNotificationBackend.getChannelCount(pkg, app.info.uid) > 0;
+            if (canBeAdded) {
                 doAnyAppsPassCriteria = true;
             }
 
             Preference pref = mPreferenceCategory.findPreference(key);
 
             if (pref == null) {
-                if (appChannelsBypassingDnd == 0 && appChannels > 0) {
+                if (canBeAdded) {
                     // does not exist but should
                     pref = new AppPreference(mPrefContext);
                     pref.setKey(key);
@@ -188,7 +190,7 @@ public class ZenModeAddBypassingAppsPreferenceController extends AbstractPrefere
                     updateIcon(pref, app);
                     mPreferenceCategory.addPreference(pref);
                 }
-            } else if (appChannelsBypassingDnd != 0 || appChannels == 0) {
+            } else if (!canBeAdded) {
                 // exists but shouldn't anymore
                 mPreferenceCategory.removePreference(pref);
             }
@@ -221,7 +223,7 @@ public class ZenModeAddBypassingAppsPreferenceController extends AbstractPrefere
 
                 @Override
                 public void onPackageListChanged() {
-
+                    DndBypassingChannelsIndex.getInstance().invalidateAll();
                 }
 
                 @Override
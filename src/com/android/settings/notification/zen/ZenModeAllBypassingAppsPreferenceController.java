@@ -31,15 +31,15 @@ import androidx.preference.PreferenceCategory;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.applications.AppIconLoader;
 import com.android.settings.applications.AppInfoBase;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.core.SubSettingLauncher;
+import com.android.settings.notification.DndBypassingChannelsIndex;
 import com.android.settings.notification.NotificationBackend;
 import com.android.settings.notification.app.AppChannelsBypassingDndSettings;
-import com.android.settingslib.applications.AppUtils;
 import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.core.AbstractPreferenceController;
-import com.android.settingslib.utils.ThreadUtils;
 import com.android.settingslib.widget.AppPreference;
 
 import java.util.ArrayList;
@@ -75,6 +75,10 @@ public class ZenModeAllBypassingAppsPreferenceController extends AbstractPrefere
         mNotificationBackend = notificationBackend;
         mApplicationsState = appState;
         mHostFragment = host;
+        DndBypassingChannelsIndex.getInstance().startListening(context);
+        if (host != null) {
+            DndBypassingChannelsIndex.getInstance().invalidateOnResume(host);
+        }
 
         if (mApplicationsState != null && host != null) {
             mAppSession = mApplicationsState.newSession(mAppSessionCallbacks, host.getLifecycle());
@@ -115,16 +119,12 @@ public class ZenModeAllBypassingAppsPreferenceController extends AbstractPrefere
     // it up.
     private void updateIcon(Preference pref, ApplicationsState.AppEntry entry) {
         synchronized (entry) {
-            final Drawable cachedIcon = AppUtils.getIconFromCache(entry);
+            final AppIconLoader iconLoader = AppIconLoader.getInstance(mPrefContext);
+            final Drawable cachedIcon = iconLoader.getCachedIcon(entry.info);
             if (cachedIcon != null && entry.mounted) {
                 pref.setIcon(cachedIcon);
             } else {
-                ThreadUtils.postOnBackgroundThread(() -> {
-                    final Drawable icon = AppUtils.getIcon(mPrefContext, entry);
-                    if (icon != null) {
-                        ThreadUtils.postOnMainThread(() -> pref.setIcon(icon));
-                    }
-                });
+                iconLoader.loadIcon(entry.info, AppIconLoader.PRIORITY_VISIBLE, pref::setIcon);
             }
         }
     }
@@ -139,7 +139,6 @@ public class ZenModeAllBypassingAppsPreferenceController extends AbstractPrefere
         for (ApplicationsState.AppEntry app : apps) {
             String pkg = app.info.packageName;
             final String key = getKey(pkg, app.info.uid);
-            final int appChannels = mNotificationBackend.getChannelCount(pkg, app.info.uid);
             final int appChannelsBypassingDnd = mNotificationBackend
                     .getNotificationChannelsBypassingDnd(pkg, app.info.uid).getList().size();
             if (appChannelsBypassingDnd > 0) {
@@ -168,6 +167,9 @@ public class ZenModeAllBypassingAppsPreferenceController extends AbstractPrefere
                     });
                     pref.setTitle(BidiFormatter.getInstance().unicodeWrap(app.label));
                     updateIcon(pref, app);
+                    // Only apps that get a new preference need their total channel count
+                    final int appChannels = mNotificationBackend.getChannelCount(pkg,
+                            app.info.uid);
                     if (appChannels > appChannelsBypassingDnd) {
                         pref.setSummary(R.string.zen_mode_bypassing_apps_summary_some);
                     } else {
@@ -211,6 +213,7 @@ public class ZenModeAllBypassingAppsPreferenceController extends AbstractPrefere
 
                 @Override
                 public void onPackageListChanged() {
+                    DndBypassingChannelsIndex.getInstance().invalidateAll();
                 }
 
                 @Override
@@ -16,6 +16,7 @@ import androidx.preference.PreferenceScreen;
 import com.android.internal.annotations.VisibleForTesting;
 import com.android.settings.R;
 import com.android.settings.core.PreferenceControllerMixin;
+import com.android.settings.notification.DndBypassingChannelsIndex;
 import com.android.settings.notification.NotificationBackend;
 import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.core.lifecycle.Lifecycle;
@@ -50,6 +51,10 @@ public class ZenModeBypassingAppsPreferenceController extends AbstractZenModePre
     private ZenModeBypassingAppsPreferenceController(Context context, ApplicationsState appState,
             Fragment host, Lifecycle lifecycle) {
         super(context, KEY, lifecycle);
+        DndBypassingChannelsIndex.getInstance().startListening(context);
+        if (host != null) {
+            DndBypassingChannelsIndex.getInstance().invalidateOnResume(host);
+        }
         if (appState != null && host != null) {
             mAppSession = appState.newSession(mAppSessionCallbacks, host.getLifecycle());
         }
@@ -117,7 +122,7 @@ public class ZenModeBypassingAppsPreferenceController extends AbstractZenModePre
                     continue;
                 }
                 appsBypassingDnd.add(BidiFormatter.getInstance().unicodeWrap(entry.label));
-                continue;
+                break;
             }
         }
 
@@ -152,6 +157,7 @@ public class ZenModeBypassingAppsPreferenceController extends AbstractZenModePre
 
                 @Override
                 public void onPackageListChanged() {
+                    DndBypassingChannelsIndex.getInstance().invalidateAll();
                     updateAppsBypassingDndSummaryText();
                 }
 
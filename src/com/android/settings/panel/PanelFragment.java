@@ -22,10 +22,12 @@ import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
 import android.animation.ValueAnimator;
 import android.app.settings.SettingsEnums;
+import android.content.Context;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.text.TextUtils;
+import android.util.Log;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -45,10 +47,12 @@ import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
 import androidx.lifecycle.LifecycleObserver;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.slice.Slice;
 import androidx.slice.SliceMetadata;
+import androidx.slice.SliceViewManager;
 import androidx.slice.widget.SliceLiveData;
 
 import com.android.internal.annotations.VisibleForTesting;
@@ -60,8 +64,8 @@ import com.android.settingslib.utils.ThreadUtils;
 
 import com.google.android.setupdesign.DividerItemDecoration;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -332,23 +336,25 @@ public class PanelFragment extends Fragment {
         mPanelSlicesLoaderCountdownLatch = new PanelSlicesLoaderCountdownLatch(sliceUris.size());
 
         for (Uri uri : sliceUris) {
-            final LiveData<Slice> sliceLiveData = SliceLiveData.fromUri(getActivity(), uri,
-                    (int type, Throwable source)-> {
-                            removeSliceLiveData(uri);
-                            mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
-                    });
+            final PrefetchedSliceLiveData sliceLiveData = new PrefetchedSliceLiveData(
+                    SliceLiveData.fromUri(getActivity(), uri,
+                            (int type, Throwable source)-> {
+                                    removeSliceLiveData(uri);
+                                    mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
+                            }));
 
             // Add slice first to make it in order.  Will remove it later if there's an error.
             mSliceLiveData.put(uri, sliceLiveData);
+            // A lone Slice gains nothing from being bound twice.
+            if (sliceUris.size() > 1) {
+                prefetchSlice(uri, sliceLiveData);
+            }
 
             sliceLiveData.observe(getViewLifecycleOwner(), slice -> {
 
                 // If the Slice has already loaded, refresh list with slice data.
                 if (mPanelSlicesLoaderCountdownLatch.isSliceLoaded(uri)) {
-                    if (mAdapter != null) {
-                        int itemIndex = (new ArrayList<>(mSliceLiveData.keySet())).indexOf(uri);
-                        mAdapter.notifyItemChanged(itemIndex);
-                    }
+                    notifySliceChanged(uri);
                     return;
                 }
 
@@ -382,10 +388,64 @@ public class PanelFragment extends Fragment {
                 }
 
                 loadPanelWhenReady();
+                // The panel may already show a placeholder for this Slice.
+                notifySliceChanged(uri);
             });
         }
     }
 
+    /**
+     * {@link SliceLiveData} binds the Slices of a panel one after the other, so bind them all in
+     * parallel as well and use whichever result comes first.
+     */
+    private void prefetchSlice(Uri uri, PrefetchedSliceLiveData sliceLiveData) {
+        final Context context = getActivity().getApplicationContext();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final Slice slice;
+            try {
+                slice = SliceViewManager.getInstance(context).bindSlice(uri);
+            } catch (RuntimeException e) {
+                // SliceLiveData reports the error once it binds the Slice itself.
+                Log.w(TAG, "Failed to prefetch " + uri, e);
+                return;
+            }
+            if (slice == null) {
+                return;
+            }
+            ThreadUtils.postOnMainThread(() -> {
+                if (mSliceLiveData.get(uri) == sliceLiveData) {
+                    sliceLiveData.onPrefetched(slice);
+                }
+            });
+        });
+    }
+
+    private void notifySliceChanged(Uri uri) {
+        if (mAdapter == null) {
+            return;
+        }
+        if (!mSliceLiveData.containsKey(uri)) {
+            mAdapter.removeSlice(uri);
+            return;
+        }
+        final int position = mAdapter.getSlicePosition(uri);
+        if (position >= 0) {
+            mAdapter.notifyItemChanged(position);
+        }
+    }
+
+    /** Returns whether the first value of the Slice at {@code uri} is still being loaded. */
+    boolean isSliceLoading(Uri uri) {
+        return mPanelSlicesLoaderCountdownLatch != null
+                && !mPanelSlicesLoaderCountdownLatch.isSliceLoaded(uri);
+    }
+
+    @Nullable
+    private Uri getLeadingSliceUri() {
+        final Iterator<Uri> uris = mSliceLiveData.keySet().iterator();
+        return uris.hasNext() ? uris.next() : null;
+    }
+
     private void removeSliceLiveData(Uri uri) {
         final List<String> allowList = Arrays.asList(
                 getResources().getStringArray(
@@ -396,14 +456,15 @@ public class PanelFragment extends Fragment {
     }
 
     /**
-     * When all of the Slices have loaded for the first time, then we can setup the
-     * {@link RecyclerView}.
+     * When the Slice at the top of the Panel, or else all of the Slices, have loaded for the
+     * first time, then we can setup the {@link RecyclerView}. Slices that are still loading are
+     * shown as placeholders until they are ready.
      * <p>
      * When the Recyclerview has been laid out, we can begin the animation with the
      * {@link mOnGlobalLayoutListener}, which calls {@link #animateIn()}.
      */
     private void loadPanelWhenReady() {
-        if (mPanelSlicesLoaderCountdownLatch.isPanelReadyToLoad()) {
+        if (mPanelSlicesLoaderCountdownLatch.isPanelReadyToReveal(getLeadingSliceUri())) {
             mAdapter = new PanelSlicesAdapter(
                     this, mSliceLiveData, mPanel.getMetricsCategory());
             mPanelSlices.setAdapter(mAdapter);
@@ -519,6 +580,24 @@ public class PanelFragment extends Fragment {
         return mPanel.getViewType();
     }
 
+    /** {@link Slice} LiveData which may get its first value from a parallel prefetch. */
+    private static final class PrefetchedSliceLiveData extends MediatorLiveData<Slice> {
+        private boolean mDelivered;
+
+        PrefetchedSliceLiveData(LiveData<Slice> source) {
+            addSource(source, slice -> {
+                mDelivered = true;
+                setValue(slice);
+            });
+        }
+
+        void onPrefetched(Slice slice) {
+            if (!mDelivered) {
+                setValue(slice);
+            }
+        }
+    }
+
     class LocalPanelCallback implements PanelContentCallback {
 
         @Override
@@ -43,6 +43,7 @@ import com.android.settings.overlay.FeatureFactory;
 import com.google.android.setupdesign.DividerItemDecoration;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -58,15 +59,50 @@ public class PanelSlicesAdapter
     @VisibleForTesting
     static final int MAX_NUM_OF_SLICES = 9;
 
+    private final List<Uri> mSliceUris;
     private final List<LiveData<Slice>> mSliceLiveData;
+    private final Map<Uri, Integer> mSlicePositions = new HashMap<>();
     private final int mMetricsCategory;
     private final PanelFragment mPanelFragment;
 
     public PanelSlicesAdapter(
             PanelFragment fragment, Map<Uri, LiveData<Slice>> sliceLiveData, int metricsCategory) {
         mPanelFragment = fragment;
+        mSliceUris = new ArrayList<>(sliceLiveData.keySet());
         mSliceLiveData = new ArrayList<>(sliceLiveData.values());
         mMetricsCategory = metricsCategory;
+        updateSlicePositions();
+    }
+
+    /** Returns the position of the Slice at {@code uri}, or -1 if it is not in the adapter. */
+    int getSlicePosition(Uri uri) {
+        final Integer position = mSlicePositions.get(uri);
+        return position != null ? position : -1;
+    }
+
+    /** Removes the Slice at {@code uri} from the adapter. */
+    void removeSlice(Uri uri) {
+        final int position = getSlicePosition(uri);
+        if (position < 0) {
+            return;
+        }
+        final boolean overflowed = mSliceLiveData.size() > MAX_NUM_OF_SLICES;
+        mSliceUris.remove(position);
+        mSliceLiveData.remove(position);
+        updateSlicePositions();
+        if (overflowed) {
+            // The next Slice moves into the visible window.
+            notifyDataSetChanged();
+        } else {
+            notifyItemRemoved(position);
+        }
+    }
+
+    private void updateSlicePositions() {
+        mSlicePositions.clear();
+        for (int i = 0; i < mSliceUris.size(); i++) {
+            mSlicePositions.put(mSliceUris.get(i), i);
+        }
     }
 
     @NonNull
@@ -85,7 +121,12 @@ public class PanelSlicesAdapter
 
     @Override
     public void onBindViewHolder(@NonNull SliceRowViewHolder sliceRowViewHolder, int position) {
-        sliceRowViewHolder.onBind(mSliceLiveData.get(position).getValue());
+        final Slice slice = mSliceLiveData.get(position).getValue();
+        if (slice == null && mPanelFragment.isSliceLoading(mSliceUris.get(position))) {
+            sliceRowViewHolder.onBindPlaceholder();
+        } else {
+            sliceRowViewHolder.onBind(slice);
+        }
     }
 
     /**
@@ -137,6 +178,7 @@ public class PanelSlicesAdapter
          * Called when the view is displayed.
          */
         public void onBind(Slice slice) {
+            itemView.setMinimumHeight(0);
             // Hides slice which reports with error hint or not contain any slice sub-item.
             if (slice == null || !isValidSlice(slice)) {
                 updateActionLabel();
@@ -166,6 +208,16 @@ public class PanelSlicesAdapter
             updateActionLabel();
         }
 
+        /**
+         * Called when the view is displayed before its Slice has loaded, keeping the room the
+         * Slice will take so the rows below do not move once it is ready.
+         */
+        void onBindPlaceholder() {
+            itemView.setMinimumHeight(itemView.getResources().getDimensionPixelSize(
+                    R.dimen.panel_slice_placeholder_height));
+            sliceView.setVisibility(View.GONE);
+        }
+
         /**
          * Either set the action label if the row view is inflated into Slice, or set a listener to
          * do so later when the row is available.
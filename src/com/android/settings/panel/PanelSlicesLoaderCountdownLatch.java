@@ -18,6 +18,7 @@ package com.android.settings.panel;
 
 import android.net.Uri;
 
+import androidx.annotation.Nullable;
 import androidx.slice.Slice;
 
 import java.util.HashSet;
@@ -80,4 +81,17 @@ public class PanelSlicesLoaderCountdownLatch {
         }
         return false;
     }
+
+    /**
+     * @return {@code true} when either all Slices or the Slice shown at the top of the Panel,
+     * {@param leadingSliceUri}, have loaded, and the Panel has not yet been loaded.
+     */
+    public boolean isPanelReadyToReveal(@Nullable Uri leadingSliceUri) {
+        if (leadingSliceUri != null && mLoadedSlices.contains(leadingSliceUri)
+                && !slicesReadyToLoad) {
+            slicesReadyToLoad = true;
+            return true;
+        }
+        return isPanelReadyToLoad();
+    }
 }
\ No newline at end of file
@@ -29,6 +29,7 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.core.AvailabilityStatusCache;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settingslib.RestrictedPreference;
 import com.android.settingslib.core.lifecycle.LifecycleObserver;
@@ -65,6 +66,11 @@ public class PrintSettingPreferenceController extends BasePreferenceController i
                 ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    protected AvailabilityStatusCache.Dependencies getAvailabilityDependencies() {
+        return AvailabilityStatusCache.Dependencies.NONE;
+    }
+
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
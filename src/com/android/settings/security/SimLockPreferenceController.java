@@ -27,6 +27,7 @@ import android.telephony.TelephonyManager;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
+import com.android.settings.core.AvailabilityStatusCache;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.network.SubscriptionUtil;
 
@@ -70,6 +71,16 @@ public class SimLockPreferenceController extends BasePreferenceController {
         return DISABLED_FOR_USER;
     }
 
+    @Override
+    protected AvailabilityStatusCache.Dependencies getAvailabilityDependencies() {
+        // The SIM lock setting can be hidden by the carrier config, which is only loaded once the
+        // subscription is active, and it depends on whether the SIM cards are present.
+        return AvailabilityStatusCache.Dependencies.of(AvailabilityStatusCache.SIGNAL_USERS
+                | AvailabilityStatusCache.SIGNAL_SUBSCRIPTIONS
+                | AvailabilityStatusCache.SIGNAL_CARRIER_CONFIG
+                | AvailabilityStatusCache.SIGNAL_SIM_STATE);
+    }
+
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
@@ -82,7 +82,7 @@ public class SliceBuilderUtils {
             return null;
         }
 
-        if (controller.getAvailabilityStatus() == DISABLED_DEPENDENT_SETTING) {
+        if (controller.getCachedAvailabilityStatus() == DISABLED_DEPENDENT_SETTING) {
             return buildUnavailableSlice(context, sliceData);
         }
 
@@ -24,6 +24,7 @@ import androidx.preference.Preference;
 import com.android.settings.R;
 import com.android.settings.Settings;
 import com.android.settings.Utils;
+import com.android.settings.core.AvailabilityStatusCache;
 import com.android.settings.core.BasePreferenceController;
 
 public class FactoryResetPreferenceController extends BasePreferenceController {
@@ -41,6 +42,11 @@ public class FactoryResetPreferenceController extends BasePreferenceController {
         return mUm.isAdminUser() ? AVAILABLE : DISABLED_FOR_USER;
     }
 
+    @Override
+    protected AvailabilityStatusCache.Dependencies getAvailabilityDependencies() {
+        return AvailabilityStatusCache.Dependencies.of(AvailabilityStatusCache.SIGNAL_USERS);
+    }
+
     @Override
     public boolean handlePreferenceTreeClick(Preference preference) {
         if (mPreferenceKey.equals(preference.getKey())) {
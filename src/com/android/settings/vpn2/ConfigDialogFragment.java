@@ -24,13 +24,12 @@ import android.net.VpnManager;
 import android.os.Bundle;
 import android.os.RemoteException;
 import android.os.UserHandle;
-import android.security.Credentials;
-import android.security.LegacyVpnProfileStore;
 import android.util.Log;
 import android.view.View;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
+import androidx.fragment.app.Fragment;
 
 import com.android.internal.net.LegacyVpnInfo;
 import com.android.internal.net.VpnProfile;
@@ -152,9 +151,10 @@ public class ConfigDialogFragment extends InstrumentedDialogFragment implements
             }
 
             // Delete from profile store.
-            LegacyVpnProfileStore.remove(Credentials.VPN + profile.key);
+            VpnUtils.removeVpnProfile(profile.key);
 
             updateLockdownVpn(false, profile);
+            refreshVpnList();
         }
         dismiss();
     }
@@ -187,13 +187,21 @@ public class ConfigDialogFragment extends InstrumentedDialogFragment implements
     }
 
     private void save(VpnProfile profile, boolean lockdown) {
-        LegacyVpnProfileStore.put(Credentials.VPN + profile.key, profile.encode());
+        VpnUtils.saveVpnProfile(profile);
 
         // Flush out old version of profile
         disconnect(profile);
 
         // Notify lockdown VPN that the profile has changed.
         updateLockdownVpn(lockdown, profile);
+        refreshVpnList();
+    }
+
+    private void refreshVpnList() {
+        final Fragment target = getTargetFragment();
+        if (target instanceof VpnSettings) {
+            ((VpnSettings) target).refreshVpnList();
+        }
     }
 
     private void connect(VpnProfile profile, boolean lockdown) {
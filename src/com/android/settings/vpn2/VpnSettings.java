@@ -24,8 +24,10 @@ import android.annotation.WorkerThread;
 import android.app.Activity;
 import android.app.AppOpsManager;
 import android.app.settings.SettingsEnums;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
@@ -41,8 +43,6 @@ import android.os.HandlerThread;
 import android.os.Message;
 import android.os.UserHandle;
 import android.os.UserManager;
-import android.security.Credentials;
-import android.security.LegacyVpnProfileStore;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.ArraySet;
@@ -69,12 +69,12 @@ import com.android.settingslib.RestrictedLockUtilsInternal;
 
 import com.google.android.collect.Lists;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Settings screen listing VPNs. Configured VPNs and networks managed by apps
@@ -86,6 +86,7 @@ public class VpnSettings extends RestrictedDashboardFragment implements
     private static final boolean DEBUG = Log.isLoggable(LOG_TAG, Log.DEBUG);
 
     private static final int RESCAN_MESSAGE = 0;
+    // Only used while a legacy VPN is connecting, which does not report its progress
     private static final int RESCAN_INTERVAL_MS = 1000;
     private static final String ADVANCED_VPN_GROUP_KEY = "advanced_vpn_group";
     private static final String VPN_GROUP_KEY = "vpn_group";
@@ -108,6 +109,16 @@ public class VpnSettings extends RestrictedDashboardFragment implements
     private HandlerThread mUpdaterThread;
     private LegacyVpnInfo mConnectedLegacyVpn;
 
+    // Set when the apps allowed to activate a VPN may have changed
+    private final AtomicBoolean mVpnAppsChanged = new AtomicBoolean(true);
+    // Only accessed on the updater thread
+    private List<AppVpnInfo> mVpnApps;
+    private boolean mAdvancedVpnOpsGranted;
+    @GuardedBy("this")
+    private UpdatePreferences mLastUpdate;
+    // Whether the gear of the advanced VPN is enabled, only accessed on the UI thread
+    private boolean mAdvancedVpnGearEnabled;
+
     private boolean mUnavailable;
     private AdvancedVpnFeatureProvider mFeatureProvider;
     private PreferenceScreen mPreferenceScreen;
@@ -200,14 +211,44 @@ public class VpnSettings extends RestrictedDashboardFragment implements
             getEmptyTextView().setText(R.string.vpn_no_vpns_added);
         }
 
+        // The profiles or the apps may have been changed while the page was paused
+        VpnUtils.invalidateVpnProfiles();
+        mVpnAppsChanged.set(true);
+
+        mUpdaterThread = new HandlerThread("Refresh VPN list in background");
+        mUpdaterThread.start();
+        synchronized (this) {
+            mUpdater = new Handler(mUpdaterThread.getLooper(), this);
+            mLastUpdate = null;
+        }
+
         // Start monitoring
         mConnectivityManager.registerNetworkCallback(VPN_REQUEST, mNetworkCallback);
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addDataScheme("package");
+        getContext().registerReceiverAsUser(mPackageReceiver, UserHandle.ALL, filter,
+                null /* broadcastPermission */, mUpdater);
+        final AppOpsManager appOpsManager = getContext().getSystemService(AppOpsManager.class);
+        appOpsManager.startWatchingMode(OP_ACTIVATE_VPN, null /* packageName */,
+                mOpChangedListener);
+        appOpsManager.startWatchingMode(OP_ACTIVATE_PLATFORM_VPN, null /* packageName */,
+                mOpChangedListener);
 
         // Trigger a refresh
-        mUpdaterThread = new HandlerThread("Refresh VPN list in background");
-        mUpdaterThread.start();
-        mUpdater = new Handler(mUpdaterThread.getLooper(), this);
-        mUpdater.sendEmptyMessage(RESCAN_MESSAGE);
+        refreshVpnList();
+    }
+
+    /** Schedules a refresh of the VPN list, e.g. after a profile was saved or removed. */
+    public void refreshVpnList() {
+        synchronized (this) {
+            if (mUpdater != null) {
+                mUpdater.removeMessages(RESCAN_MESSAGE);
+                mUpdater.sendEmptyMessage(RESCAN_MESSAGE);
+            }
+        }
     }
 
     @Override
@@ -229,6 +270,8 @@ public class VpnSettings extends RestrictedDashboardFragment implements
 
         // Stop monitoring
         mConnectivityManager.unregisterNetworkCallback(mNetworkCallback);
+        getContext().unregisterReceiver(mPackageReceiver);
+        getContext().getSystemService(AppOpsManager.class).stopWatchingMode(mOpChangedListener);
 
         synchronized (this) {
             mUpdater.removeCallbacksAndMessages(null);
@@ -249,10 +292,16 @@ public class VpnSettings extends RestrictedDashboardFragment implements
         }
         final Context context = activity.getApplicationContext();
 
-        // Run heavy RPCs before switching to UI thread
-        final List<VpnProfile> vpnProfiles = loadVpnProfiles();
-        final List<AppVpnInfo> vpnApps = getVpnApps(context, /* includeProfiles */ true,
-                mFeatureProvider);
+        // Run heavy RPCs before switching to UI thread. The profiles are only read from the
+        // keystore again after they changed, and the apps only after a package or app op did.
+        final List<VpnProfile> vpnProfiles = VpnUtils.loadVpnProfiles();
+        if (mVpnAppsChanged.getAndSet(false) || mVpnApps == null) {
+            final List<AppOpsManager.PackageOps> vpnOps = getVpnPackageOps(
+                    context.getSystemService(AppOpsManager.class));
+            mVpnApps = getVpnApps(context, /* includeProfiles */ true, mFeatureProvider,
+                    vpnOps);
+            mAdvancedVpnOpsGranted = hasAdvancedVpnOps(context, mFeatureProvider, vpnOps);
+        }
 
         final Map<String, LegacyVpnInfo> connectedLegacyVpns = getConnectedLegacyVpns();
         final Set<AppVpnInfo> connectedAppVpns = getConnectedAppVpns();
@@ -260,14 +309,25 @@ public class VpnSettings extends RestrictedDashboardFragment implements
         final Set<AppVpnInfo> alwaysOnAppVpnInfos = getAlwaysOnAppVpnInfos();
         final String lockdownVpnKey = VpnUtils.getLockdownVpn();
 
-        // Refresh list of VPNs
-        activity.runOnUiThread(new UpdatePreferences(this)
+        final UpdatePreferences update = new UpdatePreferences(this)
                 .legacyVpns(vpnProfiles, connectedLegacyVpns, lockdownVpnKey)
-                .appVpns(vpnApps, connectedAppVpns, alwaysOnAppVpnInfos));
+                .appVpns(mVpnApps, connectedAppVpns, alwaysOnAppVpnInfos)
+                .advancedVpnGearEnabled(mAdvancedVpnOpsGranted);
 
         synchronized (this) {
-            if (mUpdater != null) {
-                mUpdater.removeMessages(RESCAN_MESSAGE);
+            if (mUpdater == null) {
+                return true;
+            }
+            // Nothing to apply if the VPNs are in the same state as on the last refresh
+            if (!update.isSameAs(mLastUpdate)) {
+                mLastUpdate = update;
+                activity.runOnUiThread(update);
+            }
+            // A connecting legacy VPN does not trigger a callback on every state change
+            mUpdater.removeMessages(RESCAN_MESSAGE);
+            if (mConnectedLegacyVpn != null
+                    && (mConnectedLegacyVpn.state == LegacyVpnInfo.STATE_INITIALIZING
+                    || mConnectedLegacyVpn.state == LegacyVpnInfo.STATE_CONNECTING)) {
                 mUpdater.sendEmptyMessageDelayed(RESCAN_MESSAGE, RESCAN_INTERVAL_MS);
             }
         }
@@ -285,6 +345,7 @@ public class VpnSettings extends RestrictedDashboardFragment implements
 
         private Set<AppVpnInfo> alwaysOnAppVpnInfos = Collections.<AppVpnInfo>emptySet();
         private String lockdownVpnKey = null;
+        private boolean advancedVpnGearEnabled;
 
         private final VpnSettings mSettings;
 
@@ -308,6 +369,33 @@ public class VpnSettings extends RestrictedDashboardFragment implements
             return this;
         }
 
+        public final UpdatePreferences advancedVpnGearEnabled(boolean enabled) {
+            this.advancedVpnGearEnabled = enabled;
+            return this;
+        }
+
+        /** Returns whether applying {@code other} would leave the preferences unchanged. */
+        boolean isSameAs(UpdatePreferences other) {
+            if (other == null
+                    // Profiles are cached, so unchanged profiles come back as the same list
+                    || vpnProfiles != other.vpnProfiles
+                    || !vpnApps.equals(other.vpnApps)
+                    || !connectedAppVpns.equals(other.connectedAppVpns)
+                    || !alwaysOnAppVpnInfos.equals(other.alwaysOnAppVpnInfos)
+                    || !TextUtils.equals(lockdownVpnKey, other.lockdownVpnKey)
+                    || advancedVpnGearEnabled != other.advancedVpnGearEnabled
+                    || connectedLegacyVpns.size() != other.connectedLegacyVpns.size()) {
+                return false;
+            }
+            for (LegacyVpnInfo vpn : connectedLegacyVpns.values()) {
+                final LegacyVpnInfo otherVpn = other.connectedLegacyVpns.get(vpn.key);
+                if (otherVpn == null || otherVpn.state != vpn.state) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         @Override @UiThread
         public void run() {
             if (!mSettings.canAddPreferences()) {
@@ -343,6 +431,7 @@ public class VpnSettings extends RestrictedDashboardFragment implements
             }
 
             // Add VpnService VPNs
+            mSettings.mAdvancedVpnGearEnabled = advancedVpnGearEnabled;
             for (AppVpnInfo app : vpnApps) {
                 AppPreference p = mSettings.findOrCreatePreference(app);
                 if (connectedAppVpns.contains(app)) {
@@ -506,19 +595,32 @@ public class VpnSettings extends RestrictedDashboardFragment implements
     private NetworkCallback mNetworkCallback = new NetworkCallback() {
         @Override
         public void onAvailable(Network network) {
-            if (mUpdater != null) {
-                mUpdater.sendEmptyMessage(RESCAN_MESSAGE);
-            }
+            refreshVpnList();
         }
 
         @Override
         public void onLost(Network network) {
-            if (mUpdater != null) {
-                mUpdater.sendEmptyMessage(RESCAN_MESSAGE);
-            }
+            refreshVpnList();
         }
     };
 
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            mVpnAppsChanged.set(true);
+            refreshVpnList();
+        }
+    };
+
+    private final AppOpsManager.OnOpChangedListener mOpChangedListener =
+            new AppOpsManager.OnOpChangedListener() {
+                @Override
+                public void onOpChanged(String op, String packageName) {
+                    mVpnAppsChanged.set(true);
+                    refreshVpnList();
+                }
+            };
+
     @VisibleForTesting @UiThread
     public LegacyVpnPreference findOrCreatePreference(VpnProfile profile, boolean update) {
         LegacyVpnPreference pref = mLegacyVpnPreferences.get(profile.key);
@@ -551,25 +653,10 @@ public class VpnSettings extends RestrictedDashboardFragment implements
     }
 
     private void enableAdvancedVpnGearIconIfNecessary(AppPreference pref) {
-        Context context = getContext();
-        if (!isAdvancedVpn(mFeatureProvider, pref.getPackageName(), context)) {
+        if (!isAdvancedVpn(mFeatureProvider, pref.getPackageName(), getContext())) {
             return;
         }
-
-        boolean isEnabled = false;
-        AppOpsManager appOpsManager = getContext().getSystemService(AppOpsManager.class);
-        List<AppOpsManager.PackageOps> apps =
-                appOpsManager.getPackagesForOps(
-                        new int[] {OP_ACTIVATE_VPN, OP_ACTIVATE_PLATFORM_VPN});
-        if (apps != null) {
-            for (AppOpsManager.PackageOps pkg : apps) {
-                if (isAdvancedVpn(mFeatureProvider, pkg.getPackageName(), context)) {
-                    isEnabled = true;
-                    break;
-                }
-            }
-        }
-        pref.setOnGearClickListener(isEnabled ? mGearListener : null);
+        pref.setOnGearClickListener(mAdvancedVpnGearEnabled ? mGearListener : null);
     }
 
     @WorkerThread
@@ -616,6 +703,27 @@ public class VpnSettings extends RestrictedDashboardFragment implements
     @VisibleForTesting
     static List<AppVpnInfo> getVpnApps(Context context, boolean includeProfiles,
             AdvancedVpnFeatureProvider featureProvider, AppOpsManager aom) {
+        return getVpnApps(context, includeProfiles, featureProvider, getVpnPackageOps(aom));
+    }
+
+    private static List<AppOpsManager.PackageOps> getVpnPackageOps(AppOpsManager aom) {
+        return aom.getPackagesForOps(new int[] {OP_ACTIVATE_VPN, OP_ACTIVATE_PLATFORM_VPN});
+    }
+
+    private static boolean hasAdvancedVpnOps(Context context,
+            AdvancedVpnFeatureProvider featureProvider, List<AppOpsManager.PackageOps> apps) {
+        if (apps != null) {
+            for (AppOpsManager.PackageOps pkg : apps) {
+                if (isAdvancedVpn(featureProvider, pkg.getPackageName(), context)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<AppVpnInfo> getVpnApps(Context context, boolean includeProfiles,
+            AdvancedVpnFeatureProvider featureProvider, List<AppOpsManager.PackageOps> apps) {
         List<AppVpnInfo> result = Lists.newArrayList();
 
         final Set<Integer> profileIds;
@@ -641,8 +749,6 @@ public class VpnSettings extends RestrictedDashboardFragment implements
             }
         }
 
-        List<AppOpsManager.PackageOps> apps =
-                aom.getPackagesForOps(new int[] {OP_ACTIVATE_VPN, OP_ACTIVATE_PLATFORM_VPN});
         if (apps != null) {
             for (AppOpsManager.PackageOps pkg : apps) {
                 int userId = UserHandle.getUserId(pkg.getUid());
@@ -677,19 +783,6 @@ public class VpnSettings extends RestrictedDashboardFragment implements
                 && TextUtils.equals(packageName, featureProvider.getAdvancedVpnPackageName());
     }
 
-    private static List<VpnProfile> loadVpnProfiles() {
-        final ArrayList<VpnProfile> result = Lists.newArrayList();
-
-        for (String key : LegacyVpnProfileStore.list(Credentials.VPN)) {
-            final VpnProfile profile = VpnProfile.decode(key,
-                    LegacyVpnProfileStore.get(Credentials.VPN + key));
-            if (profile != null) {
-                result.add(profile);
-            }
-        }
-        return result;
-    }
-
     @VisibleForTesting
     void init(PreferenceScreen preferenceScreen, AdvancedVpnFeatureProvider featureProvider) {
         mPreferenceScreen = preferenceScreen;
@@ -22,8 +22,14 @@ import android.provider.Settings;
 import android.security.Credentials;
 import android.security.LegacyVpnProfileStore;
 
+import com.android.internal.annotations.GuardedBy;
 import com.android.internal.net.LegacyVpnInfo;
 import com.android.internal.net.VpnConfig;
+import com.android.internal.net.VpnProfile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Utility functions for vpn.
@@ -34,6 +40,67 @@ public class VpnUtils {
 
     private static final String TAG = "VpnUtils";
 
+    private static final Object sProfilesLock = new Object();
+    // Bumped whenever the stored profiles may have changed
+    @GuardedBy("sProfilesLock")
+    private static int sProfilesGeneration;
+    @GuardedBy("sProfilesLock")
+    private static int sCachedProfilesGeneration = -1;
+    @GuardedBy("sProfilesLock")
+    private static List<VpnProfile> sCachedProfiles;
+
+    /**
+     * Returns an unmodifiable list of the stored VPN profiles. The profile store is only read
+     * again once a profile was saved or removed, or {@link #invalidateVpnProfiles} was called.
+     */
+    public static List<VpnProfile> loadVpnProfiles() {
+        final int generation;
+        synchronized (sProfilesLock) {
+            if (sCachedProfiles != null && sCachedProfilesGeneration == sProfilesGeneration) {
+                return sCachedProfiles;
+            }
+            generation = sProfilesGeneration;
+        }
+
+        final List<VpnProfile> result = new ArrayList<>();
+        for (String key : LegacyVpnProfileStore.list(Credentials.VPN)) {
+            final VpnProfile profile = VpnProfile.decode(key,
+                    LegacyVpnProfileStore.get(Credentials.VPN + key));
+            if (profile != null) {
+                result.add(profile);
+            }
+        }
+        final List<VpnProfile> profiles = Collections.unmodifiableList(result);
+
+        synchronized (sProfilesLock) {
+            // Do not cache a list that was read while a profile was being written
+            if (generation == sProfilesGeneration) {
+                sCachedProfiles = profiles;
+                sCachedProfilesGeneration = generation;
+            }
+        }
+        return profiles;
+    }
+
+    /** Stores {@code profile}, replacing any profile with the same key. */
+    public static void saveVpnProfile(VpnProfile profile) {
+        LegacyVpnProfileStore.put(Credentials.VPN + profile.key, profile.encode());
+        invalidateVpnProfiles();
+    }
+
+    /** Removes the stored profile with {@code key}. */
+    public static void removeVpnProfile(String key) {
+        LegacyVpnProfileStore.remove(Credentials.VPN + key);
+        invalidateVpnProfiles();
+    }
+
+    /** Makes the next {@link #loadVpnProfiles} read the profile store again. */
+    public static void invalidateVpnProfiles() {
+        synchronized (sProfilesLock) {
+            sProfilesGeneration++;
+        }
+    }
+
     public static String getLockdownVpn() {
         final byte[] value = LegacyVpnProfileStore.get(Credentials.LOCKDOWN_VPN);
         return value == null ? null : new String(value);
@@ -55,6 +55,23 @@ public class HomepagePreference extends Preference implements
         mHelper.onBindViewHolder(holder);
     }
 
+    @Override
+    public void setTitle(CharSequence title) {
+        super.setTitle(title);
+        // The helper is not created yet while the super constructor runs.
+        if (mHelper != null) {
+            mHelper.setTitleRestored(false);
+        }
+    }
+
+    @Override
+    public void setSummary(CharSequence summary) {
+        super.setSummary(summary);
+        if (mHelper != null) {
+            mHelper.setSummaryRestored(false);
+        }
+    }
+
     @Override
     public HomepagePreferenceLayoutHelper getHelper() {
         return mHelper;
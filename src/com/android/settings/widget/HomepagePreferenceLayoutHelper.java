@@ -31,6 +31,8 @@ public class HomepagePreferenceLayoutHelper {
     private boolean mIconVisible = true;
     private int mIconPaddingStart = -1;
     private int mTextPaddingStart = -1;
+    private boolean mTitleRestored;
+    private boolean mSummaryRestored;
 
     /** The interface for managing preference layouts on homepage */
     public interface HomepagePreferenceLayout {
@@ -68,6 +70,26 @@ public class HomepagePreferenceLayoutHelper {
         }
     }
 
+    /** Sets whether the title is the last known one of a previous session */
+    public void setTitleRestored(boolean restored) {
+        mTitleRestored = restored;
+    }
+
+    /** Returns whether the title is the last known one of a previous session */
+    public boolean isTitleRestored() {
+        return mTitleRestored;
+    }
+
+    /** Sets whether the summary is the last known one of a previous session */
+    public void setSummaryRestored(boolean restored) {
+        mSummaryRestored = restored;
+    }
+
+    /** Returns whether the summary is the last known one of a previous session */
+    public boolean isSummaryRestored() {
+        return mSummaryRestored;
+    }
+
     void onBindViewHolder(PreferenceViewHolder holder) {
         mIcon = holder.findViewById(R.id.icon_frame);
         mText = holder.findViewById(R.id.text_frame);
@@ -56,6 +56,23 @@ public class RestrictedHomepagePreference extends RestrictedTopLevelPreference i
         mHelper.onBindViewHolder(holder);
     }
 
+    @Override
+    public void setTitle(CharSequence title) {
+        super.setTitle(title);
+        // The helper is not created yet while the super constructor runs.
+        if (mHelper != null) {
+            mHelper.setTitleRestored(false);
+        }
+    }
+
+    @Override
+    public void setSummary(CharSequence summary) {
+        super.setSummary(summary);
+        if (mHelper != null) {
+            mHelper.setSummaryRestored(false);
+        }
+    }
+
     @Override
     public HomepagePreferenceLayoutHelper getHelper() {
         return mHelper;
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.app.AppOpsManager;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+
+import com.android.settings.applications.AppStateInstallAppsBridge.InstallAppsState;
+import com.android.settings.applications.AppStateNotificationBridge.NotificationsSentState;
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic app lists used by the app list benchmarks.
+ *
+ * <p>Every fixture is generated from a fixed seed, so two runs of a benchmark always filter
+ * exactly the same entries.
+ */
+public final class AppEntryFixtures {
+
+    /** Default number of installed apps. */
+    public static final int DEFAULT_APP_COUNT = 300;
+
+    /** The bridge state attached to every entry, as the list type of the app list would. */
+    public enum ExtraInfo {
+        /** No bridge state, as on the main app list. */
+        NONE,
+        /** {@link InstallAppsState} of {@link AppStateInstallAppsBridge}. */
+        INSTALL_SOURCES,
+        /** {@link NotificationsSentState} of {@link AppStateNotificationBridge}. */
+        NOTIFICATIONS,
+        /** Allowlisted flag of {@link AppStatePowerBridge}. */
+        POWER_ALLOWLIST,
+    }
+
+    private static final long SEED = 20230101L;
+
+    private AppEntryFixtures() {
+    }
+
+    /**
+     * Returns {@code appCount} entries with {@code extraInfo} attached. About a third are system
+     * apps, one in eight is disabled and one in four has no launcher entry.
+     */
+    public static List<AppEntry> createEntries(Context context, int appCount,
+            ExtraInfo extraInfo) {
+        final Random random = new Random(SEED);
+        final List<AppEntry> entries = new ArrayList<>(appCount);
+        for (int i = 0; i < appCount; i++) {
+            final ApplicationInfo info = new ApplicationInfo();
+            info.packageName = "com.example.app" + i;
+            info.sourceDir = "/data/app/" + info.packageName + "/base.apk";
+            info.uid = 10000 + i;
+            info.enabled = random.nextInt(8) != 0;
+            if (random.nextInt(3) == 0) {
+                info.flags |= ApplicationInfo.FLAG_SYSTEM;
+            }
+            final AppEntry entry = new AppEntry(context, info, i);
+            entry.label = "App " + Integer.toString(random.nextInt(appCount * 10), 36);
+            entry.hasLauncherEntry = random.nextInt(4) != 0;
+            entry.extraInfo = createExtraInfo(random, extraInfo);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static Object createExtraInfo(Random random, ExtraInfo extraInfo) {
+        switch (extraInfo) {
+            case INSTALL_SOURCES:
+                final InstallAppsState installAppsState = new InstallAppsState();
+                installAppsState.permissionRequested = random.nextInt(10) == 0;
+                if (installAppsState.permissionRequested && random.nextBoolean()) {
+                    installAppsState.appOpMode = AppOpsManager.MODE_ALLOWED;
+                }
+                return installAppsState;
+            case NOTIFICATIONS:
+                final NotificationsSentState sentState = new NotificationsSentState();
+                sentState.sentCount = random.nextInt(50);
+                sentState.blockable = random.nextInt(5) != 0;
+                sentState.blocked = sentState.blockable && random.nextInt(6) == 0;
+                return sentState;
+            case POWER_ALLOWLIST:
+                return random.nextInt(20) == 0;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.applications.AppEntryFixtures;
+import com.android.settings.applications.AppEntryFixtures.ExtraInfo;
+import com.android.settings.tests.perf.micro.MicroBenchmark;
+import com.android.settingslib.applications.ApplicationsState;
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+import com.android.settingslib.applications.ApplicationsState.AppFilter;
+import com.android.settingslib.applications.ApplicationsState.CompoundFilter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+/**
+ * Benchmarks of the production filters {@link ManageApplications} hands to its session when the
+ * list is rebuilt, composed the same way as the app list does when system apps are hidden.
+ *
+ * <p>Only the {@link AppFilter#init} and {@link AppFilter#filterApp} calls are measured; sorting
+ * and the session bookkeeping stay in {@code ApplicationsState}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ManageApplicationsFilterBenchmark {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void filter_allApps() throws Exception {
+        benchmark("filter_allApps", AppFilterRegistry.FILTER_APPS_ALL, ExtraInfo.NONE);
+    }
+
+    @Test
+    public void filter_enabledApps() throws Exception {
+        benchmark("filter_enabledApps", AppFilterRegistry.FILTER_APPS_ENABLED, ExtraInfo.NONE);
+    }
+
+    @Test
+    public void filter_installSources() throws Exception {
+        benchmark("filter_installSources", AppFilterRegistry.FILTER_APPS_INSTALL_SOURCES,
+                ExtraInfo.INSTALL_SOURCES);
+    }
+
+    @Test
+    public void filter_blockedNotifications() throws Exception {
+        benchmark("filter_blockedNotifications", AppFilterRegistry.FILTER_APPS_BLOCKED,
+                ExtraInfo.NOTIFICATIONS);
+    }
+
+    @Test
+    public void filter_powerAllowlist() throws Exception {
+        benchmark("filter_powerAllowlist", AppFilterRegistry.FILTER_APPS_POWER_ALLOWLIST,
+                ExtraInfo.POWER_ALLOWLIST);
+    }
+
+    private void benchmark(String caseName, int filterType, ExtraInfo extraInfo)
+            throws Exception {
+        final List<AppEntry> entries = AppEntryFixtures.createEntries(
+                mContext, AppEntryFixtures.DEFAULT_APP_COUNT, extraInfo);
+        final AppFilter filter = new CompoundFilter(new CompoundFilter(
+                AppFilterRegistry.getInstance().get(filterType).getFilter(),
+                ApplicationsState.FILTER_DOWNLOADED_AND_LAUNCHER),
+                ApplicationsState.FILTER_NOT_HIDE);
+        MicroBenchmark.of(getClass(), caseName)
+                .run(() -> assertThat(countMatches(filter, entries)).isGreaterThan(0));
+    }
+
+    private int countMatches(AppFilter filter, List<AppEntry> entries) {
+        filter.init(mContext);
+        int count = 0;
+        for (AppEntry entry : entries) {
+            if (filter.filterApp(entry)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
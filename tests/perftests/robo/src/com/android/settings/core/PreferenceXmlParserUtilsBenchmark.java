@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.R;
+import com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag;
+import com.android.settings.tests.perf.micro.MicroBenchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/** Benchmarks of {@link PreferenceXmlParserUtils#extractMetadata}. */
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceXmlParserUtilsBenchmark {
+
+    /** The flags used when building the search index and slices. */
+    private static final int SEARCH_FLAGS = MetadataFlag.FLAG_INCLUDE_PREF_SCREEN
+            | MetadataFlag.FLAG_NEED_KEY
+            | MetadataFlag.FLAG_NEED_PREF_TYPE
+            | MetadataFlag.FLAG_NEED_PREF_CONTROLLER
+            | MetadataFlag.FLAG_NEED_PREF_TITLE
+            | MetadataFlag.FLAG_NEED_PREF_SUMMARY
+            | MetadataFlag.FLAG_NEED_PREF_ICON
+            | MetadataFlag.FLAG_NEED_KEYWORDS
+            | MetadataFlag.FLAG_NEED_SEARCHABLE;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void extractMetadata_developmentSettings() throws Exception {
+        benchmark("extractMetadata_developmentSettings", R.xml.development_settings);
+    }
+
+    @Test
+    public void extractMetadata_accessibilitySettings() throws Exception {
+        benchmark("extractMetadata_accessibilitySettings", R.xml.accessibility_settings);
+    }
+
+    @Test
+    public void extractMetadata_topLevelSettings() throws Exception {
+        benchmark("extractMetadata_topLevelSettings", R.xml.top_level_settings);
+    }
+
+    private void benchmark(String caseName, int xmlResId) throws Exception {
+        MicroBenchmark.of(getClass(), caseName)
+                .run(() -> assertThat(PreferenceXmlParserUtils.extractMetadata(
+                        mContext, xmlResId, SEARCH_FLAGS)).isNotEmpty());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.android.settingslib.drawer.TileUtils.META_DATA_KEY_ORDER;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.os.Bundle;
+import android.util.Pair;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.tests.perf.micro.MicroBenchmark;
+import com.android.settingslib.drawer.ActivityTile;
+import com.android.settingslib.drawer.CategoryKey;
+import com.android.settingslib.drawer.DashboardCategory;
+import com.android.settingslib.drawer.Tile;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** Benchmarks of the tile post-processing {@link CategoryManager} runs on every reload. */
+@RunWith(RobolectricTestRunner.class)
+public class CategoryManagerBenchmark {
+
+    private static final int PACKAGE_COUNT = 60;
+    private static final int TILES_PER_PACKAGE = 4;
+    private static final long SEED = 20230101L;
+
+    private Context mContext;
+    private CategoryManager mCategoryManager;
+    private Map<Pair<String, String>, Tile> mTileByComponentCache;
+    private Map<String, DashboardCategory> mCategoryByKeyMap;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mCategoryManager = CategoryManager.get(mContext);
+    }
+
+    @Test
+    public void processTiles_syntheticPackages() throws Exception {
+        MicroBenchmark.of(getClass(), "processTiles_syntheticPackages")
+                .setSetup(this::createTiles)
+                .run(() -> {
+                    mCategoryManager.backwardCompatCleanupForCategory(
+                            mTileByComponentCache, mCategoryByKeyMap);
+                    mCategoryManager.sortCategories(mContext, mCategoryByKeyMap);
+                    mCategoryManager.filterDuplicateTiles(mCategoryByKeyMap);
+                });
+    }
+
+    @Test
+    public void sortCategories_syntheticPackages() throws Exception {
+        MicroBenchmark.of(getClass(), "sortCategories_syntheticPackages")
+                .setSetup(this::createTiles)
+                .run(() -> mCategoryManager.sortCategories(mContext, mCategoryByKeyMap));
+    }
+
+    /**
+     * Builds the tiles of {@link #PACKAGE_COUNT} packages. A quarter of the packages only use
+     * legacy category keys, and one tile in ten is injected twice.
+     */
+    private void createTiles() {
+        final Random random = new Random(SEED);
+        final List<String> newKeys = new ArrayList<>(CategoryKey.KEY_COMPAT_MAP.values());
+        final List<String> oldKeys = new ArrayList<>(CategoryKey.KEY_COMPAT_MAP.keySet());
+        mTileByComponentCache = new HashMap<>();
+        mCategoryByKeyMap = new HashMap<>();
+        for (int p = 0; p < PACKAGE_COUNT; p++) {
+            final String packageName = "com.example.package" + p;
+            final boolean legacyOnly = p % 4 == 0;
+            for (int t = 0; t < TILES_PER_PACKAGE; t++) {
+                final List<String> keys = legacyOnly ? oldKeys : newKeys;
+                final String categoryKey = keys.get(random.nextInt(keys.size()));
+                final String className = packageName + ".Activity" + t;
+                final Tile tile = createActivityTile(
+                        categoryKey, packageName, className, random.nextInt(100));
+                mTileByComponentCache.put(new Pair<>(packageName, className), tile);
+                final DashboardCategory category = mCategoryByKeyMap.computeIfAbsent(
+                        categoryKey, DashboardCategory::new);
+                category.addTile(tile);
+                if (random.nextInt(10) == 0) {
+                    category.addTile(createActivityTile(
+                            categoryKey, packageName, className, random.nextInt(100)));
+                }
+            }
+        }
+    }
+
+    private static Tile createActivityTile(String categoryKey, String packageName,
+            String className, int order) {
+        final ActivityInfo activityInfo = new ActivityInfo();
+        activityInfo.packageName = packageName;
+        activityInfo.name = className;
+        activityInfo.applicationInfo = new ApplicationInfo();
+        activityInfo.metaData = new Bundle();
+        activityInfo.metaData.putInt(META_DATA_KEY_ORDER, order);
+        return new ActivityTile(activityInfo, categoryKey);
+    }
+}
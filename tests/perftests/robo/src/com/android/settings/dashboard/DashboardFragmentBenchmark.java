@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.app.settings.SettingsEnums;
+import android.content.Context;
+
+import androidx.preference.Preference;
+import androidx.preference.PreferenceManager;
+import androidx.preference.PreferenceScreen;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
+import com.android.settings.core.PreferenceControllerListHelper;
+import com.android.settings.tests.perf.micro.MicroBenchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Benchmarks of the per-controller passes {@link DashboardFragment} runs over the controllers of
+ * the homepage whenever it is resumed.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DashboardFragmentBenchmark {
+
+    private Context mContext;
+    private BenchmarkFragment mFragment;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        final PreferenceScreen screen = new PreferenceManager(mContext).inflateFromResource(
+                mContext, R.xml.top_level_settings, null /* rootPreferences */);
+        mFragment = new BenchmarkFragment(mContext, screen);
+        // Same controllers and display pass as DashboardFragment#onAttach and
+        // DashboardFragment#onCreatePreferences.
+        for (BasePreferenceController controller : PreferenceControllerListHelper
+                .getPreferenceControllersFromXml(mContext, R.xml.top_level_settings)) {
+            mFragment.addPreferenceController(controller);
+            controller.displayPreference(screen);
+        }
+    }
+
+    @Test
+    public void updatePreferenceStates_topLevelControllers() throws Exception {
+        MicroBenchmark.of(getClass(), "updatePreferenceStates_topLevelControllers")
+                .run(() -> mFragment.updatePreferenceStates());
+    }
+
+    @Test
+    public void forceUpdatePreferences_topLevelControllers() throws Exception {
+        MicroBenchmark.of(getClass(), "forceUpdatePreferences_topLevelControllers")
+                .run(() -> mFragment.forceUpdatePreferences());
+    }
+
+    /** Dashboard fragment backed by a prebuilt screen, without a host activity. */
+    private static class BenchmarkFragment extends DashboardFragment {
+
+        private final Context mContext;
+        private final PreferenceScreen mScreen;
+
+        BenchmarkFragment(Context context, PreferenceScreen screen) {
+            mContext = context;
+            mScreen = screen;
+        }
+
+        @Override
+        public Context getContext() {
+            return mContext;
+        }
+
+        @Override
+        public PreferenceScreen getPreferenceScreen() {
+            return mScreen;
+        }
+
+        @Override
+        public <T extends Preference> T findPreference(CharSequence key) {
+            return mScreen.findPreference(key);
+        }
+
+        @Override
+        public int getMetricsCategory() {
+            return SettingsEnums.DASHBOARD_SUMMARY;
+        }
+
+        @Override
+        protected int getPreferenceScreenResId() {
+            return R.xml.top_level_settings;
+        }
+
+        @Override
+        protected String getLogTag() {
+            return "DashboardBenchmark";
+        }
+    }
+}
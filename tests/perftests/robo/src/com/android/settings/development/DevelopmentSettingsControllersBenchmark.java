@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.development;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.tests.perf.micro.MicroBenchmark;
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Benchmarks of the controllers {@link DevelopmentSettingsDashboardFragment} creates when it is
+ * opened: {@code allControllers} is the page before controllers were deferred, and
+ * {@code firstScreenControllers} what it creates before its first frame now.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DevelopmentSettingsControllersBenchmark {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void allControllers() throws Exception {
+        MicroBenchmark.of(getClass(), "allControllers")
+                .run(() -> {
+                    final List<AbstractPreferenceController> controllers =
+                            createFirstScreenControllers();
+                    for (Supplier<AbstractPreferenceController> controller
+                            : DevelopmentSettingsDashboardFragment
+                                    .buildDeferredPreferenceControllers(mContext)) {
+                        controllers.add(controller.get());
+                    }
+                });
+    }
+
+    @Test
+    public void firstScreenControllers() throws Exception {
+        MicroBenchmark.of(getClass(), "firstScreenControllers")
+                .run(this::createFirstScreenControllers);
+    }
+
+    private List<AbstractPreferenceController> createFirstScreenControllers() {
+        return DevelopmentSettingsDashboardFragment.buildPreferenceControllers(mContext,
+                null /* activity */, null /* lifecycle */, null /* fragment */,
+                null /* bluetoothA2dpConfigStore */);
+    }
+}
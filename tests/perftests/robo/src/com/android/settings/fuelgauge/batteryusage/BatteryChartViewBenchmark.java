@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.tests.perf.micro.MicroBenchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/** Benchmarks of drawing {@link BatteryChartView}. */
+@RunWith(RobolectricTestRunner.class)
+public class BatteryChartViewBenchmark {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 600;
+    /** One day of hourly levels, as shown by the hourly chart. */
+    private static final int HOURLY_LEVEL_COUNT = 25;
+    /** One week of daily levels, as shown by the daily chart. */
+    private static final int DAILY_LEVEL_COUNT = 8;
+
+    private Context mContext;
+    private Canvas mCanvas;
+    private BatteryChartView mChartView;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mCanvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        mChartView = new BatteryChartView(mContext, /* attrs= */ null);
+        mChartView.setCompanionTextView(new TextView(mContext));
+    }
+
+    @Test
+    public void draw_hourlyChart() throws Exception {
+        setViewModel(BatteryUsageFixtures.createChartViewModel(HOURLY_LEVEL_COUNT,
+                BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS));
+        MicroBenchmark.of(getClass(), "draw_hourlyChart")
+                .run(() -> mChartView.draw(mCanvas));
+    }
+
+    @Test
+    public void draw_dailyChart() throws Exception {
+        setViewModel(BatteryUsageFixtures.createChartViewModel(DAILY_LEVEL_COUNT,
+                BatteryChartViewModel.AxisLabelPosition.CENTER_OF_TRAPEZOIDS));
+        MicroBenchmark.of(getClass(), "draw_dailyChart")
+                .run(() -> mChartView.draw(mCanvas));
+    }
+
+    @Test
+    public void draw_hourlyChartSelectionScrub() throws Exception {
+        final BatteryChartViewModel viewModel = BatteryUsageFixtures.createChartViewModel(
+                HOURLY_LEVEL_COUNT, BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS);
+        setViewModel(viewModel);
+        final int[] selectedIndex = new int[1];
+        // Moves the selection one slot per frame, as dragging over the chart does.
+        MicroBenchmark.of(getClass(), "draw_hourlyChartSelectionScrub")
+                .setSetup(() -> {
+                    selectedIndex[0] = (selectedIndex[0] + 1) % (HOURLY_LEVEL_COUNT - 1);
+                    viewModel.setSelectedIndex(selectedIndex[0]);
+                    mChartView.setViewModel(viewModel);
+                    layout();
+                })
+                .run(() -> mChartView.draw(mCanvas));
+    }
+
+    @Test
+    public void draw_hourlyChartNewViewModel() throws Exception {
+        MicroBenchmark.of(getClass(), "draw_hourlyChartNewViewModel")
+                .setSetup(() -> setViewModel(BatteryUsageFixtures.createChartViewModel(
+                        HOURLY_LEVEL_COUNT,
+                        BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS)))
+                .run(() -> mChartView.draw(mCanvas));
+    }
+
+    private void setViewModel(BatteryChartViewModel viewModel) {
+        mChartView.setViewModel(viewModel);
+        layout();
+    }
+
+    private void layout() {
+        mChartView.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mChartView.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.ContentValues;
+import android.text.format.DateUtils;
+import android.util.ArrayMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic battery history used by the battery usage benchmarks.
+ *
+ * <p>Every fixture is generated from a fixed seed, so two runs of a benchmark always process
+ * exactly the same data.
+ */
+public final class BatteryUsageFixtures {
+
+    /** 2022-01-01 00:00:00 UTC, the first timestamp of every fixture. */
+    public static final long START_TIMESTAMP = 1640995200000L;
+    /** Default number of days of history. */
+    public static final int DEFAULT_DAYS = 7;
+    /** Default number of apps with battery usage. */
+    public static final int DEFAULT_APP_COUNT = 300;
+
+    private static final long SEED = 20230101L;
+    private static final int SYSTEM_COMPONENT_COUNT = 20;
+
+    private BatteryUsageFixtures() {
+    }
+
+    /** Returns the hourly timestamps of {@code days} days of history. */
+    public static long[] createHourlyTimestamps(int days) {
+        final long[] timestamps = new long[days * 24 + 1];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = START_TIMESTAMP + i * DateUtils.HOUR_IN_MILLIS;
+        }
+        return timestamps;
+    }
+
+    /** Returns a battery level per timestamp, discharging and recharging once a day. */
+    public static BatteryLevelData createBatteryLevelData(long[] timestamps) {
+        final Map<Long, Integer> batteryLevelMap = new ArrayMap<>();
+        for (int i = 0; i < timestamps.length; i++) {
+            batteryLevelMap.put(timestamps[i], 100 - (i % 24) * 3);
+        }
+        return new BatteryLevelData(batteryLevelMap);
+    }
+
+    /**
+     * Returns a battery history of {@code appCount} apps plus a few system components with
+     * cumulative usage growing every hour, in the format returned by the battery database.
+     */
+    public static Map<Long, Map<String, BatteryHistEntry>> createBatteryHistoryMap(
+            long[] timestamps, int appCount, int userId) {
+        final Random random = new Random(SEED);
+        final int entryCount = appCount + SYSTEM_COMPONENT_COUNT;
+        final double[] consumePower = new double[entryCount];
+        final long[] foregroundTime = new long[entryCount];
+        final long[] backgroundTime = new long[entryCount];
+
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap = new ArrayMap<>();
+        for (long timestamp : timestamps) {
+            final Map<String, BatteryHistEntry> entryMap = new ArrayMap<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                // Only a subset of the apps is used in every hour, as on a real device.
+                if (random.nextInt(4) == 0) {
+                    consumePower[i] += random.nextDouble() * 10;
+                    foregroundTime[i] += random.nextInt((int) DateUtils.MINUTE_IN_MILLIS * 10);
+                    backgroundTime[i] += random.nextInt((int) DateUtils.MINUTE_IN_MILLIS * 5);
+                }
+                final boolean isApp = i < appCount;
+                final BatteryHistEntry entry = createBatteryHistEntry(
+                        isApp ? "com.example.app" + i : "",
+                        isApp ? "App " + i : "System " + i,
+                        consumePower[i],
+                        isApp ? 10000L + i : i,
+                        userId,
+                        isApp ? ConvertUtils.CONSUMER_TYPE_UID_BATTERY
+                                : ConvertUtils.CONSUMER_TYPE_SYSTEM_BATTERY,
+                        isApp ? 0 : i,
+                        foregroundTime[i],
+                        backgroundTime[i],
+                        timestamp);
+                entryMap.put(entry.getKey(), entry);
+            }
+            batteryHistoryMap.put(timestamp, entryMap);
+        }
+        return batteryHistoryMap;
+    }
+
+    private static BatteryHistEntry createBatteryHistEntry(String packageName, String appLabel,
+            double consumePower, long uid, long userId, int consumerType, int drainType,
+            long foregroundUsageTimeInMs, long backgroundUsageTimeInMs, long timestamp) {
+        final BatteryInformation batteryInformation =
+                BatteryInformation
+                        .newBuilder()
+                        .setAppLabel(appLabel)
+                        .setConsumePower(consumePower)
+                        .setForegroundUsageConsumePower(consumePower * 0.6)
+                        .setForegroundServiceUsageConsumePower(consumePower * 0.1)
+                        .setBackgroundUsageConsumePower(consumePower * 0.2)
+                        .setCachedUsageConsumePower(consumePower * 0.1)
+                        .setForegroundUsageTimeInMs(foregroundUsageTimeInMs)
+                        .setBackgroundUsageTimeInMs(backgroundUsageTimeInMs)
+                        .setDrainType(drainType)
+                        .build();
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_PACKAGE_NAME, packageName);
+        values.put(BatteryHistEntry.KEY_UID, uid);
+        values.put(BatteryHistEntry.KEY_USER_ID, userId);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, consumerType);
+        values.put(BatteryHistEntry.KEY_TIMESTAMP, timestamp);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION,
+                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+        return new BatteryHistEntry(values);
+    }
+
+    /**
+     * Returns a chart view model of {@code levelCount} hourly levels, following the same daily
+     * discharge pattern as {@link #createBatteryLevelData}.
+     */
+    static BatteryChartViewModel createChartViewModel(int levelCount,
+            BatteryChartViewModel.AxisLabelPosition axisLabelPosition) {
+        final List<Integer> levels = new ArrayList<>(levelCount);
+        final List<Long> timestamps = new ArrayList<>(levelCount);
+        for (int i = 0; i < levelCount; i++) {
+            levels.add(100 - (i % 24) * 3);
+            timestamps.add(START_TIMESTAMP + i * DateUtils.HOUR_IN_MILLIS);
+        }
+        return new BatteryChartViewModel(levels, timestamps, axisLabelPosition,
+                new BatteryChartViewModel.LabelTextGenerator() {
+                    @Override
+                    public String generateText(List<Long> timestamps, int index) {
+                        return String.format(Locale.US, "%d h", index % 24);
+                    }
+
+                    @Override
+                    public String generateFullText(List<Long> timestamps, int index) {
+                        return String.format(Locale.US, "Hour %d", index);
+                    }
+                });
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.tests.perf.micro.MicroBenchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Map;
+import java.util.Set;
+
+/** Benchmarks of the {@link DataProcessor} battery usage pipeline. */
+@RunWith(RobolectricTestRunner.class)
+public class DataProcessorBenchmark {
+
+    private Context mContext;
+    private BatteryLevelData mBatteryLevelData;
+    private Map<Long, Map<String, BatteryHistEntry>> mBatteryHistoryMap;
+    private Map<Long, BatteryDiffData> mBatteryDiffDataMap;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        final long[] timestamps =
+                BatteryUsageFixtures.createHourlyTimestamps(BatteryUsageFixtures.DEFAULT_DAYS);
+        mBatteryLevelData = BatteryUsageFixtures.createBatteryLevelData(timestamps);
+        mBatteryHistoryMap = BatteryUsageFixtures.createBatteryHistoryMap(
+                timestamps, BatteryUsageFixtures.DEFAULT_APP_COUNT, mContext.getUserId());
+    }
+
+    @Test
+    public void getBatteryDiffDataMap_weekOfHistory() throws Exception {
+        MicroBenchmark.of(getClass(), "getBatteryDiffDataMap_weekOfHistory")
+                .setWarmupIterations(5)
+                .setMeasuredIterations(20)
+                .run(() -> createBatteryDiffDataMap());
+    }
+
+    @Test
+    public void generateBatteryUsageMap_weekOfHistory() throws Exception {
+        MicroBenchmark.of(getClass(), "generateBatteryUsageMap_weekOfHistory")
+                .setWarmupIterations(5)
+                .setMeasuredIterations(20)
+                .setSetup(() -> mBatteryDiffDataMap = createBatteryDiffDataMap())
+                .run(() -> assertThat(DataProcessor.generateBatteryUsageMap(
+                        mContext, mBatteryDiffDataMap, mBatteryLevelData)).isNotNull());
+    }
+
+    @Test
+    public void getHistoryMapWithExpectedTimestamps_weekOfHistory() throws Exception {
+        MicroBenchmark.of(getClass(), "getHistoryMapWithExpectedTimestamps_weekOfHistory")
+                .setWarmupIterations(5)
+                .setMeasuredIterations(20)
+                .run(() -> assertThat(DataProcessor.getHistoryMapWithExpectedTimestamps(
+                        mContext, mBatteryHistoryMap)).isNotEmpty());
+    }
+
+    private Map<Long, BatteryDiffData> createBatteryDiffDataMap() {
+        return DataProcessor.getBatteryDiffDataMap(mContext,
+                mBatteryLevelData.getHourlyBatteryLevelsPerDay(), mBatteryHistoryMap,
+                /* appUsagePeriodMap= */ null, Set.of(), Set.of());
+    }
+}
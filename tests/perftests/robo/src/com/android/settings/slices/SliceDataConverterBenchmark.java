@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.tests.perf.micro.MicroBenchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/** Benchmarks of {@link SliceDataConverter#getSliceData()} over every indexable fragment. */
+@RunWith(RobolectricTestRunner.class)
+public class SliceDataConverterBenchmark {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void getSliceData_allProviders() throws Exception {
+        MicroBenchmark.of(getClass(), "getSliceData_allProviders")
+                .setWarmupIterations(1)
+                .setMeasuredIterations(5)
+                .run(() -> assertThat(new SliceDataConverter(mContext).getSliceData())
+                        .isNotEmpty());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.tests.perf.micro;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes {@link BenchmarkResult}s to stdout and, one JSON object per line, to the results file.
+ */
+public final class BenchmarkReporter {
+
+    /** System property overriding the results file. */
+    public static final String OUTPUT_PROPERTY = "settings.perf.output";
+
+    private static final String LOG_PREFIX = "SettingsMicroBenchmark: ";
+
+    private BenchmarkReporter() {
+    }
+
+    /** Reports {@code result}. */
+    public static synchronized void report(BenchmarkResult result) {
+        final String json = result.toJson();
+        System.out.println(LOG_PREFIX + json);
+
+        final File output = getOutputFile();
+        final File parent = output.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            System.err.println(LOG_PREFIX + "Unable to create " + parent);
+            return;
+        }
+        try (Writer writer = new FileWriter(output, StandardCharsets.UTF_8, /* append= */ true)) {
+            writer.write(json);
+            writer.write('\n');
+        } catch (IOException e) {
+            System.err.println(LOG_PREFIX + "Unable to write " + output + ": " + e);
+        }
+    }
+
+    /** Returns the file results are appended to. */
+    public static File getOutputFile() {
+        final String path = System.getProperty(OUTPUT_PROPERTY);
+        if (path != null && !path.isEmpty()) {
+            return new File(path);
+        }
+        return new File(new File(System.getProperty("java.io.tmpdir"), "SettingsRoboPerfTests"),
+                "results.json");
+    }
+}
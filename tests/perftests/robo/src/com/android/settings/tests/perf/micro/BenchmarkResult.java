@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.tests.perf.micro;
+
+import java.util.Locale;
+
+/** Immutable result of a {@link MicroBenchmark} run. */
+public final class BenchmarkResult {
+    public final String name;
+    public final int iterations;
+    public final long minNs;
+    public final long medianNs;
+    public final long p90Ns;
+    public final long meanNs;
+    /** Bytes allocated per iteration, or -1 if allocations can't be counted. */
+    public final long allocatedBytesPerOp;
+    public final long gcCount;
+    public final long gcTimeMs;
+
+    BenchmarkResult(String name, int iterations, long minNs, long medianNs, long p90Ns,
+            long meanNs, long allocatedBytesPerOp, long gcCount, long gcTimeMs) {
+        this.name = name;
+        this.iterations = iterations;
+        this.minNs = minNs;
+        this.medianNs = medianNs;
+        this.p90Ns = p90Ns;
+        this.meanNs = meanNs;
+        this.allocatedBytesPerOp = allocatedBytesPerOp;
+        this.gcCount = gcCount;
+        this.gcTimeMs = gcTimeMs;
+    }
+
+    /** Returns the result as a single line JSON object. */
+    public String toJson() {
+        return String.format(Locale.US,
+                "{\"name\":\"%s\",\"iterations\":%d,\"minNs\":%d,\"medianNs\":%d,\"p90Ns\":%d,"
+                        + "\"meanNs\":%d,\"allocatedBytesOp\":%d,\"gcCount\":%d,\"gcTimeMs\":%d}",
+                name.replace("\"", "\\\""), iterations, minNs, medianNs, p90Ns, meanNs,
+                allocatedBytesPerOp, gcCount, gcTimeMs);
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.tests.perf.micro;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Minimal JMH style runner for host side benchmarks.
+ *
+ * <p>Runs an operation a number of warm up iterations, then times every measured iteration on
+ * its own and records the bytes allocated by the calling thread and the garbage collections
+ * that happened in between. Results are handed to {@link BenchmarkReporter}.
+ */
+public final class MicroBenchmark {
+
+    /** Default number of warm up iterations. */
+    public static final int DEFAULT_WARMUP_ITERATIONS = 20;
+    /** Default number of measured iterations. */
+    public static final int DEFAULT_MEASURED_ITERATIONS = 50;
+
+    /** An operation to benchmark. */
+    public interface Operation {
+        /** Runs one iteration of the benchmark. */
+        void run() throws Exception;
+    }
+
+    /** Prepares the input of the next iteration, excluded from the measurement. */
+    public interface Setup {
+        /** Called before every iteration. */
+        void setUp() throws Exception;
+    }
+
+    private static final Setup NO_SETUP = () -> { };
+
+    private final String mName;
+    private int mWarmupIterations = DEFAULT_WARMUP_ITERATIONS;
+    private int mMeasuredIterations = DEFAULT_MEASURED_ITERATIONS;
+    private Setup mSetup = NO_SETUP;
+
+    private MicroBenchmark(String name) {
+        mName = name;
+    }
+
+    /** Creates a benchmark named {@code <benchmarkClass>#<caseName>}. */
+    public static MicroBenchmark of(Class<?> benchmarkClass, String caseName) {
+        return new MicroBenchmark(benchmarkClass.getSimpleName() + "#" + caseName);
+    }
+
+    /** Sets the number of warm up iterations. */
+    public MicroBenchmark setWarmupIterations(int iterations) {
+        mWarmupIterations = iterations;
+        return this;
+    }
+
+    /** Sets the number of measured iterations. */
+    public MicroBenchmark setMeasuredIterations(int iterations) {
+        mMeasuredIterations = iterations;
+        return this;
+    }
+
+    /** Sets a per iteration setup step that is not measured. */
+    public MicroBenchmark setSetup(Setup setup) {
+        mSetup = setup;
+        return this;
+    }
+
+    /** Runs {@code operation}, reports and returns the result. */
+    public BenchmarkResult run(Operation operation) throws Exception {
+        for (int i = 0; i < mWarmupIterations; i++) {
+            mSetup.setUp();
+            operation.run();
+        }
+
+        final com.sun.management.ThreadMXBean threadBean = getAllocationTrackingBean();
+        final long threadId = Thread.currentThread().getId();
+        final long[] durations = new long[mMeasuredIterations];
+        long allocatedBytes = 0;
+        final long gcCountBefore = getGcCount();
+        final long gcTimeBefore = getGcTimeMs();
+        for (int i = 0; i < mMeasuredIterations; i++) {
+            mSetup.setUp();
+            final long allocatedBefore =
+                    threadBean != null ? threadBean.getThreadAllocatedBytes(threadId) : 0;
+            final long start = System.nanoTime();
+            operation.run();
+            durations[i] = System.nanoTime() - start;
+            if (threadBean != null) {
+                allocatedBytes += threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            }
+        }
+        final long gcCount = getGcCount() - gcCountBefore;
+        final long gcTimeMs = getGcTimeMs() - gcTimeBefore;
+
+        Arrays.sort(durations);
+        long total = 0;
+        for (long duration : durations) {
+            total += duration;
+        }
+        final BenchmarkResult result = new BenchmarkResult(mName, mMeasuredIterations,
+                durations[0],
+                durations[durations.length / 2],
+                durations[(int) Math.min(durations.length - 1, durations.length * 0.9)],
+                total / durations.length,
+                threadBean != null ? allocatedBytes / mMeasuredIterations : -1,
+                gcCount, gcTimeMs);
+        BenchmarkReporter.report(result);
+        return result;
+    }
+
+    /** Returns the bean used to count allocations, or null if the JVM can't count them. */
+    private static com.sun.management.ThreadMXBean getAllocationTrackingBean() {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean bean =
+                    (com.sun.management.ThreadMXBean) threadBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean;
+            }
+        }
+        return null;
+    }
+
+    private static long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long getGcTimeMs() {
+        long time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, bean.getCollectionTime());
+        }
+        return time;
+    }
+}
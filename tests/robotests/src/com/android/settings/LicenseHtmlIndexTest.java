@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+@RunWith(RobolectricTestRunner.class)
+public class LicenseHtmlIndexTest {
+
+    private static final String HEAD = "<html><head><style type=\"text/css\">\n"
+            + "body { padding: 0; }\n"
+            + "</style></head>\n"
+            + "<body topmargin=\"0\" leftmargin=\"0\">\n";
+    private static final String TOC = "<div class=\"toc\">\n"
+            + "<ul>\n"
+            + "<li><a href=\"#id0\">/system/app/A.apk</a></li>\n"
+            + "<li><a href=\"#id1\">/system/lib/libb.so</a></li>\n"
+            + "<li><a href=\"#id0\">/system/lib/libc&amp;d.so</a></li>\n";
+    private static final String PROLOGUE = "</ul>\n"
+            + "</div><!-- table of contents -->\n"
+            + "<table cellpadding=\"0\" cellspacing=\"0\" border=\"0\">\n";
+    private static final String SECTION_0 = "<tr id=\"id0\"><td class=\"same-license\">\n"
+            + "<pre class=\"license-text\">License A</pre>\n"
+            + "</td></tr>\n";
+    private static final String SECTION_1 = "<tr id=\"id1\"><td class=\"same-license\">\n"
+            + "<pre class=\"license-text\">License B</pre>\n"
+            + "</td></tr>\n";
+    private static final String EPILOGUE = "</table></body></html>\n";
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    @Test
+    public void load_notGenerated_returnsNull() {
+        assertThat(LicenseHtmlIndex.exists(mContext)).isFalse();
+        assertThat(LicenseHtmlIndex.load(mContext)).isNull();
+    }
+
+    @Test
+    public void generate_indexesTableOfContents() throws IOException {
+        generate(HEAD + TOC + PROLOGUE + SECTION_0 + SECTION_1 + EPILOGUE);
+
+        final LicenseHtmlIndex index = LicenseHtmlIndex.load(mContext);
+
+        assertThat(LicenseHtmlIndex.exists(mContext)).isTrue();
+        assertThat(index.getEntryNames()).containsExactly(
+                "/system/app/A.apk", "/system/lib/libb.so", "/system/lib/libc&d.so").inOrder();
+    }
+
+    @Test
+    public void getSectionFile_containsOnlyTheSelectedSection() throws IOException {
+        generate(HEAD + TOC + PROLOGUE + SECTION_0 + SECTION_1 + EPILOGUE);
+        final LicenseHtmlIndex index = LicenseHtmlIndex.load(mContext);
+
+        assertThat(read(index.getSectionFile(0))).isEqualTo(HEAD + PROLOGUE + SECTION_0);
+        assertThat(read(index.getSectionFile(1)))
+                .isEqualTo(HEAD + PROLOGUE + SECTION_1 + EPILOGUE);
+        assertThat(index.getSectionFile(2)).isEqualTo(index.getSectionFile(0));
+    }
+
+    @Test
+    public void generate_entryWithoutSection_isSkipped() throws IOException {
+        generate(HEAD + TOC + PROLOGUE + SECTION_1 + EPILOGUE);
+
+        final LicenseHtmlIndex index = LicenseHtmlIndex.load(mContext);
+
+        assertThat(index.getEntryNames()).containsExactly("/system/lib/libb.so");
+    }
+
+    @Test
+    public void load_differentVersion_returnsNull() throws IOException {
+        generate(HEAD + TOC + PROLOGUE + SECTION_0 + SECTION_1 + EPILOGUE);
+        final File indexFile = new File(
+                new File(mContext.getCacheDir(), LicenseHtmlIndex.DIRECTORY), "index");
+        final byte[] bytes = Files.readAllBytes(indexFile.toPath());
+        bytes[3] = (byte) (LicenseHtmlIndex.VERSION + 1);
+        Files.write(indexFile.toPath(), bytes);
+
+        assertThat(LicenseHtmlIndex.load(mContext)).isNull();
+    }
+
+    private void generate(String html) throws IOException {
+        LicenseHtmlIndex.generate(mContext,
+                new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
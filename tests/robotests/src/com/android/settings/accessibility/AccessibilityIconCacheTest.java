@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accessibility;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.ServiceInfo;
+import android.graphics.drawable.ColorDrawable;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Tests for {@link AccessibilityIconCache}. */
+@RunWith(RobolectricTestRunner.class)
+public class AccessibilityIconCacheTest {
+    private static final String PACKAGE_NAME = "com.android.test";
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+    private final AtomicInteger mLoadCount = new AtomicInteger();
+    private AccessibilityIconCache mCache;
+    private ServiceInfo mServiceInfo;
+
+    @Before
+    public void setUp() {
+        mCache = new AccessibilityIconCache();
+        mServiceInfo = new ServiceInfo();
+        mServiceInfo.packageName = PACKAGE_NAME;
+        mServiceInfo.name = PACKAGE_NAME + ".A11yService";
+        mServiceInfo.applicationInfo = new ApplicationInfo();
+        mServiceInfo.applicationInfo.packageName = PACKAGE_NAME;
+        mServiceInfo.applicationInfo.longVersionCode = 1;
+    }
+
+    @Test
+    public void getIcon_calledTwice_loadsIconOnce() {
+        assertThat(mCache.getIcon(mContext, mServiceInfo, this::loadIcon)).isNotNull();
+        assertThat(mCache.getIcon(mContext, mServiceInfo, this::loadIcon)).isNotNull();
+
+        assertThat(mLoadCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void getIcon_loaderReturnsNull_usesGenericIcon() {
+        assertThat(mCache.getIcon(mContext, mServiceInfo, () -> null)).isNotNull();
+    }
+
+    @Test
+    public void getCachedIcon_onlyReturnsLoadedIcons() {
+        assertThat(mCache.getCachedIcon(mContext, mServiceInfo)).isNull();
+
+        mCache.getIcon(mContext, mServiceInfo, this::loadIcon);
+
+        assertThat(mCache.getCachedIcon(mContext, mServiceInfo)).isNotNull();
+    }
+
+    @Test
+    public void getIcon_newVersion_reloadsIcon() {
+        mCache.getIcon(mContext, mServiceInfo, this::loadIcon);
+
+        mServiceInfo.applicationInfo.longVersionCode = 2;
+        mCache.getIcon(mContext, mServiceInfo, this::loadIcon);
+
+        assertThat(mLoadCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidatePackage_reloadsIcon() {
+        mCache.getIcon(mContext, mServiceInfo, this::loadIcon);
+
+        mCache.invalidatePackage(PACKAGE_NAME);
+        mCache.getIcon(mContext, mServiceInfo, this::loadIcon);
+
+        assertThat(mLoadCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void packageChanged_dropsIconsOfPackage() {
+        mCache.getIcon(mContext, mServiceInfo, this::loadIcon);
+
+        mCache.mPackageReceiver.onReceive(mContext, new Intent(Intent.ACTION_PACKAGE_CHANGED,
+                Uri.fromParts("package", PACKAGE_NAME, null /* fragment */)));
+
+        assertThat(mCache.getCachedIcon(mContext, mServiceInfo)).isNull();
+    }
+
+    @Test
+    public void getPlaceholderIcon_returnsIcon() {
+        assertThat(mCache.getPlaceholderIcon(mContext)).isNotNull();
+    }
+
+    private ColorDrawable loadIcon() {
+        mLoadCount.incrementAndGet();
+        return new ColorDrawable();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.UserInfo;
+import android.os.UserHandle;
+import android.os.UserManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Tests for {@link AppCounter}. */
+@RunWith(RobolectricTestRunner.class)
+public class AppCounterTest {
+    private static final int MAIN_USER_ID = 0;
+    private static final int MANAGED_PROFILE_ID = 10;
+    private static final int APP_COUNT = AppCounter.CHUNK_SIZE * 3 + 5;
+
+    @Mock
+    private UserManager mUserManager;
+    @Mock
+    private Context mContext;
+    @Mock
+    private PackageManager mPackageManager;
+
+    private int mCount = -1;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mContext.getSystemService(Context.USER_SERVICE)).thenReturn(mUserManager);
+        when(mUserManager.getProfiles(UserHandle.myUserId())).thenReturn(Arrays.asList(
+                new UserInfo(MAIN_USER_ID, "main", UserInfo.FLAG_ADMIN),
+                new UserInfo(MANAGED_PROFILE_ID, "managed profile", 0)));
+        when(mPackageManager.getInstalledApplicationsAsUser(anyInt(), anyInt()))
+                .thenAnswer(invocation -> buildApps(invocation.getArgument(1)));
+    }
+
+    @Test
+    public void executeInForeground_moreAppsThanAChunk_countsEveryChunkOfEveryUser() {
+        new EvenUidCounter().executeInForeground();
+
+        // Half of the apps of each of the two users have an even uid.
+        assertThat(mCount).isEqualTo(APP_COUNT * 2);
+    }
+
+    @Test
+    public void cancel_beforeCounting_doesNotReportCount() {
+        final EvenUidCounter counter = new EvenUidCounter();
+        counter.cancel(true /* mayInterruptIfRunning */);
+
+        assertThat(counter.doInBackground()).isEqualTo(0);
+    }
+
+    private static List<ApplicationInfo> buildApps(int userId) {
+        final List<ApplicationInfo> apps = new ArrayList<>();
+        for (int i = 0; i < APP_COUNT * 2; i++) {
+            final ApplicationInfo info = new ApplicationInfo();
+            info.packageName = "app" + i;
+            info.uid = UserHandle.getUid(userId, 10000 + i);
+            apps.add(info);
+        }
+        return apps;
+    }
+
+    private class EvenUidCounter extends AppCounter {
+        EvenUidCounter() {
+            super(mContext, mPackageManager);
+        }
+
+        @Override
+        protected void onCountComplete(int num) {
+            mCount = num;
+        }
+
+        @Override
+        protected boolean includeInCount(ApplicationInfo info) {
+            return info.uid % 2 == 0;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.IconDrawableFactory;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppIconLoaderTest {
+
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final int MAX_ICON_BYTES = 1024 * 1024;
+
+    @Rule
+    public final TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private IconDrawableFactory mIconDrawableFactory;
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+    private AppIconLoader mLoader;
+    private ApplicationInfo mInfo;
+
+    @Before
+    public void setUp() throws IOException {
+        MockitoAnnotations.initMocks(this);
+        when(mIconDrawableFactory.getBadgedIcon(any(ApplicationInfo.class), anyInt()))
+                .thenReturn(new ColorDrawable());
+        mLoader = new AppIconLoader(mContext, mIconDrawableFactory, MAX_ICON_BYTES);
+        mInfo = new ApplicationInfo();
+        mInfo.packageName = PACKAGE_NAME;
+        mInfo.sourceDir = mTemporaryFolder.newFile("base.apk").getPath();
+        mInfo.longVersionCode = 1;
+    }
+
+    @Test
+    public void getIcon_calledTwice_rendersOnce() {
+        assertThat(mLoader.getIcon(mInfo)).isNotNull();
+        assertThat(mLoader.getIcon(mInfo)).isNotNull();
+
+        verify(mIconDrawableFactory, times(1)).getBadgedIcon(any(ApplicationInfo.class), anyInt());
+        assertThat(mLoader.getHitCount()).isEqualTo(1);
+        assertThat(mLoader.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void getIcon_newVersion_rendersAgain() {
+        mLoader.getIcon(mInfo);
+
+        mInfo.longVersionCode = 2;
+        mLoader.getIcon(mInfo);
+
+        verify(mIconDrawableFactory, times(2)).getBadgedIcon(any(ApplicationInfo.class), anyInt());
+    }
+
+    @Test
+    public void getIcon_notMounted_isNotCached() {
+        mInfo.sourceDir = "/does/not/exist";
+
+        mLoader.getIcon(mInfo);
+
+        assertThat(mLoader.getCachedIcon(mInfo)).isNull();
+    }
+
+    @Test
+    public void invalidatePackage_dropsCachedIcon() {
+        mLoader.getIcon(mInfo);
+
+        mLoader.invalidatePackage(PACKAGE_NAME);
+
+        assertThat(mLoader.getCachedIcon(mInfo)).isNull();
+    }
+
+    @Test
+    public void loadIcon_deliversIconToCallback() {
+        final AtomicReference<Drawable> loaded = new AtomicReference<>();
+
+        mLoader.loadIcon(mInfo, AppIconLoader.PRIORITY_VISIBLE, loaded::set);
+
+        assertThat(loaded.get()).isNotNull();
+        assertThat(mLoader.getCachedIcon(mInfo)).isNotNull();
+    }
+}
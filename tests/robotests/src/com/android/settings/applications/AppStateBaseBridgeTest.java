@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.pm.ApplicationInfo;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.UserHandle;
+
+import com.android.settingslib.applications.ApplicationsState;
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppStateBaseBridgeTest {
+
+    private static final int APP_COUNT = AppStateBaseBridge.CHUNK_SIZE * 3 + 1;
+    private static final long TIMEOUT_MS = 5000;
+
+    @Mock
+    private ApplicationsState mState;
+    @Mock
+    private ApplicationsState.Session mSession;
+    @Mock
+    private AppStateBaseBridge.Callback mCallback;
+
+    private final ArrayList<AppEntry> mApps = new ArrayList<>();
+    private TestBridge mBridge;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mState.newSession(any())).thenReturn(mSession);
+        when(mState.getBackgroundLooper()).thenReturn(Looper.getMainLooper());
+        when(mSession.getAllApps()).thenReturn(mApps);
+        for (int i = 0; i < APP_COUNT; i++) {
+            final int userId = i % 2 == 0 ? 0 : 10;
+            mApps.add(getMockAppEntry("pkg" + i, UserHandle.getUid(userId, 10000 + i)));
+        }
+        mBridge = new TestBridge(mState, mCallback);
+    }
+
+    @Test
+    public void startParallelLoad_updatesEveryAppOnce() {
+        mBridge.startParallelLoad();
+
+        waitForUpdates(APP_COUNT);
+        assertThat(mBridge.mUpdateCount.get()).isEqualTo(APP_COUNT);
+        for (AppEntry app : mApps) {
+            assertThat(app.extraInfo).isEqualTo(app.info.packageName);
+        }
+    }
+
+    @Test
+    public void startParallelLoad_preparesEveryUserOnce() {
+        mBridge.startParallelLoad();
+
+        assertThat(mBridge.mPreparedUsers).containsExactly(0, 10);
+    }
+
+    @Test
+    public void startParallelLoad_publishesResults() {
+        mBridge.startParallelLoad();
+        waitForUpdates(APP_COUNT);
+
+        ShadowLooper.idleMainLooper();
+
+        verify(mCallback, atLeastOnce()).onExtraInfoUpdated();
+    }
+
+    @Test
+    public void startParallelLoad_noApps_publishesResults() {
+        mApps.clear();
+
+        mBridge.startParallelLoad();
+        ShadowLooper.idleMainLooper();
+
+        verify(mCallback).onExtraInfoUpdated();
+    }
+
+    @Test
+    public void startParallelLoad_finishesOnceAfterEveryApp() {
+        mBridge.startParallelLoad();
+
+        waitFor(mBridge.mFinishCount, 1);
+        assertThat(mBridge.mLoadCount.get()).isEqualTo(APP_COUNT);
+        assertThat(mBridge.mFinishCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void startParallelLoad_noApps_finishes() {
+        mApps.clear();
+
+        mBridge.startParallelLoad();
+
+        assertThat(mBridge.mFinishCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void forceUpdate_doesNotUseLoadState() {
+        final AppEntry app = mApps.get(0);
+
+        mBridge.forceUpdate(app.info.packageName, app.info.uid);
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mBridge.mUpdateCount.get()).isEqualTo(1);
+        assertThat(mBridge.mLoadCount.get()).isEqualTo(0);
+    }
+
+    private void waitForUpdates(int count) {
+        waitFor(mBridge.mUpdateCount, count);
+    }
+
+    private static void waitFor(AtomicInteger counter, int count) {
+        final long deadline = SystemClock.uptimeMillis() + TIMEOUT_MS;
+        while (counter.get() < count && SystemClock.uptimeMillis() < deadline) {
+            Thread.yield();
+        }
+    }
+
+    private static AppEntry getMockAppEntry(String pkg, int uid) {
+        final AppEntry entry = mock(AppEntry.class);
+        entry.info = new ApplicationInfo();
+        entry.info.packageName = pkg;
+        entry.info.uid = uid;
+        entry.label = pkg;
+        return entry;
+    }
+
+    private static class TestBridge extends AppStateBaseBridge {
+        final AtomicInteger mUpdateCount = new AtomicInteger();
+        final AtomicInteger mLoadCount = new AtomicInteger();
+        final AtomicInteger mFinishCount = new AtomicInteger();
+        final List<Integer> mPreparedUsers = new CopyOnWriteArrayList<>();
+
+        TestBridge(ApplicationsState appState, Callback callback) {
+            super(appState, callback);
+        }
+
+        @Override
+        protected boolean isParallelLoadSupported() {
+            return true;
+        }
+
+        @Override
+        protected void prepareExtraInfo(int userId) {
+            mPreparedUsers.add(userId);
+        }
+
+        @Override
+        protected void loadExtraInfo(AppEntry app, String pkg, int uid) {
+            mLoadCount.incrementAndGet();
+            super.loadExtraInfo(app, pkg, uid);
+        }
+
+        @Override
+        protected void finishExtraInfo() {
+            mFinishCount.incrementAndGet();
+        }
+
+        @Override
+        protected void loadAllExtraInfo() {
+        }
+
+        @Override
+        protected void updateExtraInfo(AppEntry app, String pkg, int uid) {
+            app.extraInfo = pkg;
+            mUpdateCount.incrementAndGet();
+        }
+    }
+}
@@ -25,12 +25,14 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
 import android.content.Intent;
+import android.content.pm.ActivityInfo;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
@@ -38,6 +40,8 @@ import android.content.pm.UserInfo;
 import android.os.UserHandle;
 import android.os.UserManager;
 
+import androidx.test.core.app.ApplicationProvider;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -167,6 +171,27 @@ public final class InstalledAppCounterTest {
                 mPackageManager, mApp6)).isFalse();
     }
 
+    @Test
+    public void testIncludeInCount_withSnapshot_queriesLauncherActivitiesOnce() {
+        configurePackageManager();
+        final ResolveInfo launcherActivity = new ResolveInfo();
+        launcherActivity.activityInfo = new ActivityInfo();
+        launcherActivity.activityInfo.packageName = APP_3;
+        when(mPackageManager.queryIntentActivitiesAsUser(
+                argThat(intent -> intent != null && intent.getPackage() == null), anyInt(),
+                eq(MAIN_USER_ID))).thenReturn(Collections.singletonList(launcherActivity));
+        final PackageSnapshot snapshot = new PackageSnapshot(
+                ApplicationProvider.getApplicationContext(), mPackageManager);
+
+        assertThat(InstalledAppCounter.includeInCount(InstalledAppCounter.IGNORE_INSTALL_REASON,
+                mPackageManager, snapshot, mApp3)).isTrue();
+        assertThat(InstalledAppCounter.includeInCount(InstalledAppCounter.IGNORE_INSTALL_REASON,
+                mPackageManager, snapshot, mApp4)).isFalse();
+
+        verify(mPackageManager, times(1)).queryIntentActivitiesAsUser(any(Intent.class),
+                anyInt(), eq(MAIN_USER_ID));
+    }
+
     @Test
     public void testCountInstalledAppsAcrossAllUsersSync() {
         testCountInstalledAppsAcrossAllUsers(false /* async */);
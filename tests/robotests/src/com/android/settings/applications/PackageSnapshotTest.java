@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Tests for {@link PackageSnapshot}. */
+@RunWith(RobolectricTestRunner.class)
+public class PackageSnapshotTest {
+    private static final int USER_ID = 0;
+    private static final int FLAGS = PackageManager.GET_DISABLED_COMPONENTS;
+    private static final String PACKAGE_1 = "com.android.test.one";
+    private static final String PACKAGE_2 = "com.android.test.two";
+
+    @Mock
+    private PackageManager mPackageManager;
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+    private PackageSnapshot mSnapshot;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mPackageManager.getInstalledApplicationsAsUser(FLAGS, USER_ID))
+                .thenReturn(new ArrayList<>(Arrays.asList(
+                        buildInfo(PACKAGE_1, ApplicationInfo.CATEGORY_GAME),
+                        buildInfo(PACKAGE_2, ApplicationInfo.CATEGORY_AUDIO))));
+        mSnapshot = new PackageSnapshot(mContext, mPackageManager);
+    }
+
+    @Test
+    public void getInstalledApplications_calledTwice_listsPackagesOnce() {
+        assertThat(mSnapshot.getInstalledApplications(FLAGS, USER_ID)).hasSize(2);
+        assertThat(mSnapshot.getInstalledApplications(FLAGS, USER_ID)).hasSize(2);
+
+        verify(mPackageManager, times(1)).getInstalledApplicationsAsUser(FLAGS, USER_ID);
+    }
+
+    @Test
+    public void onPackageChanged_removedPackage_onlyQueriesThatPackage() throws Exception {
+        mSnapshot.getInstalledApplications(FLAGS, USER_ID);
+        when(mPackageManager.getApplicationInfoAsUser(PACKAGE_2, FLAGS, USER_ID))
+                .thenThrow(new PackageManager.NameNotFoundException());
+
+        mSnapshot.onPackageChanged(PACKAGE_2);
+        final List<ApplicationInfo> apps = mSnapshot.getInstalledApplications(FLAGS, USER_ID);
+
+        assertThat(apps).hasSize(1);
+        assertThat(apps.get(0).packageName).isEqualTo(PACKAGE_1);
+        verify(mPackageManager, times(1)).getInstalledApplicationsAsUser(FLAGS, USER_ID);
+        verify(mPackageManager, never()).getApplicationInfoAsUser(eq(PACKAGE_1), anyInt(),
+                anyInt());
+    }
+
+    @Test
+    public void onPackageChanged_addedPackage_appendsIt() throws Exception {
+        mSnapshot.getInstalledApplications(FLAGS, USER_ID);
+        when(mPackageManager.getApplicationInfoAsUser("com.android.test.new", FLAGS, USER_ID))
+                .thenReturn(buildInfo("com.android.test.new", ApplicationInfo.CATEGORY_UNDEFINED));
+
+        mSnapshot.onPackageChanged("com.android.test.new");
+
+        assertThat(mSnapshot.getInstalledApplications(FLAGS, USER_ID)).hasSize(3);
+    }
+
+    @Test
+    public void getApplicationInfo_loadedList_doesNotQueryPackageManager() throws Exception {
+        mSnapshot.getInstalledApplications(FLAGS, USER_ID);
+
+        assertThat(mSnapshot.getApplicationInfo(PACKAGE_1, FLAGS, USER_ID).packageName)
+                .isEqualTo(PACKAGE_1);
+        verify(mPackageManager, never()).getApplicationInfoAsUser(anyString(), anyInt(),
+                anyInt());
+    }
+
+    @Test
+    public void getApplicationInfo_notLoaded_queriesOnceUntilPackageChanged() throws Exception {
+        when(mPackageManager.getApplicationInfoAsUser(PACKAGE_1, 0 /* flags */, USER_ID))
+                .thenReturn(buildInfo(PACKAGE_1, ApplicationInfo.CATEGORY_GAME));
+
+        mSnapshot.getApplicationInfo(PACKAGE_1, 0 /* flags */, USER_ID);
+        mSnapshot.getApplicationInfo(PACKAGE_1, 0 /* flags */, USER_ID);
+        mSnapshot.onPackageChanged(PACKAGE_1);
+        mSnapshot.getApplicationInfo(PACKAGE_1, 0 /* flags */, USER_ID);
+
+        verify(mPackageManager, times(2)).getApplicationInfoAsUser(PACKAGE_1, 0 /* flags */,
+                USER_ID);
+    }
+
+    @Test
+    public void getPackagesWithActivities_cachedUntilPackageChanged() {
+        final Intent intent = new Intent(Intent.ACTION_MAIN).addCategory(Intent.CATEGORY_HOME);
+        when(mPackageManager.queryIntentActivitiesAsUser(any(Intent.class), anyInt(), anyInt()))
+                .thenReturn(new ArrayList<>(Arrays.asList(buildResolveInfo(PACKAGE_1))));
+
+        assertThat(mSnapshot.getPackagesWithActivities(intent, 0 /* flags */, USER_ID))
+                .containsExactly(PACKAGE_1);
+        mSnapshot.getPackagesWithActivities(new Intent(intent), 0 /* flags */, USER_ID);
+        mSnapshot.onPackageChanged(PACKAGE_1);
+        mSnapshot.getPackagesWithActivities(intent, 0 /* flags */, USER_ID);
+
+        verify(mPackageManager, times(2)).queryIntentActivitiesAsUser(any(Intent.class),
+                anyInt(), anyInt());
+    }
+
+    @Test
+    public void onTrimMemory_background_releasesLists() {
+        mSnapshot.getInstalledApplications(FLAGS, USER_ID);
+
+        mSnapshot.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        mSnapshot.getInstalledApplications(FLAGS, USER_ID);
+        mSnapshot.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        mSnapshot.getInstalledApplications(FLAGS, USER_ID);
+
+        verify(mPackageManager, times(2)).getInstalledApplicationsAsUser(FLAGS, USER_ID);
+    }
+
+    private static ResolveInfo buildResolveInfo(String packageName) {
+        final ResolveInfo info = new ResolveInfo();
+        info.activityInfo = new ActivityInfo();
+        info.activityInfo.packageName = packageName;
+        return info;
+    }
+
+    private static ApplicationInfo buildInfo(String packageName, int category) {
+        final ApplicationInfo info = new ApplicationInfo();
+        info.packageName = packageName;
+        info.category = category;
+        return info;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.appinfo;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.UserHandle;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowThreadUtils.class)
+public class AppInfoFactsLoaderTest {
+
+    private static final String PACKAGE_NAME = "com.example.app";
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+    private final List<AppInfoFacts> mDelivered = new ArrayList<>();
+    private ApplicationInfo mInfo;
+    private TestLoader mLoader;
+
+    @Before
+    public void setUp() {
+        mInfo = new ApplicationInfo();
+        mInfo.packageName = PACKAGE_NAME;
+        mInfo.uid = UserHandle.getUid(UserHandle.myUserId(), 10001);
+        mLoader = new TestLoader();
+    }
+
+    @Test
+    public void loadFacts_afterPrefetch_shouldReusePrefetchedFacts() {
+        mLoader.prefetch(mContext, mInfo);
+
+        mLoader.loadFacts(mContext, mInfo, mDelivered::add);
+
+        assertThat(mDelivered).hasSize(1);
+        assertThat(mDelivered.get(0)).isNotNull();
+        assertThat(mLoader.mLoadCount).isEqualTo(1);
+    }
+
+    @Test
+    public void loadFacts_calledTwice_shouldLoadAgain() {
+        mLoader.prefetch(mContext, mInfo);
+        mLoader.loadFacts(mContext, mInfo, mDelivered::add);
+
+        mLoader.loadFacts(mContext, mInfo, mDelivered::add);
+
+        assertThat(mLoader.mLoadCount).isEqualTo(2);
+    }
+
+    @Test
+    public void loadFacts_notLoadedYet_shouldDeliverOnceLoaded() {
+        mLoader.mPending = new CompletableFuture<>();
+
+        mLoader.loadFacts(mContext, mInfo, mDelivered::add);
+        assertThat(mDelivered).isEmpty();
+
+        mLoader.mPending.complete(new AppInfoFacts.Builder(PACKAGE_NAME).build());
+        assertThat(mDelivered).hasSize(1);
+    }
+
+    @Test
+    public void prefetch_otherUser_shouldNotLoad() {
+        mInfo.uid = UserHandle.getUid(UserHandle.myUserId() + 1, 10001);
+
+        mLoader.prefetch(mContext, mInfo);
+
+        assertThat(mLoader.mLoadCount).isEqualTo(0);
+    }
+
+    @Test
+    public void loadFacts_loadFailed_shouldDeliverNull() {
+        mLoader.mFail = true;
+
+        mLoader.loadFacts(mContext, mInfo, mDelivered::add);
+
+        assertThat(mDelivered).hasSize(1);
+        assertThat(mDelivered.get(0)).isNull();
+    }
+
+    @Test
+    public void load_realQueries_shouldComplete() {
+        final CompletableFuture<AppInfoFacts> facts =
+                new AppInfoFactsLoader().load(mContext, mInfo);
+
+        assertThat(facts.isDone()).isTrue();
+    }
+
+    @Test
+    public void runQueries_allSucceed_shouldCompleteWithFacts() {
+        final List<Runnable> queries = Arrays.asList(() -> {}, () -> {});
+
+        final CompletableFuture<AppInfoFacts> facts = AppInfoFactsLoader.runQueries(
+                new AppInfoFacts.Builder(PACKAGE_NAME), queries);
+
+        assertThat(facts.isDone()).isTrue();
+        assertThat(facts.isCompletedExceptionally()).isFalse();
+        assertThat(facts.join()).isNotNull();
+    }
+
+    @Test
+    public void runQueries_queryThrowsError_shouldCompleteExceptionally() {
+        final List<Boolean> ran = new ArrayList<>();
+        final List<Runnable> queries = Arrays.asList(
+                () -> {
+                    throw new LinkageError();
+                },
+                () -> ran.add(true));
+
+        final CompletableFuture<AppInfoFacts> facts = AppInfoFactsLoader.runQueries(
+                new AppInfoFacts.Builder(PACKAGE_NAME), queries);
+
+        assertThat(ran).hasSize(1);
+        assertThat(facts.isCompletedExceptionally()).isTrue();
+    }
+
+    @Test
+    public void loadFacts_queryThrowsError_shouldDeliverNull() {
+        final AppInfoFactsLoader loader = new AppInfoFactsLoader() {
+            @Override
+            CompletableFuture<AppInfoFacts> load(Context context, ApplicationInfo info) {
+                return runQueries(new AppInfoFacts.Builder(info.packageName),
+                        Arrays.asList(() -> {
+                            throw new LinkageError();
+                        }));
+            }
+        };
+
+        loader.loadFacts(mContext, mInfo, mDelivered::add);
+
+        assertThat(mDelivered).hasSize(1);
+        assertThat(mDelivered.get(0)).isNull();
+    }
+
+    private static class TestLoader extends AppInfoFactsLoader {
+        private int mLoadCount;
+        private boolean mFail;
+        private CompletableFuture<AppInfoFacts> mPending;
+
+        @Override
+        CompletableFuture<AppInfoFacts> load(Context context, ApplicationInfo info) {
+            mLoadCount++;
+            if (mPending != null) {
+                return mPending;
+            }
+            final CompletableFuture<AppInfoFacts> facts = new CompletableFuture<>();
+            if (mFail) {
+                facts.completeExceptionally(new IllegalStateException());
+            } else {
+                facts.complete(new AppInfoFacts.Builder(info.packageName).build());
+            }
+            return facts;
+        }
+    }
+}
@@ -18,6 +18,8 @@ package com.android.settings.applications.appinfo;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.Mockito.when;
+
 import android.app.Activity;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
@@ -67,6 +69,18 @@ public class AppSettingPreferenceControllerTest {
         mPreference.setKey(mController.getPreferenceKey());
     }
 
+    @Test
+    public void getAvailabilityStatus_factsLoading_shouldNotQueryPackageManager() {
+        final ResolveInfo info = new ResolveInfo();
+        info.activityInfo = new ActivityInfo();
+        info.activityInfo.packageName = TEST_PKG_NAME;
+        info.activityInfo.name = TEST_CLASS_NAME;
+        mPackageManager.addResolveInfoForIntent(RESOLVED_INTENT, info);
+        when(mParent.isAppFactsLoading()).thenReturn(true);
+
+        assertThat(mController.isAvailable()).isFalse();
+    }
+
     @Ignore
     @Test
     public void getAvailabilityStatus_noAppSetting_shouldNotBeAvailable() {
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.appops;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.AppOpsManager;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.UserHandle;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.applications.appops.AppOpsState.AppOpEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppOpsIndexTest {
+
+    private static final AppOpsState.OpsTemplate TEMPLATE =
+            AppOpsState.RUN_IN_BACKGROUND_TEMPLATE;
+    private static final int USER_ID = 0;
+    private static final int OTHER_USER_ID = 10;
+    private static final int APP_ID = 10001;
+
+    @Mock
+    private AppOpsState mState;
+    @Mock
+    private AppOpsManager mAppOpsManager;
+    @Mock
+    private AppOpsIndex.Listener mListener;
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+    private AppOpsIndex mIndex;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mState.getAppOpsManager()).thenReturn(mAppOpsManager);
+        final List<AppOpEntry> entries = new ArrayList<>();
+        entries.add(createEntry("com.android.a"));
+        entries.add(createEntry("com.android.c"));
+        when(mState.buildState(TEMPLATE, 0, null, AppOpsState.LABEL_COMPARATOR))
+                .thenReturn(entries);
+        mIndex = new AppOpsIndex(mContext, mState);
+        mIndex.addListener(mListener);
+    }
+
+    @Test
+    public void getEntries_calledTwice_buildsOnce() {
+        mIndex.getEntries(TEMPLATE);
+        mIndex.getEntries(TEMPLATE);
+
+        verify(mState, times(1)).buildState(TEMPLATE, 0, null, AppOpsState.LABEL_COMPARATOR);
+        verify(mAppOpsManager).startWatchingMode(anyInt(), isNull(), any());
+    }
+
+    @Test
+    public void getEntries_packageChanged_rebuildsThatPackageOnly() {
+        mIndex.getEntries(TEMPLATE);
+        when(mState.buildPackageListState(TEMPLATE, "com.android.b", USER_ID))
+                .thenReturn(Collections.singletonList(createEntry("com.android.b")));
+
+        mIndex.onPackageChanged("com.android.b");
+        final List<AppOpEntry> entries = mIndex.getEntries(TEMPLATE);
+
+        verify(mState, times(1)).buildState(TEMPLATE, 0, null, AppOpsState.LABEL_COMPARATOR);
+        verify(mState, never()).buildPackageListState(eq(TEMPLATE), eq("com.android.a"),
+                anyInt());
+        assertThat(entries).hasSize(3);
+        assertThat(entries.get(1).getAppEntry().getLabel()).isEqualTo("com.android.b");
+    }
+
+    @Test
+    public void getEntries_packageRemoved_dropsItsEntries() {
+        mIndex.getEntries(TEMPLATE);
+        when(mState.buildPackageListState(TEMPLATE, "com.android.a", USER_ID))
+                .thenReturn(Collections.emptyList());
+
+        mIndex.onPackageChanged("com.android.a");
+
+        assertThat(mIndex.getEntries(TEMPLATE)).hasSize(1);
+    }
+
+    @Test
+    public void getEntries_packageChanged_keepsEntriesOfOtherUsers() {
+        final List<AppOpEntry> entries = new ArrayList<>();
+        entries.add(createEntry("com.android.a"));
+        entries.add(createEntry("com.android.a", UserHandle.getUid(OTHER_USER_ID, APP_ID)));
+        when(mState.buildState(TEMPLATE, 0, null, AppOpsState.LABEL_COMPARATOR))
+                .thenReturn(entries);
+        mIndex.getEntries(TEMPLATE);
+        when(mState.buildPackageListState(TEMPLATE, "com.android.a", USER_ID))
+                .thenReturn(Collections.singletonList(createEntry("com.android.a")));
+        when(mState.buildPackageListState(TEMPLATE, "com.android.a", OTHER_USER_ID))
+                .thenReturn(Collections.singletonList(createEntry("com.android.a",
+                        UserHandle.getUid(OTHER_USER_ID, APP_ID))));
+
+        mIndex.onPackageChanged("com.android.a");
+
+        assertThat(mIndex.getEntries(TEMPLATE)).hasSize(2);
+    }
+
+    @Test
+    public void getEntries_packageChangedForNewUser_rebuildsItForThatUser() {
+        mIndex.getEntries(TEMPLATE);
+
+        mIndex.onPackageChanged("com.android.b", OTHER_USER_ID);
+        mIndex.getEntries(TEMPLATE);
+
+        verify(mState).buildPackageListState(TEMPLATE, "com.android.b", USER_ID);
+        verify(mState).buildPackageListState(TEMPLATE, "com.android.b", OTHER_USER_ID);
+    }
+
+    @Test
+    public void getEntries_noListener_buildsEveryTime() {
+        mIndex.removeListener(mListener);
+
+        mIndex.getEntries(TEMPLATE);
+        mIndex.getEntries(TEMPLATE);
+
+        verify(mState, times(2)).buildState(TEMPLATE, 0, null, AppOpsState.LABEL_COMPARATOR);
+        verify(mAppOpsManager, never()).startWatchingMode(anyInt(), any(), any());
+    }
+
+    @Test
+    public void removeListener_lastListener_stopsWatchingAndDropsEntries() {
+        mIndex.getEntries(TEMPLATE);
+
+        mIndex.removeListener(mListener);
+        mIndex.addListener(mListener);
+        mIndex.getEntries(TEMPLATE);
+
+        verify(mAppOpsManager).stopWatchingMode(any());
+        verify(mState, times(2)).buildState(TEMPLATE, 0, null, AppOpsState.LABEL_COMPARATOR);
+    }
+
+    @Test
+    public void invalidate_rebuildsEverything() {
+        mIndex.getEntries(TEMPLATE);
+
+        mIndex.invalidate();
+        mIndex.getEntries(TEMPLATE);
+
+        verify(mState, times(2)).buildState(TEMPLATE, 0, null, AppOpsState.LABEL_COMPARATOR);
+    }
+
+    private AppOpEntry createEntry(String packageName) {
+        return createEntry(packageName, UserHandle.getUid(USER_ID, APP_ID));
+    }
+
+    private AppOpEntry createEntry(String packageName, int uid) {
+        final ApplicationInfo info = new ApplicationInfo();
+        info.packageName = packageName;
+        info.sourceDir = "/does/not/exist";
+        final AppOpsState.AppEntry appEntry = new AppOpsState.AppEntry(mState, info);
+        appEntry.loadLabel(mContext);
+        final AppOpsManager.OpEntry opEntry = new AppOpsManager.OpEntry(
+                AppOpsManager.OP_RUN_IN_BACKGROUND, AppOpsManager.MODE_ALLOWED,
+                Collections.emptyMap());
+        final List<AppOpsManager.OpEntry> ops = new ArrayList<>();
+        ops.add(opEntry);
+        return new AppOpEntry(new AppOpsManager.PackageOps(packageName, uid, ops), opEntry,
+                appEntry, 0);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.biometrics.fingerprint;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.hardware.fingerprint.Fingerprint;
+import android.hardware.fingerprint.FingerprintManager;
+
+import com.android.settings.biometrics.EnrolledTemplateModel;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class FingerprintTemplateModelTest {
+
+    private static final int USER_ID = 0;
+
+    @Mock
+    private FingerprintManager mFingerprintManager;
+    @Mock
+    private EnrolledTemplateModel.Listener mListener;
+
+    private FingerprintTemplateModel mModel;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        final List<Fingerprint> fingerprints = new ArrayList<>();
+        fingerprints.add(new Fingerprint("Finger 1", 1 /* fingerId */, 0 /* deviceId */));
+        fingerprints.add(new Fingerprint("Finger 2", 2 /* fingerId */, 0 /* deviceId */));
+        when(mFingerprintManager.getEnrolledFingerprints(anyInt())).thenReturn(fingerprints);
+        mModel = new FingerprintTemplateModel(mFingerprintManager);
+        mModel.addListener(mListener);
+    }
+
+    @Test
+    public void getTemplates_shouldLoadOnlyOnce() {
+        assertThat(mModel.getTemplateCount(USER_ID)).isEqualTo(2);
+        assertThat(mModel.getTemplates(USER_ID)).hasSize(2);
+
+        verify(mFingerprintManager, times(1)).getEnrolledFingerprints(USER_ID);
+    }
+
+    @Test
+    public void onTemplateRemoved_shouldUpdateCacheWithoutReload() {
+        final Fingerprint removed = mModel.getTemplate(USER_ID, 1);
+
+        mModel.onTemplateRemoved(USER_ID, removed);
+
+        assertThat(mModel.getTemplateCount(USER_ID)).isEqualTo(1);
+        assertThat(mModel.getTemplate(USER_ID, 1)).isNull();
+        verify(mFingerprintManager, times(1)).getEnrolledFingerprints(USER_ID);
+        verify(mListener).onTemplatesChanged(USER_ID);
+    }
+
+    @Test
+    public void rename_shouldUpdateCachedName() {
+        mModel.getTemplates(USER_ID);
+
+        mModel.rename(2, USER_ID, "Thumb");
+
+        verify(mFingerprintManager).rename(2, USER_ID, "Thumb");
+        assertThat(mModel.getTemplate(USER_ID, 2).getName().toString()).isEqualTo("Thumb");
+        verify(mFingerprintManager, times(1)).getEnrolledFingerprints(USER_ID);
+        verify(mListener).onTemplatesChanged(USER_ID);
+    }
+
+    @Test
+    public void onTemplateEnrolled_shouldReloadOnNextAccess() {
+        mModel.getTemplates(USER_ID);
+
+        mModel.onTemplateEnrolled(USER_ID);
+        mModel.getTemplates(USER_ID);
+
+        verify(mFingerprintManager, times(2)).getEnrolledFingerprints(USER_ID);
+        verify(mListener).onTemplatesChanged(USER_ID);
+    }
+}
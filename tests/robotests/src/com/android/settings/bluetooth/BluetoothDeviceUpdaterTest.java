@@ -20,6 +20,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -262,6 +263,26 @@ public class BluetoothDeviceUpdaterTest {
         assertThat(mPreference.getTitle()).isEqualTo(TEST_NAME);
     }
 
+    @Test
+    public void refreshPreference_deviceNotCached_removesItsPreferenceOnly() {
+        when(mSubCachedBluetoothDevice.getDrawableWithDescription())
+                .thenReturn(new Pair<>(mDrawable, "fake_sub_device"));
+        final BluetoothDevicePreference subPreference = new BluetoothDevicePreference(mContext,
+                mSubCachedBluetoothDevice, /* showDeviceWithoutNames= */ false,
+                BluetoothDevicePreference.SortType.TYPE_DEFAULT);
+        mBluetoothDeviceUpdater.mPreferenceMap.put(mBluetoothDevice, mPreference);
+        mBluetoothDeviceUpdater.mPreferenceMap.put(mSubBluetoothDevice, subPreference);
+
+        when(mCachedBluetoothDevice.getName()).thenReturn(TEST_NAME);
+        mBluetoothDeviceUpdater.refreshPreference();
+
+        verify(mDevicePreferenceCallback).onDeviceRemoved(subPreference);
+        assertThat(mBluetoothDeviceUpdater.mPreferenceMap.keySet())
+                .containsExactly(mBluetoothDevice);
+        assertThat(mPreference.getTitle()).isEqualTo(TEST_NAME);
+        verify(mCachedDeviceManager, times(1)).getCachedDevicesCopy();
+    }
+
     public static class TestBluetoothDeviceUpdater extends BluetoothDeviceUpdater {
         public TestBluetoothDeviceUpdater(Context context,
                 DevicePreferenceCallback devicePreferenceCallback,
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Looper;
+import android.provider.Settings;
+import android.telephony.CarrierConfigManager;
+import android.telephony.TelephonyManager;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class AvailabilityStatusCacheTest {
+
+    private static final String KEY = "controller/key/0";
+    private static final Uri SETTING_URI =
+            Settings.Global.getUriFor(Settings.Global.ENABLE_EPHEMERAL_FEATURE);
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+    private final AtomicInteger mComputeCount = new AtomicInteger();
+    private AvailabilityStatusCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new AvailabilityStatusCache(mContext, false /* countBinderCalls */);
+    }
+
+    @Test
+    public void getAvailabilityStatus_calledTwice_computesOnce() {
+        final AvailabilityStatusCache.Dependencies dependencies =
+                AvailabilityStatusCache.Dependencies.NONE;
+
+        assertThat(mCache.getAvailabilityStatus(KEY, dependencies, this::compute))
+                .isEqualTo(BasePreferenceController.AVAILABLE);
+        assertThat(mCache.getAvailabilityStatus(KEY, dependencies, this::compute))
+                .isEqualTo(BasePreferenceController.AVAILABLE);
+
+        assertThat(mComputeCount.get()).isEqualTo(1);
+        assertThat(mCache.getHitCount()).isEqualTo(1);
+        assertThat(mCache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidate_declaredSignal_recomputes() {
+        final AvailabilityStatusCache.Dependencies dependencies =
+                AvailabilityStatusCache.Dependencies.of(AvailabilityStatusCache.SIGNAL_USERS);
+        mCache.getAvailabilityStatus(KEY, dependencies, this::compute);
+
+        mCache.invalidate(AvailabilityStatusCache.SIGNAL_USERS);
+        mCache.getAvailabilityStatus(KEY, dependencies, this::compute);
+
+        assertThat(mComputeCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidate_otherSignal_keepsStatus() {
+        final AvailabilityStatusCache.Dependencies dependencies =
+                AvailabilityStatusCache.Dependencies.of(AvailabilityStatusCache.SIGNAL_USERS);
+        mCache.getAvailabilityStatus(KEY, dependencies, this::compute);
+
+        mCache.invalidate(AvailabilityStatusCache.SIGNAL_PACKAGES);
+        mCache.getAvailabilityStatus(KEY, dependencies, this::compute);
+
+        assertThat(mComputeCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void carrierConfigChanged_declaredSignal_recomputes() {
+        final AvailabilityStatusCache.Dependencies dependencies =
+                AvailabilityStatusCache.Dependencies.of(
+                        AvailabilityStatusCache.SIGNAL_CARRIER_CONFIG);
+        mCache.getAvailabilityStatus(KEY, dependencies, this::compute);
+
+        mContext.sendBroadcast(new Intent(CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED));
+        shadowOf(Looper.getMainLooper()).idle();
+        mCache.getAvailabilityStatus(KEY, dependencies, this::compute);
+
+        assertThat(mComputeCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void simStateChanged_declaredSignal_recomputes() {
+        final AvailabilityStatusCache.Dependencies dependencies =
+                AvailabilityStatusCache.Dependencies.of(AvailabilityStatusCache.SIGNAL_SIM_STATE);
+        mCache.getAvailabilityStatus(KEY, dependencies, this::compute);
+
+        mContext.sendBroadcast(new Intent(TelephonyManager.ACTION_SIM_CARD_STATE_CHANGED));
+        shadowOf(Looper.getMainLooper()).idle();
+        mCache.getAvailabilityStatus(KEY, dependencies, this::compute);
+
+        assertThat(mComputeCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidate_declaredSettingUri_recomputes() {
+        final AvailabilityStatusCache.Dependencies dependencies =
+                AvailabilityStatusCache.Dependencies.of(0 /* signals */, SETTING_URI);
+        mCache.getAvailabilityStatus(KEY, dependencies, this::compute);
+
+        mCache.invalidate(SETTING_URI);
+        mCache.getAvailabilityStatus(KEY, dependencies, this::compute);
+
+        assertThat(mComputeCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void getAvailabilityStatus_invalidatedWhileComputing_isNotCached() {
+        final AvailabilityStatusCache.Dependencies dependencies =
+                AvailabilityStatusCache.Dependencies.NONE;
+
+        mCache.getAvailabilityStatus(KEY, dependencies, () -> {
+            mCache.invalidateAll();
+            return compute();
+        });
+        mCache.getAvailabilityStatus(KEY, dependencies, this::compute);
+
+        assertThat(mComputeCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_contextOutsideSettingsApplication_returnsNull() {
+        assertThat(AvailabilityStatusCache.get(mock(Context.class))).isNull();
+    }
+
+    private int compute() {
+        mComputeCount.incrementAndGet();
+        return BasePreferenceController.AVAILABLE;
+    }
+}
@@ -61,7 +61,6 @@ import com.android.settingslib.AppItem;
 import com.android.settingslib.RestrictedLockUtils.EnforcedAdmin;
 import com.android.settingslib.RestrictedSwitchPreference;
 import com.android.settingslib.net.NetworkCycleDataForUid;
-import com.android.settingslib.net.NetworkCycleDataForUidLoader;
 import com.android.settingslib.net.UidDetail;
 import com.android.settingslib.net.UidDetailProvider;
 
@@ -342,7 +341,7 @@ public class AppDataUsageTest {
         final long end = System.currentTimeMillis();
         final long start = end - (DateUtils.WEEK_IN_MILLIS * 4);
 
-        final NetworkCycleDataForUidLoader loader = (NetworkCycleDataForUidLoader)
+        final CachedNetworkCycleDataForUidLoader loader = (CachedNetworkCycleDataForUidLoader)
                 mFragment.mUidDataCallbacks.onCreateLoader(0, Bundle.EMPTY);
 
         final List<Integer> uids = loader.getUids();
@@ -370,7 +369,7 @@ public class AppDataUsageTest {
         final long end = System.currentTimeMillis();
         final long start = end - (DateUtils.WEEK_IN_MILLIS * 4);
 
-        final NetworkCycleDataForUidLoader loader = (NetworkCycleDataForUidLoader)
+        final CachedNetworkCycleDataForUidLoader loader = (CachedNetworkCycleDataForUidLoader)
                 mFragment.mUidDataCallbacks.onCreateLoader(0, Bundle.EMPTY);
 
         final List<Integer> uids = loader.getUids();
@@ -402,7 +401,7 @@ public class AppDataUsageTest {
         ReflectionHelpers.setField(mFragment, "mTemplate",
                 new NetworkTemplate.Builder(NetworkTemplate.MATCH_WIFI).build());
 
-        final NetworkCycleDataForUidLoader loader = (NetworkCycleDataForUidLoader)
+        final CachedNetworkCycleDataForUidLoader loader = (CachedNetworkCycleDataForUidLoader)
                 mFragment.mUidDataCallbacks.onCreateLoader(0 /* id */, Bundle.EMPTY /* args */);
 
         final ArrayList<Long> cycles = loader.getCycles();
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.app.usage.NetworkStatsManager;
+import android.content.Context;
+import android.net.NetworkTemplate;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkUsageHistoryStoreTest {
+
+    private static final int UID = 10123;
+    private static final int OTHER_UID = 10456;
+
+    @Mock
+    private NetworkStatsManager mNetworkStatsManager;
+
+    private File mDirectory;
+    private NetworkTemplate mTemplate;
+    private NetworkUsageHistoryStore mStore;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        final Context context = ApplicationProvider.getApplicationContext();
+        mDirectory = new File(context.getNoBackupFilesDir(), "history_test");
+        mTemplate = new NetworkTemplate.Builder(NetworkTemplate.MATCH_WIFI).build();
+        mStore = new NetworkUsageHistoryStore(mNetworkStatsManager, mDirectory);
+    }
+
+    @Test
+    public void buildKey_templatesWithDifferentSubscribers_shouldDiffer() {
+        final NetworkTemplate first = new NetworkTemplate.Builder(NetworkTemplate.MATCH_CARRIER)
+                .setSubscriberIds(Set.of("310001")).build();
+        final NetworkTemplate second = new NetworkTemplate.Builder(NetworkTemplate.MATCH_CARRIER)
+                .setSubscriberIds(Set.of("310002")).build();
+        final NetworkTemplate same = new NetworkTemplate.Builder(NetworkTemplate.MATCH_CARRIER)
+                .setSubscriberIds(Set.of("310001")).build();
+
+        assertThat(NetworkUsageHistoryStore.buildKey(first, UID))
+                .isNotEqualTo(NetworkUsageHistoryStore.buildKey(second, UID));
+        assertThat(NetworkUsageHistoryStore.buildKey(first, UID))
+                .isEqualTo(NetworkUsageHistoryStore.buildKey(same, UID));
+        assertThat(NetworkUsageHistoryStore.buildKey(first, UID)).doesNotContain("310001");
+    }
+
+    @Test
+    public void removeUid_shouldDropOnlyHistoriesOfUid() {
+        mStore.getUidHistory(mTemplate, UID);
+        mStore.getUidHistory(mTemplate, OTHER_UID);
+        mStore.getDeviceHistory(mTemplate);
+
+        mStore.removeUid(UID);
+
+        assertThat(mDirectory.list()).hasLength(2);
+        for (String name : mDirectory.list()) {
+            assertThat(name).doesNotContain(Integer.toString(UID));
+        }
+    }
+
+    @Test
+    public void trim_shouldDropHistoriesNotUpdatedSince() {
+        mStore.getUidHistory(mTemplate, UID);
+        mStore.getDeviceHistory(mTemplate);
+        final File[] files = mDirectory.listFiles();
+        files[0].setLastModified(1000L);
+        files[1].setLastModified(5000L);
+
+        mStore.trim(2000L);
+
+        assertThat(mDirectory.list()).asList().containsExactly(files[1].getName());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.settingslib.net.NetworkCycleData;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkUsageHistoryTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 3, 20);
+
+    private NetworkUsageHistory mHistory;
+
+    @Before
+    public void setUp() {
+        mHistory = new NetworkUsageHistory(ZONE);
+    }
+
+    @Test
+    public void getTotalUsage_shouldSumWholeDays() {
+        mHistory.setDayUsage(dayStart(0), 100L, 10L);
+        mHistory.setDayUsage(dayStart(1) + 3600_000L, 200L, 20L);
+        mHistory.setDayUsage(dayStart(2), 400L, 40L);
+
+        assertThat(mHistory.getTotalUsage(dayStart(0), dayStart(3))).isEqualTo(700L);
+        assertThat(mHistory.getTotalUsage(dayStart(1), dayStart(2))).isEqualTo(200L);
+        assertThat(mHistory.getForegroundUsage(dayStart(1), dayStart(3))).isEqualTo(60L);
+        assertThat(mHistory.getTotalUsage(dayStart(-10), dayStart(10))).isEqualTo(700L);
+    }
+
+    @Test
+    public void setDayUsage_lastDay_shouldOverwriteIt() {
+        mHistory.setDayUsage(dayStart(0), 100L, 10L);
+        mHistory.setDayUsage(dayStart(1), 200L, 20L);
+
+        mHistory.setDayUsage(dayStart(1), 250L, 25L);
+        mHistory.setDayUsage(dayStart(0), 999L, 99L);
+
+        assertThat(mHistory.getTotalUsage(dayStart(0), dayStart(2))).isEqualTo(350L);
+        assertThat(mHistory.getLastDayStart()).isEqualTo(dayStart(1));
+    }
+
+    @Test
+    public void setDayUsage_skippedDays_shouldBeUnused() {
+        mHistory.setDayUsage(dayStart(0), 100L, 10L);
+        mHistory.setDayUsage(dayStart(5), 200L, 20L);
+
+        assertThat(mHistory.getTotalUsage(dayStart(1), dayStart(5))).isEqualTo(0L);
+        assertThat(mHistory.getDailyUsage(dayStart(0), dayStart(6))).hasSize(6);
+    }
+
+    @Test
+    public void setDayUsage_tooManyDays_shouldDropOldestDays() {
+        mHistory.setDayUsage(dayStart(0), 100L, 10L);
+        mHistory.setDayUsage(dayStart(NetworkUsageHistory.MAX_DAYS), 200L, 20L);
+
+        assertThat(mHistory.getFirstDayStart()).isEqualTo(dayStart(1));
+        assertThat(mHistory.getTotalUsage(dayStart(0), dayStart(1000))).isEqualTo(200L);
+    }
+
+    @Test
+    public void getDailyUsage_shouldFollowLocalDaysAcrossDst() {
+        mHistory.setDayUsage(dayStart(0), 100L, 10L);
+        mHistory.setDayUsage(dayStart(6), 200L, 20L);
+
+        // Daylight saving time starts on March 26th in Paris.
+        final List<NetworkCycleData> buckets = mHistory.getDailyUsage(dayStart(0), dayStart(7));
+
+        assertThat(buckets).hasSize(7);
+        assertThat(buckets.get(6).getStartTime()).isEqualTo(dayStart(6));
+        assertThat(buckets.get(6).getTotalUsage()).isEqualTo(200L);
+    }
+
+    @Test
+    public void getNextDayStart_shouldRoundUpToLocalMidnight() {
+        assertThat(mHistory.getNextDayStart(dayStart(1))).isEqualTo(dayStart(1));
+        assertThat(mHistory.getNextDayStart(dayStart(1) + 1L)).isEqualTo(dayStart(2));
+        assertThat(mHistory.getNextDayStart(dayStart(6) - 1L)).isEqualTo(dayStart(6));
+    }
+
+    @Test
+    public void writeTo_readFrom_shouldKeepUsage() throws Exception {
+        mHistory.setDayUsage(dayStart(0), 100L, 10L);
+        mHistory.setDayUsage(dayStart(3), 200L, 20L);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        mHistory.writeTo(new DataOutputStream(bytes));
+
+        final NetworkUsageHistory history = NetworkUsageHistory.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(history.getZone()).isEqualTo(ZONE);
+        assertThat(history.getFirstDayStart()).isEqualTo(dayStart(0));
+        assertThat(history.getLastDayStart()).isEqualTo(dayStart(3));
+        assertThat(history.getTotalUsage(dayStart(0), dayStart(4))).isEqualTo(300L);
+        assertThat(history.getForegroundUsage(dayStart(3), dayStart(4))).isEqualTo(20L);
+    }
+
+    private static long dayStart(int day) {
+        return FIRST_DAY.plusDays(day).atStartOfDay(ZONE).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.android.settingslib.net.UidDetail;
+import com.android.settingslib.net.UidDetailProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class UidDetailResolverTest {
+
+    private static final int UID = 10001;
+
+    @Mock
+    private UidDetailProvider mProvider;
+
+    private final UidDetail mDetail = new UidDetail();
+    private UidDetailResolver mResolver;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mProvider.getUidDetail(UID, true)).thenReturn(mDetail);
+        mResolver = new UidDetailResolver(mProvider);
+    }
+
+    @Test
+    public void resolve_calledTwice_shouldLookUpOnce() {
+        final List<UidDetail> resolved = new ArrayList<>();
+
+        mResolver.resolve(UID, resolved::add);
+        mResolver.resolve(UID, resolved::add);
+
+        assertThat(resolved).containsExactly(mDetail, mDetail);
+        assertThat(mResolver.getCachedDetail(UID)).isSameInstanceAs(mDetail);
+        verify(mProvider, times(1)).getUidDetail(UID, true);
+    }
+
+    @Test
+    public void clear_shouldLookUpAgain() {
+        mResolver.resolve(UID, detail -> {});
+
+        mResolver.clear();
+        mResolver.resolve(UID, detail -> {});
+
+        verify(mProvider, times(2)).getUidDetail(UID, true);
+    }
+
+    @Test
+    public void resolve_unknownUid_shouldPassNull() {
+        final List<UidDetail> resolved = new ArrayList<>();
+
+        mResolver.resolve(UID + 1, resolved::add);
+
+        assertThat(resolved).containsExactly((UidDetail) null);
+        assertThat(mResolver.getCachedDetail(UID + 1)).isNull();
+    }
+}
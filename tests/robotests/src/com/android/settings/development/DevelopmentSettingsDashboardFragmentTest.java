@@ -31,11 +31,13 @@ import android.widget.Switch;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.FragmentActivity;
+import androidx.preference.PreferenceScreen;
 
 import com.android.internal.logging.nano.MetricsProto;
 import com.android.settings.R;
 import com.android.settings.testutils.shadow.ShadowAlertDialogCompat;
 import com.android.settings.widget.SettingsMainSwitchBar;
+import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.development.AbstractEnableAdbPreferenceController;
 import com.android.settingslib.development.DevelopmentSettingsEnabler;
 
@@ -55,7 +57,9 @@ import org.robolectric.shadows.ShadowUserManager;
 import org.robolectric.shadows.androidx.fragment.FragmentController;
 import org.robolectric.util.ReflectionHelpers;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(shadows = {ShadowUserManager.class, ShadowAlertDialogCompat.class})
@@ -289,6 +293,44 @@ public class DevelopmentSettingsDashboardFragmentTest {
         assertThat(mDashboard.shouldSkipForInitialSUW()).isTrue();
     }
 
+    @Test
+    public void bindDeferredControllers_shouldCreateOneBatch() {
+        final PreferenceScreen screen = mock(PreferenceScreen.class);
+        doReturn(screen).when(mDashboard).getPreferenceScreen();
+        final List<AbstractPreferenceController> created = setUpDeferredControllers(10);
+
+        mDashboard.bindDeferredControllers(
+                DevelopmentSettingsDashboardFragment.DEFERRED_BIND_BATCH_SIZE);
+
+        assertThat(created).hasSize(DevelopmentSettingsDashboardFragment.DEFERRED_BIND_BATCH_SIZE);
+        verify(created.get(0)).displayPreference(screen);
+    }
+
+    @Test
+    public void getDevelopmentOptionsController_shouldBindAllDeferredControllers() {
+        doReturn(mock(PreferenceScreen.class)).when(mDashboard).getPreferenceScreen();
+        final List<AbstractPreferenceController> created = setUpDeferredControllers(10);
+
+        mDashboard.getDevelopmentOptionsController(AdbPreferenceController.class);
+
+        assertThat(created).hasSize(10);
+    }
+
+    private List<AbstractPreferenceController> setUpDeferredControllers(int count) {
+        final List<AbstractPreferenceController> created = new ArrayList<>();
+        final List<Supplier<AbstractPreferenceController>> deferred = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            deferred.add(() -> {
+                final AbstractPreferenceController controller =
+                        mock(AbstractPreferenceController.class);
+                created.add(controller);
+                return controller;
+            });
+        }
+        ReflectionHelpers.setField(mDashboard, "mDeferredControllers", deferred);
+        return created;
+    }
+
     @Implements(EnableDevelopmentSettingWarningDialog.class)
     public static class ShadowEnableDevelopmentSettingWarningDialog {
 
@@ -90,4 +90,18 @@ public final class BatteryChartViewTest {
         mBatteryChartView.onClick(mMockView);
         assertThat(selectedIndex[0]).isEqualTo(BatteryChartViewModel.SELECTED_INDEX_ALL);
     }
+
+    @Test
+    public void setViewModel_sameInstance_keepsTrapezoidSlots() {
+        final BatteryChartViewModel batteryChartViewModel = new BatteryChartViewModel(
+                List.of(90, 80, 70, 60), List.of(0L, 0L, 0L, 0L),
+                BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS, null);
+        mBatteryChartView.setViewModel(batteryChartViewModel);
+        final BatteryChartView.TrapezoidSlot[] trapezoidSlots = mBatteryChartView.mTrapezoidSlots;
+
+        batteryChartViewModel.setSelectedIndex(1);
+        mBatteryChartView.setViewModel(batteryChartViewModel);
+
+        assertThat(mBatteryChartView.mTrapezoidSlots).isSameInstanceAs(trapezoidSlots);
+    }
 }
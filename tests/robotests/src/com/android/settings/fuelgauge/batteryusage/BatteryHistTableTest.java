@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryHistTableTest {
+
+    private final BatteryHistEntry mEntry1 = new BatteryHistEntry(new ContentValues());
+    private final BatteryHistEntry mEntry2 = new BatteryHistEntry(new ContentValues());
+    private final BatteryHistEntry mEntry3 = new BatteryHistEntry(new ContentValues());
+
+    @Test
+    public void getRow_returnsRowsInTimestampOrder() {
+        final BatteryHistTable table = new BatteryHistTable(createHistoryMap());
+
+        assertThat(table.getRow(10L)).isEqualTo(0);
+        assertThat(table.getRow(20L)).isEqualTo(1);
+        assertThat(table.getRow(30L)).isEqualTo(2);
+        assertThat(table.getRow(15L)).isEqualTo(-1);
+    }
+
+    @Test
+    public void get_sameKeyAcrossRows_sharesKeyId() {
+        final BatteryHistTable table = new BatteryHistTable(createHistoryMap());
+
+        assertThat(table.getKeyCount()).isEqualTo(2);
+        int keyIdA = -1;
+        for (int keyId = 0; keyId < table.getKeyCount(); keyId++) {
+            if (table.get(table.getRow(10L), keyId) == mEntry1) {
+                keyIdA = keyId;
+            }
+        }
+        assertThat(keyIdA).isAtLeast(0);
+        assertThat(table.get(table.getRow(20L), keyIdA)).isEqualTo(mEntry2);
+        assertThat(table.get(table.getRow(20L), 1 - keyIdA)).isEqualTo(mEntry3);
+        assertThat(table.get(table.getRow(10L), 1 - keyIdA)).isNull();
+    }
+
+    @Test
+    public void isEmptyRow_missingOrEmptyRow_returnsTrue() {
+        final BatteryHistTable table = new BatteryHistTable(createHistoryMap());
+
+        assertThat(table.isEmptyRow(table.getRow(10L))).isFalse();
+        assertThat(table.isEmptyRow(table.getRow(30L))).isTrue();
+        assertThat(table.isEmptyRow(table.getRow(15L))).isTrue();
+    }
+
+    private Map<Long, Map<String, BatteryHistEntry>> createHistoryMap() {
+        final Map<Long, Map<String, BatteryHistEntry>> historyMap = new HashMap<>();
+        final Map<String, BatteryHistEntry> entryMap1 = new HashMap<>();
+        entryMap1.put("a", mEntry1);
+        final Map<String, BatteryHistEntry> entryMap2 = new HashMap<>();
+        entryMap2.put("a", mEntry2);
+        entryMap2.put("b", mEntry3);
+        historyMap.put(30L, new HashMap<>());
+        historyMap.put(20L, entryMap2);
+        historyMap.put(10L, entryMap1);
+        return historyMap;
+    }
+}
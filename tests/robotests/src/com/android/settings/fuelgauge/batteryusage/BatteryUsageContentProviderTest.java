@@ -442,6 +442,60 @@ public final class BatteryUsageContentProviderTest {
         assertThat(cursor2.getCount()).isEqualTo(0);
     }
 
+    @Test
+    public void bulkInsert_appUsageEvents_insertsAllRows() {
+        mProvider.onCreate();
+        final ContentValues[] valuesArray = new ContentValues[3];
+        for (int i = 0; i < valuesArray.length; i++) {
+            final ContentValues values = new ContentValues();
+            values.put(AppUsageEventEntity.KEY_UID, 101L);
+            values.put(AppUsageEventEntity.KEY_USER_ID, 1001L);
+            values.put(AppUsageEventEntity.KEY_TIMESTAMP, 10001L + i);
+            values.put(AppUsageEventEntity.KEY_APP_USAGE_EVENT_TYPE, 1);
+            values.put(AppUsageEventEntity.KEY_PACKAGE_NAME, "com.android.settings");
+            valuesArray[i] = values;
+        }
+
+        final int size = mProvider.bulkInsert(DatabaseUtils.APP_USAGE_EVENT_URI, valuesArray);
+
+        assertThat(size).isEqualTo(3);
+        final List<AppUsageEventEntity> entities =
+                BatteryStateDatabase.getInstance(mContext).appUsageEventDao().getAllAfter(0);
+        assertThat(entities).hasSize(3);
+        assertThat(entities.get(0).timestamp).isEqualTo(10003L);
+    }
+
+    @Test
+    public void bulkInsert_batteryUsageSlots_insertsAllRows() {
+        mProvider.onCreate();
+        final ContentValues values1 = new ContentValues();
+        values1.put(BatteryUsageSlotEntity.KEY_TIMESTAMP, 10001L);
+        values1.put(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT, "TEST_STRING1");
+        final ContentValues values2 = new ContentValues();
+        values2.put(BatteryUsageSlotEntity.KEY_TIMESTAMP, 10002L);
+        values2.put(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT, "TEST_STRING2");
+
+        final int size = mProvider.bulkInsert(DatabaseUtils.BATTERY_USAGE_SLOT_URI,
+                new ContentValues[] {values1, values2});
+
+        assertThat(size).isEqualTo(2);
+        assertThat(BatteryStateDatabase.getInstance(mContext).batteryUsageSlotDao().getAll())
+                .hasSize(2);
+    }
+
+    @Test
+    public void bulkInsert_incorrectContentUri_throwsIllegalArgumentException() {
+        mProvider.onCreate();
+        final Uri uri = new Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(DatabaseUtils.AUTHORITY)
+                .appendPath(DatabaseUtils.BATTERY_STATE_TABLE + "/0")
+                .build();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> mProvider.bulkInsert(uri, new ContentValues[] {new ContentValues()}));
+    }
+
     @Test
     public void delete_throwsUnsupportedOperationException() {
         assertThrows(
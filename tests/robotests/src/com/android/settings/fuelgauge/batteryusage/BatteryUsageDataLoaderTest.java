@@ -34,6 +34,10 @@ import android.os.BatteryUsageStats;
 import android.os.BatteryUsageStatsQuery;
 import android.os.UserManager;
 
+import com.android.settings.fuelgauge.batteryusage.bugreport.BatteryUsageLogUtils;
+import com.android.settings.testutils.FakeClock;
+
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -44,9 +48,14 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(RobolectricTestRunner.class)
 public final class BatteryUsageDataLoaderTest {
@@ -67,6 +76,10 @@ public final class BatteryUsageDataLoaderTest {
     @Captor
     private ArgumentCaptor<BatteryUsageStatsQuery> mStatsQueryCaptor;
 
+    private final List<Runnable> mQueuedCaptures = new ArrayList<>();
+    private final FakeClock mClock = new FakeClock();
+    private final AtomicInteger mPreprocessCount = new AtomicInteger();
+
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
@@ -78,6 +91,23 @@ public final class BatteryUsageDataLoaderTest {
         doReturn(mUserManager).when(mContext).getSystemService(UserManager.class);
         doReturn(mMockContentResolver).when(mContext).getContentResolver();
         doReturn(new Intent()).when(mContext).registerReceiver(any(), any());
+        when(mBatteryStatsManager.getBatteryUsageStats(any())).thenReturn(mBatteryUsageStats);
+        BatteryUsageDataLoader.sFakeBatteryEntryListSupplier = () -> new ArrayList<>();
+        BatteryUsageDataLoader.sClock = mClock;
+        BatteryUsageDataLoader.sFakeBatteryLevelDataSupplier = () -> {
+            mPreprocessCount.incrementAndGet();
+            return null;
+        };
+    }
+
+    @After
+    public void tearDown() {
+        // Resets the coalescing state for the next test.
+        runQueuedCaptures();
+        BatteryUsageDataLoader.sExecutor = null;
+        BatteryUsageDataLoader.sClock = Clock.systemUTC();
+        BatteryUsageDataLoader.sFakeBatteryLevelDataSupplier = null;
+        BatteryUsageDataLoader.sFakeAppUsageEventsSupplier = null;
     }
 
     @Test
@@ -161,4 +191,106 @@ public final class BatteryUsageDataLoaderTest {
 
         verifyNoMoreInteractions(mMockContentResolver);
     }
+
+    @Test
+    public void enqueueWork_periodicCaptureQueued_coalescesIntoQueuedCapture() {
+        BatteryUsageDataLoader.sExecutor = mQueuedCaptures::add;
+        final AtomicInteger firstFinished = new AtomicInteger();
+        final AtomicInteger secondFinished = new AtomicInteger();
+
+        BatteryUsageDataLoader.enqueueWork(
+                mContext, /*isFullChargeStart=*/ false, firstFinished::incrementAndGet);
+        BatteryUsageDataLoader.enqueueWork(
+                mContext, /*isFullChargeStart=*/ false, secondFinished::incrementAndGet);
+
+        assertThat(mQueuedCaptures).hasSize(1);
+        assertThat(firstFinished.get()).isEqualTo(0);
+        assertThat(secondFinished.get()).isEqualTo(1);
+        runQueuedCaptures();
+        assertThat(firstFinished.get()).isEqualTo(1);
+        assertThat(secondFinished.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void enqueueWork_queuedCaptureStarted_queuesNextPeriodicCapture() {
+        BatteryUsageDataLoader.sExecutor = mQueuedCaptures::add;
+        BatteryUsageDataLoader.enqueueWork(mContext, /*isFullChargeStart=*/ false);
+        runQueuedCaptures();
+
+        BatteryUsageDataLoader.enqueueWork(mContext, /*isFullChargeStart=*/ false);
+
+        assertThat(mQueuedCaptures).hasSize(1);
+    }
+
+    @Test
+    public void enqueueWork_fullChargeCapture_notCoalesced() {
+        BatteryUsageDataLoader.sExecutor = mQueuedCaptures::add;
+
+        BatteryUsageDataLoader.enqueueWork(mContext, /*isFullChargeStart=*/ false);
+        BatteryUsageDataLoader.enqueueWork(mContext, /*isFullChargeStart=*/ true);
+
+        assertThat(mQueuedCaptures).hasSize(2);
+    }
+
+    @Test
+    public void enqueueWork_captureFinished_runsOnFinishedOnce() {
+        BatteryUsageDataLoader.sExecutor = Runnable::run;
+        final AtomicInteger finished = new AtomicInteger();
+
+        BatteryUsageDataLoader.enqueueWork(
+                mContext, /*isFullChargeStart=*/ false, finished::incrementAndGet);
+
+        assertThat(finished.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void enqueueWork_withinBudget_preprocessesBatteryUsageSlots() {
+        BatteryUsageDataLoader.sExecutor = Runnable::run;
+        BatteryUsageDataLoader.sFakeAppUsageEventsSupplier = () -> {
+            mClock.setCurrentTime(
+                    Duration.ofMillis(BatteryUsageDataLoader.MAX_CAPTURE_DURATION_MS - 1));
+            return null;
+        };
+
+        BatteryUsageDataLoader.enqueueWork(mContext, /*isFullChargeStart=*/ false);
+
+        assertThat(mPreprocessCount.get()).isEqualTo(1);
+        assertThat(getExecuteJobLogs()).containsExactly(
+                "capture isFullChargeStart=false isSlotsDeferred=false in 29999/ms");
+    }
+
+    @Test
+    public void enqueueWork_overBudget_defersBatteryUsageSlots() {
+        BatteryUsageDataLoader.sExecutor = Runnable::run;
+        BatteryUsageDataLoader.sFakeAppUsageEventsSupplier = () -> {
+            mClock.setCurrentTime(
+                    Duration.ofMillis(BatteryUsageDataLoader.MAX_CAPTURE_DURATION_MS));
+            return null;
+        };
+
+        BatteryUsageDataLoader.enqueueWork(mContext, /*isFullChargeStart=*/ false);
+
+        assertThat(mPreprocessCount.get()).isEqualTo(0);
+        assertThat(getExecuteJobLogs()).containsExactly(
+                "capture isFullChargeStart=false isSlotsDeferred=true in 30000/ms");
+    }
+
+    private List<String> getExecuteJobLogs() {
+        final StringWriter stringWriter = new StringWriter();
+        BatteryUsageLogUtils.printHistoricalLog(mContext, new PrintWriter(stringWriter));
+        final List<String> logs = new ArrayList<>();
+        for (String line : stringWriter.toString().split("\n")) {
+            final int index = line.indexOf(" EXECUTE_JOB");
+            if (index >= 0) {
+                logs.add(line.substring(index + " EXECUTE_JOB ".length()));
+            }
+        }
+        return logs;
+    }
+
+    private void runQueuedCaptures() {
+        final List<Runnable> captures = new ArrayList<>(mQueuedCaptures);
+        mQueuedCaptures.clear();
+        captures.forEach(Runnable::run);
+    }
 }
@@ -332,6 +332,47 @@ public final class DataProcessorTest {
                 appUsageEventList.get(2), AppUsageEventType.DEVICE_SHUTDOWN, /*timestamp=*/ 4);
     }
 
+    @Test
+    public void ingestAppUsageEvents_moreEventsThanBatchSize_returnsBoundedBatches() {
+        final int eventCount = DataProcessor.APP_USAGE_EVENT_BATCH_SIZE + 1;
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < eventCount; i++) {
+            events.add(getUsageEvent(Event.ACTIVITY_RESUMED, /*timestamp=*/ i));
+        }
+        final Map<Long, UsageEvents> appUsageEvents = new HashMap<>();
+        appUsageEvents.put(101L, getUsageEvents(events));
+        final List<List<AppUsageEvent>> batches = new ArrayList<>();
+
+        final long size =
+                DataProcessor.ingestAppUsageEvents(mContext, appUsageEvents, batches::add);
+
+        assertThat(size).isEqualTo(eventCount);
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0)).hasSize(DataProcessor.APP_USAGE_EVENT_BATCH_SIZE);
+        assertThat(batches.get(1)).hasSize(1);
+        assertAppUsageEvent(batches.get(1).get(0), AppUsageEventType.ACTIVITY_RESUMED,
+                /*timestamp=*/ eventCount - 1);
+    }
+
+    @Test
+    public void ingestAppUsageEvents_batchFailed_stopsAfterFailedBatch() {
+        final int eventCount = DataProcessor.APP_USAGE_EVENT_BATCH_SIZE * 2 + 1;
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < eventCount; i++) {
+            events.add(getUsageEvent(Event.ACTIVITY_RESUMED, /*timestamp=*/ i));
+        }
+        final Map<Long, UsageEvents> appUsageEvents = new HashMap<>();
+        appUsageEvents.put(101L, getUsageEvents(events));
+        final List<List<AppUsageEvent>> batches = new ArrayList<>();
+
+        // The second batch fails to be stored.
+        final long size = DataProcessor.ingestAppUsageEvents(mContext, appUsageEvents,
+                batch -> batches.add(batch) && batches.size() < 2);
+
+        assertThat(size).isEqualTo(DataProcessor.APP_USAGE_EVENT_BATCH_SIZE);
+        assertThat(batches).hasSize(2);
+    }
+
     @Test
     public void getHistoryMapWithExpectedTimestamps_emptyHistoryMap_returnEmptyMap() {
         assertThat(DataProcessor
@@ -773,6 +814,20 @@ public final class DataProcessorTest {
         assertThat(results).isEqualTo(new long[] {40L, 0L});
     }
 
+    @Test
+    public void findNearestTimestamp_sortedArray_returnExpectedResult() {
+        final long[] timestamps = {10L, 20L, 30L, 40L};
+
+        assertThat(DataProcessor.findNearestTimestamp(timestamps, /*target=*/ 15L))
+                .isEqualTo(new long[] {10L, 20L});
+        assertThat(DataProcessor.findNearestTimestamp(timestamps, /*target=*/ 10L))
+                .isEqualTo(new long[] {10L, 10L});
+        assertThat(DataProcessor.findNearestTimestamp(timestamps, /*target=*/ 5L))
+                .isEqualTo(new long[] {0L, 10L});
+        assertThat(DataProcessor.findNearestTimestamp(timestamps, /*target=*/ 50L))
+                .isEqualTo(new long[] {40L, 0L});
+    }
+
     @Test
     public void getBatteryDiffDataMap_emptyHistoryMap_returnEmpty() {
         final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay =
@@ -24,7 +24,9 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -149,6 +151,25 @@ public final class DatabaseUtilsTest {
         verifyNoMoreInteractions(mMockContentResolver);
     }
 
+    @Test
+    public void sendAppUsageEventBatch_allInserted_returnsTrue() {
+        final List<AppUsageEvent> appUsageEventList = createAppUsageEventBatch();
+        when(mMockContentResolver.bulkInsert(eq(DatabaseUtils.APP_USAGE_EVENT_URI), any()))
+                .thenReturn(appUsageEventList.size());
+
+        assertThat(DatabaseUtils.sendAppUsageEventBatch(mContext, appUsageEventList)).isTrue();
+        verify(mMockContentResolver, never()).notifyChange(any(), any());
+    }
+
+    @Test
+    public void sendAppUsageEventBatch_insertFailed_returnsFalse() {
+        final List<AppUsageEvent> appUsageEventList = createAppUsageEventBatch();
+        when(mMockContentResolver.bulkInsert(eq(DatabaseUtils.APP_USAGE_EVENT_URI), any()))
+                .thenReturn(0);
+
+        assertThat(DatabaseUtils.sendAppUsageEventBatch(mContext, appUsageEventList)).isFalse();
+    }
+
     @Test
     public void sendBatteryEventData_returnsExpectedList() {
         final BatteryEvent batteryEvent =
@@ -592,4 +613,17 @@ public final class DatabaseUtilsTest {
                         BatteryHistEntry.KEY_CONSUMER_TYPE,
                         BatteryHistEntry.KEY_IS_FULL_CHARGE_CYCLE_START});
     }
+
+    private static List<AppUsageEvent> createAppUsageEventBatch() {
+        final List<AppUsageEvent> appUsageEventList = new ArrayList<>();
+        appUsageEventList.add(AppUsageEvent.newBuilder()
+                .setUid(101L)
+                .setType(AppUsageEventType.ACTIVITY_RESUMED)
+                .build());
+        appUsageEventList.add(AppUsageEvent.newBuilder()
+                .setUid(1001L)
+                .setType(AppUsageEventType.ACTIVITY_STOPPED)
+                .build());
+        return appUsageEventList;
+    }
 }
@@ -23,6 +23,7 @@ import static org.robolectric.Shadows.shadowOf;
 import android.app.AlarmManager;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Looper;
 
 import androidx.test.core.app.ApplicationProvider;
 
@@ -39,7 +40,10 @@ import org.robolectric.shadows.ShadowAlarmManager;
 
 import java.time.Clock;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** Tests of {@link PeriodicJobReceiver}. */
 @RunWith(RobolectricTestRunner.class)
@@ -52,6 +56,8 @@ public final class PeriodicJobReceiverTest {
     private PeriodicJobReceiver mReceiver;
     private PeriodicJobManager mPeriodicJobManager;
     private ShadowAlarmManager mShadowAlarmManager;
+    private final List<Runnable> mQueuedCaptures = new ArrayList<>();
+    private final AtomicInteger mFinishCount = new AtomicInteger();
 
     @Before
     public void setUp() {
@@ -70,6 +76,8 @@ public final class PeriodicJobReceiverTest {
     @After
     public void tearDown() {
         mPeriodicJobManager.reset();
+        runQueuedCaptures();
+        BatteryUsageDataLoader.sExecutor = null;
     }
 
     @Test
@@ -119,6 +127,63 @@ public final class PeriodicJobReceiverTest {
         assertThat(mShadowAlarmManager.peekNextScheduledAlarm()).isNull();
     }
 
+    @Test
+    public void onReceive_invalidAction_finishesBroadcastOnce() {
+        mReceiver.onReceive(mContext, new Intent("invalid request update intent"),
+                mFinishCount::incrementAndGet);
+
+        assertThat(mFinishCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void onReceive_captureFinished_finishesBroadcastOnce() {
+        BatteryUsageDataLoader.sExecutor = mQueuedCaptures::add;
+        mReceiver.onReceive(mContext, JOB_UPDATE_INTENT, mFinishCount::incrementAndGet);
+        assertThat(mFinishCount.get()).isEqualTo(0);
+
+        runQueuedCaptures();
+        assertThat(mFinishCount.get()).isEqualTo(1);
+
+        // The fallback of the runtime budget does not finish the broadcast again.
+        shadowOf(Looper.getMainLooper()).idleFor(
+                Duration.ofMillis(BatteryUsageDataLoader.MAX_CAPTURE_DURATION_MS));
+        assertThat(mFinishCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void onReceive_captureOverBudget_finishesBroadcastOnceAfterBudget() {
+        BatteryUsageDataLoader.sExecutor = mQueuedCaptures::add;
+        mReceiver.onReceive(mContext, JOB_UPDATE_INTENT, mFinishCount::incrementAndGet);
+
+        shadowOf(Looper.getMainLooper()).idleFor(
+                Duration.ofMillis(BatteryUsageDataLoader.MAX_CAPTURE_DURATION_MS - 1));
+        assertThat(mFinishCount.get()).isEqualTo(0);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(1));
+        assertThat(mFinishCount.get()).isEqualTo(1);
+
+        runQueuedCaptures();
+        assertThat(mFinishCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void onReceive_captureQueued_finishesSecondBroadcastRightAway() {
+        BatteryUsageDataLoader.sExecutor = mQueuedCaptures::add;
+        final AtomicInteger secondFinishCount = new AtomicInteger();
+
+        mReceiver.onReceive(mContext, JOB_UPDATE_INTENT, mFinishCount::incrementAndGet);
+        mReceiver.onReceive(mContext, JOB_UPDATE_INTENT, secondFinishCount::incrementAndGet);
+
+        assertThat(mQueuedCaptures).hasSize(1);
+        assertThat(mFinishCount.get()).isEqualTo(0);
+        assertThat(secondFinishCount.get()).isEqualTo(1);
+    }
+
+    private void runQueuedCaptures() {
+        final List<Runnable> captures = new ArrayList<>(mQueuedCaptures);
+        mQueuedCaptures.clear();
+        captures.forEach(Runnable::run);
+    }
+
     private void insertExpiredData(int shiftDay) {
         final long expiredTimeInMs =
                 Clock.systemUTC().millis() - Duration.ofDays(shiftDay).toMillis();
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.preference.Preference;
+import androidx.preference.PreferenceManager;
+import androidx.preference.PreferenceScreen;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.R;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
+import com.android.settings.widget.HomepagePreference;
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Locale;
+
+/** Tests for {@link TopLevelHomepageModel}. */
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowThreadUtils.class)
+public class TopLevelHomepageModelTest {
+    private static final String KEY = "top_level_storage";
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+    private String mPlaceholder;
+
+    @Before
+    public void setUp() {
+        mContext.getSharedPreferences(TopLevelHomepageModel.SHARED_PREFERENCE_NAME,
+                Context.MODE_PRIVATE).edit().clear().commit();
+        mPlaceholder = mContext.getString(R.string.summary_placeholder);
+    }
+
+    @Test
+    public void apply_afterSave_restoresPlaceholderSummary() {
+        new TopLevelHomepageModel().save(mContext, createScreen("45% used"));
+
+        final PreferenceScreen screen = createScreen(mPlaceholder);
+        createPreloadedModel(mContext).apply(mContext, screen);
+
+        final HomepagePreference preference = screen.findPreference(KEY);
+        assertThat(preference.getSummary().toString()).isEqualTo("45% used");
+        assertThat(preference.getHelper().isSummaryRestored()).isTrue();
+    }
+
+    @Test
+    public void apply_liveSummary_keepsLiveSummary() {
+        new TopLevelHomepageModel().save(mContext, createScreen("45% used"));
+
+        final PreferenceScreen screen = createScreen("50% used");
+        createPreloadedModel(mContext).apply(mContext, screen);
+
+        final HomepagePreference preference = screen.findPreference(KEY);
+        assertThat(preference.getSummary().toString()).isEqualTo("50% used");
+        assertThat(preference.getHelper().isSummaryRestored()).isFalse();
+    }
+
+    @Test
+    public void apply_notPreloaded_keepsPlaceholder() {
+        new TopLevelHomepageModel().save(mContext, createScreen("45% used"));
+
+        final PreferenceScreen screen = createScreen(mPlaceholder);
+        new TopLevelHomepageModel().apply(mContext, screen);
+
+        assertThat(screen.findPreference(KEY).getSummary().toString()).isEqualTo(mPlaceholder);
+    }
+
+    @Test
+    public void apply_localeChanged_keepsPlaceholder() {
+        new TopLevelHomepageModel().save(mContext, createScreen("45% used"));
+
+        final Configuration config = new Configuration(mContext.getResources().getConfiguration());
+        config.setLocale(Locale.FRANCE);
+        final Context frenchContext = mContext.createConfigurationContext(config);
+        final PreferenceScreen screen = createScreen(mPlaceholder);
+        createPreloadedModel(frenchContext).apply(frenchContext, screen);
+
+        assertThat(screen.findPreference(KEY).getSummary().toString()).isEqualTo(mPlaceholder);
+    }
+
+    @Test
+    public void apply_asyncController_keepsValueUntilControllerUpdates() {
+        new TopLevelHomepageModel().save(mContext, createScreen("45% used"));
+        final PreferenceScreen screen = createScreen(mPlaceholder);
+        createPreloadedModel(mContext).apply(mContext, screen);
+        final HomepagePreference preference = screen.findPreference(KEY);
+        final AsyncSummaryController controller = new AsyncSummaryController(mContext);
+
+        controller.updateState(preference);
+        assertThat(preference.getSummary().toString()).isEqualTo("45% used");
+        assertThat(preference.getHelper().isSummaryRestored()).isTrue();
+
+        ShadowLooper.idleMainLooper();
+        assertThat(preference.getSummary().toString()).isEqualTo("50% used");
+        assertThat(preference.getHelper().isSummaryRestored()).isFalse();
+    }
+
+    @Test
+    public void clearRestored_notUpdated_restoresPlaceholder() {
+        new TopLevelHomepageModel().save(mContext, createScreen("45% used"));
+        final PreferenceScreen screen = createScreen(mPlaceholder);
+        final TopLevelHomepageModel model = createPreloadedModel(mContext);
+        model.apply(mContext, screen);
+
+        model.clearRestored(mContext, screen);
+
+        final HomepagePreference preference = screen.findPreference(KEY);
+        assertThat(preference.getSummary().toString()).isEqualTo(mPlaceholder);
+        assertThat(preference.getHelper().isSummaryRestored()).isFalse();
+    }
+
+    @Test
+    public void clearRestored_updatedWithSameValue_keepsValue() {
+        new TopLevelHomepageModel().save(mContext, createScreen("45% used"));
+        final PreferenceScreen screen = createScreen(mPlaceholder);
+        final TopLevelHomepageModel model = createPreloadedModel(mContext);
+        model.apply(mContext, screen);
+        screen.findPreference(KEY).setSummary("45% used");
+
+        model.clearRestored(mContext, screen);
+
+        assertThat(screen.findPreference(KEY).getSummary().toString()).isEqualTo("45% used");
+    }
+
+    @Test
+    public void save_restoredValueNotUpdated_isNotPersistedAgain() {
+        new TopLevelHomepageModel().save(mContext, createScreen("45% used"));
+        final PreferenceScreen screen = createScreen(mPlaceholder);
+        final TopLevelHomepageModel model = createPreloadedModel(mContext);
+        model.apply(mContext, screen);
+
+        model.save(mContext, screen);
+
+        final PreferenceScreen nextScreen = createScreen(mPlaceholder);
+        createPreloadedModel(mContext).apply(mContext, nextScreen);
+        assertThat(nextScreen.findPreference(KEY).getSummary().toString())
+                .isEqualTo(mPlaceholder);
+    }
+
+    private static TopLevelHomepageModel createPreloadedModel(Context context) {
+        final TopLevelHomepageModel model = new TopLevelHomepageModel();
+        model.preload(context);
+        return model;
+    }
+
+    /** Controller that, like the battery entry, only knows its summary after a while. */
+    private static class AsyncSummaryController extends AbstractPreferenceController {
+
+        AsyncSummaryController(Context context) {
+            super(context);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getPreferenceKey() {
+            return KEY;
+        }
+
+        @Override
+        public void updateState(Preference preference) {
+            super.updateState(preference);
+            new Handler(Looper.getMainLooper()).post(() -> preference.setSummary("50% used"));
+        }
+    }
+
+    private PreferenceScreen createScreen(String summary) {
+        final PreferenceScreen screen =
+                new PreferenceManager(mContext).createPreferenceScreen(mContext);
+        final Preference preference = new HomepagePreference(mContext);
+        preference.setKey(KEY);
+        preference.setTitle("Storage");
+        preference.setSummary(summary);
+        screen.addPreference(preference);
+        return screen;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.notification;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Tests for {@link DndBypassingChannelsIndex}. */
+@RunWith(RobolectricTestRunner.class)
+public class DndBypassingChannelsIndexTest {
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final int UID = 10001;
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+    private final AtomicInteger mLoadCount = new AtomicInteger();
+    private DndBypassingChannelsIndex mIndex;
+
+    @Before
+    public void setUp() {
+        mIndex = new DndBypassingChannelsIndex();
+    }
+
+    @Test
+    public void getChannels_notListening_loadsEveryTime() {
+        mIndex.getChannels(PACKAGE_NAME, UID, this::loadChannels);
+        mIndex.getChannels(PACKAGE_NAME, UID, this::loadChannels);
+
+        assertThat(mLoadCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void getChannels_listening_loadsOnce() {
+        mIndex.startListening(mContext);
+
+        assertThat(mIndex.getChannels(PACKAGE_NAME, UID, this::loadChannels)).hasSize(1);
+        assertThat(mIndex.getChannels(PACKAGE_NAME, UID, this::loadChannels)).hasSize(1);
+
+        assertThat(mLoadCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidateOnResume_reloadsChannelsOnEveryResume() {
+        final LifecycleOwner owner = mock(LifecycleOwner.class);
+        final LifecycleRegistry lifecycle = LifecycleRegistry.createUnsafe(owner);
+        when(owner.getLifecycle()).thenReturn(lifecycle);
+        mIndex.startListening(mContext);
+        mIndex.invalidateOnResume(owner);
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_RESUME);
+        mIndex.getChannels(PACKAGE_NAME, UID, this::loadChannels);
+        mIndex.getChannels(PACKAGE_NAME, UID, this::loadChannels);
+
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_PAUSE);
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_RESUME);
+        mIndex.getChannels(PACKAGE_NAME, UID, this::loadChannels);
+
+        assertThat(mLoadCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidate_reloadsChannelsOfThatUidOnly() {
+        mIndex.startListening(mContext);
+        mIndex.getChannels(PACKAGE_NAME, UID, this::loadChannels);
+        mIndex.getChannels(PACKAGE_NAME, UID + 1, this::loadChannels);
+
+        mIndex.invalidate(PACKAGE_NAME, UID);
+        mIndex.getChannels(PACKAGE_NAME, UID, this::loadChannels);
+        mIndex.getChannels(PACKAGE_NAME, UID + 1, this::loadChannels);
+
+        assertThat(mLoadCount.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void invalidatePackage_reloadsChannels() {
+        mIndex.startListening(mContext);
+        mIndex.getChannels(PACKAGE_NAME, UID, this::loadChannels);
+
+        mIndex.invalidatePackage(PACKAGE_NAME);
+        mIndex.getChannels(PACKAGE_NAME, UID, this::loadChannels);
+
+        assertThat(mLoadCount.get()).isEqualTo(2);
+    }
+
+    private List<NotificationChannel> loadChannels() {
+        mLoadCount.incrementAndGet();
+        return Collections.singletonList(
+                new NotificationChannel("id", "name", NotificationManager.IMPORTANCE_HIGH));
+    }
+}
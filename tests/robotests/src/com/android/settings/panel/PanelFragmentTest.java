@@ -109,6 +109,21 @@ public class PanelFragmentTest {
         assertThat(countdownLatch.isPanelReadyToLoad()).isTrue();
     }
 
+    @Test
+    public void countdownLatch_leadingSliceLoaded_panelReadyToReveal() {
+        final Uri leadingUri = Uri.parse("content://com.android.settings.slices/leading");
+        final Uri trailingUri = Uri.parse("content://com.android.settings.slices/trailing");
+        final PanelSlicesLoaderCountdownLatch countdownLatch =
+                new PanelSlicesLoaderCountdownLatch(2 /* countdownSize */);
+
+        countdownLatch.markSliceLoaded(trailingUri);
+        assertThat(countdownLatch.isPanelReadyToReveal(leadingUri)).isFalse();
+
+        countdownLatch.markSliceLoaded(leadingUri);
+        assertThat(countdownLatch.isPanelReadyToReveal(leadingUri)).isTrue();
+        assertThat(countdownLatch.isPanelReadyToReveal(leadingUri)).isFalse();
+    }
+
     @Test
     public void onCreate_logsOpenEvent() {
         initFakeActivity();
@@ -183,6 +183,26 @@ public class PanelSlicesAdapterTest {
         assertThat(adapter.getData().size()).isEqualTo(MAX_NUM_OF_SLICES);
     }
 
+    @Test
+    public void removeSlice_updatesSlicePositions() {
+        final Uri uri0 = Uri.parse("uri0");
+        final Uri uri1 = Uri.parse("uri1");
+        final Uri uri2 = Uri.parse("uri2");
+        addTestLiveData(uri0);
+        addTestLiveData(uri1);
+        addTestLiveData(uri2);
+        final PanelSlicesAdapter adapter =
+                new PanelSlicesAdapter(mPanelFragment, mData, 0 /* metrics category */);
+
+        adapter.removeSlice(uri1);
+
+        assertThat(adapter.getItemCount()).isEqualTo(2);
+        assertThat(adapter.getSlicePosition(uri0)).isEqualTo(0);
+        assertThat(adapter.getSlicePosition(uri1)).isEqualTo(-1);
+        assertThat(adapter.getSlicePosition(uri2)).isEqualTo(1);
+        assertThat(adapter.getData().get(1)).isSameInstanceAs(mData.get(uri2));
+    }
+
     @Test
     public void mediaOutputIndicatorSlice_notSliderPanel_noSliderLayout() {
         addTestLiveData(MEDIA_OUTPUT_INDICATOR_SLICE_URI);
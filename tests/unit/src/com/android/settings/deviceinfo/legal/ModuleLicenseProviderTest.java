@@ -28,9 +28,12 @@ import static org.mockito.Mockito.when;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.ModuleInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
 import android.net.Uri;
 
 import androidx.test.core.app.ApplicationProvider;
@@ -40,9 +43,15 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
 
 @RunWith(AndroidJUnit4.class)
 public class ModuleLicenseProviderTest {
@@ -381,6 +390,42 @@ public class ModuleLicenseProviderTest {
         assertThat(ModuleLicenseProvider.isCachedHtmlFileOutdated(context, PACKAGE_NAME)).isFalse();
     }
 
+    @Test
+    public void refreshOutdatedCachedHtmlFiles_outdated_writesFileAndVersionCode()
+            throws PackageManager.NameNotFoundException, IOException {
+        Context context = spy(ApplicationProvider.getApplicationContext());
+        context.getSharedPreferences(ModuleLicenseProvider.PREFS_NAME, Context.MODE_PRIVATE)
+                .edit().clear().commit();
+        PackageManager packageManager = mock(PackageManager.class);
+        doReturn(packageManager).when(context).getPackageManager();
+        PackageInfo packageInfo = new PackageInfo();
+        packageInfo.setLongVersionCode(1000L);
+        packageInfo.applicationInfo = new ApplicationInfo();
+        when(packageManager.getPackageInfo(PACKAGE_NAME, PackageManager.MATCH_APEX))
+                .thenReturn(packageInfo);
+        Resources resources = mock(Resources.class);
+        when(packageManager.getResourcesForApplication(packageInfo.applicationInfo))
+                .thenReturn(resources);
+        AssetManager assetManager = mock(AssetManager.class);
+        when(resources.getAssets()).thenReturn(assetManager);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write("test".getBytes(StandardCharsets.UTF_8));
+        }
+        when(assetManager.open(ModuleLicenseProvider.GZIPPED_LICENSE_FILE_NAME))
+                .thenReturn(new ByteArrayInputStream(gzipped.toByteArray()));
+        File file = new File(context.getCacheDir() + "/" + PACKAGE_NAME, LICENSE_FILE_NAME);
+        file.delete();
+
+        ModuleLicenseProvider.refreshOutdatedCachedHtmlFiles(context,
+                Collections.singletonList(PACKAGE_NAME));
+
+        assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))
+                .isEqualTo("test");
+        assertThat(ModuleLicenseProvider.isCachedHtmlFileOutdated(context, PACKAGE_NAME))
+                .isFalse();
+    }
+
     @Test
     public void getUriForPackage_returnsProperlyFormattedUri() {
         assertThat(ModuleLicenseProvider.getUriForPackage(PACKAGE_NAME))
@@ -47,6 +47,7 @@ import androidx.test.annotation.UiThreadTest;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.android.internal.net.VpnProfile;
 import com.android.settings.testutils.FakeFeatureFactory;
 
 import org.junit.Before;
@@ -59,6 +60,7 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -197,6 +199,31 @@ public class VpnSettingsTest {
                 mAppOpsManager)).isEmpty();
     }
 
+    @Test
+    public void updatePreferences_sameState_isSameAs() {
+        final List<VpnProfile> profiles = new ArrayList<>();
+        final List<AppVpnInfo> apps = new ArrayList<>();
+        apps.add(new AppVpnInfo(USER_ID_1, VPN_PACKAGE_NAME));
+
+        final VpnSettings.UpdatePreferences update = new VpnSettings.UpdatePreferences(mVpnSettings)
+                .legacyVpns(profiles, Collections.emptyMap(), null /* lockdownVpnKey */)
+                .appVpns(apps, Collections.emptySet(), Collections.emptySet());
+        final VpnSettings.UpdatePreferences sameUpdate =
+                new VpnSettings.UpdatePreferences(mVpnSettings)
+                        .legacyVpns(profiles, Collections.emptyMap(), null /* lockdownVpnKey */)
+                        .appVpns(new ArrayList<>(apps), Collections.emptySet(),
+                                Collections.emptySet());
+        final VpnSettings.UpdatePreferences connectedUpdate =
+                new VpnSettings.UpdatePreferences(mVpnSettings)
+                        .legacyVpns(profiles, Collections.emptyMap(), null /* lockdownVpnKey */)
+                        .appVpns(apps, Collections.singleton(apps.get(0)),
+                                Collections.emptySet());
+
+        assertThat(update.isSameAs(sameUpdate)).isTrue();
+        assertThat(update.isSameAs(connectedUpdate)).isFalse();
+        assertThat(update.isSameAs(null)).isFalse();
+    }
+
     @Test
     public void clickVpn_VpnConnected_doesNotStartVpnLaunchIntent()
             throws PackageManager.NameNotFoundException {